@@ -0,0 +1,127 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.aygo.eciComm.model.analysis.UserBehavior;
+import com.aygo.eciComm.model.enums.InferenceKind;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+// Cost of turning one batch of recommendation requests into the endpoint body, JSON instances against
+// packed FeatureVectors. Each side includes the per-request step the caller pays at submit time:
+//
+//   mvn -P jmh test-compile exec:exec -Djmh.args="InferenceEncodingBenchmark -prof gc"
+//
+// The body sizes of both encodings are printed once per trial.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InferenceEncodingBenchmark {
+
+	@Param({ "16" })
+	private int batchSize;
+
+	// Viewed products per user, purchases are a tenth of that
+	@Param({ "20", "200" })
+	private int viewed;
+
+	private ObjectMapper objectMapper;
+	private FeatureEncoder featureEncoder;
+	private InferenceBatcher batcher;
+	private List<UserBehavior> behaviors;
+
+	@Setup(Level.Trial)
+	public void setUp() throws JsonProcessingException {
+		objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+		featureEncoder = new FeatureEncoder();
+		ReflectionTestUtils.setField(featureEncoder, "priceBuckets", 16);
+		ReflectionTestUtils.setField(featureEncoder, "productBuckets", 65536);
+		batcher = new InferenceBatcher();
+		ReflectionTestUtils.setField(batcher, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(batcher, "featureEncoder", featureEncoder);
+
+		SplittableRandom random = new SplittableRandom(42);
+		behaviors = new ArrayList<>(batchSize);
+		for (int i = 0; i < batchSize; i++) {
+			behaviors.add(behavior("USER_" + i, random));
+		}
+
+		System.out.printf("%nBody bytes for %d users with %d viewed products: json %d, binary %d%n", batchSize,
+				viewed, json().length, binary().length);
+	}
+
+	@Benchmark
+	public byte[] json() throws JsonProcessingException {
+		List<JsonNode> inputs = new ArrayList<>(behaviors.size());
+		for (UserBehavior behavior : behaviors) {
+			// What BehaviorAnalysisService submits and the batcher turns into a tree
+			Map<String, Object> input = new HashMap<>();
+			input.put("kind", InferenceKind.RECOMMENDATIONS);
+			input.put("user_id", behavior.getUserId());
+			input.put("behavior", behavior);
+			inputs.add(objectMapper.valueToTree(input));
+		}
+		return batcher.encodeJson(inputs);
+	}
+
+	@Benchmark
+	public byte[] binary() {
+		List<FeatureVector> inputs = new ArrayList<>(behaviors.size());
+		for (UserBehavior behavior : behaviors) {
+			inputs.add(featureEncoder.encode(InferenceKind.RECOMMENDATIONS, behavior));
+		}
+		return batcher.encodeBinary(inputs);
+	}
+
+	private UserBehavior behavior(String userId, SplittableRandom random) {
+		UserBehavior behavior = new UserBehavior();
+		behavior.setUserId(userId);
+		behavior.setSessionId("SESSION_" + random.nextInt(1_000_000));
+
+		List<String> viewedProducts = new ArrayList<>(viewed);
+		for (int i = 0; i < viewed; i++) {
+			viewedProducts.add(String.format("PROD_%07d", random.nextInt(1_000_000)));
+		}
+		behavior.setViewedProducts(viewedProducts);
+		behavior.setPurchasedProducts(new ArrayList<>(viewedProducts.subList(0, viewed / 10)));
+
+		Map<String, Integer> categoryViews = new LinkedHashMap<>();
+		for (String category : List.of("ELECTRONICS", "CLOTHING", "BOOKS", "HOME_AND_GARDEN")) {
+			categoryViews.put(category, random.nextInt(50));
+		}
+		behavior.setCategoryViews(categoryViews);
+		behavior.setPriceRangePreferences(Map.of("0-50", 0.2, "50-200", 0.5, "200+", 0.3));
+		behavior.setSearchQueries(List.of("laptop", "usb c hub", "wireless mouse"));
+		behavior.setLastActivityTime(Instant.parse("2026-01-01T00:00:00Z"));
+		behavior.setAverageSessionDuration(Duration.ofMinutes(7));
+		behavior.setCartAbandonment(random.nextInt(5));
+		return behavior;
+	}
+}
@@ -0,0 +1,130 @@
+package com.aygo.eciComm.tools.data;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aygo.eciComm.model.Product;
+import com.aygo.eciComm.model.enums.ProductCategory;
+import com.aygo.eciComm.model.enums.ProductStatus;
+import com.aygo.eciComm.model.response.ProductSearchResult;
+import com.aygo.eciComm.service.search.ProductSearchService;
+
+// Query latency of ProductSearchService over the catalog the data generator produces for the same seed:
+//
+//   mvn -P jmh test-compile exec:exec -Djmh.args="SearchBenchmark -p products=1000000"
+//
+// The index is built once per fork, then single-threaded queries are sampled one by one from a mix of exact
+// terms, two-term queries, prefixes of the last term, misspellings and category filtered queries. The kind
+// parameter times one of them on its own.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class SearchBenchmark {
+
+	private static final ProductCategory[] CATEGORIES = { ProductCategory.ELECTRONICS, ProductCategory.CLOTHING,
+			ProductCategory.BOOKS, ProductCategory.HOME_AND_GARDEN };
+
+	private static final String[] KINDS = { "brand", "twoTerms", "prefix", "misspelled", "model" };
+
+	@Param({ "100000", "1000000" })
+	private long products;
+
+	@Param("42")
+	private long seed;
+
+	@Param({ "mixed" })
+	private String kind;
+
+	@Param("20")
+	private int size;
+
+	private ProductSearchService search;
+	private String[] queries;
+	private SplittableRandom random;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void index() {
+		long productSeed = ParallelDataGenerator.datasetSeed(seed, ParallelDataGenerator.PRODUCTS_SALT);
+		int idWidth = ParallelDataGenerator.idWidth(products);
+		random = new SplittableRandom(seed);
+
+		search = new ProductSearchService();
+		for (long i = 0; i < products; i++) {
+			search.index(product(SyntheticProduct.of(productSeed, i), idWidth));
+		}
+
+		queries = new String[1024];
+		for (int i = 0; i < queries.length; i++) {
+			String queryKind = "mixed".equals(kind) ? KINDS[random.nextInt(KINDS.length)] : kind;
+			queries[i] = query(queryKind, SyntheticProduct.of(productSeed, random.nextLong(products)));
+		}
+	}
+
+	// Every fifth query is restricted to a category
+	@Benchmark
+	public ProductSearchResult search() {
+		int i = next++;
+		ProductCategory category = i % 5 == 0 ? CATEGORIES[(i / 5) % CATEGORIES.length] : null;
+		return search.search(queries[i & (queries.length - 1)], category, null, 0, size);
+	}
+
+	private String query(String queryKind, SyntheticProduct synthetic) {
+		String brand = synthetic.brand().toLowerCase();
+		String subcategory = synthetic.subcategoryName().toLowerCase();
+		return switch (queryKind) {
+		case "brand" -> brand;
+		case "twoTerms" -> subcategory + " " + brand;
+		case "prefix" -> subcategory + " " + brand.substring(0, Math.min(brand.length(), 3));
+		case "misspelled" -> misspell(subcategory);
+		case "model" -> brand + " " + synthetic.model();
+		default -> throw new IllegalArgumentException("Unknown query kind " + queryKind);
+		};
+	}
+
+	// Swaps two neighbouring letters, one edit away for the fuzzy matcher
+	private String misspell(String term) {
+		if (term.length() < 5) {
+			return term;
+		}
+		int at = 1 + random.nextInt(term.length() - 2);
+		char[] chars = term.toCharArray();
+		chars[at] = term.charAt(at + 1);
+		chars[at + 1] = term.charAt(at);
+		return new String(chars);
+	}
+
+	// The searchable fields of the product DynamoDbBulkLoader writes for the same index
+	private static Product product(SyntheticProduct synthetic, int idWidth) {
+		Product product = new Product();
+		product.setId(ParallelDataGenerator.padded("PROD_", synthetic.index(), idWidth));
+		product.setName(synthetic.name());
+		product.setDescription(synthetic.subcategoryName() + " by " + synthetic.brand() + ", model "
+				+ synthetic.model());
+		product.setPrice(BigDecimal.valueOf(synthetic.priceCents(), 2));
+		product.setCategory(CATEGORIES[synthetic.category()]);
+		product.setProductStatus(ProductStatus.ACTIVE);
+		product.setTags(Set.of(synthetic.subcategoryName().toLowerCase(), synthetic.brand().toLowerCase()));
+		product.setAttributes(Map.of("brand", synthetic.brand(), "model", synthetic.model()));
+		return product;
+	}
+}
@@ -1,7 +1,9 @@
 package com.aygo.eciComm.config;
 
+import java.net.URI;
 import java.time.Duration;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,27 +11,67 @@ import org.springframework.context.annotation.Configuration;
 import com.amazonaws.services.sagemakerruntime.AmazonSageMakerRuntime;
 import com.amazonaws.services.sagemakerruntime.AmazonSageMakerRuntimeClientBuilder;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.core.retry.RetryPolicy;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 @Configuration
 public class AWSConfig {
 	@Value("${aws.region}")
 	private String awsRegion;
 
+	// Optional endpoint for a local S3 stand-in such as MinIO or LocalStack
+	@Value("${aws.s3.endpoint:}")
+	private String s3Endpoint;
+
+	// Shared by every AWS client so all SDK calls report the same metrics
+	@Bean
+	public AwsClientMetrics awsClientMetrics(MeterRegistry meterRegistry) {
+		return new AwsClientMetrics(meterRegistry);
+	}
+
+	// Spans for every SDK call, a no-op when tracing is turned off
+	@Bean
+	public AwsClientTracing awsClientTracing(ObjectProvider<Tracer> tracer) {
+		return new AwsClientTracing(tracer.getIfAvailable(() -> Tracer.NOOP));
+	}
+
 	// S3 Client configuration
 	@Bean
-	public S3Client s3Client() {
-		return S3Client.builder().region(Region.of(awsRegion))
+	public S3Client s3Client(AwsClientMetrics awsClientMetrics, AwsClientTracing awsClientTracing) {
+		S3ClientBuilder builder = S3Client.builder();
+		if (!s3Endpoint.isBlank()) {
+			builder.endpointOverride(URI.create(s3Endpoint)).forcePathStyle(true);
+		}
+
+		return builder.region(Region.of(awsRegion))
 				// This will use the default credential chain (ideal for both local dev and AWS
 				// deployment)
 				.credentialsProvider(DefaultCredentialsProvider.create())
 				// Adding some sensible defaults for timeouts
 				.overrideConfiguration(ClientOverrideConfiguration.builder().apiCallTimeout(Duration.ofSeconds(30))
-						.retryPolicy(RetryPolicy.builder().numRetries(3).build()).build())
+						.retryPolicy(RetryPolicy.builder().numRetries(3).build())
+						.addExecutionInterceptor(awsClientMetrics).addExecutionInterceptor(awsClientTracing).build())
 				.build();
 	}
+
+	// Presigner for direct-to-S3 uploads, signing happens locally without a network call
+	@Bean
+	public S3Presigner s3Presigner() {
+		S3Presigner.Builder builder = S3Presigner.builder();
+		if (!s3Endpoint.isBlank()) {
+			builder.endpointOverride(URI.create(s3Endpoint))
+					.serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build());
+		}
+
+		return builder.region(Region.of(awsRegion))
+				.credentialsProvider(DefaultCredentialsProvider.create()).build();
+	}
 }
\ No newline at end of file
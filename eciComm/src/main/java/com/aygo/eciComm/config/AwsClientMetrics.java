@@ -0,0 +1,166 @@
+package com.aygo.eciComm.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+// Times every AWS SDK call, retries included, by service, operation and the table, bucket or endpoint it
+// targets. DynamoDB requests are also asked to return their consumed capacity, which is counted per table
+// so the tables drawing most of the provisioned throughput can be found without CloudWatch.
+public class AwsClientMetrics implements ExecutionInterceptor {
+
+	private static final ExecutionAttribute<Long> STARTED = new ExecutionAttribute<>("MetricsStarted");
+
+	// Request fields naming what a call targets, in the order they are looked up
+	private static final List<String> RESOURCE_FIELDS = List.of("TableName", "Bucket", "EndpointName");
+
+	private final MeterRegistry meterRegistry;
+
+	public AwsClientMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+		executionAttributes.putAttribute(STARTED, System.nanoTime());
+	}
+
+	@Override
+	public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+		SdkRequest request = context.request();
+		ReturnConsumedCapacity total = ReturnConsumedCapacity.TOTAL;
+
+		// Callers asking for more detail (INDEXES) keep their setting
+		return switch (request) {
+		case GetItemRequest get when get.returnConsumedCapacity() == null ->
+			get.toBuilder().returnConsumedCapacity(total).build();
+		case PutItemRequest put when put.returnConsumedCapacity() == null ->
+			put.toBuilder().returnConsumedCapacity(total).build();
+		case UpdateItemRequest update when update.returnConsumedCapacity() == null ->
+			update.toBuilder().returnConsumedCapacity(total).build();
+		case DeleteItemRequest delete when delete.returnConsumedCapacity() == null ->
+			delete.toBuilder().returnConsumedCapacity(total).build();
+		case QueryRequest query when query.returnConsumedCapacity() == null ->
+			query.toBuilder().returnConsumedCapacity(total).build();
+		case ScanRequest scan when scan.returnConsumedCapacity() == null ->
+			scan.toBuilder().returnConsumedCapacity(total).build();
+		case BatchGetItemRequest batch when batch.returnConsumedCapacity() == null ->
+			batch.toBuilder().returnConsumedCapacity(total).build();
+		case BatchWriteItemRequest batch when batch.returnConsumedCapacity() == null ->
+			batch.toBuilder().returnConsumedCapacity(total).build();
+		case TransactGetItemsRequest transact when transact.returnConsumedCapacity() == null ->
+			transact.toBuilder().returnConsumedCapacity(total).build();
+		case TransactWriteItemsRequest transact when transact.returnConsumedCapacity() == null ->
+			transact.toBuilder().returnConsumedCapacity(total).build();
+		default -> request;
+		};
+	}
+
+	@Override
+	public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+		record(context.request(), executionAttributes, "success");
+
+		String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+		SdkResponse response = context.response();
+		switch (response) {
+		case GetItemResponse get -> consumed(operation, "read", get.consumedCapacity());
+		case QueryResponse query -> consumed(operation, "read", query.consumedCapacity());
+		case ScanResponse scan -> consumed(operation, "read", scan.consumedCapacity());
+		case BatchGetItemResponse batch -> batch.consumedCapacity().forEach(c -> consumed(operation, "read", c));
+		case TransactGetItemsResponse transact ->
+			transact.consumedCapacity().forEach(c -> consumed(operation, "read", c));
+		case PutItemResponse put -> consumed(operation, "write", put.consumedCapacity());
+		case UpdateItemResponse update -> consumed(operation, "write", update.consumedCapacity());
+		case DeleteItemResponse delete -> consumed(operation, "write", delete.consumedCapacity());
+		case BatchWriteItemResponse batch -> batch.consumedCapacity().forEach(c -> consumed(operation, "write", c));
+		case TransactWriteItemsResponse transact ->
+			transact.consumedCapacity().forEach(c -> consumed(operation, "write", c));
+		default -> {
+		}
+		}
+	}
+
+	@Override
+	public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+		// Service error codes are a small fixed set, e.g. ConditionalCheckFailed or ProvisionedThroughputExceeded
+		Throwable failure = context.exception();
+		String outcome = failure instanceof AwsServiceException serviceException
+				&& serviceException.awsErrorDetails() != null && serviceException.awsErrorDetails().errorCode() != null
+						? serviceException.awsErrorDetails().errorCode()
+						: failure.getClass().getSimpleName();
+		record(context.request(), executionAttributes, outcome);
+	}
+
+	private void record(SdkRequest request, ExecutionAttributes executionAttributes, String outcome) {
+		Long started = executionAttributes.getAttribute(STARTED);
+		if (started == null) {
+			return;
+		}
+
+		Timer.builder("aws.client.calls").description("AWS SDK calls including retries")
+				.tags("service", executionAttributes.getAttribute(SdkExecutionAttribute.SERVICE_NAME), "operation",
+						executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME), "resource",
+						resource(request), "outcome", outcome)
+				.publishPercentileHistogram().minimumExpectedValue(Duration.ofMillis(1))
+				.maximumExpectedValue(Duration.ofSeconds(30)).register(meterRegistry)
+				.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+	}
+
+	private void consumed(String operation, String capacity, ConsumedCapacity consumedCapacity) {
+		if (consumedCapacity == null || consumedCapacity.capacityUnits() == null) {
+			return;
+		}
+		meterRegistry.counter("dynamodb.consumed.capacity", "table", consumedCapacity.tableName(), "operation",
+				operation, "capacity", capacity).increment(consumedCapacity.capacityUnits());
+	}
+
+	// Batch and transactional calls may span tables, they are reported under the only table or as "multiple"
+	static String resource(SdkRequest request) {
+		for (String field : RESOURCE_FIELDS) {
+			String value = request.getValueForField(field, String.class).orElse(null);
+			if (value != null) {
+				return value;
+			}
+		}
+
+		Map<?, ?> items = request.getValueForField("RequestItems", Map.class).orElse(null);
+		if (items != null && !items.isEmpty()) {
+			return items.size() == 1 ? String.valueOf(items.keySet().iterator().next()) : "multiple";
+		}
+		return "none";
+	}
+}
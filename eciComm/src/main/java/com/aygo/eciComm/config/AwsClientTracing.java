@@ -0,0 +1,152 @@
+package com.aygo.eciComm.config;
+
+import java.util.Collection;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+// One client span per AWS SDK call, a child of the span current on the calling thread. Spans carry the
+// table, bucket or endpoint, the number of items sent or returned, the attempts the call took and, for
+// DynamoDB, the consumed capacity AwsClientMetrics asked for, which is enough to tell a slow table from
+// a retried or oversized batch.
+public class AwsClientTracing implements ExecutionInterceptor {
+
+	private static final ExecutionAttribute<Span> SPAN = new ExecutionAttribute<>("TracingSpan");
+	private static final ExecutionAttribute<Integer> ATTEMPTS = new ExecutionAttribute<>("TracingAttempts");
+
+	private final Tracer tracer;
+
+	public AwsClientTracing(Tracer tracer) {
+		this.tracer = tracer;
+	}
+
+	@Override
+	public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+		String service = executionAttributes.getAttribute(SdkExecutionAttribute.SERVICE_NAME);
+		String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+		SdkRequest request = context.request();
+
+		Span.Builder builder = tracer.spanBuilder().name(service + "." + operation).kind(Span.Kind.CLIENT)
+				.remoteServiceName(service).tag("aws.service", service).tag("aws.operation", operation)
+				.tag("aws.resource", AwsClientMetrics.resource(request));
+		long items = requestItems(request);
+		if (items >= 0) {
+			builder.tag("aws.request.items", String.valueOf(items));
+		}
+
+		executionAttributes.putAttribute(SPAN, builder.start());
+		executionAttributes.putAttribute(ATTEMPTS, 0);
+	}
+
+	@Override
+	public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+		Integer attempts = executionAttributes.getAttribute(ATTEMPTS);
+		executionAttributes.putAttribute(ATTEMPTS, attempts == null ? 1 : attempts + 1);
+	}
+
+	@Override
+	public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+		Span span = executionAttributes.getAttribute(SPAN);
+		if (span == null) {
+			return;
+		}
+
+		SdkResponse response = context.response();
+		if (response instanceof AwsResponse awsResponse && awsResponse.responseMetadata() != null) {
+			span.tag("aws.request.id", awsResponse.responseMetadata().requestId());
+		}
+		long items = responseItems(response);
+		if (items >= 0) {
+			span.tag("aws.response.items", items);
+		}
+		double capacity = consumedCapacity(response);
+		if (capacity > 0) {
+			span.tag("aws.dynamodb.consumed.capacity", capacity);
+		}
+		end(span, executionAttributes);
+	}
+
+	@Override
+	public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+		Span span = executionAttributes.getAttribute(SPAN);
+		if (span != null) {
+			span.error(context.exception());
+			end(span, executionAttributes);
+		}
+	}
+
+	private static void end(Span span, ExecutionAttributes executionAttributes) {
+		Integer attempts = executionAttributes.getAttribute(ATTEMPTS);
+		if (attempts != null) {
+			span.tag("aws.attempts", attempts);
+		}
+		span.end();
+	}
+
+	// -1 where the call does not deal in items, e.g. S3 objects or SageMaker invocations
+	private static long requestItems(SdkRequest request) {
+		return switch (request) {
+		case GetItemRequest get -> 1;
+		case PutItemRequest put -> 1;
+		case UpdateItemRequest update -> 1;
+		case DeleteItemRequest delete -> 1;
+		case BatchWriteItemRequest batch -> sum(batch.requestItems().values());
+		case BatchGetItemRequest batch -> batch.requestItems().values().stream().mapToLong(keys -> keys.keys().size())
+				.sum();
+		case TransactWriteItemsRequest transact -> transact.transactItems().size();
+		case TransactGetItemsRequest transact -> transact.transactItems().size();
+		default -> -1;
+		};
+	}
+
+	private static long responseItems(SdkResponse response) {
+		return switch (response) {
+		case QueryResponse query -> query.count();
+		case ScanResponse scan -> scan.count();
+		case GetItemResponse get -> get.hasItem() ? 1 : 0;
+		case BatchGetItemResponse batch -> sum(batch.responses().values());
+		default -> -1;
+		};
+	}
+
+	private static double consumedCapacity(SdkResponse response) {
+		ConsumedCapacity consumed = switch (response) {
+		case GetItemResponse get -> get.consumedCapacity();
+		case PutItemResponse put -> put.consumedCapacity();
+		case UpdateItemResponse update -> update.consumedCapacity();
+		case DeleteItemResponse delete -> delete.consumedCapacity();
+		case QueryResponse query -> query.consumedCapacity();
+		case ScanResponse scan -> scan.consumedCapacity();
+		default -> null;
+		};
+		return consumed == null || consumed.capacityUnits() == null ? 0 : consumed.capacityUnits();
+	}
+
+	private static long sum(Collection<? extends Collection<?>> byTable) {
+		return byTable.stream().mapToLong(Collection::size).sum();
+	}
+}
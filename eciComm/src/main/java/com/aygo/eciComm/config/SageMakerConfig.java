@@ -5,6 +5,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.sagemakerruntime.SageMakerRuntimeClient;
 
@@ -15,8 +16,12 @@ public class SageMakerConfig {
 	private String awsRegion;
 
 	@Bean
-	public SageMakerRuntimeClient sageMakerRuntimeClient() {
+	public SageMakerRuntimeClient sageMakerRuntimeClient(AwsClientMetrics awsClientMetrics,
+			AwsClientTracing awsClientTracing) {
 		return SageMakerRuntimeClient.builder().region(Region.US_EAST_1)
-				.credentialsProvider(DefaultCredentialsProvider.create()).build();
+				.credentialsProvider(DefaultCredentialsProvider.create())
+				.overrideConfiguration(ClientOverrideConfiguration.builder()
+						.addExecutionInterceptor(awsClientMetrics).addExecutionInterceptor(awsClientTracing).build())
+				.build();
 	}
 }
\ No newline at end of file
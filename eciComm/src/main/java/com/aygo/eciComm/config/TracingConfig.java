@@ -0,0 +1,20 @@
+package com.aygo.eciComm.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+@Configuration
+public class TracingConfig {
+
+	// Finished spans written to the application log, for local runs without a collector. Boot registers
+	// every SpanExporter bean next to the OTLP exporter configured by management.otlp.tracing.endpoint.
+	@Bean
+	@ConditionalOnProperty(name = "tracing.log-spans", havingValue = "true")
+	public SpanExporter loggingSpanExporter() {
+		return LoggingSpanExporter.create();
+	}
+}
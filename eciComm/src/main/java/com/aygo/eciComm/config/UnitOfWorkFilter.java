@@ -0,0 +1,35 @@
+package com.aygo.eciComm.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.aygo.eciComm.repository.UnitOfWork;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Each request gets its own identity map, dropped with everything in it once the response is written
+@Component
+public class UnitOfWorkFilter extends OncePerRequestFilter {
+
+	@Autowired
+	private UnitOfWork unitOfWork;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		UnitOfWork.Scope scope = unitOfWork.open();
+		try {
+			chain.doFilter(request, response);
+		}
+
+		finally {
+			scope.close();
+		}
+	}
+}
@@ -6,6 +6,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.aygo.eciComm.config.AwsClientMetrics;
+import com.aygo.eciComm.config.AwsClientTracing;
 import com.aygo.eciComm.model.Inventory;
 import com.aygo.eciComm.model.Order;
 import com.aygo.eciComm.model.Product;
@@ -41,11 +43,12 @@ public class DynamoDBConfig {
 	private String userTableName;
 
 	@Bean
-	public DynamoDbClient dynamoDbClient() {
+	public DynamoDbClient dynamoDbClient(AwsClientMetrics awsClientMetrics, AwsClientTracing awsClientTracing) {
 		// Create a single DynamoDB client that will be shared across all tables
 		return DynamoDbClient.builder().region(Region.of(awsRegion)).endpointOverride(URI.create(dynamoDbEndpoint))
 				.overrideConfiguration(ClientOverrideConfiguration.builder()
-						.retryPolicy(RetryPolicy.builder().numRetries(3).build()).build())
+						.retryPolicy(RetryPolicy.builder().numRetries(3).build())
+						.addExecutionInterceptor(awsClientMetrics).addExecutionInterceptor(awsClientTracing).build())
 				.build();
 	}
 
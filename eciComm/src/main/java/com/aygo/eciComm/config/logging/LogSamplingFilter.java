@@ -0,0 +1,89 @@
+package com.aygo.eciComm.config.logging;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+// Lets at most perSecond events below WARN through per logger under one of the sampled prefixes, the
+// rest are dropped before their message is formatted or an event is created. WARN and ERROR always pass.
+// Configured from logback-spring.xml, isXxxEnabled() checks are answered without spending the budget.
+public class LogSamplingFilter extends TurboFilter {
+
+	static final String DROPPED = "logSamplingDropped";
+
+	private static final Budget UNSAMPLED = new Budget();
+
+	private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+	private final LongAdder dropped = new LongAdder();
+	private List<String> loggers = List.of();
+	private int perSecond = 100;
+
+	public void setLoggers(String loggers) {
+		this.loggers = Arrays.stream(loggers.split(",")).map(String::trim).filter(name -> !name.isEmpty())
+				.toList();
+	}
+
+	public void setPerSecond(int perSecond) {
+		this.perSecond = perSecond;
+	}
+
+	// Published on the logger context as a plain LongAdder, which devtools' restart class loader can still see
+	@Override
+	public void start() {
+		getContext().putObject(DROPPED, dropped);
+		super.start();
+	}
+
+	@Override
+	public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+			Throwable t) {
+		if (format == null || level.isGreaterOrEqual(Level.WARN) || perSecond <= 0 || !isStarted()) {
+			return FilterReply.NEUTRAL;
+		}
+
+		Budget budget = budgets.computeIfAbsent(logger.getName(), this::budget);
+		if (budget == UNSAMPLED || !level.isGreaterOrEqual(logger.getEffectiveLevel())
+				|| budget.tryAcquire(perSecond)) {
+			return FilterReply.NEUTRAL;
+		}
+
+		dropped.increment();
+		return FilterReply.DENY;
+	}
+
+	private Budget budget(String name) {
+		for (String prefix : loggers) {
+			if (name.equals(prefix) || name.startsWith(prefix + ".")) {
+				return new Budget();
+			}
+		}
+		return UNSAMPLED;
+	}
+
+	// Events used in the current second, racing callers may overshoot the limit by a few
+	private static final class Budget {
+
+		private final AtomicLong second = new AtomicLong(-1);
+		private final AtomicInteger used = new AtomicInteger();
+
+		boolean tryAcquire(int perSecond) {
+			long now = System.nanoTime() / 1_000_000_000L;
+			long current = second.get();
+			if (now != current && second.compareAndSet(current, now)) {
+				used.set(0);
+			}
+			return used.incrementAndGet() <= perSecond;
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.aygo.eciComm.config.logging;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import ch.qos.logback.classic.LoggerContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+@Configuration
+public class LoggingConfig {
+
+	// Events the sampling filter dropped, so a quiet log can be told apart from a throttled one
+	@Bean
+	public MeterBinder logSamplingMetrics() {
+		return registry -> {
+			if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context
+					&& context.getObject(LogSamplingFilter.DROPPED) instanceof LongAdder dropped) {
+				FunctionCounter.builder("logging.events.sampled.out", dropped, LongAdder::sum)
+						.description("Log events dropped by sampling").register(registry);
+			}
+		};
+	}
+}
@@ -7,6 +7,7 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,7 +17,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.aygo.eciComm.controller.support.ConditionalRequests;
+import com.aygo.eciComm.controller.support.NdjsonStreamer;
+import com.aygo.eciComm.exception.DependencyUnavailableException;
 import com.aygo.eciComm.exception.InventoryNotFoundException;
 import com.aygo.eciComm.exception.InventoryValidationException;
 import com.aygo.eciComm.model.Inventory;
@@ -25,17 +31,21 @@ import com.aygo.eciComm.model.request.StockUpdateRequest;
 import com.aygo.eciComm.model.response.ErrorResponse;
 import com.aygo.eciComm.service.InventoryService;
 
+import io.micrometer.observation.annotation.Observed;
 import jakarta.validation.Valid;
 
+@Observed(name = "controller.calls")
 @RestController
 @RequestMapping("/api/v1/inventory")
 public class InventoryController {
 	
 	private final InventoryService inventoryService;
+	private final NdjsonStreamer ndjsonStreamer;
 	private static final Logger LOG = LoggerFactory.getLogger(InventoryController.class);
 
-	public InventoryController(InventoryService inventoryService) {
+	public InventoryController(InventoryService inventoryService, NdjsonStreamer ndjsonStreamer) {
 		this.inventoryService = inventoryService;
+		this.ndjsonStreamer = ndjsonStreamer;
 	}
 
 	@PostMapping
@@ -45,13 +55,17 @@ public class InventoryController {
 	}
 
 	@GetMapping("/{inventoryId}")
-	public ResponseEntity<Inventory> getInventory(@PathVariable String inventoryId) {
-		return ResponseEntity.ok(inventoryService.getInventory(inventoryId));
+	public ResponseEntity<Inventory> getInventory(@PathVariable String inventoryId, WebRequest request) {
+		if (ConditionalRequests.checkNotModified(request,
+				() -> inventoryService.getInventoryVersion(inventoryId))) {
+			return null;
+		}
+		return ConditionalRequests.ok(inventoryService.getInventory(inventoryId));
 	}
 
 	@GetMapping("/product/{productId}")
 	public ResponseEntity<Inventory> getInventoryByProduct(@PathVariable String productId) {
-		return ResponseEntity.ok(inventoryService.getInventoryByProduct(productId));
+		return ConditionalRequests.ok(inventoryService.getInventoryByProduct(productId));
 	}
 
 	@GetMapping("/low-stock")
@@ -59,6 +73,11 @@ public class InventoryController {
 		return ResponseEntity.ok(inventoryService.getLowStockInventory());
 	}
 
+	@GetMapping(value = "/low-stock", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamLowStockInventory() {
+		return ndjsonStreamer.stream(inventoryService::streamLowStockInventory);
+	}
+
 	@PatchMapping("/{inventoryId}/stock")
 	public ResponseEntity<Inventory> updateStock(@PathVariable String inventoryId,
 			@RequestBody @Valid StockUpdateRequest request) {
@@ -88,4 +107,12 @@ public class InventoryController {
 		ErrorResponse error = new ErrorResponse(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), LocalDateTime.now());
 		return ResponseEntity.badRequest().body(error);
 	}
+
+	// Raised when a dependency is saturated, timing out or behind an open circuit breaker
+	@ExceptionHandler(DependencyUnavailableException.class)
+	public ResponseEntity<ErrorResponse> handleDependencyUnavailable(DependencyUnavailableException ex) {
+		ErrorResponse error = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(),
+				LocalDateTime.now());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+	}
 }
\ No newline at end of file
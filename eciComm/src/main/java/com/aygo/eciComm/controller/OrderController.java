@@ -7,6 +7,7 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,7 +17,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.aygo.eciComm.controller.support.ConditionalRequests;
+import com.aygo.eciComm.controller.support.NdjsonStreamer;
+import com.aygo.eciComm.exception.DependencyUnavailableException;
 import com.aygo.eciComm.exception.OrderNotFoundException;
 import com.aygo.eciComm.exception.OrderValidationException;
 import com.aygo.eciComm.model.Order;
@@ -24,8 +30,10 @@ import com.aygo.eciComm.model.enums.OrderStatus;
 import com.aygo.eciComm.model.response.ErrorResponse;
 import com.aygo.eciComm.service.OrderService;
 
+import io.micrometer.observation.annotation.Observed;
 import jakarta.validation.Valid;
 
+@Observed(name = "controller.calls")
 @RestController
 @RequestMapping("/api/v1/orders")
 public class OrderController {
@@ -33,9 +41,11 @@ public class OrderController {
     private static final Logger log = LoggerFactory.getLogger(OrderController.class);
 
     private final OrderService orderService;
+    private final NdjsonStreamer ndjsonStreamer;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, NdjsonStreamer ndjsonStreamer) {
         this.orderService = orderService;
+        this.ndjsonStreamer = ndjsonStreamer;
     }
 
     @PostMapping
@@ -47,9 +57,12 @@ public class OrderController {
     }
 
     @GetMapping("/{orderId}")
-    public ResponseEntity<Order> getOrder(@PathVariable String orderId) {
+    public ResponseEntity<Order> getOrder(@PathVariable String orderId, WebRequest request) {
+        if (ConditionalRequests.checkNotModified(request, () -> orderService.getOrderVersion(orderId))) {
+            return null;
+        }
         Order order = orderService.getOrder(orderId);
-        return ResponseEntity.ok(order);
+        return ConditionalRequests.ok(order);
     }
 
     @GetMapping("/user/{userId}")
@@ -58,6 +71,11 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    @GetMapping(value = "/user/{userId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUserOrders(@PathVariable String userId) {
+        return ndjsonStreamer.stream(() -> orderService.streamUserOrders(userId));
+    }
+
     @PatchMapping("/{orderId}/status")
     public ResponseEntity<Order> updateOrderStatus(
             @PathVariable String orderId,
@@ -85,4 +103,12 @@ public class OrderController {
         );
         return ResponseEntity.badRequest().body(error);
     }
+
+    // Raised when a dependency is saturated, timing out or behind an open circuit breaker
+    @ExceptionHandler(DependencyUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleDependencyUnavailable(DependencyUnavailableException ex) {
+        ErrorResponse error = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(),
+                LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
 }
@@ -9,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -22,17 +23,33 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.aygo.eciComm.controller.support.ConditionalRequests;
+import com.aygo.eciComm.controller.support.NdjsonStreamer;
+import com.aygo.eciComm.exception.DependencyUnavailableException;
 import com.aygo.eciComm.exception.ProductNotFoundException;
 import com.aygo.eciComm.exception.ProductValidationException;
 import com.aygo.eciComm.model.Product;
+import com.aygo.eciComm.model.enums.ProductCategory;
+import com.aygo.eciComm.model.enums.ProductStatus;
+import com.aygo.eciComm.model.request.ImageUploadCompletion;
+import com.aygo.eciComm.model.request.ImageUploadRequest;
 import com.aygo.eciComm.model.response.ErrorResponse;
+import com.aygo.eciComm.model.response.ImageUploadTicket;
+import com.aygo.eciComm.model.response.ProductSearchResult;
 import com.aygo.eciComm.service.ProductService;
+import com.aygo.eciComm.service.search.ProductSearchService;
 
+import io.micrometer.observation.annotation.Observed;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 
+@Observed(name = "controller.calls")
 @RestController
 @RequestMapping("/api/v1/products")
 @Validated
@@ -40,6 +57,12 @@ public class ProductController {
 
 	@Autowired
 	private ProductService productService;
+
+	@Autowired
+	private ProductSearchService productSearchService;
+
+	@Autowired
+	private NdjsonStreamer ndjsonStreamer;
 	private static final Logger LOG = LoggerFactory.getLogger(ProductController.class);
 
 	public ProductController(ProductService productService) {
@@ -53,9 +76,13 @@ public class ProductController {
 	}
 
 	@GetMapping("/{id}")
-	public ResponseEntity<Product> getProduct(@PathVariable String id) {
+	public ResponseEntity<Product> getProduct(@PathVariable String id, WebRequest request) {
+		// Revalidations are answered from a version-only read, without loading the product
+		if (ConditionalRequests.checkNotModified(request, () -> productService.getProductVersion(id))) {
+			return null;
+		}
 		Product product = productService.getProduct(id);
-		return ResponseEntity.ok(product);
+		return ConditionalRequests.ok(product);
 	}
 
 	@GetMapping("/price-range")
@@ -65,6 +92,22 @@ public class ProductController {
 		return ResponseEntity.ok(products);
 	}
 
+	// Opt-in streaming variant, selected with "Accept: application/x-ndjson"
+	@GetMapping(value = "/price-range", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamByPriceRange(@RequestParam @Positive BigDecimal minPrice,
+			@RequestParam @Positive BigDecimal maxPrice) {
+		return ndjsonStreamer.stream(() -> productService.streamByPriceRange(minPrice, maxPrice));
+	}
+
+	@GetMapping("/search")
+	public ResponseEntity<ProductSearchResult> search(@RequestParam("q") String query,
+			@RequestParam(required = false) ProductCategory category,
+			@RequestParam(required = false) ProductStatus status,
+			@RequestParam(defaultValue = "0") @PositiveOrZero int page,
+			@RequestParam(defaultValue = "20") @Positive @Max(ProductSearchService.MAX_PAGE_SIZE) int size) {
+		return ResponseEntity.ok(productSearchService.search(query, category, status, page, size));
+	}
+
 	@PutMapping("/{id}")
 	public ResponseEntity<Product> updateProduct(@PathVariable String id, @Valid @RequestBody Product product) {
 		Product updated = productService.updateProduct(id, product);
@@ -83,6 +126,18 @@ public class ProductController {
 		return ResponseEntity.ok(imageUrl);
 	}
 
+	@PostMapping("/{id}/image/upload-url")
+	public ResponseEntity<ImageUploadTicket> createImageUpload(@PathVariable String id,
+			@Valid @RequestBody ImageUploadRequest request) {
+		return ResponseEntity.ok(productService.createImageUpload(id, request));
+	}
+
+	@PostMapping("/{id}/image/complete")
+	public ResponseEntity<String> completeImageUpload(@PathVariable String id,
+			@Valid @RequestBody ImageUploadCompletion completion) {
+		return ResponseEntity.ok(productService.completeImageUpload(id, completion.getKey()));
+	}
+
 	// Error handling
 	@ExceptionHandler(ProductNotFoundException.class)
 	public ResponseEntity<ErrorResponse> handleProductNotFound(ProductNotFoundException ex) {
@@ -105,4 +160,12 @@ public class ProductController {
 				LocalDateTime.now());
 		return ResponseEntity.badRequest().body(error);
 	}
+
+	// Raised when a dependency is saturated, timing out or behind an open circuit breaker
+	@ExceptionHandler(DependencyUnavailableException.class)
+	public ResponseEntity<ErrorResponse> handleDependencyUnavailable(DependencyUnavailableException ex) {
+		ErrorResponse error = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(),
+				LocalDateTime.now());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+	}
 }
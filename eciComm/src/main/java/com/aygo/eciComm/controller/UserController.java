@@ -17,7 +17,10 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.aygo.eciComm.controller.support.ConditionalRequests;
+import com.aygo.eciComm.exception.DependencyUnavailableException;
 import com.aygo.eciComm.exception.UserNotFoundException;
 import com.aygo.eciComm.exception.UserValidationException;
 import com.aygo.eciComm.model.User;
@@ -25,8 +28,10 @@ import com.aygo.eciComm.model.enums.UserStatus;
 import com.aygo.eciComm.model.response.ErrorResponse;
 import com.aygo.eciComm.service.UserService;
 
+import io.micrometer.observation.annotation.Observed;
 import jakarta.validation.Valid;
 
+@Observed(name = "controller.calls")
 @RestController
 @RequestMapping("/api/v1/users")
 public class UserController {
@@ -43,13 +48,16 @@ public class UserController {
 	}
 
 	@GetMapping("/{userId}")
-	public ResponseEntity<User> getUser(@PathVariable String userId) {
-		return ResponseEntity.ok(userService.getUser(userId));
+	public ResponseEntity<User> getUser(@PathVariable String userId, WebRequest request) {
+		if (ConditionalRequests.checkNotModified(request, () -> userService.getUserVersion(userId))) {
+			return null;
+		}
+		return ConditionalRequests.ok(userService.getUser(userId));
 	}
 
 	@GetMapping("/email/{email}")
 	public ResponseEntity<User> getUserByEmail(@PathVariable String email) {
-		return ResponseEntity.ok(userService.getUserByEmail(email));
+		return ConditionalRequests.ok(userService.getUserByEmail(email));
 	}
 
 	@PutMapping("/{userId}")
@@ -83,4 +91,12 @@ public class UserController {
 		ErrorResponse error = new ErrorResponse(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), LocalDateTime.now());
 		return ResponseEntity.badRequest().body(error);
 	}
+
+	// Raised when a dependency is saturated, timing out or behind an open circuit breaker
+	@ExceptionHandler(DependencyUnavailableException.class)
+	public ResponseEntity<ErrorResponse> handleDependencyUnavailable(DependencyUnavailableException ex) {
+		ErrorResponse error = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(),
+				LocalDateTime.now());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+	}
 }
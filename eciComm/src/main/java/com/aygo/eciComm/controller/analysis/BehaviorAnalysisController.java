@@ -12,25 +12,62 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.aygo.eciComm.exception.AnalysisException;
+import com.aygo.eciComm.model.analysis.Recommendations;
 import com.aygo.eciComm.model.analysis.UserBehavior;
 import com.aygo.eciComm.model.response.ErrorResponse;
 import com.aygo.eciComm.service.analysis.BehaviorAnalysisService;
+import com.aygo.eciComm.service.analysis.CoPurchaseIndex;
+import com.aygo.eciComm.service.behavior.BehaviorTracker;
 
+import io.micrometer.observation.annotation.Observed;
+
+@Observed(name = "controller.calls")
 @RestController
 @RequestMapping("/api/v1/analysis")
 public class BehaviorAnalysisController {
 
+	private static final String RECOMMENDATION_SOURCE_HEADER = "X-Recommendation-Source";
+
 	@Autowired
 	private BehaviorAnalysisService analysisService;
 
+	@Autowired
+	private CoPurchaseIndex coPurchaseIndex;
+
+	@Autowired
+	private BehaviorTracker behaviorTracker;
+
+	// The body stays a plain list of product ids, the model that produced it is reported in a header.
+	// Behavior tracked from the event stream takes precedence, a client payload only covers unknown users.
 	@GetMapping("/recommendations/{userId}")
 	public ResponseEntity<List<String>> getRecommendations(@PathVariable String userId,
-			@RequestBody UserBehavior behavior) {
-		List<String> recommendations = analysisService.getProductRecommendations(userId, behavior);
-		return ResponseEntity.ok(recommendations);
+			@RequestBody(required = false) UserBehavior clientBehavior) {
+		UserBehavior behavior = behaviorTracker.getBehavior(userId).orElseGet(() -> {
+			UserBehavior fallback = clientBehavior != null ? clientBehavior : new UserBehavior();
+			fallback.setUserId(userId);
+			return fallback;
+		});
+
+		Recommendations recommendations = analysisService.getProductRecommendations(userId, behavior);
+		return ResponseEntity.ok().header(RECOMMENDATION_SOURCE_HEADER, recommendations.getSource().name())
+				.body(recommendations.getProductIds());
+	}
+
+	@GetMapping("/segment/{userId}")
+	public ResponseEntity<Map<String, Object>> getSegment(@PathVariable String userId) {
+		UserBehavior behavior = behaviorTracker.getBehavior(userId).orElseGet(UserBehavior::new);
+		behavior.setUserId(userId);
+		return ResponseEntity.ok(analysisService.analyzeUserSegment(behavior));
+	}
+
+	@GetMapping("/also-bought/{productId}")
+	public ResponseEntity<List<String>> getAlsoBought(@PathVariable String productId,
+			@RequestParam(defaultValue = "10") int limit) {
+		return ResponseEntity.ok(coPurchaseIndex.alsoBought(productId, Math.min(Math.max(limit, 1), 100)));
 	}
 
 	/*@GetMapping("/preferences/{userId}")
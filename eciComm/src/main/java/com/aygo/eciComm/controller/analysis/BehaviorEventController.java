@@ -0,0 +1,49 @@
+package com.aygo.eciComm.controller.analysis;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.aygo.eciComm.exception.BehaviorEventException;
+import com.aygo.eciComm.model.analysis.BehaviorEvent;
+import com.aygo.eciComm.model.response.ErrorResponse;
+import com.aygo.eciComm.model.response.IngestionResult;
+import com.aygo.eciComm.service.behavior.BehaviorTracker;
+
+import io.micrometer.observation.annotation.Observed;
+
+@Observed(name = "controller.calls")
+@RestController
+@RequestMapping("/api/v1/analysis/events")
+public class BehaviorEventController {
+
+	@Autowired
+	private BehaviorTracker behaviorTracker;
+
+	// Accepted events are aggregated asynchronously. When the buffer is full the dropped events are
+	// reported with a 429 so the client can resend just those.
+	@PostMapping
+	public ResponseEntity<IngestionResult> ingest(@RequestBody List<BehaviorEvent> events) {
+		IngestionResult result = behaviorTracker.ingest(events);
+		if (result.getDropped() > 0) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1")
+					.body(result);
+		}
+		return ResponseEntity.accepted().body(result);
+	}
+
+	@ExceptionHandler(BehaviorEventException.class)
+	public ResponseEntity<ErrorResponse> handleInvalidEvents(BehaviorEventException ex) {
+		ErrorResponse error = new ErrorResponse(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), LocalDateTime.now());
+		return ResponseEntity.badRequest().body(error);
+	}
+}
@@ -0,0 +1,72 @@
+package com.aygo.eciComm.controller.support;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import com.aygo.eciComm.model.Component;
+
+// Strong ETags and Last-Modified values derived from Component.version and updatedAt
+public final class ConditionalRequests {
+
+	private ConditionalRequests() {
+	}
+
+	public static String eTag(Component component) {
+		if (component.getVersion() != null) {
+			return "\"" + component.getVersion() + "\"";
+		}
+		if (component.getUpdatedAt() != null) {
+			return "\"t" + component.getUpdatedAt().toEpochMilli() + "\"";
+		}
+		return null;
+	}
+
+	public static long lastModified(Component component) {
+		return component.getUpdatedAt() != null ? component.getUpdatedAt().toEpochMilli() : -1;
+	}
+
+	public static boolean isConditional(WebRequest request) {
+		return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+				|| request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+	}
+
+	// Answers a revalidation from a version-only read, the caller returns null when this is true
+	public static boolean checkNotModified(WebRequest request,
+			Supplier<? extends Optional<? extends Component>> versionLookup) {
+		if (!isConditional(request)) {
+			return false;
+		}
+
+		Optional<? extends Component> current = versionLookup.get();
+		if (current.isEmpty()) {
+			return false;
+		}
+
+		Component component = current.get();
+		String eTag = eTag(component);
+		long lastModified = lastModified(component);
+
+		return (eTag != null || lastModified >= 0) && request.checkNotModified(eTag, lastModified);
+	}
+
+	// Spring turns these into a 304 as well when the full read still matches the request headers
+	public static <T extends Component> ResponseEntity<T> ok(T body) {
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+
+		String eTag = eTag(body);
+		if (eTag != null) {
+			builder.eTag(eTag);
+		}
+
+		long lastModified = lastModified(body);
+		if (lastModified >= 0) {
+			builder.lastModified(lastModified);
+		}
+
+		return builder.body(body);
+	}
+}
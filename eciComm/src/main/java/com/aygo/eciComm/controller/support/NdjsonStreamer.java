@@ -0,0 +1,68 @@
+package com.aygo.eciComm.controller.support;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// Writes a lazy stream of items as newline-delimited JSON, one object per line
+@Component
+public class NdjsonStreamer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(NdjsonStreamer.class);
+
+	// Push bytes to the client regularly instead of waiting for the buffer to fill
+	private static final int FLUSH_EVERY = 100;
+
+	private final ObjectMapper objectMapper;
+	private final ObjectWriter writer;
+
+	@Autowired
+	public NdjsonStreamer(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+		this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+	}
+
+	// The source is only opened once the response starts streaming, on the async request thread
+	public <T> ResponseEntity<StreamingResponseBody> stream(Supplier<Stream<T>> source) {
+		StreamingResponseBody body = out -> {
+			long written = 0;
+
+			try (Stream<T> items = source.get();
+					JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+				generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+				generator.setRootValueSeparator(null);
+
+				Iterator<T> iterator = items.iterator();
+				while (iterator.hasNext()) {
+					writer.writeValue(generator, iterator.next());
+					generator.writeRaw('\n');
+
+					if (++written == 1 || written % FLUSH_EVERY == 0) {
+						generator.flush();
+					}
+				}
+			}
+
+			catch (Exception e) {
+				// Headers are already committed, the client sees a truncated stream
+				LOG.error("Error streaming NDJSON response after {} items: {}", written, e.getMessage(), e);
+				throw e;
+			}
+		};
+
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+}
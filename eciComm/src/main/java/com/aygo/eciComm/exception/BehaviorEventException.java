@@ -0,0 +1,9 @@
+package com.aygo.eciComm.exception;
+
+@SuppressWarnings("serial")
+public class BehaviorEventException extends RuntimeException {
+
+	public BehaviorEventException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,9 @@
+package com.aygo.eciComm.exception;
+
+@SuppressWarnings("serial")
+public class BulkheadFullException extends DependencyUnavailableException {
+
+	public BulkheadFullException(String name) {
+		super(String.format("Too many concurrent calls to %s", name));
+	}
+}
@@ -0,0 +1,9 @@
+package com.aygo.eciComm.exception;
+
+@SuppressWarnings("serial")
+public class CircuitBreakerOpenException extends DependencyUnavailableException {
+
+	public CircuitBreakerOpenException(String name) {
+		super(String.format("Circuit breaker %s is open", name));
+	}
+}
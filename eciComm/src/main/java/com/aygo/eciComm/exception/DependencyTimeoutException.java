@@ -0,0 +1,11 @@
+package com.aygo.eciComm.exception;
+
+import java.time.Duration;
+
+@SuppressWarnings("serial")
+public class DependencyTimeoutException extends DependencyUnavailableException {
+
+	public DependencyTimeoutException(String name, Duration timeout) {
+		super(String.format("Call to %s timed out after %d ms", name, timeout.toMillis()));
+	}
+}
@@ -0,0 +1,13 @@
+package com.aygo.eciComm.exception;
+
+@SuppressWarnings("serial")
+public class DependencyUnavailableException extends RuntimeException {
+
+	public DependencyUnavailableException(String message) {
+		super(message);
+	}
+
+	public DependencyUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,82 @@
+package com.aygo.eciComm.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbIgnore;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+
+// An S3 object waiting to be deleted, persisted so pending deletions survive restarts
+@DynamoDbBean
+public final class ObjectDeletion extends Component {
+
+	private String bucket;
+	private String objectKey;
+	private Integer attempts;
+	private String lastError;
+
+	public ObjectDeletion() {
+		setType("OBJECT_DELETION");
+	}
+
+	public ObjectDeletion(String bucket, String objectKey) {
+		this();
+		this.bucket = bucket;
+		this.objectKey = objectKey;
+		this.attempts = 0;
+		setId(bucket + "/" + objectKey);
+	}
+
+	@DynamoDbPartitionKey
+	@DynamoDbAttribute("deletionId")
+	@JsonProperty("id")
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	// Only the deletion queue writes these records, one at a time, so they are saved without a version check.
+	// The inherited version attribute would make every re-save of the same bean fail its condition.
+	@DynamoDbIgnore
+	@Override
+	public Long getVersion() {
+		return super.getVersion();
+	}
+
+	@DynamoDbAttribute("bucket")
+	public String getBucket() {
+		return bucket;
+	}
+
+	public void setBucket(String bucket) {
+		this.bucket = bucket;
+	}
+
+	@DynamoDbAttribute("objectKey")
+	public String getObjectKey() {
+		return objectKey;
+	}
+
+	public void setObjectKey(String objectKey) {
+		this.objectKey = objectKey;
+	}
+
+	@DynamoDbAttribute("attempts")
+	public Integer getAttempts() {
+		return attempts;
+	}
+
+	public void setAttempts(Integer attempts) {
+		this.attempts = attempts;
+	}
+
+	@DynamoDbAttribute("lastError")
+	public String getLastError() {
+		return lastError;
+	}
+
+	public void setLastError(String lastError) {
+		this.lastError = lastError;
+	}
+}
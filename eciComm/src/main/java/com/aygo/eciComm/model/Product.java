@@ -11,6 +11,7 @@ import java.util.Set;
 import com.aygo.eciComm.model.enums.ProductCategory;
 import com.aygo.eciComm.model.enums.ProductStatus;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -34,6 +35,8 @@ public class Product extends Component {
 	private BigDecimal price;
 	private Integer stockQuantity;
 	private String imageUrl;
+	private Map<String, String> imageVariants;
+	private String imageReference;
 	private ProductStatus productStatus;
 	private ProductCategory category;
 	private Set<String> tags;
@@ -109,7 +112,7 @@ public class Product extends Component {
 
 	@DynamoDbAttribute("imageUrl")
 	@JsonProperty("imageUrl")
-	@Pattern(regexp = "^(https?://|products/).+", message = "Invalid image URL format")
+	@Pattern(regexp = "^(https?://|products/|images/).+", message = "Invalid image URL format")
 	public String getImageUrl() {
 		return imageUrl;
 	}
@@ -118,6 +121,28 @@ public class Product extends Component {
 		this.imageUrl = imageUrl;
 	}
 
+	// Resized derivatives of imageUrl, keyed by variant name (e.g. "w480.jpg")
+	@DynamoDbAttribute("imageVariants")
+	@JsonProperty("imageVariants")
+	public Map<String, String> getImageVariants() {
+		return imageVariants;
+	}
+
+	public void setImageVariants(Map<String, String> imageVariants) {
+		this.imageVariants = imageVariants;
+	}
+
+	// Upload the product's reference marker on a shared images/ set is named after, internal to the pipeline
+	@DynamoDbAttribute("imageReference")
+	@JsonIgnore
+	public String getImageReference() {
+		return imageReference;
+	}
+
+	public void setImageReference(String imageReference) {
+		this.imageReference = imageReference;
+	}
+
 	@DynamoDbAttribute("productStatus")
 	@JsonProperty("productStatus")
 	public ProductStatus getProductStatus() {
@@ -0,0 +1,84 @@
+package com.aygo.eciComm.model.analysis;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import com.aygo.eciComm.model.enums.BehaviorAction;
+import com.aygo.eciComm.model.enums.ProductCategory;
+
+// One clickstream event. Category and price are only used for products missing from the catalog snapshot.
+public class BehaviorEvent {
+
+	private String userId;
+	private String sessionId;
+	private BehaviorAction action;
+	private String productId;
+	private ProductCategory category;
+	private BigDecimal price;
+	private String query;
+	private Instant timestamp;
+
+	public String getUserId() {
+		return userId;
+	}
+
+	public void setUserId(String userId) {
+		this.userId = userId;
+	}
+
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	public void setSessionId(String sessionId) {
+		this.sessionId = sessionId;
+	}
+
+	public BehaviorAction getAction() {
+		return action;
+	}
+
+	public void setAction(BehaviorAction action) {
+		this.action = action;
+	}
+
+	public String getProductId() {
+		return productId;
+	}
+
+	public void setProductId(String productId) {
+		this.productId = productId;
+	}
+
+	public ProductCategory getCategory() {
+		return category;
+	}
+
+	public void setCategory(ProductCategory category) {
+		this.category = category;
+	}
+
+	public BigDecimal getPrice() {
+		return price;
+	}
+
+	public void setPrice(BigDecimal price) {
+		this.price = price;
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	public void setQuery(String query) {
+		this.query = query;
+	}
+
+	public Instant getTimestamp() {
+		return timestamp;
+	}
+
+	public void setTimestamp(Instant timestamp) {
+		this.timestamp = timestamp;
+	}
+}
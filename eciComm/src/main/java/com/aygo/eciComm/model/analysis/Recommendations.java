@@ -0,0 +1,24 @@
+package com.aygo.eciComm.model.analysis;
+
+import java.util.List;
+
+import com.aygo.eciComm.model.enums.RecommendationSource;
+
+public class Recommendations {
+
+	private final List<String> productIds;
+	private final RecommendationSource source;
+
+	public Recommendations(List<String> productIds, RecommendationSource source) {
+		this.productIds = productIds;
+		this.source = source;
+	}
+
+	public List<String> getProductIds() {
+		return productIds;
+	}
+
+	public RecommendationSource getSource() {
+		return source;
+	}
+}
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
 
 @DynamoDbBean
 public class UserBehavior {
@@ -20,6 +21,7 @@ public class UserBehavior {
 	private Duration averageSessionDuration;
 	private Integer cartAbandonment;
 
+	@DynamoDbPartitionKey
 	public String getUserId() {
 		return userId;
 	}
@@ -1,7 +1,9 @@
 package com.aygo.eciComm.model.db;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import com.aygo.eciComm.model.Component;
 
@@ -11,9 +13,15 @@ public interface DynamoDBRepository<T extends Component> {
 
 	Optional<T> findById(String id);
 
+	Optional<T> findVersionById(String id);
+
 	List<T> findAll();
 
+	Stream<T> streamAll();
+
 	void delete(String id);
 
+	void deleteAll(Collection<String> ids);
+
 	List<T> findByType(String type);
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.aygo.eciComm.model.enums;
+
+public enum BehaviorAction {
+
+	VIEW, ADD_TO_CART, REMOVE_FROM_CART, WISHLIST, PURCHASE, REVIEW, SEARCH
+}
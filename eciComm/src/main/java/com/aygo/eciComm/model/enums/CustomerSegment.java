@@ -0,0 +1,6 @@
+package com.aygo.eciComm.model.enums;
+
+public enum CustomerSegment {
+
+	HIGH_VALUE_CUSTOMER, REGULAR_CUSTOMER, NEW_CUSTOMER, AT_RISK_CUSTOMER, BROWSER, INACTIVE
+}
@@ -0,0 +1,20 @@
+package com.aygo.eciComm.model.enums;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+// What an inference instance asks the endpoint for, so it can route a mixed batch to the right model
+public enum InferenceKind {
+
+	PREFERENCES("preferences"), RECOMMENDATIONS("recommendations");
+
+	private final String value;
+
+	InferenceKind(String value) {
+		this.value = value;
+	}
+
+	@JsonValue
+	public String getValue() {
+		return value;
+	}
+}
@@ -0,0 +1,6 @@
+package com.aygo.eciComm.model.enums;
+
+public enum RecommendationSource {
+
+	PRECOMPUTED, SAGEMAKER, CO_OCCURRENCE
+}
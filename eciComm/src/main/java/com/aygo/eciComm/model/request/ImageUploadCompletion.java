@@ -0,0 +1,17 @@
+package com.aygo.eciComm.model.request;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class ImageUploadCompletion {
+
+	@NotBlank(message = "Upload key is required")
+	private String key;
+
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+}
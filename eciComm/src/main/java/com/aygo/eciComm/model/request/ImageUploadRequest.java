@@ -0,0 +1,44 @@
+package com.aygo.eciComm.model.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+public class ImageUploadRequest {
+
+	@NotBlank(message = "File name is required")
+	private String fileName;
+
+	@NotBlank(message = "Content type is required")
+	@Pattern(regexp = "^image/[A-Za-z0-9.+-]+$", message = "File must be an image")
+	private String contentType;
+
+	@NotNull(message = "Content length is required")
+	@Positive(message = "Content length must be positive")
+	private Long contentLength;
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public void setFileName(String fileName) {
+		this.fileName = fileName;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public void setContentType(String contentType) {
+		this.contentType = contentType;
+	}
+
+	public Long getContentLength() {
+		return contentLength;
+	}
+
+	public void setContentLength(Long contentLength) {
+		this.contentLength = contentLength;
+	}
+}
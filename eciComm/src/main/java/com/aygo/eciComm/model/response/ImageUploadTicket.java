@@ -0,0 +1,56 @@
+package com.aygo.eciComm.model.response;
+
+import java.time.Instant;
+import java.util.Map;
+
+// Everything a client needs to upload an image straight to S3, either with a PUT or a form POST
+public class ImageUploadTicket {
+
+	private final String key;
+	private final String uploadUrl;
+	private final Map<String, String> uploadHeaders;
+	private final String postUrl;
+	private final Map<String, String> postFields;
+	private final long maxContentLength;
+	private final Instant expiresAt;
+
+	public ImageUploadTicket(String key, String uploadUrl, Map<String, String> uploadHeaders, String postUrl,
+			Map<String, String> postFields, long maxContentLength, Instant expiresAt) {
+		this.key = key;
+		this.uploadUrl = uploadUrl;
+		this.uploadHeaders = uploadHeaders;
+		this.postUrl = postUrl;
+		this.postFields = postFields;
+		this.maxContentLength = maxContentLength;
+		this.expiresAt = expiresAt;
+	}
+
+	// Getters
+	public String getKey() {
+		return key;
+	}
+
+	public String getUploadUrl() {
+		return uploadUrl;
+	}
+
+	public Map<String, String> getUploadHeaders() {
+		return uploadHeaders;
+	}
+
+	public String getPostUrl() {
+		return postUrl;
+	}
+
+	public Map<String, String> getPostFields() {
+		return postFields;
+	}
+
+	public long getMaxContentLength() {
+		return maxContentLength;
+	}
+
+	public Instant getExpiresAt() {
+		return expiresAt;
+	}
+}
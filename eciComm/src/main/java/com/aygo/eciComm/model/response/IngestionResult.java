@@ -0,0 +1,28 @@
+package com.aygo.eciComm.model.response;
+
+public class IngestionResult {
+
+	private final int accepted;
+	private final int rejected;
+	private final int dropped;
+
+	public IngestionResult(int accepted, int rejected, int dropped) {
+		this.accepted = accepted;
+		this.rejected = rejected;
+		this.dropped = dropped;
+	}
+
+	public int getAccepted() {
+		return accepted;
+	}
+
+	// Malformed events, e.g. a view without a product id
+	public int getRejected() {
+		return rejected;
+	}
+
+	// Valid events that did not fit in the ingestion buffer and should be retried
+	public int getDropped() {
+		return dropped;
+	}
+}
@@ -0,0 +1,91 @@
+package com.aygo.eciComm.model.response;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import com.aygo.eciComm.model.enums.ProductCategory;
+import com.aygo.eciComm.model.enums.ProductStatus;
+
+public class ProductSearchResult {
+
+	private final String query;
+	private final long total;
+	private final List<Hit> hits;
+	private final Map<String, Map<String, Long>> facets;
+	private final long tookMicros;
+
+	public ProductSearchResult(String query, long total, List<Hit> hits, Map<String, Map<String, Long>> facets,
+			long tookMicros) {
+		this.query = query;
+		this.total = total;
+		this.hits = hits;
+		this.facets = facets;
+		this.tookMicros = tookMicros;
+	}
+
+	// Getters
+	public String getQuery() {
+		return query;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public List<Hit> getHits() {
+		return hits;
+	}
+
+	public Map<String, Map<String, Long>> getFacets() {
+		return facets;
+	}
+
+	public long getTookMicros() {
+		return tookMicros;
+	}
+
+	public static class Hit {
+
+		private final String id;
+		private final String name;
+		private final BigDecimal price;
+		private final ProductCategory category;
+		private final ProductStatus productStatus;
+		private final double score;
+
+		public Hit(String id, String name, BigDecimal price, ProductCategory category, ProductStatus productStatus,
+				double score) {
+			this.id = id;
+			this.name = name;
+			this.price = price;
+			this.category = category;
+			this.productStatus = productStatus;
+			this.score = score;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public BigDecimal getPrice() {
+			return price;
+		}
+
+		public ProductCategory getCategory() {
+			return category;
+		}
+
+		public ProductStatus getProductStatus() {
+			return productStatus;
+		}
+
+		public double getScore() {
+			return score;
+		}
+	}
+}
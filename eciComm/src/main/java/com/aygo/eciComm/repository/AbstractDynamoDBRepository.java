@@ -1,30 +1,64 @@
 package com.aygo.eciComm.repository;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import com.aygo.eciComm.model.Component;
 import com.aygo.eciComm.model.db.DynamoDBRepository;
+import com.aygo.eciComm.service.hotkey.HotKeyTracker;
+import com.aygo.eciComm.service.resilience.DependencyGuard;
+import com.aygo.eciComm.service.resilience.ResilienceRegistry;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 
 @Repository
 public abstract class AbstractDynamoDBRepository<T extends Component> implements DynamoDBRepository<T> {
 
+	private static final String VERSION_ATTRIBUTE = "version";
+	private static final String UPDATED_AT_ATTRIBUTE = "updatedAt";
+
+	// DynamoDB accepts at most 25 writes per BatchWriteItem call
+	protected static final int MAX_BATCH_WRITE = 25;
+	private static final int MAX_BATCH_RETRIES = 5;
+
 	private final DynamoDbEnhancedClient enhancedClient;
 	private final DynamoDbTable<T> table;
 	private final Class<T> entityClass;
 
+	@Autowired
+	private ResilienceRegistry resilienceRegistry;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private HotKeyTracker hotKeyTracker;
+
 	public AbstractDynamoDBRepository(DynamoDbEnhancedClient enhancedClient, Class<T> entityClass, String tableName) {
 
 		this.enhancedClient = enhancedClient;
@@ -45,25 +79,130 @@ public abstract class AbstractDynamoDBRepository<T extends Component> implements
 		}
 
 		item.beforeWrite();
-		table.putItem(item);
+		hotKeyTracker.write(table.tableName(), item.getId());
+
+		UnitOfWork.Scope scope = UnitOfWork.current();
+		if (scope != null) {
+			UnitOfWork.Write write = new UnitOfWork.Write(table.tableName(), () -> put(item),
+					request -> request.addPutItem(table, item));
+			if (scope.buffer(table.tableName(), item.getId(), Optional.of(item), write)) {
+				return item;
+			}
+			scope.forget(table.tableName(), item.getId());
+		}
+
+		put(item);
 		return item;
 	}
 
+	private void put(T item) {
+		try {
+			timed("save", () -> dynamoDb().write(() -> {
+				table.putItem(item);
+				return null;
+			}));
+		}
+
+		// The version attribute did not match, someone else saved the item since it was read
+		catch (ConditionalCheckFailedException e) {
+			meterRegistry.counter("dynamodb.optimistic.lock.conflicts", "table", table.tableName()).increment();
+			throw e;
+		}
+	}
+
 	@Override
 	public Optional<T> findById(String id) {
 		Key key = Key.builder().partitionValue(id).build();
-		return Optional.ofNullable(table.getItem(key));
+		UnitOfWork.Scope scope = UnitOfWork.current();
+		if (scope != null) {
+			Optional<T> found = scope.find(table.tableName(), id);
+			if (found != null) {
+				return found;
+			}
+		}
+
+		hotKeyTracker.read(table.tableName(), id);
+		Optional<T> found = Optional
+				.ofNullable(timed("findById", () -> dynamoDb().hedgedRead(() -> table.getItem(key))));
+		if (scope != null) {
+			scope.remember(table.tableName(), id, found);
+		}
+		return found;
+	}
+
+	// Reads only the version and timestamp attributes, enough to answer conditional requests
+	@Override
+	public Optional<T> findVersionById(String id) {
+		QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+				.queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(id).build()))
+				.attributesToProject(VERSION_ATTRIBUTE, UPDATED_AT_ATTRIBUTE).limit(1).build();
+		hotKeyTracker.read(table.tableName(), id);
+
+		return timed("findVersionById",
+				() -> dynamoDb().hedgedRead(() -> table.query(request).items().stream().findFirst()));
 	}
 
 	@Override
 	public List<T> findAll() {
-		return table.scan().items().stream().collect(Collectors.toList());
+		return timed("findAll", () -> table.scan().items().stream().collect(Collectors.toList()));
+	}
+
+	// Lazily pages through the table, only one page is held in memory at a time
+	@Override
+	public Stream<T> streamAll() {
+		return timedStream("streamAll", table.scan().items().stream());
 	}
 
 	@Override
 	public void delete(String id) {
 		Key key = Key.builder().partitionValue(id).build();
-		table.deleteItem(key);
+		hotKeyTracker.write(table.tableName(), id);
+
+		UnitOfWork.Scope scope = UnitOfWork.current();
+		if (scope != null) {
+			UnitOfWork.Write write = new UnitOfWork.Write(table.tableName(),
+					() -> timed("delete", () -> dynamoDb().write(() -> table.deleteItem(key))),
+					request -> request.addDeleteItem(table, key));
+			if (scope.buffer(table.tableName(), id, Optional.empty(), write)) {
+				return;
+			}
+			scope.forget(table.tableName(), id);
+		}
+
+		timed("delete", () -> dynamoDb().write(() -> table.deleteItem(key)));
+	}
+
+	// Deletes in BatchWriteItem chunks, retrying unprocessed keys
+	@Override
+	public void deleteAll(Collection<String> ids) {
+		List<String> pending = new ArrayList<>(ids);
+		pending.forEach(id -> hotKeyTracker.write(table.tableName(), id));
+
+		UnitOfWork.Scope scope = UnitOfWork.current();
+		if (scope != null) {
+			pending.forEach(id -> scope.forget(table.tableName(), id));
+		}
+
+		for (int start = 0; start < pending.size(); start += MAX_BATCH_WRITE) {
+			List<Key> keys = pending.subList(start, Math.min(start + MAX_BATCH_WRITE, pending.size())).stream()
+					.map(id -> Key.builder().partitionValue(id).build()).toList();
+
+			for (int attempt = 0; !keys.isEmpty(); attempt++) {
+				if (attempt > MAX_BATCH_RETRIES) {
+					throw new IllegalStateException(keys.size() + " deletes left unprocessed in " + table.tableName());
+				}
+
+				WriteBatch.Builder<T> batch = WriteBatch.builder(entityClass).mappedTableResource(table);
+				keys.forEach(batch::addDeleteItem);
+
+				BatchWriteItemEnhancedRequest request = BatchWriteItemEnhancedRequest.builder()
+						.addWriteBatch(batch.build()).build();
+				BatchWriteResult result = timed("deleteAll",
+						() -> dynamoDb().write(() -> enhancedClient.batchWriteItem(request)));
+				keys = result.unprocessedDeleteItemsForTable(table);
+				backoff(attempt, keys.isEmpty());
+			}
+		}
 	}
 
 	@Override
@@ -74,6 +213,59 @@ public abstract class AbstractDynamoDBRepository<T extends Component> implements
 
 		ScanEnhancedRequest request = ScanEnhancedRequest.builder().filterExpression(filterExpression).build();
 
-		return table.scan(request).items().stream().collect(Collectors.toList());
+		return timed("findByType", () -> table.scan(request).items().stream().collect(Collectors.toList()));
+	}
+
+	// Latency of one repository operation on this table, tagged so slow or busy tables stand out
+	protected <R> R timed(String operation, Supplier<R> call) {
+		long start = System.nanoTime();
+		String outcome = "error";
+		try {
+			R result = call.get();
+			outcome = "success";
+			return result;
+		}
+
+		catch (ConditionalCheckFailedException e) {
+			outcome = "conflict";
+			throw e;
+		}
+
+		finally {
+			record(operation, outcome, System.nanoTime() - start);
+		}
+	}
+
+	// Lazy scans fetch pages while the caller consumes them, they are timed until the stream is closed
+	protected Stream<T> timedStream(String operation, Stream<T> stream) {
+		long start = System.nanoTime();
+		return stream.onClose(() -> record(operation, "success", System.nanoTime() - start));
+	}
+
+	// Point reads and writes go through the shared guard, scans page lazily and stay unguarded
+	protected DependencyGuard dynamoDb() {
+		return resilienceRegistry.guard("dynamodb");
+	}
+
+	private void record(String operation, String outcome, long nanos) {
+		Timer.builder("dynamodb.repository.calls").description("Repository operations per table")
+				.tags("table", table.tableName(), "operation", operation, "outcome", outcome)
+				.publishPercentileHistogram().minimumExpectedValue(Duration.ofMillis(1))
+				.maximumExpectedValue(Duration.ofSeconds(30)).register(meterRegistry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	private static void backoff(int attempt, boolean done) {
+		if (done) {
+			return;
+		}
+		try {
+			Thread.sleep(Math.min(1000L, 50L << attempt));
+		}
+
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while retrying batch write", e);
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.aygo.eciComm.repository;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Repository writes made inside the annotated method are held back and sent together in one
+// TransactWriteItems call when it returns, or dropped if it throws. Conflicts then surface after the
+// method body, so methods that catch ConditionalCheckFailedException around their own saves should not
+// use it.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BufferedWrites {
+}
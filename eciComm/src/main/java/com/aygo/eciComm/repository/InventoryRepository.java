@@ -3,6 +3,7 @@ package com.aygo.eciComm.repository;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
@@ -32,15 +33,23 @@ public class InventoryRepository extends AbstractDynamoDBRepository<Inventory> {
 				.putExpressionValue(":productId", AttributeValue.builder().s(productId).build()).build();
 
 		// Convert SdkIterable to Stream before using findFirst
-		return getTable().scan(r -> r.filterExpression(filterExpression)).items().stream().findFirst();
+		return timed("findByProductId",
+				() -> getTable().scan(r -> r.filterExpression(filterExpression)).items().stream().findFirst());
 	}
 
 	public List<Inventory> findByStatus(InventoryStatus status) {
+		try (Stream<Inventory> inventory = streamByStatus(status)) {
+			return inventory.collect(Collectors.toList());
+		}
+	}
+
+	public Stream<Inventory> streamByStatus(InventoryStatus status) {
 		Expression filterExpression = Expression.builder().expression("#status = :status")
 				.putExpressionName("#status", "status")
 				.putExpressionValue(":status", AttributeValue.builder().s(status.name()).build()).build();
 
-		// Convert SdkIterable to List
-		return getTable().scan(r -> r.filterExpression(filterExpression)).items().stream().collect(Collectors.toList());
+		// Pages are fetched lazily as the stream is consumed
+		return timedStream("streamByStatus",
+				getTable().scan(r -> r.filterExpression(filterExpression)).items().stream());
 	}
 }
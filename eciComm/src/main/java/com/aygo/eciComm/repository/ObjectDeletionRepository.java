@@ -0,0 +1,37 @@
+package com.aygo.eciComm.repository;
+
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.aygo.eciComm.model.ObjectDeletion;
+import com.aygo.eciComm.model.enums.ItemStatus;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+@Repository
+public class ObjectDeletionRepository extends AbstractDynamoDBRepository<ObjectDeletion> {
+
+	public ObjectDeletionRepository(DynamoDbEnhancedClient enhancedClient,
+			@Value("${aws.dynamodb.tables.objectDeletion}") String tableName) {
+		super(enhancedClient, ObjectDeletion.class, tableName);
+	}
+
+	@Override
+	protected Class<ObjectDeletion> getEntityClass() {
+		return ObjectDeletion.class;
+	}
+
+	public Stream<ObjectDeletion> streamPending() {
+		Expression filterExpression = Expression.builder().expression("#status = :status")
+				.putExpressionName("#status", "status")
+				.putExpressionValue(":status", AttributeValue.builder().s(ItemStatus.ACTIVE.getValue()).build())
+				.build();
+
+		return timedStream("streamPending",
+				getTable().scan(r -> r.filterExpression(filterExpression)).items().stream());
+	}
+}
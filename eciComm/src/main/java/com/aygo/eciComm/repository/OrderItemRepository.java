@@ -29,6 +29,8 @@ public class OrderItemRepository extends AbstractDynamoDBRepository<OrderItem> {
 		Expression filterExpression = Expression.builder().expression("orderId = :orderId")
 				.putExpressionValue(":orderId", AttributeValue.builder().s(orderId).build()).build();
 
-		return getTable().scan(r -> r.filterExpression(filterExpression)).items().stream().collect(Collectors.toList());
+		return timed("findByOrderId",
+				() -> getTable().scan(r -> r.filterExpression(filterExpression)).items().stream()
+						.collect(Collectors.toList()));
 	}
 }
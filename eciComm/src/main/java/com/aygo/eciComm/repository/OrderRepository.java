@@ -1,6 +1,7 @@
 package com.aygo.eciComm.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
@@ -25,9 +26,16 @@ public class OrderRepository extends AbstractDynamoDBRepository<Order> {
 	}
 
 	public List<Order> findByUserId(String userId) {
+		try (Stream<Order> orders = streamByUserId(userId)) {
+			return orders.toList();
+		}
+	}
+
+	public Stream<Order> streamByUserId(String userId) {
 		Expression filterExpression = Expression.builder().expression("userId = :userId")
 				.putExpressionValue(":userId", AttributeValue.builder().s(userId).build()).build();
 
-		return getTable().scan(r -> r.filterExpression(filterExpression)).items().stream().toList();
+		return timedStream("streamByUserId",
+				getTable().scan(r -> r.filterExpression(filterExpression)).items().stream());
 	}
 }
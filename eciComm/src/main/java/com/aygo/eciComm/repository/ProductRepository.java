@@ -2,6 +2,7 @@ package com.aygo.eciComm.repository;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
@@ -28,10 +29,17 @@ public class ProductRepository extends AbstractDynamoDBRepository<Product> {
 
 	// Add product-specific methods here
 	public List<Product> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+		try (Stream<Product> products = streamByPriceRange(minPrice, maxPrice)) {
+			return products.toList();
+		}
+	}
+
+	public Stream<Product> streamByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
 		var filterExpression = Expression.builder().expression("price BETWEEN :minPrice AND :maxPrice")
 				.putExpressionValue(":minPrice", AttributeValue.builder().n(minPrice.toString()).build())
 				.putExpressionValue(":maxPrice", AttributeValue.builder().n(maxPrice.toString()).build()).build();
 
-		return getTable().scan(r -> r.filterExpression(filterExpression)).items().stream().toList();
+		return timedStream("streamByPriceRange",
+				getTable().scan(r -> r.filterExpression(filterExpression)).items().stream());
 	}
 }
@@ -0,0 +1,208 @@
+package com.aygo.eciComm.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.aygo.eciComm.service.resilience.ResilienceRegistry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+// Request-scoped identity map over the repositories. While a scope is open on the current thread,
+// findById answers repeated lookups of the same table and key from memory, so a product read while
+// validating an order is not fetched again while pricing it. Any write through a repository drops the
+// key again, since the stored version has moved past the one held in memory.
+//
+// Methods annotated @BufferedWrites also hold their saves and deletes back and flush them when they
+// return: a single write goes out as is, several go out in TransactWriteItems calls of up to 100 actions,
+// which keeps the optimistic version checks BatchWriteItem would drop. Side effects registered through
+// afterCommit run only once that flush succeeded.
+@Aspect
+@Component
+public class UnitOfWork {
+
+	// DynamoDB accepts at most 100 actions per TransactWriteItems call
+	private static final int MAX_TRANSACT_WRITE = 100;
+
+	private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+	@Autowired
+	private DynamoDbEnhancedClient enhancedClient;
+
+	@Autowired
+	private ResilienceRegistry resilienceRegistry;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${unit-of-work.enabled:true}")
+	private boolean enabled;
+
+	// Opens a scope for the current thread, or joins the one already open
+	public Scope open() {
+		Scope scope = CURRENT.get();
+		if (scope != null || !enabled) {
+			return Scope.JOINED;
+		}
+		scope = new Scope(meterRegistry);
+		CURRENT.set(scope);
+		return scope;
+	}
+
+	@Around("@annotation(com.aygo.eciComm.repository.BufferedWrites)")
+	public Object bufferWrites(ProceedingJoinPoint joinPoint) throws Throwable {
+		Scope opened = open();
+		try {
+			Scope scope = CURRENT.get();
+			if (scope == null || scope.pending != null) {
+				return joinPoint.proceed();
+			}
+
+			scope.pending = new LinkedHashMap<>();
+			Object result;
+			List<Runnable> committed;
+			try {
+				result = joinPoint.proceed();
+				flush(scope);
+				committed = List.copyOf(scope.afterCommit);
+			}
+
+			finally {
+				scope.pending.keySet().forEach(scope.found::remove);
+				scope.pending = null;
+				scope.afterCommit.clear();
+			}
+
+			// No longer buffering, writes the actions make go straight to their tables
+			committed.forEach(Runnable::run);
+			return result;
+		}
+
+		finally {
+			opened.close();
+		}
+	}
+
+	// Runs the action once the writes buffered by the enclosing @BufferedWrites method are stored, or right
+	// away outside of one. It is dropped when the flush fails, so nothing counts writes that never happened.
+	public void afterCommit(Runnable action) {
+		Scope scope = CURRENT.get();
+		if (scope == null || scope.pending == null) {
+			action.run();
+			return;
+		}
+		scope.afterCommit.add(action);
+	}
+
+	static Scope current() {
+		return CURRENT.get();
+	}
+
+	private void flush(Scope scope) {
+		List<Write> writes = new ArrayList<>(scope.pending.values());
+		if (writes.size() == 1) {
+			writes.get(0).single().run();
+			return;
+		}
+
+		for (int start = 0; start < writes.size(); start += MAX_TRANSACT_WRITE) {
+			List<Write> chunk = writes.subList(start, Math.min(start + MAX_TRANSACT_WRITE, writes.size()));
+			TransactWriteItemsEnhancedRequest.Builder request = TransactWriteItemsEnhancedRequest.builder();
+			chunk.forEach(write -> write.transactional().accept(request));
+
+			try {
+				resilienceRegistry.guard("dynamodb").write(() -> enhancedClient.transactWriteItems(request.build()));
+			}
+
+			// Reported like the single write would have been, once per item whose version check failed
+			catch (TransactionCanceledException e) {
+				throw conflict(chunk, e);
+			}
+		}
+	}
+
+	private RuntimeException conflict(List<Write> chunk, TransactionCanceledException e) {
+		List<CancellationReason> reasons = e.hasCancellationReasons() ? e.cancellationReasons() : List.of();
+		boolean conflict = false;
+		for (int i = 0; i < Math.min(reasons.size(), chunk.size()); i++) {
+			if ("ConditionalCheckFailed".equals(reasons.get(i).code())) {
+				meterRegistry.counter("dynamodb.optimistic.lock.conflicts", "table", chunk.get(i).table()).increment();
+				conflict = true;
+			}
+		}
+		return conflict ? ConditionalCheckFailedException.builder().message(e.getMessage()).cause(e).build() : e;
+	}
+
+	record Write(String table, Runnable single, Consumer<TransactWriteItemsEnhancedRequest.Builder> transactional) {
+	}
+
+	public static final class Scope implements AutoCloseable {
+
+		// Returned when a scope was already open, or the identity map is disabled, closing it does nothing
+		private static final Scope JOINED = new Scope(null);
+
+		private final MeterRegistry meterRegistry;
+		private final Map<String, Optional<?>> found = new HashMap<>();
+		private final List<Runnable> afterCommit = new ArrayList<>();
+		private Map<String, Write> pending;
+
+		private Scope(MeterRegistry meterRegistry) {
+			this.meterRegistry = meterRegistry;
+		}
+
+		// Null when the key has not been looked up in this scope, an empty Optional when it was not found
+		@SuppressWarnings("unchecked")
+		<T> Optional<T> find(String table, String id) {
+			Optional<T> item = (Optional<T>) found.get(key(table, id));
+			if (item != null) {
+				meterRegistry.counter("dynamodb.identity.map.hits", "table", table).increment();
+			}
+			return item;
+		}
+
+		void remember(String table, String id, Optional<?> item) {
+			found.put(key(table, id), item);
+		}
+
+		void forget(String table, String id) {
+			found.remove(key(table, id));
+		}
+
+		// False when writes go straight to the table, otherwise the write replaces any earlier one to the key
+		boolean buffer(String table, String id, Optional<?> item, Write write) {
+			if (pending == null) {
+				return false;
+			}
+			pending.put(key(table, id), write);
+			remember(table, id, item);
+			return true;
+		}
+
+		@Override
+		public void close() {
+			if (this != JOINED) {
+				CURRENT.remove();
+			}
+		}
+
+		private static String key(String table, String id) {
+			return table + '/' + id;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package com.aygo.eciComm.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.aygo.eciComm.model.analysis.UserBehavior;
+import com.aygo.eciComm.service.hotkey.HotKeyTracker;
+import com.aygo.eciComm.service.resilience.DependencyGuard;
+import com.aygo.eciComm.service.resilience.ResilienceRegistry;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchGetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+
+// Aggregated behavior keyed by user id. UserBehavior is not a Component, so this does not extend
+// AbstractDynamoDBRepository, it only needs point reads and batched reads and writes.
+@Repository
+public class UserBehaviorRepository {
+
+	// DynamoDB accepts at most 100 keys per BatchGetItem and 25 writes per BatchWriteItem call
+	private static final int MAX_BATCH_GET = 100;
+	private static final int MAX_BATCH_WRITE = 25;
+	private static final int MAX_BATCH_RETRIES = 5;
+
+	private final DynamoDbEnhancedClient enhancedClient;
+	private final DynamoDbTable<UserBehavior> table;
+
+	@Autowired
+	private ResilienceRegistry resilienceRegistry;
+
+	@Autowired
+	private HotKeyTracker hotKeyTracker;
+
+	public UserBehaviorRepository(DynamoDbEnhancedClient enhancedClient,
+			@Value("${aws.dynamodb.tables.userBehavior}") String tableName) {
+		this.enhancedClient = enhancedClient;
+		this.table = enhancedClient.table(tableName, TableSchema.fromBean(UserBehavior.class));
+	}
+
+	public Optional<UserBehavior> findById(String userId) {
+		Key key = Key.builder().partitionValue(userId).build();
+		hotKeyTracker.read(table.tableName(), userId);
+		return Optional.ofNullable(dynamoDb().hedgedRead(() -> table.getItem(key)));
+	}
+
+	// Pages of the batch result carry the retried unprocessed keys, so every existing item is returned
+	public List<UserBehavior> findAllById(Collection<String> userIds) {
+		List<String> ids = new ArrayList<>(userIds);
+		ids.forEach(id -> hotKeyTracker.read(table.tableName(), id));
+		List<UserBehavior> found = new ArrayList<>(ids.size());
+
+		for (int start = 0; start < ids.size(); start += MAX_BATCH_GET) {
+			ReadBatch.Builder<UserBehavior> batch = ReadBatch.builder(UserBehavior.class).mappedTableResource(table);
+			ids.subList(start, Math.min(start + MAX_BATCH_GET, ids.size()))
+					.forEach(id -> batch.addGetItem(Key.builder().partitionValue(id).build()));
+
+			BatchGetItemEnhancedRequest request = BatchGetItemEnhancedRequest.builder().readBatches(batch.build())
+					.build();
+			found.addAll(dynamoDb().call(() -> enhancedClient.batchGetItem(request).resultsForTable(table).stream()
+					.toList()));
+		}
+		return found;
+	}
+
+	public void saveAll(Collection<UserBehavior> behaviors) {
+		List<UserBehavior> pending = new ArrayList<>(behaviors);
+		pending.forEach(behavior -> hotKeyTracker.write(table.tableName(), behavior.getUserId()));
+
+		for (int start = 0; start < pending.size(); start += MAX_BATCH_WRITE) {
+			List<UserBehavior> items = pending.subList(start, Math.min(start + MAX_BATCH_WRITE, pending.size()));
+
+			for (int attempt = 0; !items.isEmpty(); attempt++) {
+				if (attempt > MAX_BATCH_RETRIES) {
+					throw new IllegalStateException(items.size() + " writes left unprocessed in " + table.tableName());
+				}
+
+				WriteBatch.Builder<UserBehavior> batch = WriteBatch.builder(UserBehavior.class)
+						.mappedTableResource(table);
+				items.forEach(batch::addPutItem);
+
+				BatchWriteItemEnhancedRequest request = BatchWriteItemEnhancedRequest.builder()
+						.addWriteBatch(batch.build()).build();
+				BatchWriteResult result = dynamoDb().write(() -> enhancedClient.batchWriteItem(request));
+				items = result.unprocessedPutItemsForTable(table);
+				backoff(attempt, items.isEmpty());
+			}
+		}
+	}
+
+	private DependencyGuard dynamoDb() {
+		return resilienceRegistry.guard("dynamodb");
+	}
+
+	private static void backoff(int attempt, boolean done) {
+		if (done) {
+			return;
+		}
+		try {
+			Thread.sleep(Math.min(1000L, 50L << attempt));
+		}
+
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while retrying batch write", e);
+		}
+	}
+}
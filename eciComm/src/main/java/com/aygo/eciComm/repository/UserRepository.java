@@ -32,7 +32,8 @@ public class UserRepository extends AbstractDynamoDBRepository<User> {
 		Expression filterExpression = Expression.builder().expression("email = :email")
 				.putExpressionValue(":email", AttributeValue.builder().s(email.toLowerCase()).build()).build();
 
-		return getTable().scan(r -> r.filterExpression(filterExpression)).items().stream().findFirst();
+		return timed("findByEmail",
+				() -> getTable().scan(r -> r.filterExpression(filterExpression)).items().stream().findFirst());
 	}
 
 	public List<User> findByStatus(UserStatus status) {
@@ -40,6 +41,8 @@ public class UserRepository extends AbstractDynamoDBRepository<User> {
 				.putExpressionName("#status", "status")
 				.putExpressionValue(":status", AttributeValue.builder().s(status.name()).build()).build();
 
-		return getTable().scan(r -> r.filterExpression(filterExpression)).items().stream().collect(Collectors.toList());
+		return timed("findByStatus",
+				() -> getTable().scan(r -> r.filterExpression(filterExpression)).items().stream()
+						.collect(Collectors.toList()));
 	}
 }
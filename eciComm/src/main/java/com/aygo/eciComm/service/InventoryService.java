@@ -2,9 +2,11 @@ package com.aygo.eciComm.service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,13 +17,21 @@ import com.aygo.eciComm.model.Inventory;
 import com.aygo.eciComm.model.enums.InventoryStatus;
 import com.aygo.eciComm.repository.InventoryRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.annotation.Observed;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+@Observed(name = "service.calls")
 @Service
 public class InventoryService {
 
-	private static final Logger LOG = LogManager.getLogger(InventoryService.class);
+	private static final Logger LOG = LoggerFactory.getLogger(InventoryService.class);
 
 	@Autowired
 	private InventoryRepository inventoryRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
 	
 	private static final Integer DEFAULT_REORDER_POINT = 10;
 	private static final Integer DEFAULT_REORDER_QUANTITY = 50;
@@ -50,6 +60,10 @@ public class InventoryService {
 				.orElseThrow(() -> new InventoryNotFoundException("Inventory not found: " + inventoryId));
 	}
 
+	public Optional<Inventory> getInventoryVersion(String inventoryId) {
+		return inventoryRepository.findVersionById(inventoryId);
+	}
+
 	public Inventory getInventoryByProduct(String productId) {
 		LOG.debug("Fetching inventory for product: {}", productId);
 		return inventoryRepository.findByProductId(productId)
@@ -60,6 +74,10 @@ public class InventoryService {
 		return inventoryRepository.findByStatus(InventoryStatus.LOW_STOCK);
 	}
 
+	public Stream<Inventory> streamLowStockInventory() {
+		return inventoryRepository.streamByStatus(InventoryStatus.LOW_STOCK);
+	}
+
 	@Transactional
 	public Inventory updateStock(String inventoryId, Integer quantityChange) {
 		LOG.info("Updating stock for inventory {}: {}", inventoryId, quantityChange);
@@ -77,14 +95,32 @@ public class InventoryService {
 	@Transactional
 	public Inventory reserveStock(String inventoryId, Integer quantity) {
 		LOG.info("Reserving {} items from inventory: {}", quantity, inventoryId);
-		Inventory inventory = getInventory(inventoryId);
+		try {
+			Inventory inventory = getInventory(inventoryId);
+
+			if (inventory.getAvailableQuantity() < quantity) {
+				throw new InventoryValidationException("Insufficient stock available for reservation");
+			}
 
-		if (inventory.getAvailableQuantity() < quantity) {
-			throw new InventoryValidationException("Insufficient stock available for reservation");
+			inventory.setReservedQuantity(inventory.getReservedQuantity() + quantity);
+			return inventoryRepository.save(inventory);
 		}
 
-		inventory.setReservedQuantity(inventory.getReservedQuantity() + quantity);
-		return inventoryRepository.save(inventory);
+		catch (InventoryNotFoundException e) {
+			reservationFailed("not_found");
+			throw e;
+		}
+
+		catch (InventoryValidationException e) {
+			reservationFailed("insufficient_stock");
+			throw e;
+		}
+
+		// Another reservation updated the item between our read and write
+		catch (ConditionalCheckFailedException e) {
+			reservationFailed("conflict");
+			throw e;
+		}
 	}
 
 	@Transactional
@@ -100,6 +136,10 @@ public class InventoryService {
 		return inventoryRepository.save(inventory);
 	}
 
+	private void reservationFailed(String reason) {
+		meterRegistry.counter("inventory.reservations.failed", "reason", reason).increment();
+	}
+
 	private void validateInventory(Inventory inventory) {
 		List<String> errors = new ArrayList<>();
 
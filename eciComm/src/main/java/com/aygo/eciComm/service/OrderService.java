@@ -3,9 +3,11 @@ package com.aygo.eciComm.service;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,13 +19,23 @@ import com.aygo.eciComm.model.Order;
 import com.aygo.eciComm.model.OrderItem;
 import com.aygo.eciComm.model.Product;
 import com.aygo.eciComm.model.enums.OrderStatus;
+import com.aygo.eciComm.repository.BufferedWrites;
 import com.aygo.eciComm.repository.OrderItemRepository;
 import com.aygo.eciComm.repository.OrderRepository;
+import com.aygo.eciComm.repository.UnitOfWork;
+import com.aygo.eciComm.service.analysis.CoPurchaseIndex;
+import com.aygo.eciComm.service.analysis.SegmentationService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.annotation.Observed;
+
+@Observed(name = "service.calls")
 @Service
 public class OrderService {
 
-	private static final Logger LOG = LogManager.getLogger(Order.class);
+	private static final Logger LOG = LoggerFactory.getLogger(OrderService.class);
 
 	@Autowired
 	private OrderItemRepository orderItemRepository;
@@ -34,6 +46,21 @@ public class OrderService {
 	@Autowired
 	private ProductService productService;
 
+	@Autowired
+	private CoPurchaseIndex coPurchaseIndex;
+
+	@Autowired
+	private SegmentationService segmentationService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private UnitOfWork unitOfWork;
+
+	@Autowired
+	private ObservationRegistry observationRegistry;
+
 	public Order createOrdery(Order order) {
 		LOG.info("Creating new order for user: {}", order.getUserId());
 		validateOrder(order);
@@ -42,11 +69,13 @@ public class OrderService {
 		return orderRepository.save(order);
 	}
 
+	@BufferedWrites
 	@Transactional
 	public Order createOrder(Order order) {
 		LOG.info("Creating new order for user: {}", order.getUserId());
-		validateOrder(order);
-		calculateOrderTotals(order);
+		int itemCount = order.getItems() != null ? order.getItems().size() : 0;
+		step("order.validate", itemCount, () -> validateOrder(order));
+		step("order.totals", itemCount, () -> calculateOrderTotals(order));
 		order.setStatus(OrderStatus.PENDING);
 
 		// Save order first
@@ -54,12 +83,20 @@ public class OrderService {
 
 		// Save each order item
 		if (order.getItems() != null) {
-			for (OrderItem item : order.getItems()) {
-				item.setOrderId(savedOrder.getId());
-				orderItemRepository.save(item);
-			}
+			step("order.items.save", itemCount, () -> {
+				for (OrderItem item : order.getItems()) {
+					item.setOrderId(savedOrder.getId());
+					orderItemRepository.save(item);
+				}
+			});
 		}
 
+		// Only counted once the buffered writes are stored, a failed flush leaves no trace of the order
+		unitOfWork.afterCommit(() -> {
+			coPurchaseIndex.record(savedOrder);
+			segmentationService.recordOrder(savedOrder);
+			meterRegistry.counter("orders.created").increment();
+		});
 		return savedOrder;
 	}
 
@@ -73,16 +110,36 @@ public class OrderService {
 		return order;
 	}
 
+	public Optional<Order> getOrderVersion(String orderId) {
+		return orderRepository.findVersionById(orderId);
+	}
+
 	public List<Order> getUserOrders(String userId) {
 		LOG.debug("Fetching orders for user: {}", userId);
 		return orderRepository.findByUserId(userId);
 	}
 
+	public Stream<Order> streamUserOrders(String userId) {
+		LOG.debug("Streaming orders for user: {}", userId);
+		return orderRepository.streamByUserId(userId);
+	}
+
 	public Order updateOrderStatus(String orderId, OrderStatus newStatus) {
 		LOG.info("Updating order status: {} to {}", orderId, newStatus);
-		Order order = getOrder(orderId);
+		// The items are stored on the order as well, the item table is not needed for a status change
+		Order order = orderRepository.findById(orderId).orElseThrow(() -> new OrderNotFoundException(orderId));
+		OrderStatus previousStatus = order.getOrderStatus();
 		order.setStatus(newStatus);
-		return orderRepository.save(order);
+
+		Order saved = orderRepository.save(order);
+		segmentationService.recordStatusChange(saved, previousStatus);
+		return saved;
+	}
+
+	// The checkout steps are private calls the service span cannot see into, each gets a child span of its own
+	private void step(String name, int itemCount, Runnable step) {
+		Observation.createNotStarted(name, observationRegistry)
+				.highCardinalityKeyValue("order.items", String.valueOf(itemCount)).observe(step);
 	}
 
 	private void validateOrder(Order order) {
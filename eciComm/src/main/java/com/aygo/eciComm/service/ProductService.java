@@ -2,42 +2,83 @@ package com.aygo.eciComm.service;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.aygo.eciComm.exception.DependencyUnavailableException;
 import com.aygo.eciComm.exception.ProductValidationException;
 import com.aygo.eciComm.model.Product;
 import com.aygo.eciComm.model.enums.ProductStatus;
+import com.aygo.eciComm.model.request.ImageUploadRequest;
+import com.aygo.eciComm.model.response.ImageUploadTicket;
 import com.aygo.eciComm.repository.ProductRepository;
-
+import com.aygo.eciComm.service.catalog.CatalogSnapshotService;
+import com.aygo.eciComm.service.resilience.ResilienceRegistry;
+import com.aygo.eciComm.service.search.ProductSearchService;
+import com.aygo.eciComm.service.storage.ImageDerivativeService;
+import com.aygo.eciComm.service.storage.ImageUploadSigner;
+import com.aygo.eciComm.service.storage.ObjectDeletionQueue;
+
+import io.micrometer.observation.annotation.Observed;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
+@Observed(name = "service.calls")
 @Service
 public class ProductService {
 
-	private static final Logger LOG = LogManager.getLogger(ProductService.class);
+	private static final Logger LOG = LoggerFactory.getLogger(ProductService.class);
 
 	@Autowired
 	private ProductRepository productRepository;
 
+	@Autowired
+	private ProductSearchService productSearchService;
+
+	@Autowired
+	private CatalogSnapshotService catalogSnapshotService;
+
 	@Autowired
 	private S3Client s3Client;
 
+	@Autowired
+	private ImageUploadSigner imageUploadSigner;
+
+	@Autowired
+	private ImageDerivativeService imageDerivativeService;
+
+	@Autowired
+	private ObjectDeletionQueue objectDeletionQueue;
+
+	@Autowired
+	private ResilienceRegistry resilienceRegistry;
+
 	@Value("${aws.s3.buckets.product}")
 	private String bucketName;
 
+	@Value("${aws.s3.upload.max-size:5000000}")
+	private long maxImageSize;
+
+	// Uploads stream the whole file, so they get a fixed timeout instead of the adaptive one
+	@Value("${aws.s3.upload.timeout:PT60S}")
+	private Duration uploadTimeout;
+
 	public Product createProduct(Product product) {
 		LOG.info("Creating new product: {}", product.getName());
 		validateProduct(product);
@@ -46,7 +87,14 @@ public class ProductService {
 		product.setCreatedAt(Instant.now());
 
 		try {
-			return productRepository.save(product);
+			Product saved = productRepository.save(product);
+			productSearchService.index(saved);
+			catalogSnapshotService.updated(saved);
+			return saved;
+		}
+
+		catch (DependencyUnavailableException e) {
+			throw e;
 		}
 
 		catch (Exception e) {
@@ -61,9 +109,22 @@ public class ProductService {
 				.orElseThrow(() -> new ProductValidationException("Product: " + id + "not found"));
 	}
 
+	public Optional<Product> getProductVersion(String id) {
+		return productRepository.findVersionById(id);
+	}
+
 	public List<Product> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
 		LOG.debug("Finding products in price range: {} to {}", minPrice, maxPrice);
-		return productRepository.findByPriceRange(minPrice, maxPrice);
+
+		// Prefer the off-heap snapshot, fall back to a table scan until the first one is built
+		return catalogSnapshotService.findByPriceRange(minPrice, maxPrice)
+				.orElseGet(() -> productRepository.findByPriceRange(minPrice, maxPrice));
+	}
+
+	public Stream<Product> streamByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+		LOG.debug("Streaming products in price range: {} to {}", minPrice, maxPrice);
+		return catalogSnapshotService.streamByPriceRange(minPrice, maxPrice)
+				.orElseGet(() -> productRepository.streamByPriceRange(minPrice, maxPrice));
 	}
 
 	public Product updateProduct(String id, Product productUpdate) {
@@ -95,7 +156,10 @@ public class ProductService {
 		existingProduct.setUpdatedAt(Instant.now());
 
 		validateProduct(existingProduct);
-		return productRepository.save(existingProduct);
+		Product saved = productRepository.save(existingProduct);
+		productSearchService.index(saved);
+		catalogSnapshotService.updated(saved);
+		return saved;
 	}
 
 	public void deleteProduct(String id) {
@@ -103,12 +167,12 @@ public class ProductService {
 
 		Product product = getProduct(id);
 
-		// Delete image from S3 if exists
-		if (product.getImageUrl() != null) {
-			deleteProductImage(product.getImageUrl());
-		}
-
 		productRepository.delete(id);
+		productSearchService.remove(id);
+		catalogSnapshotService.deleted(id);
+
+		// Delete image from S3 if exists, only once the product no longer points at it
+		releaseImage(product.getImageUrl(), product.getImageReference());
 	}
 
 	public String uploadProductImage(String id, MultipartFile file) {
@@ -121,20 +185,25 @@ public class ProductService {
 			String key = String.format("products/%s/%s-%s", id, UUID.randomUUID().toString(),
 					file.getOriginalFilename());
 
-			// Delete old image if exists
-			if (product.getImageUrl() != null) {
-				deleteProductImage(product.getImageUrl());
-			}
+			String oldKey = product.getImageUrl();
+			String oldReference = product.getImageReference();
 
 			// Upload new image
 			PutObjectRequest putObjectRequest = PutObjectRequest.builder().bucket(bucketName).key(key)
 					.contentType(file.getContentType()).build();
 
-			s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
+			RequestBody body = RequestBody.fromInputStream(file.getInputStream(), file.getSize());
+			resilienceRegistry.guard("s3").call(() -> s3Client.putObject(putObjectRequest, body), uploadTimeout);
 
-			// Update product with new image URL
+			// Update product with new image URL, derivatives are attached once generated
 			product.setImageUrl(key);
-			productRepository.save(product);
+			product.setImageVariants(null);
+			product.setImageReference(null);
+			catalogSnapshotService.updated(productRepository.save(product));
+			imageDerivativeService.submit(id, key);
+
+			// Delete old image if exists, a failed upload or save leaves the product on it
+			releaseImage(oldKey, oldReference);
 
 			return key;
 		}
@@ -145,6 +214,61 @@ public class ProductService {
 		}
 	}
 
+	// Hands out a short-lived URL so the image goes straight from the client to S3
+	public ImageUploadTicket createImageUpload(String id, ImageUploadRequest request) {
+		LOG.info("Issuing image upload for product: {}", id);
+
+		validateImageUpload(request);
+		getProduct(id);
+
+		String key = String.format("products/%s/%s-%s", id, UUID.randomUUID().toString(),
+				sanitizeFileName(request.getFileName()));
+
+		return imageUploadSigner.sign(key, request.getContentType(), request.getContentLength(), maxImageSize);
+	}
+
+	// Called by the client once S3 accepted the upload, attaches the new key to the product
+	public String completeImageUpload(String id, String key) {
+		LOG.info("Completing image upload for product: {}", id);
+
+		if (key == null || !key.startsWith("products/" + id + "/")) {
+			throw new ProductValidationException("Upload key does not belong to product: " + id);
+		}
+
+		HeadObjectResponse head;
+		try {
+			HeadObjectRequest request = HeadObjectRequest.builder().bucket(bucketName).key(key).build();
+			head = resilienceRegistry.guard("s3").hedgedRead(() -> s3Client.headObject(request));
+		}
+
+		catch (NoSuchKeyException e) {
+			throw new ProductValidationException("Uploaded image not found: " + key);
+		}
+
+		if (head.contentLength() > maxImageSize || head.contentType() == null
+				|| !head.contentType().startsWith("image/")) {
+			deleteProductImage(key);
+			throw new ProductValidationException("Uploaded file must be an image smaller than " + maxImageSize
+					+ " bytes");
+		}
+
+		Product product = getProduct(id);
+		String oldKey = product.getImageUrl();
+		String oldReference = product.getImageReference();
+
+		product.setImageUrl(key);
+		product.setImageVariants(null);
+		product.setImageReference(null);
+		catalogSnapshotService.updated(productRepository.save(product));
+		imageDerivativeService.submit(id, key);
+
+		if (!key.equals(oldKey)) {
+			releaseImage(oldKey, oldReference);
+		}
+
+		return key;
+	}
+
 	private void validateProduct(Product product) {
 		List<String> errors = new ArrayList<>();
 
@@ -173,8 +297,8 @@ public class ProductService {
 		if (file == null || file.isEmpty()) {
 			throw new ProductValidationException("Image file is required");
 		}
-		if (file.getSize() > 5_000_000) { // 5MB limit
-			throw new ProductValidationException("Image file size must be less than 5MB");
+		if (file.getSize() > maxImageSize) {
+			throw new ProductValidationException("Image file size must be less than " + maxImageSize + " bytes");
 		}
 
 		String contentType = file.getContentType();
@@ -184,14 +308,34 @@ public class ProductService {
 		}
 	}
 
-	private void deleteProductImage(String imageUrl) {
-		try {
-			DeleteObjectRequest deleteRequest = DeleteObjectRequest.builder().bucket(bucketName).key(imageUrl).build();
-			s3Client.deleteObject(deleteRequest);
+	private void validateImageUpload(ImageUploadRequest request) {
+		if (request.getContentLength() == null || request.getContentLength() <= 0) {
+			throw new ProductValidationException("Content length is required");
+		}
+		if (request.getContentLength() > maxImageSize) {
+			throw new ProductValidationException("Image file size must be less than " + maxImageSize + " bytes");
+		}
+		if (request.getContentType() == null || !request.getContentType().startsWith("image/")) {
+			throw new ProductValidationException("File must be an image");
 		}
+	}
 
-		catch (Exception e) {
-			LOG.error("Error deleting product image: {}", e.getMessage(), e);
+	private String sanitizeFileName(String fileName) {
+		String name = fileName == null ? "" : fileName.replaceAll("[^A-Za-z0-9._-]", "-");
+		return name.isBlank() ? "image" : name;
+	}
+
+	// Deleted asynchronously, a failing S3 call no longer blocks or fails the request
+	private void deleteProductImage(String imageUrl) {
+		objectDeletionQueue.enqueue(bucketName, imageUrl);
+	}
+
+	// Attached images are shared by content hash and only released, uploads not attached yet are ours to delete
+	private void releaseImage(String imageUrl, String imageReference) {
+		if (imageReference != null) {
+			imageDerivativeService.release(imageUrl, imageReference);
+		} else if (imageUrl != null) {
+			deleteProductImage(imageUrl);
 		}
 	}
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.aygo.eciComm.service;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +16,9 @@ import com.aygo.eciComm.model.User;
 import com.aygo.eciComm.model.enums.UserStatus;
 import com.aygo.eciComm.repository.UserRepository;
 
+import io.micrometer.observation.annotation.Observed;
+
+@Observed(name = "service.calls")
 @Service
 public class UserService {
 
@@ -41,6 +45,10 @@ public class UserService {
 				.orElseThrow(() -> new UserNotFoundException("User not found: " + userId));
 	}
 
+	public Optional<User> getUserVersion(String userId) {
+		return userRepository.findVersionById(userId);
+	}
+
 	public User getUserByEmail(String email) {
 		LOG.debug("Fetching user by email: {}", email);
 		return userRepository.findByEmail(email)
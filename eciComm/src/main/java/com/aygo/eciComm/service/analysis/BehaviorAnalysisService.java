@@ -1,9 +1,11 @@
 package com.aygo.eciComm.service.analysis;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,16 +14,19 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.aygo.eciComm.exception.AnalysisException;
+import com.aygo.eciComm.exception.DependencyUnavailableException;
+import com.aygo.eciComm.model.analysis.Recommendations;
 import com.aygo.eciComm.model.analysis.UserBehavior;
+import com.aygo.eciComm.model.enums.InferenceKind;
+import com.aygo.eciComm.model.enums.RecommendationSource;
+import com.aygo.eciComm.service.resilience.ResilienceRegistry;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.observation.annotation.Observed;
 
-import software.amazon.awssdk.core.SdkBytes;
-import software.amazon.awssdk.services.sagemakerruntime.SageMakerRuntimeClient;
-import software.amazon.awssdk.services.sagemakerruntime.model.InvokeEndpointRequest;
-import software.amazon.awssdk.services.sagemakerruntime.model.InvokeEndpointResponse;
-
+@Observed(name = "service.calls")
 @Service
 public class BehaviorAnalysisService {
     
@@ -30,34 +35,63 @@ public class BehaviorAnalysisService {
     @Autowired
     private ObjectMapper objectMapper;
 
-    // Comment out real SageMaker client
     @Autowired
-    private SageMakerRuntimeClient sageMakerClient;
-    
-    @Value("${aws.sagemaker.endpoint}")
-    private String sageMakerEndpoint;
+    private InferenceBatcher inferenceBatcher;
 
-    public Map<String, Double> predictUserPreferences(String userId, UserBehavior behavior) {
-		try {
-			// Prepare the input data for the model
-			Map<String, Object> inputData = new HashMap<>();
-			inputData.put("user_id", userId);
-			inputData.put("viewed_products", behavior.getViewedProducts());
-			inputData.put("purchased_products", behavior.getPurchasedProducts());
-			inputData.put("category_views", behavior.getCategoryViews());
-			inputData.put("price_preferences", behavior.getPriceRangePreferences());
+    @Autowired
+    private RecommendationCache recommendationCache;
 
-			String inputJson = objectMapper.writeValueAsString(inputData);
+    @Autowired
+    private PrecomputedRecommendationStore precomputedRecommendationStore;
 
-			// Call SageMaker endpoint
-			InvokeEndpointRequest request = InvokeEndpointRequest.builder().endpointName(sageMakerEndpoint)
-					.contentType("application/json").body(SdkBytes.fromUtf8String(inputJson)).build();
+    @Autowired
+    private CoOccurrenceRecommender coOccurrenceRecommender;
 
-			InvokeEndpointResponse response = sageMakerClient.invokeEndpoint(request);
-			String result = response.body().asUtf8String();
+    @Autowired
+    private FeatureEncoder featureEncoder;
+
+    @Autowired
+    private SegmentationService segmentationService;
+
+    @Autowired
+    private ResilienceRegistry resilienceRegistry;
+
+    // binary sends dictionary-encoded FeatureVectors instead of JSON maps
+    @Value("#{'${aws.sagemaker.features.encoding:json}' == 'binary'}")
+    private boolean binaryFeatures;
+
+    @Value("${aws.sagemaker.timeout:PT5S}")
+    private Duration inferenceTimeout;
+
+    // Live recommendations that take longer than this are answered by the fallback model
+    @Value("${recommendations.latency-budget:PT0.3S}")
+    private Duration latencyBudget;
+
+    @Value("${recommendations.fallback.size:10}")
+    private int fallbackSize;
+
+    public Map<String, Double> predictUserPreferences(String userId, UserBehavior behavior) {
+		try {
+			// Prepare the input data for the model
+			Object inputData;
+			if (binaryFeatures) {
+				inputData = featureEncoder.encode(InferenceKind.PREFERENCES, behavior);
+			} else {
+				Map<String, Object> jsonInput = jsonInput(InferenceKind.PREFERENCES, userId);
+				if (behavior != null) {
+					jsonInput.put("viewed_products", behavior.getViewedProducts());
+					jsonInput.put("purchased_products", behavior.getPurchasedProducts());
+					jsonInput.put("category_views", behavior.getCategoryViews());
+					jsonInput.put("price_preferences", behavior.getPriceRangePreferences());
+				}
+				inputData = jsonInput;
+			}
+
+			// Call SageMaker endpoint, batched with concurrent requests
+			JsonNode result = infer(inputData, inferenceTimeout);
 
 			// Parse and return predictions
-			return objectMapper.readValue(result, new TypeReference<Map<String, Double>>() {
+			return objectMapper.convertValue(result, new TypeReference<Map<String, Double>>() {
 			});
 		
 
@@ -85,25 +119,42 @@ public class BehaviorAnalysisService {
         }
     }
 
-    public List<String> getProductRecommendations(String userId, UserBehavior behavior) {
+    // Batch-inference results first, live inference only for users the batch did not cover.
+    // Repeat live requests with unchanged behavior are answered from the cache, and when the endpoint
+    // is down, slow or behind an open breaker the embedded co-occurrence model answers instead.
+    public Recommendations getProductRecommendations(String userId, UserBehavior behavior) {
+        Optional<List<String>> precomputed = precomputedRecommendationStore.find(userId);
+        if (precomputed.isPresent()) {
+            return new Recommendations(precomputed.get(), RecommendationSource.PRECOMPUTED);
+        }
+
         try {
-            // COMMENTED: Real SageMaker call
-            Map<String, Object> inputData = new HashMap<>();
-            inputData.put("user_id", userId);
-            inputData.put("behavior", behavior);
+            List<String> live = recommendationCache.get(userId, behavior,
+                    () -> inferRecommendations(userId, behavior));
+            return new Recommendations(live, RecommendationSource.SAGEMAKER);
+        }
 
-            String inputJson = objectMapper.writeValueAsString(inputData);
+        catch (AnalysisException | DependencyUnavailableException e) {
+            LOG.warn("Serving fallback recommendations for user {}: {}", userId, e.getMessage());
+            return new Recommendations(coOccurrenceRecommender.recommend(behavior, fallbackSize),
+                    RecommendationSource.CO_OCCURRENCE);
+        }
+    }
 
-            InvokeEndpointRequest request = InvokeEndpointRequest.builder()
-                    .endpointName(sageMakerEndpoint)
-                    .contentType("application/json")
-                    .body(SdkBytes.fromUtf8String(inputJson))
-                    .build();
+    private List<String> inferRecommendations(String userId, UserBehavior behavior) {
+        try {
+            Object inputData;
+            if (binaryFeatures) {
+                inputData = featureEncoder.encode(InferenceKind.RECOMMENDATIONS, behavior);
+            } else {
+                Map<String, Object> jsonInput = jsonInput(InferenceKind.RECOMMENDATIONS, userId);
+                jsonInput.put("behavior", behavior);
+                inputData = jsonInput;
+            }
 
-            InvokeEndpointResponse response = sageMakerClient.invokeEndpoint(request);
-            String result = response.body().asUtf8String();
-            
-			return objectMapper.readValue(result, new TypeReference<List<String>>() {});
+            JsonNode result = infer(inputData, latencyBudget);
+
+			return objectMapper.convertValue(result, new TypeReference<List<String>>() {});
 
 
             // SIMULATED RESPONSE: Return mock product recommendations
@@ -118,52 +169,46 @@ public class BehaviorAnalysisService {
             LOG.info("Generated mock recommendations for user {}", userId);
             return mockRecommendations;*/
 
+        } catch (AnalysisException | DependencyUnavailableException e) {
+            // Already describes the endpoint failure, the caller falls back
+            throw e;
         } catch (Exception e) {
             LOG.error("Error generating mock recommendations: {}", e.getMessage(), e);
             throw new AnalysisException("Failed to generate mock recommendations", e);
         }
     }
 
+    // Served from the bulk-refreshed segmentation, no endpoint call on the request path
     public Map<String, Object> analyzeUserSegment(UserBehavior behavior) {
-        try {
-            // COMMENTED: Real SageMaker call
-            /*String inputJson = objectMapper.writeValueAsString(behavior);
-
-            InvokeEndpointRequest request = InvokeEndpointRequest.builder()
-                    .endpointName(sageMakerEndpoint)
-                    .contentType("application/json")
-                    .body(SdkBytes.fromUtf8String(inputJson))
-                    .build();
+        return segmentationService.describe(behavior.getUserId(), behavior);
+    }
 
-            InvokeEndpointResponse response = sageMakerClient.invokeEndpoint(request);
-            String result = response.body().asUtf8String();*/
+    // Preference and recommendation requests share batches, the kind tells the endpoint which model answers.
+    // A HashMap since the user id and behavior may be null.
+    private static Map<String, Object> jsonInput(InferenceKind kind, String userId) {
+        Map<String, Object> jsonInput = new HashMap<>();
+        jsonInput.put("kind", kind);
+        jsonInput.put("user_id", userId);
+        return jsonInput;
+    }
 
-            // SIMULATED RESPONSE: Return mock segment analysis
-            Map<String, Object> mockAnalysis = new HashMap<>();
-            
-            // Simulate user segment classification
-            mockAnalysis.put("segment", "HIGH_VALUE_CUSTOMER");
-            mockAnalysis.put("confidence", 0.85 + (Math.random() * 0.15));
-            
-            // Add mock behavioral metrics
-            Map<String, Double> metrics = new HashMap<>();
-            metrics.put("purchase_frequency", 2.5 + (Math.random() * 1.5));
-            metrics.put("avg_order_value", 150.0 + (Math.random() * 50));
-            metrics.put("engagement_score", 0.75 + (Math.random() * 0.25));
-            mockAnalysis.put("metrics", metrics);
-            
-            // Add mock predictions
-            Map<String, Double> predictions = new HashMap<>();
-            predictions.put("churn_risk", 0.15 + (Math.random() * 0.1));
-            predictions.put("upsell_probability", 0.65 + (Math.random() * 0.2));
-            mockAnalysis.put("predictions", predictions);
+    // Timeouts count as failures, so a slow endpoint opens the breaker just like a failing one.
+    // The guard's bulkhead also bounds how many requests wait on the batcher at once.
+    private JsonNode infer(Object inputData, Duration timeout) {
+        return resilienceRegistry.guard("sagemaker").call(() -> {
+            try {
+                return inferenceBatcher.submit(inputData).get();
+            }
 
-            LOG.info("Generated mock segment analysis");
-            return mockAnalysis;
+            catch (ExecutionException e) {
+                throw e.getCause() instanceof AnalysisException analysisException ? analysisException
+                        : new AnalysisException("Failed to invoke inference endpoint", e.getCause());
+            }
 
-        } catch (Exception e) {
-            LOG.error("Error generating mock segment analysis: {}", e.getMessage(), e);
-            throw new AnalysisException("Failed to generate mock segment analysis", e);
-        }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AnalysisException("Interrupted waiting for inference", e);
+            }
+        }, timeout);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.aygo.eciComm.model.analysis.UserBehavior;
+
+// In-JVM item-to-item recommender used when live inference is unavailable or too slow.
+// Products bought together are neighbours in the CoPurchaseIndex, the user's purchases and views
+// vote for their neighbours and globally popular products fill any remaining slots.
+@Service
+public class CoOccurrenceRecommender {
+
+	private static final double PURCHASE_WEIGHT = 2.0;
+	private static final double VIEW_WEIGHT = 1.0;
+	private static final int MAX_SEEDS = 50;
+
+	@Autowired
+	private CoPurchaseIndex coPurchaseIndex;
+
+	@Value("${recommendations.fallback.neighbours:20}")
+	private int neighbours;
+
+	public List<String> recommend(UserBehavior behavior, int limit) {
+		Set<String> purchased = behavior != null && behavior.getPurchasedProducts() != null
+				? new HashSet<>(behavior.getPurchasedProducts())
+				: Set.of();
+
+		Map<String, Double> scores = new HashMap<>();
+		if (behavior != null) {
+			vote(behavior.getPurchasedProducts(), PURCHASE_WEIGHT, scores);
+			vote(behavior.getViewedProducts(), VIEW_WEIGHT, scores);
+		}
+
+		Set<String> result = new LinkedHashSet<>();
+		scores.entrySet().stream().filter(entry -> !purchased.contains(entry.getKey()))
+				.sorted(Map.Entry.<String, Double>comparingByValue().reversed()).limit(limit)
+				.forEach(entry -> result.add(entry.getKey()));
+
+		for (String product : coPurchaseIndex.popular(limit + purchased.size())) {
+			if (result.size() >= limit) {
+				break;
+			}
+			if (!purchased.contains(product)) {
+				result.add(product);
+			}
+		}
+		return new ArrayList<>(result);
+	}
+
+	// Most recent seeds last in the behavior lists, so they get the most weight
+	private void vote(List<String> seeds, double weight, Map<String, Double> scores) {
+		if (seeds == null) {
+			return;
+		}
+
+		int from = Math.max(0, seeds.size() - MAX_SEEDS);
+		for (int i = from; i < seeds.size(); i++) {
+			double recency = (double) (i - from + 1) / (seeds.size() - from);
+			List<String> related = coPurchaseIndex.alsoBought(seeds.get(i), neighbours);
+			for (int rank = 0; rank < related.size(); rank++) {
+				scores.merge(related.get(rank), weight * recency / (rank + 1), Double::sum);
+			}
+		}
+	}
+}
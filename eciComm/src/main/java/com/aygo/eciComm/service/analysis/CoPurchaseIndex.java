@@ -0,0 +1,359 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.aygo.eciComm.model.Order;
+import com.aygo.eciComm.model.OrderItem;
+import com.aygo.eciComm.repository.OrderRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Sparse product-by-product co-purchase counts, updated live from new orders.
+// Products are dictionary-encoded to ints and each row is a primitive map capped at maxNeighbours entries
+// (space-saving eviction of the weakest neighbour). Counts decay with a configurable half-life and the
+// whole index is snapshotted to disk so restarts don't need a full order scan.
+@Service
+public class CoPurchaseIndex {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CoPurchaseIndex.class);
+
+	private static final int SNAPSHOT_MAGIC = 0x45434F31; // "ECO1"
+	private static final float MIN_COUNT = 0.01f;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Value("${recommendations.co-purchase.max-neighbours:100}")
+	private int maxNeighbours;
+
+	@Value("${recommendations.co-purchase.max-items-per-order:50}")
+	private int maxItemsPerOrder;
+
+	@Value("${recommendations.co-purchase.half-life:P30D}")
+	private Duration halfLife;
+
+	@Value("${recommendations.co-purchase.decay-interval:PT1H}")
+	private Duration decayInterval;
+
+	@Value("${recommendations.co-purchase.snapshot-file:${java.io.tmpdir}/eciComm/co-purchase.idx}")
+	private String snapshotFile;
+
+	@Value("${recommendations.co-purchase.snapshot-interval:PT5M}")
+	private Duration snapshotInterval;
+
+	private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+	private volatile Row[] rows = new Row[1024];
+	private int productCount;
+	private final Row popularity = new Row(null, 1024);
+	private volatile boolean dirty;
+
+	// Orders recorded live while the history scan runs, the scan skips them to avoid counting twice
+	private final Set<String> recordedDuringBootstrap = ConcurrentHashMap.newKeySet();
+	private volatile boolean bootstrapping = true;
+
+	// All writes happen on this thread, readers only lock the row they look at
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "co-purchase-index");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		executor.execute(this::load);
+		executor.scheduleWithFixedDelay(this::decay, decayInterval.toMillis(), decayInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+		executor.scheduleWithFixedDelay(this::snapshot, snapshotInterval.toMillis(), snapshotInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		}
+
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		snapshot();
+	}
+
+	public void record(Order order) {
+		List<String> products = productsOf(order.getItems());
+		if (!products.isEmpty()) {
+			if (bootstrapping && order.getId() != null) {
+				recordedDuringBootstrap.add(order.getId());
+			}
+			executor.execute(() -> add(products, 1f));
+		}
+	}
+
+	// "Customers also bought", strongest co-purchases first
+	public List<String> alsoBought(String productId, int limit) {
+		Integer id = ids.get(productId);
+		Row[] current = rows;
+		if (id == null || id >= current.length || current[id] == null) {
+			return List.of();
+		}
+		return names(current[id].top(limit), limit);
+	}
+
+	public List<String> popular(int limit) {
+		return names(popularity.top(limit), limit);
+	}
+
+	public int size() {
+		return ids.size();
+	}
+
+	private void add(List<String> products, float weight) {
+		int[] productIds = new int[products.size()];
+		for (int i = 0; i < productIds.length; i++) {
+			productIds[i] = idOf(products.get(i));
+			popularity.add(productIds[i], weight, Integer.MAX_VALUE);
+		}
+
+		for (int product : productIds) {
+			Row row = rows[product];
+			for (int other : productIds) {
+				if (other != product) {
+					row.add(other, weight, maxNeighbours);
+				}
+			}
+		}
+		dirty = true;
+	}
+
+	void decay() {
+		float factor = (float) Math.pow(0.5, (double) decayInterval.toMillis() / halfLife.toMillis());
+		Row[] current = rows;
+		for (int i = 0; i < productCount; i++) {
+			current[i].scale(factor);
+		}
+		popularity.scale(factor);
+		dirty = true;
+	}
+
+	private int idOf(String productId) {
+		Integer existing = ids.get(productId);
+		if (existing != null) {
+			return existing;
+		}
+
+		int id = productCount++;
+		if (id == rows.length) {
+			rows = Arrays.copyOf(rows, rows.length * 2);
+		}
+		rows[id] = new Row(productId, 16);
+		// Published last so readers never see an id without its row
+		ids.put(productId, id);
+		return id;
+	}
+
+	private List<String> names(int[] productIds, int limit) {
+		Row[] current = rows;
+		List<String> names = new ArrayList<>(Math.min(limit, productIds.length));
+		for (int i = 0; i < productIds.length && names.size() < limit; i++) {
+			names.add(current[productIds[i]].productId);
+		}
+		return names;
+	}
+
+	private List<String> productsOf(Collection<OrderItem> items) {
+		if (items == null) {
+			return List.of();
+		}
+		return items.stream().map(OrderItem::getProductId).filter(id -> id != null && !id.isBlank()).distinct()
+				.limit(maxItemsPerOrder).toList();
+	}
+
+	void load() {
+		try {
+			loadSnapshotOrHistory();
+		}
+
+		finally {
+			bootstrapping = false;
+			recordedDuringBootstrap.clear();
+		}
+	}
+
+	private void loadSnapshotOrHistory() {
+		long start = System.nanoTime();
+		Path file = Paths.get(snapshotFile);
+
+		try {
+			if (Files.exists(file)) {
+				readSnapshot(file);
+				LOG.info("Co-purchase index loaded {} products from {} in {} ms", productCount, file,
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+				return;
+			}
+		}
+
+		catch (Exception e) {
+			LOG.warn("Discarding unreadable co-purchase snapshot {}: {}", file, e.getMessage());
+		}
+
+		// First start, seed from order history
+		try (Stream<Order> orders = orderRepository.streamAll()) {
+			orders.filter(order -> order.getId() == null || !recordedDuringBootstrap.contains(order.getId()))
+					.map(order -> productsOf(order.getItems())).filter(products -> !products.isEmpty())
+					.forEach(products -> add(products, 1f));
+			LOG.info("Co-purchase index built from order history, {} products in {} ms", productCount,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+
+		catch (Exception e) {
+			LOG.error("Error building co-purchase index: {}", e.getMessage(), e);
+		}
+	}
+
+	void snapshot() {
+		if (!dirty) {
+			return;
+		}
+		dirty = false;
+
+		Path file = Paths.get(snapshotFile);
+		try {
+			Files.createDirectories(file.toAbsolutePath().getParent());
+			Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(SNAPSHOT_MAGIC);
+				int count = productCount;
+				Row[] current = rows;
+				out.writeInt(count);
+				for (int i = 0; i < count; i++) {
+					out.writeUTF(current[i].productId);
+				}
+				for (int i = 0; i < count; i++) {
+					current[i].writeTo(out);
+				}
+				popularity.writeTo(out);
+			}
+
+			// Readers of the snapshot only ever see a complete file
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		catch (Exception e) {
+			dirty = true;
+			LOG.error("Error writing co-purchase snapshot {}: {}", file, e.getMessage(), e);
+		}
+	}
+
+	private void readSnapshot(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != SNAPSHOT_MAGIC) {
+				throw new IOException("Not a co-purchase snapshot");
+			}
+
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				idOf(in.readUTF());
+			}
+			for (int i = 0; i < count; i++) {
+				rows[i].readFrom(in, maxNeighbours);
+			}
+			popularity.readFrom(in, Integer.MAX_VALUE);
+		}
+	}
+
+	private static final class Row {
+
+		private final String productId;
+		private final IntFloatMap counts;
+		private int[] top;
+
+		private Row(String productId, int expectedSize) {
+			this.productId = productId;
+			this.counts = new IntFloatMap(expectedSize);
+		}
+
+		private synchronized void add(int other, float weight, int capacity) {
+			if (!counts.containsKey(other) && counts.size() >= capacity) {
+				// Space-saving: the newcomer inherits the evicted count, so heavy hitters are never lost
+				int weakest = counts.minKey();
+				float floor = counts.get(weakest);
+				counts.remove(weakest);
+				counts.addTo(other, floor);
+			}
+			counts.addTo(other, weight);
+			top = null;
+		}
+
+		private synchronized void scale(float factor) {
+			counts.scale(factor, MIN_COUNT);
+			top = null;
+		}
+
+		private synchronized int[] top(int limit) {
+			if (top == null || (top.length < limit && top.length < counts.size())) {
+				top = counts.topKeys(Math.max(limit, 20));
+			}
+			return top;
+		}
+
+		private synchronized void writeTo(DataOutputStream out) throws IOException {
+			out.writeInt(counts.size());
+			IOException[] failure = new IOException[1];
+			counts.forEach((key, value) -> {
+				try {
+					out.writeInt(key);
+					out.writeFloat(value);
+				}
+
+				catch (IOException e) {
+					failure[0] = e;
+				}
+			});
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+		}
+
+		private synchronized void readFrom(DataInputStream in, int capacity) throws IOException {
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				int key = in.readInt();
+				float value = in.readFloat();
+				if (counts.size() < capacity) {
+					counts.addTo(key, value);
+				}
+			}
+			top = null;
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.aygo.eciComm.model.analysis.UserBehavior;
+import com.aygo.eciComm.model.enums.InferenceKind;
+import com.aygo.eciComm.model.enums.ProductCategory;
+
+// Encodes UserBehavior as a sparse feature vector for the binary inference path.
+// Categories map to their enum ordinal, product ids and price ranges are hashed into fixed bucket ranges,
+// so the layout is stable without shipping a vocabulary to the endpoint:
+//   [0] cart abandonment, [1] search count, then category views, price preferences,
+//   viewed product counts and purchased product counts.
+@Component
+public class FeatureEncoder {
+
+	private static final int CART_ABANDONMENT = 0;
+	private static final int SEARCH_COUNT = 1;
+	private static final int CATEGORY_OFFSET = 2;
+	private static final int CATEGORY_COUNT = ProductCategory.values().length;
+	private static final Map<String, Integer> CATEGORY_INDEX = new HashMap<>();
+
+	static {
+		for (ProductCategory category : ProductCategory.values()) {
+			CATEGORY_INDEX.put(category.name(), category.ordinal());
+			CATEGORY_INDEX.put(category.name().toLowerCase(), category.ordinal());
+		}
+	}
+
+	@Value("${aws.sagemaker.features.price-buckets:16}")
+	private int priceBuckets;
+
+	@Value("${aws.sagemaker.features.product-buckets:65536}")
+	private int productBuckets;
+
+	private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+	public int dimension() {
+		return purchasedOffset() + productBuckets;
+	}
+
+	// No behavior, e.g. an unknown user, is an empty vector
+	public FeatureVector encode(InferenceKind kind, UserBehavior behavior) {
+		Scratch features = scratch.get();
+		features.reset();
+		if (behavior == null) {
+			return features.toVector(kind);
+		}
+
+		if (behavior.getCartAbandonment() != null) {
+			features.add(CART_ABANDONMENT, behavior.getCartAbandonment());
+		}
+		if (behavior.getSearchQueries() != null) {
+			features.add(SEARCH_COUNT, behavior.getSearchQueries().size());
+		}
+		if (behavior.getCategoryViews() != null) {
+			behavior.getCategoryViews().forEach((category, views) -> {
+				if (views != null) {
+					features.add(CATEGORY_OFFSET + categoryIndex(category), views);
+				}
+			});
+		}
+		if (behavior.getPriceRangePreferences() != null) {
+			behavior.getPriceRangePreferences().forEach((range, weight) -> {
+				if (range != null && weight != null) {
+					features.add(priceOffset() + bucket(range, priceBuckets), weight.floatValue());
+				}
+			});
+		}
+		addProducts(features, behavior.getViewedProducts(), viewedOffset());
+		addProducts(features, behavior.getPurchasedProducts(), purchasedOffset());
+
+		return features.toVector(kind);
+	}
+
+	private void addProducts(Scratch features, List<String> productIds, int offset) {
+		if (productIds == null) {
+			return;
+		}
+		for (int i = 0; i < productIds.size(); i++) {
+			String productId = productIds.get(i);
+			if (productId != null) {
+				features.add(offset + bucket(productId, productBuckets), 1f);
+			}
+		}
+	}
+
+	private int priceOffset() {
+		return CATEGORY_OFFSET + CATEGORY_COUNT;
+	}
+
+	private int viewedOffset() {
+		return priceOffset() + priceBuckets;
+	}
+
+	private int purchasedOffset() {
+		return viewedOffset() + productBuckets;
+	}
+
+	// Unknown category names share the OTHER slot
+	private static int categoryIndex(String category) {
+		Integer index = category == null ? null : CATEGORY_INDEX.get(category);
+		if (index == null && category != null) {
+			index = CATEGORY_INDEX.get(category.toUpperCase());
+		}
+		return index != null ? index : ProductCategory.OTHER.ordinal();
+	}
+
+	// FNV-1a over the UTF-16 code units, stable across JVMs unlike String.hashCode's contract
+	static int bucket(String value, int buckets) {
+		int hash = 0x811c9dc5;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x01000193;
+		}
+		return Math.floorMod(hash ^ (hash >>> 16), buckets);
+	}
+
+	// Reusable per-thread buffer of (index, value) pairs packed into longs so they sort by index
+	private static final class Scratch {
+
+		private long[] entries = new long[64];
+		private int size;
+
+		private void reset() {
+			size = 0;
+		}
+
+		private void add(int index, float value) {
+			if (size == entries.length) {
+				entries = Arrays.copyOf(entries, size * 2);
+			}
+			entries[size++] = ((long) index << 32) | (Float.floatToRawIntBits(value) & 0xFFFFFFFFL);
+		}
+
+		private FeatureVector toVector(InferenceKind kind) {
+			Arrays.sort(entries, 0, size);
+
+			int unique = 0;
+			for (int i = 0; i < size; i++) {
+				if (i == 0 || (int) (entries[i] >>> 32) != (int) (entries[i - 1] >>> 32)) {
+					unique++;
+				}
+			}
+
+			// Repeated indices, e.g. a product viewed twice, are summed
+			int[] indices = new int[unique];
+			float[] values = new float[unique];
+			int out = -1;
+			for (int i = 0; i < size; i++) {
+				int index = (int) (entries[i] >>> 32);
+				float value = Float.intBitsToFloat((int) entries[i]);
+				if (out < 0 || indices[out] != index) {
+					indices[++out] = index;
+					values[out] = value;
+				} else {
+					values[out] += value;
+				}
+			}
+			return new FeatureVector(kind, indices, values);
+		}
+	}
+}
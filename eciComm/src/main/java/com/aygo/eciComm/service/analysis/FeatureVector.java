@@ -0,0 +1,52 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.nio.ByteBuffer;
+
+import com.aygo.eciComm.model.enums.InferenceKind;
+
+// Sparse float vector with strictly increasing indices, the unit of the binary inference encoding
+public final class FeatureVector {
+
+	private final InferenceKind kind;
+	private final int[] indices;
+	private final float[] values;
+
+	FeatureVector(InferenceKind kind, int[] indices, float[] values) {
+		this.kind = kind;
+		this.indices = indices;
+		this.values = values;
+	}
+
+	public InferenceKind kind() {
+		return kind;
+	}
+
+	public int nonZeros() {
+		return indices.length;
+	}
+
+	public int index(int i) {
+		return indices[i];
+	}
+
+	public float value(int i) {
+		return values[i];
+	}
+
+	public int encodedSize() {
+		return 8 + indices.length * 8;
+	}
+
+	// int32 kind, int32 nnz, int32[nnz] indices, float32[nnz] values, in the buffer's byte order.
+	// The kind is its ordinal, new kinds are only ever appended.
+	public void writeTo(ByteBuffer buffer) {
+		buffer.putInt(kind.ordinal());
+		buffer.putInt(indices.length);
+		for (int index : indices) {
+			buffer.putInt(index);
+		}
+		for (float value : values) {
+			buffer.putFloat(value);
+		}
+	}
+}
@@ -0,0 +1,269 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.aygo.eciComm.exception.AnalysisException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.sagemakerruntime.SageMakerRuntimeClient;
+import software.amazon.awssdk.services.sagemakerruntime.model.InvokeEndpointRequest;
+import software.amazon.awssdk.services.sagemakerruntime.model.InvokeEndpointResponse;
+
+// Coalesces concurrent inference requests into a single endpoint invocation.
+// Requests are collected for up to one batch window or until the batch is full, sent as
+// {"instances": [...]} or as packed FeatureVectors, and answered from the {"predictions": [...]}
+// array in the same order.
+@Component
+public class InferenceBatcher {
+
+	private static final Logger LOG = LoggerFactory.getLogger(InferenceBatcher.class);
+
+	private static final byte[] BINARY_MAGIC = { 'E', 'C', 'F', '2' };
+
+	@Autowired
+	private SageMakerRuntimeClient sageMakerClient;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private FeatureEncoder featureEncoder;
+
+	@Value("${aws.sagemaker.endpoint}")
+	private String sageMakerEndpoint;
+
+	@Value("${aws.sagemaker.batch.max-size:16}")
+	private int maxBatchSize;
+
+	@Value("${aws.sagemaker.batch.window:PT0.005S}")
+	private Duration batchWindow;
+
+	@Value("${aws.sagemaker.batch.max-in-flight:4}")
+	private int maxInFlight;
+
+	@Value("${aws.sagemaker.batch.queue-capacity:1000}")
+	private int queueCapacity;
+
+	@Value("${aws.sagemaker.features.content-type:application/x-eci-sparse-features}")
+	private String binaryContentType;
+
+	private BlockingQueue<Pending> queue;
+	private Semaphore inFlight;
+	private ExecutorService dispatcher;
+	private ExecutorService invokers;
+
+	private DistributionSummary batchFill;
+	private Timer queueWait;
+	private Timer invokeTime;
+
+	@PostConstruct
+	public void start() {
+		queue = new LinkedBlockingQueue<>(queueCapacity);
+		inFlight = new Semaphore(maxInFlight);
+
+		dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "inference-batcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		AtomicInteger threadCount = new AtomicInteger();
+		invokers = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+			Thread thread = new Thread(runnable, "inference-invoke-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		batchFill = DistributionSummary.builder("sagemaker.batch.size").description("Requests per endpoint call")
+				.maximumExpectedValue((double) maxBatchSize).publishPercentileHistogram().register(meterRegistry);
+		queueWait = Timer.builder("sagemaker.batch.queue.wait")
+				.description("Time a request waits before its batch is sent").publishPercentileHistogram()
+				.register(meterRegistry);
+		invokeTime = Timer.builder("sagemaker.batch.invoke").description("Batched endpoint call latency")
+				.publishPercentileHistogram().register(meterRegistry);
+		meterRegistry.gauge("sagemaker.batch.queue.size", queue, BlockingQueue::size);
+
+		dispatcher.execute(this::dispatch);
+		LOG.info("Inference batcher started, max size {}, window {} ms, {} in flight", maxBatchSize,
+				batchWindow.toMillis(), maxInFlight);
+	}
+
+	@PreDestroy
+	public void stop() {
+		dispatcher.shutdownNow();
+		invokers.shutdownNow();
+
+		List<Pending> abandoned = new ArrayList<>();
+		queue.drainTo(abandoned);
+		abandoned.forEach(pending -> pending.future.completeExceptionally(
+				new AnalysisException("Inference batcher shut down", null)));
+	}
+
+	// The future completes with this request's element of the batched predictions.
+	// FeatureVector inputs are sent in the binary encoding, anything else as JSON.
+	public CompletableFuture<JsonNode> submit(Object input) {
+		Pending pending = new Pending(input instanceof FeatureVector ? input : objectMapper.valueToTree(input));
+		if (!queue.offer(pending)) {
+			pending.future.completeExceptionally(new AnalysisException("Inference queue is full", null));
+		}
+		return pending.future;
+	}
+
+	private void dispatch() {
+		long windowNanos = batchWindow.toNanos();
+
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				List<Pending> batch = new ArrayList<>(maxBatchSize);
+				batch.add(queue.take());
+
+				// The window opens with the first request, a lone request waits at most one window
+				long deadline = System.nanoTime() + windowNanos;
+				while (batch.size() < maxBatchSize) {
+					if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+						continue;
+					}
+					long remaining = deadline - System.nanoTime();
+					Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+
+				// Back-pressure, requests keep accumulating while all invokers are busy
+				inFlight.acquire();
+				invokers.execute(() -> {
+					try {
+						invoke(batch);
+					} finally {
+						inFlight.release();
+					}
+				});
+			}
+
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			catch (Exception e) {
+				LOG.error("Error dispatching inference batch: {}", e.getMessage(), e);
+			}
+		}
+	}
+
+	private void invoke(List<Pending> batch) {
+		long now = System.nanoTime();
+		batch.forEach(pending -> queueWait.record(now - pending.enqueuedAt, TimeUnit.NANOSECONDS));
+
+		// Feature vectors and JSON inputs use different content types, so they travel separately
+		List<Pending> binary = batch.stream().filter(pending -> pending.input instanceof FeatureVector).toList();
+		if (binary.isEmpty() || binary.size() == batch.size()) {
+			send(batch, !binary.isEmpty());
+		} else {
+			send(binary, true);
+			send(batch.stream().filter(pending -> !(pending.input instanceof FeatureVector)).toList(), false);
+		}
+	}
+
+	private void send(List<Pending> batch, boolean binary) {
+		batchFill.record(batch.size());
+
+		try {
+			long encodeStart = System.nanoTime();
+			byte[] body = binary
+					? encodeBinary(batch.stream().map(pending -> (FeatureVector) pending.input).toList())
+					: encodeJson(batch.stream().map(pending -> (JsonNode) pending.input).toList());
+			String encoding = binary ? "binary" : "json";
+			meterRegistry.timer("sagemaker.batch.encode", "encoding", encoding).record(System.nanoTime() - encodeStart,
+					TimeUnit.NANOSECONDS);
+			meterRegistry.summary("sagemaker.batch.payload.bytes", "encoding", encoding).record(body.length);
+
+			InvokeEndpointRequest request = InvokeEndpointRequest.builder().endpointName(sageMakerEndpoint)
+					.contentType(binary ? binaryContentType : "application/json").accept("application/json")
+					.body(SdkBytes.fromByteArrayUnsafe(body)).build();
+
+			InvokeEndpointResponse response = invokeTime.recordCallable(() -> sageMakerClient.invokeEndpoint(request));
+			JsonNode predictions = objectMapper.readTree(response.body().asInputStream()).path("predictions");
+
+			if (!predictions.isArray() || predictions.size() != batch.size()) {
+				throw new AnalysisException("Endpoint returned " + predictions.size() + " predictions for a batch of "
+						+ batch.size(), null);
+			}
+
+			for (int i = 0; i < batch.size(); i++) {
+				batch.get(i).future.complete(predictions.get(i));
+			}
+		}
+
+		catch (Exception e) {
+			LOG.error("Error invoking endpoint for batch of {}: {}", batch.size(), e.getMessage(), e);
+			AnalysisException failure = e instanceof AnalysisException analysisException ? analysisException
+					: new AnalysisException("Failed to invoke inference endpoint", e);
+			batch.forEach(pending -> pending.future.completeExceptionally(failure));
+		}
+	}
+
+	// Package-private like encodeBinary, for the encoding benchmark
+	byte[] encodeJson(List<JsonNode> inputs) throws JsonProcessingException {
+		ObjectNode payload = objectMapper.createObjectNode();
+		ArrayNode instances = payload.putArray("instances");
+		inputs.forEach(instances::add);
+		return objectMapper.writeValueAsBytes(payload);
+	}
+
+	// ASCII "ECF2", then int32 dimension, int32 count and each FeatureVector, little-endian.
+	// decode_sparse_features in the endpoint's inference.py reads it back.
+	byte[] encodeBinary(List<FeatureVector> inputs) {
+		int size = 12;
+		for (FeatureVector input : inputs) {
+			size += input.encodedSize();
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put(BINARY_MAGIC).putInt(featureEncoder.dimension()).putInt(inputs.size());
+		inputs.forEach(input -> input.writeTo(buffer));
+		return buffer.array();
+	}
+
+	private static final class Pending {
+
+		private final Object input;
+		private final long enqueuedAt = System.nanoTime();
+		private final CompletableFuture<JsonNode> future = new CompletableFuture<>();
+
+		private Pending(Object input) {
+			this.input = input;
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.util.Arrays;
+
+// Open-addressing int -> float map without boxing, keys must be non-negative.
+// Not thread-safe, callers synchronize.
+final class IntFloatMap {
+
+	private static final int EMPTY = -1;
+
+	private int[] keys;
+	private float[] values;
+	private int size;
+	private int mask;
+
+	IntFloatMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+		keys = new int[capacity];
+		values = new float[capacity];
+		Arrays.fill(keys, EMPTY);
+		mask = capacity - 1;
+	}
+
+	int size() {
+		return size;
+	}
+
+	float get(int key) {
+		int slot = find(key);
+		return slot < 0 ? 0f : values[slot];
+	}
+
+	boolean containsKey(int key) {
+		return find(key) >= 0;
+	}
+
+	float addTo(int key, float delta) {
+		int slot = find(key);
+		if (slot >= 0) {
+			return values[slot] += delta;
+		}
+
+		if ((size + 1) * 2 > keys.length) {
+			rehash(keys.length * 2);
+		}
+
+		slot = mix(key) & mask;
+		while (keys[slot] != EMPTY) {
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = delta;
+		size++;
+		return delta;
+	}
+
+	void remove(int key) {
+		int slot = find(key);
+		if (slot < 0) {
+			return;
+		}
+
+		// Backward-shift deletion keeps probe chains intact without tombstones
+		int gap = slot;
+		int next = (gap + 1) & mask;
+		while (keys[next] != EMPTY) {
+			int home = mix(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[gap] = EMPTY;
+		values[gap] = 0f;
+		size--;
+	}
+
+	// Key with the smallest value, or -1 when empty
+	int minKey() {
+		int minKey = EMPTY;
+		float min = Float.MAX_VALUE;
+		for (int slot = 0; slot < keys.length; slot++) {
+			if (keys[slot] != EMPTY && values[slot] < min) {
+				min = values[slot];
+				minKey = keys[slot];
+			}
+		}
+		return minKey;
+	}
+
+	// Multiplies every value by factor and drops entries that fall below threshold
+	void scale(float factor, float threshold) {
+		int[] oldKeys = keys;
+		float[] oldValues = values;
+		int live = 0;
+		for (int slot = 0; slot < oldKeys.length; slot++) {
+			if (oldKeys[slot] != EMPTY && oldValues[slot] * factor >= threshold) {
+				live++;
+			}
+		}
+
+		int capacity = Integer.highestOneBit(Math.max(4, live * 2 - 1)) << 1;
+		resetTo(capacity);
+		for (int slot = 0; slot < oldKeys.length; slot++) {
+			float scaled = oldValues[slot] * factor;
+			if (oldKeys[slot] != EMPTY && scaled >= threshold) {
+				addTo(oldKeys[slot], scaled);
+			}
+		}
+	}
+
+	// Keys of the k largest values, largest first
+	int[] topKeys(int k) {
+		int n = Math.min(k, size);
+		int[] top = new int[n];
+		float[] topValues = new float[n];
+		int filled = 0;
+
+		for (int slot = 0; slot < keys.length; slot++) {
+			if (keys[slot] == EMPTY) {
+				continue;
+			}
+
+			float value = values[slot];
+			if (filled == n && (n == 0 || value <= topValues[n - 1])) {
+				continue;
+			}
+
+			// Insertion into the small sorted buffer
+			int position = filled < n ? filled++ : n - 1;
+			while (position > 0 && topValues[position - 1] < value) {
+				top[position] = top[position - 1];
+				topValues[position] = topValues[position - 1];
+				position--;
+			}
+			top[position] = keys[slot];
+			topValues[position] = value;
+		}
+		return top;
+	}
+
+	void forEach(Visitor visitor) {
+		for (int slot = 0; slot < keys.length; slot++) {
+			if (keys[slot] != EMPTY) {
+				visitor.visit(keys[slot], values[slot]);
+			}
+		}
+	}
+
+	interface Visitor {
+		void visit(int key, float value);
+	}
+
+	private int find(int key) {
+		int slot = mix(key) & mask;
+		while (keys[slot] != EMPTY) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		float[] oldValues = values;
+		resetTo(capacity);
+		for (int slot = 0; slot < oldKeys.length; slot++) {
+			if (oldKeys[slot] != EMPTY) {
+				addTo(oldKeys[slot], oldValues[slot]);
+			}
+		}
+	}
+
+	private void resetTo(int capacity) {
+		keys = new int[capacity];
+		values = new float[capacity];
+		Arrays.fill(keys, EMPTY);
+		mask = capacity - 1;
+		size = 0;
+	}
+
+	private static int mix(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,118 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Lloyd's k-means over dense points, seeded with k-means++ or warm-started from previous centroids
+final class KMeans {
+
+	private KMeans() {
+	}
+
+	static double[][] fit(double[][] points, int k, double[][] initial, int maxIterations, long seed) {
+		int clusters = Math.min(k, points.length);
+		if (clusters == 0) {
+			return new double[0][];
+		}
+
+		double[][] centroids = initial != null && initial.length == clusters ? copy(initial)
+				: seed(points, clusters, new SplittableRandom(seed));
+		int dimensions = points[0].length;
+		int[] assignment = new int[points.length];
+		Arrays.fill(assignment, -1);
+
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			boolean changed = false;
+			for (int i = 0; i < points.length; i++) {
+				int nearest = nearest(centroids, points[i]);
+				if (nearest != assignment[i]) {
+					assignment[i] = nearest;
+					changed = true;
+				}
+			}
+			if (!changed) {
+				break;
+			}
+
+			double[][] sums = new double[clusters][dimensions];
+			int[] counts = new int[clusters];
+			for (int i = 0; i < points.length; i++) {
+				counts[assignment[i]]++;
+				for (int d = 0; d < dimensions; d++) {
+					sums[assignment[i]][d] += points[i][d];
+				}
+			}
+
+			// An emptied cluster keeps its centroid instead of collapsing to the origin
+			for (int c = 0; c < clusters; c++) {
+				if (counts[c] > 0) {
+					for (int d = 0; d < dimensions; d++) {
+						centroids[c][d] = sums[c][d] / counts[c];
+					}
+				}
+			}
+		}
+		return centroids;
+	}
+
+	static int nearest(double[][] centroids, double[] point) {
+		int nearest = 0;
+		double best = Double.MAX_VALUE;
+		for (int c = 0; c < centroids.length; c++) {
+			double distance = distance(centroids[c], point);
+			if (distance < best) {
+				best = distance;
+				nearest = c;
+			}
+		}
+		return nearest;
+	}
+
+	// Squared euclidean distance
+	static double distance(double[] a, double[] b) {
+		double sum = 0;
+		for (int d = 0; d < a.length; d++) {
+			double delta = a[d] - b[d];
+			sum += delta * delta;
+		}
+		return sum;
+	}
+
+	// k-means++: each further centroid is drawn with probability proportional to its squared distance
+	private static double[][] seed(double[][] points, int clusters, SplittableRandom random) {
+		double[][] centroids = new double[clusters][];
+		centroids[0] = points[random.nextInt(points.length)].clone();
+
+		double[] distances = new double[points.length];
+		Arrays.fill(distances, Double.MAX_VALUE);
+		for (int c = 1; c < clusters; c++) {
+			double total = 0;
+			for (int i = 0; i < points.length; i++) {
+				distances[i] = Math.min(distances[i], distance(centroids[c - 1], points[i]));
+				total += distances[i];
+			}
+
+			int chosen = random.nextInt(points.length);
+			if (total > 0) {
+				double target = random.nextDouble() * total;
+				for (int i = 0; i < points.length; i++) {
+					target -= distances[i];
+					if (target <= 0) {
+						chosen = i;
+						break;
+					}
+				}
+			}
+			centroids[c] = points[chosen].clone();
+		}
+		return centroids;
+	}
+
+	private static double[][] copy(double[][] source) {
+		double[][] copy = new double[source.length][];
+		for (int i = 0; i < source.length; i++) {
+			copy[i] = source[i].clone();
+		}
+		return copy;
+	}
+}
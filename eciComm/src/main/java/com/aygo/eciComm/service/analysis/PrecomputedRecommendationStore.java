@@ -0,0 +1,213 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+
+// Serves recommendations produced by offline batch inference.
+// The batch output (user_id, recommended_product_id, recommendation_score CSV, as written by
+// EciCommDataGenerator) is compiled into a memory-mapped file and reloaded when the source changes.
+@Service
+public class PrecomputedRecommendationStore {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PrecomputedRecommendationStore.class);
+
+	@Autowired
+	private S3Client s3Client;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${recommendations.precomputed.enabled:true}")
+	private boolean enabled;
+
+	// s3://bucket/key or a local path
+	@Value("${recommendations.precomputed.source}")
+	private String source;
+
+	@Value("${recommendations.precomputed.directory:${java.io.tmpdir}/eciComm/recommendations}")
+	private String directory;
+
+	@Value("${recommendations.precomputed.refresh-interval:PT1H}")
+	private Duration refreshInterval;
+
+	@Value("${recommendations.precomputed.max-per-user:20}")
+	private int maxPerUser;
+
+	private final AtomicReference<PrecomputedRecommendations> current = new AtomicReference<>();
+	private volatile String loadedVersion;
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "precomputed-recommendations");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private Counter hits;
+	private Counter misses;
+
+	@PostConstruct
+	public void init() {
+		hits = meterRegistry.counter("recommendations.precomputed", "result", "hit");
+		misses = meterRegistry.counter("recommendations.precomputed", "result", "miss");
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!enabled) {
+			LOG.info("Precomputed recommendations disabled");
+			return;
+		}
+
+		executor.execute(this::reload);
+		executor.scheduleWithFixedDelay(this::reload, refreshInterval.toMillis(), refreshInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	// Empty for cold users, who fall through to live inference
+	public Optional<List<String>> find(String userId) {
+		PrecomputedRecommendations recommendations = current.get();
+		List<String> productIds = recommendations == null || userId == null ? null : recommendations.find(userId);
+
+		if (productIds == null || productIds.isEmpty()) {
+			misses.increment();
+			return Optional.empty();
+		}
+
+		hits.increment();
+		return Optional.of(productIds);
+	}
+
+	void reload() {
+		long start = System.nanoTime();
+
+		try {
+			String version = sourceVersion();
+			if (version != null && version.equals(loadedVersion)) {
+				return;
+			}
+
+			Path dir = Paths.get(directory);
+			Files.createDirectories(dir);
+
+			PrecomputedRecommendationsWriter writer = new PrecomputedRecommendationsWriter(maxPerUser);
+			try (Reader reader = new InputStreamReader(openSource(), StandardCharsets.UTF_8)) {
+				read(reader, writer);
+			}
+
+			Path file = dir.resolve("recommendations-" + System.currentTimeMillis() + ".rec");
+			writer.writeTo(file);
+
+			PrecomputedRecommendations recommendations = PrecomputedRecommendations.open(file);
+			PrecomputedRecommendations previous = current.getAndSet(recommendations);
+			loadedVersion = version;
+
+			LOG.info("Loaded precomputed recommendations for {} users ({} bytes) in {} ms", recommendations.size(),
+					recommendations.sizeInBytes(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+			if (previous != null) {
+				// Existing mappings stay readable after their file is unlinked
+				Files.deleteIfExists(previous.getFile());
+			}
+		}
+
+		catch (Exception e) {
+			// Keep serving the last good file, cold lookups fall back to live inference
+			LOG.error("Error loading precomputed recommendations from {}: {}", source, e.getMessage(), e);
+		}
+	}
+
+	private void read(Reader reader, PrecomputedRecommendationsWriter writer)
+			throws IOException, CsvValidationException {
+		try (CSVReader csv = new CSVReader(reader)) {
+			String[] header = csv.readNext();
+			if (header == null) {
+				return;
+			}
+
+			List<String> columns = Arrays.asList(header);
+			int userColumn = columns.indexOf("user_id");
+			int productColumn = columns.indexOf("recommended_product_id");
+			int scoreColumn = columns.indexOf("recommendation_score");
+			if (userColumn < 0 || productColumn < 0) {
+				throw new IOException("Missing user_id or recommended_product_id column in " + source);
+			}
+
+			String[] row;
+			while ((row = csv.readNext()) != null) {
+				if (row.length <= Math.max(userColumn, productColumn)) {
+					continue;
+				}
+				double score = scoreColumn >= 0 && scoreColumn < row.length ? parseScore(row[scoreColumn]) : 0;
+				writer.add(row[userColumn], row[productColumn], score);
+			}
+		}
+	}
+
+	// The generator formats scores with the default locale, so "0,883" and "0.883" are both accepted
+	private static double parseScore(String value) {
+		try {
+			return Double.parseDouble(value.trim().replace(',', '.'));
+		}
+
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	private InputStream openSource() throws IOException {
+		if (source.startsWith("s3://")) {
+			URI uri = URI.create(source);
+			return s3Client.getObject(GetObjectRequest.builder().bucket(uri.getHost())
+					.key(uri.getPath().substring(1)).build());
+		}
+		return Files.newInputStream(Paths.get(source));
+	}
+
+	// ETag or modification time, used to skip rebuilding an unchanged source
+	private String sourceVersion() throws IOException {
+		if (source.startsWith("s3://")) {
+			URI uri = URI.create(source);
+			return s3Client.headObject(HeadObjectRequest.builder().bucket(uri.getHost())
+					.key(uri.getPath().substring(1)).build()).eTag();
+		}
+		return Files.getLastModifiedTime(Paths.get(source)).toString();
+	}
+}
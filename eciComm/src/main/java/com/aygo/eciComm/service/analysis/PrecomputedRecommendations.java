@@ -0,0 +1,61 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aygo.eciComm.service.mapped.MappedFile;
+
+// Immutable, memory-mapped table of precomputed recommendations per user.
+// Each user's product ids are stored best first, lookups go through the file's hash on the user id.
+public final class PrecomputedRecommendations {
+
+	static final int MAGIC = 0x45435231; // "ECR1"
+	static final int FORMAT_VERSION = 2;
+	static final String KIND = "recommendations file";
+
+	// Sections of the mapped file
+	static final int USER_IDS = 0;
+	static final int LIST_STARTS = 1;
+	static final int PRODUCT_IDS = 2;
+	static final int SECTION_COUNT = 3;
+
+	private final MappedFile file;
+
+	private PrecomputedRecommendations(MappedFile file) {
+		this.file = file;
+	}
+
+	public static PrecomputedRecommendations open(Path file) throws IOException {
+		return new PrecomputedRecommendations(MappedFile.open(file, MAGIC, FORMAT_VERSION, KIND));
+	}
+
+	public Path getFile() {
+		return file.getFile();
+	}
+
+	public int size() {
+		return file.rows();
+	}
+
+	public long sizeInBytes() {
+		return file.sizeInBytes();
+	}
+
+	// Product ids for the user, best first, or null when the user was not part of the batch
+	public List<String> find(String userId) {
+		int user = file.find(USER_IDS, userId);
+		if (user < 0) {
+			return null;
+		}
+
+		int start = file.intAt(LIST_STARTS, user);
+		int end = file.intAt(LIST_STARTS, user + 1);
+		List<String> productIds = new ArrayList<>(end - start);
+		for (int i = start; i < end; i++) {
+			productIds.add(file.string(file.intAt(PRODUCT_IDS, i)));
+		}
+		return productIds;
+	}
+}
@@ -0,0 +1,70 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.aygo.eciComm.service.mapped.MappedFileWriter;
+
+// Collects scored batch-inference rows and writes each user's top products as a PrecomputedRecommendations file
+public class PrecomputedRecommendationsWriter {
+
+	private final int maxPerUser;
+
+	// Best score per product for each user, users kept in first-seen order
+	private final Map<String, Map<String, Double>> scores = new LinkedHashMap<>();
+
+	private final MappedFileWriter out = new MappedFileWriter(PrecomputedRecommendations.MAGIC,
+			PrecomputedRecommendations.FORMAT_VERSION, PrecomputedRecommendations.SECTION_COUNT,
+			PrecomputedRecommendations.KIND);
+
+	public PrecomputedRecommendationsWriter(int maxPerUser) {
+		this.maxPerUser = maxPerUser;
+	}
+
+	public PrecomputedRecommendationsWriter add(String userId, String productId, double score) {
+		if (userId == null || userId.isBlank() || productId == null || productId.isBlank()) {
+			return this;
+		}
+
+		scores.computeIfAbsent(userId, key -> new HashMap<>()).merge(productId, score, Math::max);
+		return this;
+	}
+
+	public int size() {
+		return scores.size();
+	}
+
+	public void writeTo(Path file) throws IOException {
+		int users = scores.size();
+		int[] userIds = new int[users];
+		int[] listStarts = new int[users + 1];
+		int[] productRefs = new int[1024];
+		int productCount = 0;
+
+		int user = 0;
+		for (Map.Entry<String, Map<String, Double>> entry : scores.entrySet()) {
+			userIds[user] = out.intern(entry.getKey());
+			List<String> best = entry.getValue().entrySet().stream()
+					.sorted(Map.Entry.<String, Double>comparingByValue().reversed()
+							.thenComparing(Map.Entry.comparingByKey()))
+					.limit(maxPerUser).map(Map.Entry::getKey).toList();
+			if (productCount + best.size() > productRefs.length) {
+				productRefs = Arrays.copyOf(productRefs, Math.max(productRefs.length * 2, productCount + best.size()));
+			}
+			for (String productId : best) {
+				productRefs[productCount++] = out.intern(productId);
+			}
+			listStarts[++user] = productCount;
+		}
+
+		out.ints(PrecomputedRecommendations.USER_IDS, userIds, users);
+		out.ints(PrecomputedRecommendations.LIST_STARTS, listStarts, users + 1);
+		out.ints(PrecomputedRecommendations.PRODUCT_IDS, productRefs, productCount);
+		out.writeTo(file, users, PrecomputedRecommendations.USER_IDS);
+	}
+}
@@ -0,0 +1,279 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.aygo.eciComm.model.analysis.UserBehavior;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Caches recommendations by user and behavior fingerprint.
+// Fresh entries are served as is, stale ones are served while a background refresh runs,
+// and anything older is loaded inline. Concurrent misses for the same key share one load.
+@Component
+public class RecommendationCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(RecommendationCache.class);
+
+	private static final int SEGMENTS = 16;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${recommendations.cache.enabled:true}")
+	private boolean enabled;
+
+	@Value("${recommendations.cache.ttl:PT10M}")
+	private Duration ttl;
+
+	@Value("${recommendations.cache.stale-ttl:PT1H}")
+	private Duration staleTtl;
+
+	@Value("${recommendations.cache.max-size:100000}")
+	private int maxSize;
+
+	@Value("${recommendations.cache.refresh-threads:2}")
+	private int refreshThreads;
+
+	private Segment[] segments;
+	private final Map<String, CompletableFuture<List<String>>> loading = new ConcurrentHashMap<>();
+	private ThreadPoolExecutor refresher;
+
+	private Counter hits;
+	private Counter staleHits;
+	private Counter misses;
+
+	@PostConstruct
+	public void start() {
+		segments = new Segment[SEGMENTS];
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(Math.max(1, maxSize / SEGMENTS));
+		}
+
+		AtomicInteger threadCount = new AtomicInteger();
+		refresher = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(1000), runnable -> {
+					Thread thread = new Thread(runnable, "recommendation-refresh-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+
+		hits = meterRegistry.counter("recommendations.cache", "result", "hit");
+		staleHits = meterRegistry.counter("recommendations.cache", "result", "stale");
+		misses = meterRegistry.counter("recommendations.cache", "result", "miss");
+		meterRegistry.gauge("recommendations.cache.size", this, RecommendationCache::size);
+	}
+
+	@PreDestroy
+	public void stop() {
+		refresher.shutdownNow();
+	}
+
+	public List<String> get(String userId, UserBehavior behavior, Supplier<List<String>> loader) {
+		if (!enabled) {
+			return loader.get();
+		}
+
+		String key = userId + ":" + fingerprint(behavior);
+		Segment segment = segmentFor(key);
+		Entry entry = segment.get(key);
+		long now = System.nanoTime();
+
+		if (entry != null && now - entry.loadedAt < ttl.toNanos()) {
+			hits.increment();
+			return entry.value;
+		}
+
+		if (entry != null && now - entry.loadedAt < ttl.toNanos() + staleTtl.toNanos()) {
+			staleHits.increment();
+			refresh(key, entry, loader);
+			return entry.value;
+		}
+
+		misses.increment();
+		return load(key, loader);
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	private List<String> load(String key, Supplier<List<String>> loader) {
+		CompletableFuture<List<String>> future = new CompletableFuture<>();
+		CompletableFuture<List<String>> existing = loading.putIfAbsent(key, future);
+		if (existing != null) {
+			return join(existing);
+		}
+
+		try {
+			List<String> value = List.copyOf(loader.get());
+			segmentFor(key).put(key, new Entry(value));
+			future.complete(value);
+			return value;
+		}
+
+		catch (RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		}
+
+		finally {
+			loading.remove(key, future);
+		}
+	}
+
+	private void refresh(String key, Entry entry, Supplier<List<String>> loader) {
+		if (!entry.refreshing.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			refresher.execute(() -> {
+				try {
+					segmentFor(key).put(key, new Entry(List.copyOf(loader.get())));
+				}
+
+				catch (Exception e) {
+					// Keep serving the stale value, the next request past the TTL retries
+					LOG.warn("Error refreshing recommendations for {}: {}", key, e.getMessage());
+					entry.refreshing.set(false);
+				}
+			});
+		}
+
+		catch (RejectedExecutionException e) {
+			entry.refreshing.set(false);
+		}
+	}
+
+	private Segment segmentFor(String key) {
+		return segments[(key.hashCode() & 0x7fffffff) % SEGMENTS];
+	}
+
+	private static List<String> join(CompletableFuture<List<String>> future) {
+		try {
+			return future.join();
+		}
+
+		catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+		}
+	}
+
+	// Stable digest of the fields the model scores on. Session ids and timestamps are left out,
+	// maps are hashed in key order so equal behavior always produces the same fingerprint.
+	static String fingerprint(UserBehavior behavior) {
+		if (behavior == null) {
+			return "-";
+		}
+
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			update(digest, "viewed", behavior.getViewedProducts());
+			update(digest, "purchased", behavior.getPurchasedProducts());
+			update(digest, "categories", behavior.getCategoryViews());
+			update(digest, "prices", behavior.getPriceRangePreferences());
+			update(digest, "searches", behavior.getSearchQueries());
+			update(digest, "abandonment", behavior.getCartAbandonment());
+			return HexFormat.of().formatHex(digest.digest(), 0, 16);
+		}
+
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void update(MessageDigest digest, String field, Object value) {
+		digest.update(field.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) '=');
+
+		if (value instanceof Map<?, ?> map) {
+			new TreeMap<>(map).forEach((k, v) -> {
+				digest.update(String.valueOf(k).getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) ':');
+				digest.update(String.valueOf(v).getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) ',');
+			});
+		} else if (value instanceof Collection<?> collection) {
+			for (Object item : collection) {
+				digest.update(String.valueOf(item).getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) ',');
+			}
+		} else if (value != null) {
+			digest.update(value.toString().getBytes(StandardCharsets.UTF_8));
+		}
+
+		digest.update((byte) ';');
+	}
+
+	private static final class Entry {
+
+		private final List<String> value;
+		private final long loadedAt = System.nanoTime();
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		private Entry(List<String> value) {
+			this.value = value;
+		}
+	}
+
+	// Access-ordered LRU, striped so lookups for different users rarely contend
+	private static final class Segment {
+
+		private final LinkedHashMap<String, Entry> entries;
+
+		private Segment(int capacity) {
+			entries = new LinkedHashMap<>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+					return size() > capacity;
+				}
+			};
+		}
+
+		private synchronized Entry get(String key) {
+			return entries.get(key);
+		}
+
+		private synchronized void put(String key, Entry entry) {
+			entries.put(key, entry);
+		}
+
+		private synchronized int size() {
+			return entries.size();
+		}
+	}
+}
@@ -0,0 +1,536 @@
+package com.aygo.eciComm.service.analysis;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntToDoubleFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.aygo.eciComm.model.Order;
+import com.aygo.eciComm.model.analysis.UserBehavior;
+import com.aygo.eciComm.model.enums.BehaviorAction;
+import com.aygo.eciComm.model.enums.CustomerSegment;
+import com.aygo.eciComm.model.enums.OrderStatus;
+import com.aygo.eciComm.repository.OrderRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// RFM-style customer segmentation.
+// Orders and behavior events update small per-user aggregates as they happen. Periodically the aggregates
+// are turned into standardized (recency, order count, order value, engagement) features, k-means is refit
+// on a sample, warm-started from the previous centroids, and every user is assigned in one pass. The
+// assignments are swapped in as an immutable map, so lookups are a single hash lookup.
+@Service
+public class SegmentationService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SegmentationService.class);
+
+	private static final int RECENCY = 0;
+	private static final int ORDERS = 1;
+	private static final int ORDER_VALUE = 2;
+	private static final int ENGAGEMENT = 3;
+	private static final int DIMENSIONS = 4;
+
+	// Reported alongside the features, not used for clustering
+	private static final int ORDER_GAP = 4;
+	private static final int TENURE = 5;
+	private static final int REPORTED = 6;
+
+	private static final double DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${segmentation.enabled:true}")
+	private boolean enabled;
+
+	@Value("${segmentation.clusters:4}")
+	private int clusters;
+
+	@Value("${segmentation.max-iterations:25}")
+	private int maxIterations;
+
+	@Value("${segmentation.sample-size:50000}")
+	private int sampleSize;
+
+	@Value("${segmentation.refresh-interval:PT5M}")
+	private Duration refreshInterval;
+
+	@Value("${segmentation.engagement-half-life:P14D}")
+	private Duration engagementHalfLife;
+
+	// Users without orders whose decayed activity is at least this count as browsing, not inactive
+	@Value("${segmentation.browser-threshold:0.5}")
+	private double browserThreshold;
+
+	private final Map<String, CustomerStats> stats = new ConcurrentHashMap<>();
+	private final AtomicReference<Segmentation> current = new AtomicReference<>(Segmentation.EMPTY);
+
+	// Orders recorded live while the bootstrap scan runs, the scan skips them to avoid counting twice
+	private final Set<String> recordedDuringBootstrap = ConcurrentHashMap.newKeySet();
+	private volatile boolean bootstrapping = true;
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "segmentation");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private Timer refreshTime;
+
+	@PostConstruct
+	public void init() {
+		refreshTime = Timer.builder("segmentation.refresh").description("Bulk segment reassignment")
+				.register(meterRegistry);
+		for (CustomerSegment segment : CustomerSegment.values()) {
+			meterRegistry.gauge("segmentation.users", Tags.of("segment", segment.name()), current,
+					reference -> reference.get().counts.getOrDefault(segment, 0));
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!enabled) {
+			LOG.info("Customer segmentation disabled");
+			return;
+		}
+
+		executor.execute(this::bootstrap);
+		executor.scheduleWithFixedDelay(this::refresh, refreshInterval.toMillis(), refreshInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	public void recordOrder(Order order) {
+		if (bootstrapping && order.getId() != null) {
+			recordedDuringBootstrap.add(order.getId());
+		}
+		addOrder(order, 1);
+	}
+
+	// Cancelled and refunded orders no longer count towards frequency and value
+	public void recordStatusChange(Order order, OrderStatus previous) {
+		if (!isVoid(previous) && isVoid(order.getOrderStatus())) {
+			addOrder(order, -1);
+		} else if (isVoid(previous) && !isVoid(order.getOrderStatus())) {
+			addOrder(order, 1);
+		}
+	}
+
+	public void recordActivity(String userId, BehaviorAction action, Instant at) {
+		double weight = engagementWeight(action);
+		if (weight > 0) {
+			statsOf(userId).addActivity(weight, at, engagementHalfLife);
+		}
+	}
+
+	// The bulk-refreshed assignment when there is one. Users that appeared since the last refresh are
+	// classified on the spot against the current centroids, unknown users from the behavior passed in.
+	public Map<String, Object> describe(String userId, UserBehavior behavior) {
+		Segmentation segmentation = current.get();
+		Assignment assignment = segmentation.assignments.get(userId);
+
+		if (assignment == null) {
+			CustomerStats userStats = stats.get(userId);
+			assignment = userStats != null
+					? segmentation.assign(userStats.features(Instant.now(), engagementHalfLife), browserThreshold)
+					: fromBehavior(behavior);
+		}
+		return assignment.describe();
+	}
+
+	private void bootstrap() {
+		long start = System.nanoTime();
+		try (var orders = orderRepository.streamAll()) {
+			orders.filter(order -> order.getId() == null || !recordedDuringBootstrap.contains(order.getId()))
+					.filter(order -> !isVoid(order.getOrderStatus())).forEach(order -> addOrder(order, 1));
+		}
+
+		catch (Exception e) {
+			LOG.error("Error loading orders for segmentation: {}", e.getMessage(), e);
+		}
+
+		finally {
+			bootstrapping = false;
+			recordedDuringBootstrap.clear();
+		}
+
+		LOG.info("Loaded order history of {} customers in {} ms", stats.size(),
+				Duration.ofNanos(System.nanoTime() - start).toMillis());
+		refresh();
+	}
+
+	private void refresh() {
+		refreshTime.record(() -> {
+			try {
+				current.set(segment(Instant.now()));
+			}
+
+			catch (Exception e) {
+				LOG.error("Error refreshing customer segments: {}", e.getMessage(), e);
+			}
+		});
+	}
+
+	private Segmentation segment(Instant now) {
+		List<String> userIds = new ArrayList<>(stats.size());
+		List<double[]> features = new ArrayList<>(stats.size());
+		List<double[]> buyers = new ArrayList<>();
+
+		stats.forEach((userId, userStats) -> {
+			double[] userFeatures = userStats.features(now, engagementHalfLife);
+			userIds.add(userId);
+			features.add(userFeatures);
+			if (userFeatures[ORDERS] > 0) {
+				buyers.add(userFeatures);
+			}
+		});
+
+		Segmentation model = Segmentation.fit(buyers, clusters, current.get(), sampleSize, maxIterations);
+
+		Map<String, Assignment> assignments = new HashMap<>(userIds.size() * 4 / 3 + 1);
+		Map<CustomerSegment, Integer> counts = new EnumMap<>(CustomerSegment.class);
+		for (int i = 0; i < userIds.size(); i++) {
+			Assignment assignment = model.assign(features.get(i), browserThreshold);
+			assignments.put(userIds.get(i), assignment);
+			counts.merge(assignment.segment, 1, Integer::sum);
+		}
+
+		LOG.info("Segmented {} customers ({} buyers) into {}", userIds.size(), buyers.size(), counts);
+		return model.withAssignments(assignments, counts);
+	}
+
+	private void addOrder(Order order, int sign) {
+		if (order.getUserId() == null || order.getTotalAmount() == null) {
+			return;
+		}
+
+		Instant at = order.getOrderDate() != null ? order.getOrderDate()
+				: order.getCreatedAt() != null ? order.getCreatedAt() : Instant.now();
+		statsOf(order.getUserId()).addOrder(sign, order.getTotalAmount(), at);
+	}
+
+	private CustomerStats statsOf(String userId) {
+		return stats.computeIfAbsent(userId, id -> new CustomerStats());
+	}
+
+	// Without any recorded orders or events, views in the behavior stand in for engagement
+	private Assignment fromBehavior(UserBehavior behavior) {
+		double[] features = new double[REPORTED];
+		features[RECENCY] = Double.NaN;
+
+		if (behavior != null && behavior.getViewedProducts() != null && behavior.getLastActivityTime() != null) {
+			double elapsed = Math.max(0, System.currentTimeMillis() - behavior.getLastActivityTime().toEpochMilli());
+			features[ENGAGEMENT] = behavior.getViewedProducts().size()
+					* Math.pow(0.5, elapsed / engagementHalfLife.toMillis());
+		}
+		return current.get().assign(features, browserThreshold);
+	}
+
+	private static boolean isVoid(OrderStatus status) {
+		return status == OrderStatus.CANCELLED || status == OrderStatus.REFUNDED;
+	}
+
+	private static double engagementWeight(BehaviorAction action) {
+		return switch (action) {
+		case PURCHASE -> 5;
+		case ADD_TO_CART, REVIEW -> 3;
+		case WISHLIST -> 2;
+		case VIEW, SEARCH -> 1;
+		case REMOVE_FROM_CART -> 0;
+		};
+	}
+
+	// Running totals of one customer, updated from order and request threads
+	private static final class CustomerStats {
+
+		private int orders;
+		private BigDecimal spend = BigDecimal.ZERO;
+		private Instant firstOrder;
+		private Instant lastOrder;
+
+		// Exponentially decayed activity, as of engagementAt
+		private double engagement;
+		private Instant engagementAt;
+
+		private synchronized void addOrder(int sign, BigDecimal amount, Instant at) {
+			orders = Math.max(0, orders + sign);
+			spend = sign > 0 ? spend.add(amount) : spend.subtract(amount).max(BigDecimal.ZERO);
+			if (sign > 0) {
+				firstOrder = firstOrder == null || at.isBefore(firstOrder) ? at : firstOrder;
+				lastOrder = lastOrder == null || at.isAfter(lastOrder) ? at : lastOrder;
+			}
+		}
+
+		private synchronized void addActivity(double weight, Instant at, Duration halfLife) {
+			engagement = decayed(at, halfLife) + weight;
+			engagementAt = engagementAt == null || at.isAfter(engagementAt) ? at : engagementAt;
+		}
+
+		// Raw features: days since the last order, order count, average order value, decayed activity,
+		// followed by the mean days between orders and the days since the first order.
+		// Recency is NaN for customers without orders.
+		private synchronized double[] features(Instant now, Duration halfLife) {
+			double[] features = new double[REPORTED];
+			features[RECENCY] = lastOrder != null ? days(lastOrder, now) : Double.NaN;
+			features[ORDERS] = orders;
+			features[ORDER_VALUE] = orders > 0 ? spend.doubleValue() / orders : 0;
+			features[ENGAGEMENT] = decayed(now, halfLife);
+			features[ORDER_GAP] = orders > 1 ? days(firstOrder, lastOrder) / (orders - 1) : Double.NaN;
+			features[TENURE] = firstOrder != null ? days(firstOrder, now) : 0;
+			return features;
+		}
+
+		private static double days(Instant from, Instant to) {
+			return Math.max(0, (to.toEpochMilli() - from.toEpochMilli()) / DAY_MILLIS);
+		}
+
+		private double decayed(Instant at, Duration halfLife) {
+			if (engagementAt == null) {
+				return 0;
+			}
+			double elapsed = Math.max(0, at.toEpochMilli() - engagementAt.toEpochMilli());
+			return engagement * Math.pow(0.5, elapsed / halfLife.toMillis());
+		}
+	}
+
+	// Fitted centroids with their cluster labels and the scaling they were fitted in
+	private static final class Segmentation {
+
+		private static final Segmentation EMPTY = new Segmentation(new double[0][], new CustomerSegment[0],
+				new double[DIMENSIONS], ones(), Map.of(), Map.of());
+
+		private final double[][] centroids;
+		private final CustomerSegment[] labels;
+		private final double[] mean;
+		private final double[] deviation;
+		private final Map<String, Assignment> assignments;
+		private final Map<CustomerSegment, Integer> counts;
+
+		private Segmentation(double[][] centroids, CustomerSegment[] labels, double[] mean, double[] deviation,
+				Map<String, Assignment> assignments, Map<CustomerSegment, Integer> counts) {
+			this.centroids = centroids;
+			this.labels = labels;
+			this.mean = mean;
+			this.deviation = deviation;
+			this.assignments = assignments;
+			this.counts = counts;
+		}
+
+		private static Segmentation fit(List<double[]> buyers, int clusters, Segmentation previous, int sampleSize,
+				int maxIterations) {
+			if (buyers.isEmpty()) {
+				return EMPTY;
+			}
+
+			double[][] sample = sample(buyers, sampleSize);
+			double[] mean = new double[DIMENSIONS];
+			double[] deviation = new double[DIMENSIONS];
+			for (double[] point : sample) {
+				double[] scaled = logScale(point);
+				for (int d = 0; d < DIMENSIONS; d++) {
+					mean[d] += scaled[d] / sample.length;
+				}
+			}
+			for (double[] point : sample) {
+				double[] scaled = logScale(point);
+				for (int d = 0; d < DIMENSIONS; d++) {
+					deviation[d] += (scaled[d] - mean[d]) * (scaled[d] - mean[d]) / sample.length;
+				}
+			}
+			for (int d = 0; d < DIMENSIONS; d++) {
+				deviation[d] = deviation[d] > 0 ? Math.sqrt(deviation[d]) : 1;
+			}
+
+			double[][] points = new double[sample.length][];
+			for (int i = 0; i < sample.length; i++) {
+				points[i] = standardize(logScale(sample[i]), mean, deviation);
+			}
+
+			double[][] warmStart = previous.centroids.length == clusters ? previous.centroids : null;
+			double[][] centroids = KMeans.fit(points, clusters, warmStart, maxIterations, 42);
+			return new Segmentation(centroids, label(centroids), mean, deviation, Map.of(), Map.of());
+		}
+
+		private Segmentation withAssignments(Map<String, Assignment> assignments,
+				Map<CustomerSegment, Integer> counts) {
+			return new Segmentation(centroids, labels, mean, deviation, assignments, counts);
+		}
+
+		// Buyers go to their nearest centroid, everyone else is browsing or inactive by their activity
+		private Assignment assign(double[] features, double browserThreshold) {
+			if (features[ORDERS] <= 0 || centroids.length == 0) {
+				CustomerSegment segment = features[ORDERS] <= 0 && features[ENGAGEMENT] < browserThreshold
+						? CustomerSegment.INACTIVE
+						: features[ORDERS] <= 0 ? CustomerSegment.BROWSER : CustomerSegment.NEW_CUSTOMER;
+				return new Assignment(segment, -1, 1.0, features);
+			}
+
+			double[] point = standardize(logScale(features), mean, deviation);
+			int nearest = KMeans.nearest(centroids, point);
+
+			// Confidence falls towards 0.5 as the point nears the boundary with the second closest cluster
+			double closest = Math.sqrt(KMeans.distance(centroids[nearest], point));
+			double second = Double.MAX_VALUE;
+			for (int c = 0; c < centroids.length; c++) {
+				if (c != nearest) {
+					second = Math.min(second, Math.sqrt(KMeans.distance(centroids[c], point)));
+				}
+			}
+			double confidence = centroids.length == 1 || closest + second == 0 ? 1.0
+					: second / (closest + second);
+			return new Assignment(labels[nearest], nearest, confidence, features);
+		}
+
+		// Names clusters by their centroids: the most valuable, then the most lapsed, then the one with the
+		// fewest orders, any remaining clusters are regular customers
+		private static CustomerSegment[] label(double[][] centroids) {
+			CustomerSegment[] labels = new CustomerSegment[centroids.length];
+			List<Integer> remaining = new ArrayList<>();
+			for (int c = 0; c < centroids.length; c++) {
+				remaining.add(c);
+			}
+
+			take(remaining, labels, CustomerSegment.HIGH_VALUE_CUSTOMER,
+					c -> centroids[c][ORDERS] + centroids[c][ORDER_VALUE] - centroids[c][RECENCY]);
+			take(remaining, labels, CustomerSegment.AT_RISK_CUSTOMER, c -> centroids[c][RECENCY]);
+			take(remaining, labels, CustomerSegment.NEW_CUSTOMER, c -> -centroids[c][ORDERS]);
+			remaining.forEach(c -> labels[c] = CustomerSegment.REGULAR_CUSTOMER);
+			return labels;
+		}
+
+		private static void take(List<Integer> remaining, CustomerSegment[] labels, CustomerSegment segment,
+				IntToDoubleFunction score) {
+			if (remaining.isEmpty()) {
+				return;
+			}
+
+			int best = remaining.get(0);
+			for (int c : remaining) {
+				if (score.applyAsDouble(c) > score.applyAsDouble(best)) {
+					best = c;
+				}
+			}
+			labels[best] = segment;
+			remaining.remove(Integer.valueOf(best));
+		}
+
+		private static double[][] sample(List<double[]> points, int size) {
+			if (points.size() <= size) {
+				return points.toArray(double[][]::new);
+			}
+
+			// Reservoir sample with a fixed seed, refits on unchanged data are reproducible
+			SplittableRandom random = new SplittableRandom(42);
+			double[][] sample = new double[size][];
+			for (int i = 0; i < points.size(); i++) {
+				if (i < size) {
+					sample[i] = points.get(i);
+				} else {
+					int slot = random.nextInt(i + 1);
+					if (slot < size) {
+						sample[slot] = points.get(i);
+					}
+				}
+			}
+			return sample;
+		}
+
+		// Order values and counts are heavy-tailed, logs keep a few large customers from owning a cluster
+		private static double[] logScale(double[] features) {
+			double[] scaled = new double[DIMENSIONS];
+			for (int d = 0; d < DIMENSIONS; d++) {
+				scaled[d] = Math.log1p(Math.max(0, features[d]));
+			}
+			return scaled;
+		}
+
+		private static double[] standardize(double[] scaled, double[] mean, double[] deviation) {
+			double[] point = new double[DIMENSIONS];
+			for (int d = 0; d < DIMENSIONS; d++) {
+				point[d] = (scaled[d] - mean[d]) / deviation[d];
+			}
+			return point;
+		}
+
+		private static double[] ones() {
+			double[] ones = new double[DIMENSIONS];
+			Arrays.fill(ones, 1);
+			return ones;
+		}
+	}
+
+	private static final class Assignment {
+
+		private final CustomerSegment segment;
+		private final int cluster;
+		private final double confidence;
+		private final double[] features;
+
+		private Assignment(CustomerSegment segment, int cluster, double confidence, double[] features) {
+			this.segment = segment;
+			this.cluster = cluster;
+			this.confidence = confidence;
+			this.features = features;
+		}
+
+		private Map<String, Object> describe() {
+			Map<String, Object> analysis = new LinkedHashMap<>();
+			analysis.put("segment", segment.name());
+			analysis.put("cluster", cluster);
+			analysis.put("confidence", confidence);
+
+			Map<String, Double> metrics = new LinkedHashMap<>();
+			double recency = features[RECENCY];
+			if (!Double.isNaN(recency)) {
+				metrics.put("recency_days", recency);
+			}
+			metrics.put("order_count", features[ORDERS]);
+			// Orders per month, customers younger than a month count as one month old
+			metrics.put("purchase_frequency", features[ORDERS] * 30 / Math.max(30, features[TENURE]));
+			metrics.put("avg_order_value", features[ORDER_VALUE]);
+			metrics.put("engagement_score", features[ENGAGEMENT]);
+			analysis.put("metrics", metrics);
+
+			// Chance the customer has lapsed, given how long past their usual gap between orders it is.
+			// A single order says nothing about the gap, a month is assumed.
+			if (features[ORDERS] > 0 && !Double.isNaN(recency)) {
+				double gap = Double.isNaN(features[ORDER_GAP]) ? 30 : Math.max(7, features[ORDER_GAP]);
+				analysis.put("predictions", Map.of("churn_risk", 1 - Math.exp(-recency / gap)));
+			}
+			return analysis;
+		}
+	}
+}
@@ -0,0 +1,354 @@
+package com.aygo.eciComm.service.behavior;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.aygo.eciComm.exception.BehaviorEventException;
+import com.aygo.eciComm.exception.DependencyUnavailableException;
+import com.aygo.eciComm.model.Product;
+import com.aygo.eciComm.model.analysis.BehaviorEvent;
+import com.aygo.eciComm.model.analysis.UserBehavior;
+import com.aygo.eciComm.model.enums.BehaviorAction;
+import com.aygo.eciComm.model.enums.ProductCategory;
+import com.aygo.eciComm.model.response.IngestionResult;
+import com.aygo.eciComm.repository.UserBehaviorRepository;
+import com.aygo.eciComm.service.analysis.SegmentationService;
+import com.aygo.eciComm.service.catalog.CatalogSnapshot;
+import com.aygo.eciComm.service.catalog.CatalogSnapshotService;
+import com.aygo.eciComm.service.catalog.ProductView;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Turns the clickstream into per-user UserBehavior.
+// Request threads only validate and publish into a lock-free ring buffer. A single aggregator thread
+// applies events to in-memory aggregates, resolving category and price from the catalog snapshot, and
+// a flusher writes the users changed since the last flush to DynamoDB in batches.
+@Service
+public class BehaviorTracker {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BehaviorTracker.class);
+
+	private static final int DRAIN_LIMIT = 4096;
+
+	@Autowired
+	private UserBehaviorRepository userBehaviorRepository;
+
+	@Autowired
+	private CatalogSnapshotService catalogSnapshotService;
+
+	@Autowired
+	private SegmentationService segmentationService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${behavior.buffer-capacity:65536}")
+	private int bufferCapacity;
+
+	@Value("${behavior.max-batch:1000}")
+	private int maxBatch;
+
+	@Value("${behavior.flush-interval:PT5S}")
+	private Duration flushInterval;
+
+	@Value("${behavior.idle-timeout:PT30M}")
+	private Duration idleTimeout;
+
+	@Value("${behavior.max-users:100000}")
+	private int maxUsers;
+
+	@Value("${behavior.max-products:50}")
+	private int maxProducts;
+
+	@Value("${behavior.max-queries:20}")
+	private int maxQueries;
+
+	@Value("${behavior.price-ranges:25,50,100,250,500}")
+	private List<BigDecimal> priceRangeBounds;
+
+	private EventRingBuffer<BehaviorEvent> buffer;
+	private PriceRanges priceRanges;
+	private Thread aggregator;
+	private volatile boolean running;
+
+	private final Map<String, UserBehaviorAggregate> aggregates = new ConcurrentHashMap<>();
+	private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+	private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "behavior-flush");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Aggregator thread only, the cursor is reused until the snapshot is swapped
+	private CatalogSnapshot catalog;
+	private ProductView productView;
+
+	private Counter accepted;
+	private Counter rejected;
+	private Counter dropped;
+
+	@PostConstruct
+	public void start() {
+		buffer = new EventRingBuffer<>(bufferCapacity);
+		priceRanges = new PriceRanges(priceRangeBounds);
+
+		accepted = meterRegistry.counter("behavior.events", "result", "accepted");
+		rejected = meterRegistry.counter("behavior.events", "result", "rejected");
+		dropped = meterRegistry.counter("behavior.events", "result", "dropped");
+		meterRegistry.gauge("behavior.buffer.size", buffer, EventRingBuffer::size);
+		meterRegistry.gauge("behavior.users", aggregates, Map::size);
+		meterRegistry.gauge("behavior.users.dirty", dirty, Set::size);
+
+		running = true;
+		aggregator = new Thread(this::aggregate, "behavior-aggregator");
+		aggregator.setDaemon(true);
+		aggregator.start();
+
+		flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+		LOG.info("Behavior tracker started, buffer of {} events, flushing every {} s", buffer.capacity(),
+				flushInterval.toSeconds());
+	}
+
+	// Drains what was accepted before shutting down, so acknowledged events reach the store
+	@PreDestroy
+	public void stop() {
+		running = false;
+		LockSupport.unpark(aggregator);
+		flusher.shutdownNow();
+
+		try {
+			aggregator.join(flushInterval.toMillis());
+			flusher.awaitTermination(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		while (buffer.drain(this::apply, DRAIN_LIMIT) > 0) {
+			// keep draining
+		}
+		flush();
+	}
+
+	// Events that do not fit in the buffer are dropped and reported, never waited for
+	public IngestionResult ingest(List<BehaviorEvent> events) {
+		if (events == null || events.isEmpty()) {
+			return new IngestionResult(0, 0, 0);
+		}
+		if (events.size() > maxBatch) {
+			throw new BehaviorEventException("At most " + maxBatch + " events are accepted per request");
+		}
+
+		int acceptedCount = 0;
+		int rejectedCount = 0;
+		int droppedCount = 0;
+		for (BehaviorEvent event : events) {
+			if (!isValid(event)) {
+				rejectedCount++;
+			} else if (buffer.offer(event)) {
+				acceptedCount++;
+			} else {
+				droppedCount++;
+			}
+		}
+		LockSupport.unpark(aggregator);
+
+		accepted.increment(acceptedCount);
+		rejected.increment(rejectedCount);
+		dropped.increment(droppedCount);
+		return new IngestionResult(acceptedCount, rejectedCount, droppedCount);
+	}
+
+	// Combines the in-memory aggregate with the stored history, empty for users never seen
+	public Optional<UserBehavior> getBehavior(String userId) {
+		UserBehaviorAggregate aggregate = aggregates.get(userId);
+
+		try {
+			if (aggregate == null) {
+				return userBehaviorRepository.findById(userId);
+			}
+			if (!aggregate.isSeeded()) {
+				aggregate.seed(userBehaviorRepository.findById(userId).orElse(null));
+			}
+		}
+
+		catch (DependencyUnavailableException e) {
+			LOG.warn("Stored behavior of user {} unavailable: {}", userId, e.getMessage());
+		}
+
+		return aggregate != null ? Optional.of(aggregate.snapshot()) : Optional.empty();
+	}
+
+	private boolean isValid(BehaviorEvent event) {
+		if (event == null || event.getUserId() == null || event.getUserId().isBlank() || event.getAction() == null) {
+			return false;
+		}
+		if (event.getAction() == BehaviorAction.SEARCH) {
+			return event.getQuery() != null && !event.getQuery().isBlank();
+		}
+		return event.getProductId() != null && !event.getProductId().isBlank();
+	}
+
+	private void aggregate() {
+		long idleNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+		while (running) {
+			try {
+				if (buffer.drain(this::apply, DRAIN_LIMIT) == 0) {
+					// Producers unpark after publishing, the timeout only bounds a missed wake-up
+					LockSupport.parkNanos(this, idleNanos);
+				}
+			}
+
+			catch (Exception e) {
+				LOG.error("Error aggregating behavior events: {}", e.getMessage(), e);
+			}
+		}
+	}
+
+	private void apply(BehaviorEvent event) {
+		ProductCategory category = event.getCategory();
+		BigDecimal price = event.getPrice();
+
+		// Products written since the snapshot was built are read from their pending change
+		Product changed = event.getProductId() != null
+				? catalogSnapshotService.changed(event.getProductId()).orElse(null)
+				: null;
+		ProductView product = changed == null && event.getProductId() != null ? lookup(event.getProductId()) : null;
+		if (changed != null) {
+			category = changed.getCategory();
+			price = changed.getPrice();
+		}
+
+		else if (product != null) {
+			category = product.getCategory();
+			price = product.getPrice();
+		}
+
+		int priceRange = priceRanges.indexOf(price);
+		UserBehaviorAggregate aggregate;
+		while (!(aggregate = aggregates.computeIfAbsent(event.getUserId(), this::newAggregate)).apply(event,
+				category, priceRange)) {
+			// Evicted concurrently by the flusher, the next pass creates a fresh aggregate
+			aggregates.remove(event.getUserId(), aggregate);
+		}
+		dirty.add(event.getUserId());
+		segmentationService.recordActivity(event.getUserId(), event.getAction(),
+				event.getTimestamp() != null ? event.getTimestamp() : Instant.now());
+	}
+
+	private ProductView lookup(String productId) {
+		CatalogSnapshot current = catalogSnapshotService.current().orElse(null);
+		if (current == null) {
+			return null;
+		}
+		if (current != catalog) {
+			catalog = current;
+			productView = current.view();
+		}
+
+		int row = current.rowOf(productId);
+		return row >= 0 ? productView.moveTo(row) : null;
+	}
+
+	private UserBehaviorAggregate newAggregate(String userId) {
+		return new UserBehaviorAggregate(userId, priceRanges, maxProducts, maxQueries);
+	}
+
+	private void flush() {
+		try {
+			List<UserBehaviorAggregate> changed = new ArrayList<>();
+			for (String userId : dirty) {
+				dirty.remove(userId);
+				UserBehaviorAggregate aggregate = aggregates.get(userId);
+				if (aggregate != null && aggregate.isDirty()) {
+					changed.add(aggregate);
+				}
+			}
+
+			if (!changed.isEmpty()) {
+				write(changed);
+			}
+			evictIdle();
+		}
+
+		catch (Exception e) {
+			LOG.error("Error flushing user behavior: {}", e.getMessage(), e);
+		}
+	}
+
+	private void write(List<UserBehaviorAggregate> changed) {
+		try {
+			// Users first seen since their aggregate was created carry their stored history forward
+			Map<String, UserBehaviorAggregate> unseeded = new HashMap<>();
+			changed.stream().filter(aggregate -> !aggregate.isSeeded())
+					.forEach(aggregate -> unseeded.put(aggregate.getUserId(), aggregate));
+			if (!unseeded.isEmpty()) {
+				userBehaviorRepository.findAllById(unseeded.keySet())
+						.forEach(stored -> unseeded.get(stored.getUserId()).seed(stored));
+				unseeded.values().forEach(aggregate -> aggregate.seed(null));
+			}
+
+			userBehaviorRepository.saveAll(changed.stream().map(UserBehaviorAggregate::flush).toList());
+			LOG.debug("Flushed behavior of {} users", changed.size());
+		}
+
+		// Nothing is lost, the users are written with the next flush
+		catch (RuntimeException e) {
+			LOG.warn("Flushing behavior of {} users failed, retrying next flush: {}", changed.size(), e.getMessage());
+			changed.forEach(aggregate -> {
+				aggregate.markDirty();
+				dirty.add(aggregate.getUserId());
+			});
+		}
+	}
+
+	// Idle users leave memory once flushed, the least recently active go first above max-users
+	private void evictIdle() {
+		Instant idleSince = Instant.now().minus(idleTimeout);
+		aggregates.values().removeIf(aggregate -> aggregate.evictIfIdle(idleSince));
+
+		int excess = aggregates.size() - maxUsers;
+		if (excess <= 0) {
+			return;
+		}
+
+		List<UserBehaviorAggregate> oldestFirst = new ArrayList<>(aggregates.values());
+		oldestFirst.sort(Comparator.comparing(UserBehaviorAggregate::getLastActivityTime,
+				Comparator.nullsFirst(Comparator.naturalOrder())));
+		for (UserBehaviorAggregate aggregate : oldestFirst) {
+			if (excess == 0) {
+				break;
+			}
+			if (aggregate.evictIfIdle(Instant.MAX)) {
+				aggregates.remove(aggregate.getUserId(), aggregate);
+				excess--;
+			}
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.aygo.eciComm.service.behavior;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Bounded lock-free queue for many producers and a single consumer.
+// Each slot carries a sequence number: producers claim a position with one CAS on the tail and publish
+// the element by advancing the slot's sequence, the consumer reads slots in order without any CAS.
+// A full buffer rejects instead of blocking, request threads never wait on the aggregator.
+final class EventRingBuffer<E> {
+
+	private final int capacity;
+	private final int mask;
+	private final AtomicReferenceArray<E> slots;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+
+	// Only advanced by the consumer, volatile so size() is meaningful from other threads
+	private volatile long head;
+
+	EventRingBuffer(int requestedCapacity) {
+		this.capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+		this.mask = capacity - 1;
+		this.slots = new AtomicReferenceArray<>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	boolean offer(E element) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long available = sequences.get(index) - position;
+
+			if (available == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					slots.set(index, element);
+					sequences.set(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (available < 0) {
+				// The slot still holds an element from the previous lap
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	// Consumer thread only
+	int drain(Consumer<E> consumer, int limit) {
+		long position = head;
+		int drained = 0;
+
+		while (drained < limit) {
+			int index = (int) (position & mask);
+			if (sequences.get(index) != position + 1) {
+				break;
+			}
+
+			E element = slots.get(index);
+			slots.set(index, null);
+			sequences.set(index, position + capacity);
+			position++;
+			drained++;
+			head = position;
+			consumer.accept(element);
+		}
+		return drained;
+	}
+
+	int size() {
+		return (int) Math.max(0, tail.get() - head);
+	}
+
+	int capacity() {
+		return capacity;
+	}
+}
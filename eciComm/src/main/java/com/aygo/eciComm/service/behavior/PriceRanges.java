@@ -0,0 +1,54 @@
+package com.aygo.eciComm.service.behavior;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Price buckets keyed by labels such as "25-50" and "500+", built from ascending upper bounds
+final class PriceRanges {
+
+	private final BigDecimal[] bounds;
+	private final String[] labels;
+	private final Map<String, Integer> indexByLabel = new HashMap<>();
+
+	PriceRanges(List<BigDecimal> upperBounds) {
+		this.bounds = upperBounds.stream().sorted().distinct().toArray(BigDecimal[]::new);
+		this.labels = new String[bounds.length + 1];
+
+		BigDecimal lower = BigDecimal.ZERO;
+		for (int i = 0; i < bounds.length; i++) {
+			labels[i] = lower.toPlainString() + "-" + bounds[i].toPlainString();
+			lower = bounds[i];
+		}
+		labels[bounds.length] = lower.toPlainString() + "+";
+
+		for (int i = 0; i < labels.length; i++) {
+			indexByLabel.put(labels[i], i);
+		}
+	}
+
+	int size() {
+		return labels.length;
+	}
+
+	String label(int index) {
+		return labels[index];
+	}
+
+	int indexOf(String label) {
+		Integer index = indexByLabel.get(label);
+		return index != null ? index : -1;
+	}
+
+	// Upper bounds are exclusive, -1 for a missing price
+	int indexOf(BigDecimal price) {
+		if (price == null) {
+			return -1;
+		}
+
+		int position = Arrays.binarySearch(bounds, price);
+		return position >= 0 ? position + 1 : -position - 1;
+	}
+}
@@ -0,0 +1,270 @@
+package com.aygo.eciComm.service.behavior;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.aygo.eciComm.model.analysis.BehaviorEvent;
+import com.aygo.eciComm.model.analysis.UserBehavior;
+import com.aygo.eciComm.model.enums.ProductCategory;
+
+// Running behavior of one user. Written by the aggregator thread, snapshotted by the flusher and readers.
+// Product and query histories keep the most recent entries only, price preferences keep raw weights and
+// are normalized into shares when snapshotted.
+final class UserBehaviorAggregate {
+
+	private final String userId;
+	private final PriceRanges priceRanges;
+	private final int maxProducts;
+	private final int maxQueries;
+
+	private final LinkedHashSet<String> viewedProducts = new LinkedHashSet<>();
+	private final LinkedHashSet<String> purchasedProducts = new LinkedHashSet<>();
+	private final LinkedHashSet<String> searchQueries = new LinkedHashSet<>();
+	private final Set<String> cart = new LinkedHashSet<>();
+	private final Map<String, Integer> categoryViews = new HashMap<>();
+	private final double[] priceWeights;
+	private int cartAbandonment;
+
+	private String sessionId;
+	private Instant sessionStart;
+	private Instant lastActivityTime;
+	private int completedSessions;
+	private Duration totalSessionDuration = Duration.ZERO;
+
+	private boolean dirty;
+	private boolean seeded;
+	private boolean evicted;
+
+	UserBehaviorAggregate(String userId, PriceRanges priceRanges, int maxProducts, int maxQueries) {
+		this.userId = userId;
+		this.priceRanges = priceRanges;
+		this.maxProducts = maxProducts;
+		this.maxQueries = maxQueries;
+		this.priceWeights = new double[priceRanges.size()];
+	}
+
+	String getUserId() {
+		return userId;
+	}
+
+	// Returns false once the aggregate was evicted, the caller then starts a fresh one
+	synchronized boolean apply(BehaviorEvent event, ProductCategory category, int priceRange) {
+		if (evicted) {
+			return false;
+		}
+
+		Instant at = event.getTimestamp() != null ? event.getTimestamp() : Instant.now();
+		trackSession(event.getSessionId(), at);
+
+		String productId = event.getProductId();
+		switch (event.getAction()) {
+		case VIEW -> {
+			touch(viewedProducts, productId, maxProducts);
+			if (category != null) {
+				categoryViews.merge(category.name(), 1, Integer::sum);
+			}
+		}
+		case ADD_TO_CART -> cart.add(productId);
+		case REMOVE_FROM_CART -> cart.remove(productId);
+		case PURCHASE -> {
+			cart.remove(productId);
+			touch(purchasedProducts, productId, maxProducts);
+		}
+		case SEARCH -> touch(searchQueries, event.getQuery().trim(), maxQueries);
+		case WISHLIST, REVIEW -> {
+		}
+		}
+
+		if (priceRange >= 0) {
+			priceWeights[priceRange] += weight(event);
+		}
+
+		if (lastActivityTime == null || at.isAfter(lastActivityTime)) {
+			lastActivityTime = at;
+		}
+		dirty = true;
+		return true;
+	}
+
+	// Merges the history stored before this aggregate was created, at most once
+	synchronized void seed(UserBehavior stored) {
+		if (seeded) {
+			return;
+		}
+		seeded = true;
+		if (stored == null) {
+			return;
+		}
+
+		prepend(viewedProducts, stored.getViewedProducts(), maxProducts);
+		prepend(purchasedProducts, stored.getPurchasedProducts(), maxProducts);
+		prepend(searchQueries, stored.getSearchQueries(), maxQueries);
+
+		int storedViews = 0;
+		if (stored.getCategoryViews() != null) {
+			for (Map.Entry<String, Integer> entry : stored.getCategoryViews().entrySet()) {
+				if (entry.getValue() != null) {
+					categoryViews.merge(entry.getKey(), entry.getValue(), Integer::sum);
+					storedViews += entry.getValue();
+				}
+			}
+		}
+
+		// Stored preferences are shares, weighted back by the number of views they were built from
+		if (stored.getPriceRangePreferences() != null) {
+			double storedWeight = Math.max(1, storedViews);
+			stored.getPriceRangePreferences().forEach((range, share) -> {
+				int index = priceRanges.indexOf(range);
+				if (index >= 0 && share != null) {
+					priceWeights[index] += share * storedWeight;
+				}
+			});
+		}
+
+		if (stored.getCartAbandonment() != null) {
+			cartAbandonment += stored.getCartAbandonment();
+		}
+		if (stored.getAverageSessionDuration() != null) {
+			completedSessions++;
+			totalSessionDuration = totalSessionDuration.plus(stored.getAverageSessionDuration());
+		}
+		if (stored.getLastActivityTime() != null
+				&& (lastActivityTime == null || stored.getLastActivityTime().isAfter(lastActivityTime))) {
+			lastActivityTime = stored.getLastActivityTime();
+		}
+	}
+
+	synchronized boolean isSeeded() {
+		return seeded;
+	}
+
+	synchronized boolean isDirty() {
+		return dirty;
+	}
+
+	synchronized void markDirty() {
+		dirty = true;
+	}
+
+	synchronized UserBehavior snapshot() {
+		UserBehavior behavior = new UserBehavior();
+		behavior.setUserId(userId);
+		behavior.setSessionId(sessionId);
+		behavior.setViewedProducts(new ArrayList<>(viewedProducts));
+		behavior.setPurchasedProducts(new ArrayList<>(purchasedProducts));
+		behavior.setSearchQueries(new ArrayList<>(searchQueries));
+		behavior.setCategoryViews(new HashMap<>(categoryViews));
+		behavior.setPriceRangePreferences(pricePreferences());
+		behavior.setCartAbandonment(cartAbandonment + cart.size());
+		behavior.setLastActivityTime(lastActivityTime);
+		if (completedSessions > 0) {
+			behavior.setAverageSessionDuration(totalSessionDuration.dividedBy(completedSessions));
+		}
+		return behavior;
+	}
+
+	// Snapshot for the store, later events mark the aggregate dirty again
+	synchronized UserBehavior flush() {
+		dirty = false;
+		return snapshot();
+	}
+
+	// Only clean aggregates are evicted, everything they hold has been flushed
+	synchronized boolean evictIfIdle(Instant idleSince) {
+		if (dirty || (lastActivityTime != null && lastActivityTime.isAfter(idleSince))) {
+			return false;
+		}
+		evicted = true;
+		return true;
+	}
+
+	synchronized Instant getLastActivityTime() {
+		return lastActivityTime;
+	}
+
+	// A new session id closes the previous session, whatever is still in its cart counts as abandoned
+	private void trackSession(String eventSessionId, Instant at) {
+		if (eventSessionId == null || eventSessionId.equals(sessionId)) {
+			return;
+		}
+
+		if (sessionId != null && sessionStart != null && lastActivityTime != null) {
+			completedSessions++;
+			Duration length = Duration.between(sessionStart, lastActivityTime);
+			totalSessionDuration = totalSessionDuration.plus(length.isNegative() ? Duration.ZERO : length);
+			cartAbandonment += cart.size();
+			cart.clear();
+		}
+		sessionId = eventSessionId;
+		sessionStart = at;
+	}
+
+	private Map<String, Double> pricePreferences() {
+		double total = 0;
+		for (double weight : priceWeights) {
+			total += weight;
+		}
+
+		Map<String, Double> preferences = new LinkedHashMap<>();
+		if (total > 0) {
+			for (int i = 0; i < priceWeights.length; i++) {
+				if (priceWeights[i] > 0) {
+					preferences.put(priceRanges.label(i), priceWeights[i] / total);
+				}
+			}
+		}
+		return preferences;
+	}
+
+	// Stronger intent moves the price preference further than a view
+	private static double weight(BehaviorEvent event) {
+		return switch (event.getAction()) {
+		case PURCHASE -> 5;
+		case ADD_TO_CART -> 3;
+		case WISHLIST -> 2;
+		case VIEW, REVIEW -> 1;
+		case REMOVE_FROM_CART, SEARCH -> 0;
+		};
+	}
+
+	// Moves the value to the most recent end, dropping the oldest entry once over the limit
+	private static void touch(LinkedHashSet<String> history, String value, int limit) {
+		history.remove(value);
+		history.add(value);
+		if (history.size() > limit) {
+			Iterator<String> oldest = history.iterator();
+			oldest.next();
+			oldest.remove();
+		}
+	}
+
+	private static void prepend(LinkedHashSet<String> history, List<String> older, int limit) {
+		if (older == null || older.isEmpty()) {
+			return;
+		}
+
+		LinkedHashSet<String> merged = new LinkedHashSet<>();
+		for (String value : older) {
+			if (value != null && !history.contains(value)) {
+				merged.add(value);
+			}
+		}
+		merged.addAll(history);
+
+		history.clear();
+		int skip = Math.max(0, merged.size() - limit);
+		for (String value : merged) {
+			if (skip-- <= 0) {
+				history.add(value);
+			}
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.aygo.eciComm.service.catalog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import com.aygo.eciComm.service.mapped.MappedFile;
+
+// Immutable, memory-mapped columnar view of the product catalog.
+// Rows are read through ProductView flyweights, nothing is materialized on the heap until asked for.
+public final class CatalogSnapshot {
+
+	static final int MAGIC = 0x45434331; // "ECC1"
+	static final int FORMAT_VERSION = 3;
+	static final String KIND = "catalog snapshot";
+
+	static final int NULL_REF = MappedFile.NULL_REF;
+	static final int NULL_INT = Integer.MIN_VALUE;
+	static final long NULL_LONG = Long.MIN_VALUE;
+
+	// Sections of the mapped file, the string pool and the id hash are part of its layout
+	static final int ID = 0;
+	static final int NAME = 1;
+	static final int DESCRIPTION = 2;
+	static final int IMAGE_URL = 3;
+	static final int PRICE = 4;
+	static final int VERSION = 5;
+	static final int STOCK = 6;
+	static final int CATEGORY = 7;
+	static final int STATUS = 8;
+	static final int FEATURED = 9;
+	static final int TAG_STARTS = 10;
+	static final int TAGS = 11;
+	static final int ATTRIBUTE_STARTS = 12;
+	static final int ATTRIBUTES = 13;
+	static final int PRICE_TEXT = 14;
+	static final int WEIGHT = 15;
+	static final int RELEASE_DATE = 16;
+	static final int TYPE = 17;
+	static final int ITEM_STATUS = 18;
+	static final int CREATED_AT = 19;
+	static final int UPDATED_AT = 20;
+	static final int CREATED_BY = 21;
+	static final int UPDATED_BY = 22;
+	static final int VARIANT_STARTS = 23;
+	static final int VARIANTS = 24;
+	static final int SECTION_COUNT = 25;
+
+	private final MappedFile file;
+	private final Instant builtAt;
+
+	private CatalogSnapshot(MappedFile file, Instant builtAt) {
+		this.file = file;
+		this.builtAt = builtAt;
+	}
+
+	public static CatalogSnapshot open(Path file) throws IOException {
+		return new CatalogSnapshot(MappedFile.open(file, MAGIC, FORMAT_VERSION, KIND), Instant.now());
+	}
+
+	public Path getFile() {
+		return file.getFile();
+	}
+
+	public Instant getBuiltAt() {
+		return builtAt;
+	}
+
+	public int size() {
+		return file.rows();
+	}
+
+	public long sizeInBytes() {
+		return file.sizeInBytes();
+	}
+
+	public ProductView view() {
+		return new ProductView(this);
+	}
+
+	// Returns the row of the product, or -1 if it is not part of the snapshot
+	public int rowOf(String productId) {
+		return file.find(ID, productId);
+	}
+
+	// Column accessors used by ProductView
+	int intAt(int section, int index) {
+		return file.intAt(section, index);
+	}
+
+	long longAt(int section, int row) {
+		return file.longAt(section, row);
+	}
+
+	byte byteAt(int section, int row) {
+		return file.byteAt(section, row);
+	}
+
+	String string(int ref) {
+		return file.string(ref);
+	}
+}
@@ -0,0 +1,214 @@
+package com.aygo.eciComm.service.catalog;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.aygo.eciComm.model.Product;
+import com.aygo.eciComm.repository.ProductRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Keeps an off-heap snapshot of the catalog for read-heavy endpoints.
+// Snapshots are rebuilt in the background and swapped atomically, readers never see a partial one.
+// Writes between rebuilds are kept as per-product changes on top of the current snapshot, so a write costs
+// a map entry rather than a table scan. Full rebuilds run on the slow refresh schedule, or sooner once
+// max-changes products have changed.
+@Service
+public class CatalogSnapshotService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Value("${catalog.snapshot.enabled:true}")
+	private boolean enabled;
+
+	@Value("${catalog.snapshot.directory:${java.io.tmpdir}/eciComm/catalog}")
+	private String directory;
+
+	@Value("${catalog.snapshot.refresh-interval:PT1H}")
+	private Duration refreshInterval;
+
+	@Value("${catalog.snapshot.rebuild-delay:PT5S}")
+	private Duration rebuildDelay;
+
+	@Value("${catalog.snapshot.max-changes:10000}")
+	private int maxChanges;
+
+	private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+	private final AtomicBoolean rebuildPending = new AtomicBoolean();
+	private final Map<String, Change> changes = new ConcurrentHashMap<>();
+	private final AtomicLong sequence = new AtomicLong();
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "catalog-snapshot");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!enabled) {
+			LOG.info("Catalog snapshot disabled");
+			return;
+		}
+
+		executor.execute(this::rebuild);
+		executor.scheduleWithFixedDelay(this::rebuild, refreshInterval.toMillis(), refreshInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	public Optional<CatalogSnapshot> current() {
+		return Optional.ofNullable(current.get());
+	}
+
+	public void updated(Product product) {
+		change(product.getId(), product);
+	}
+
+	public void deleted(String productId) {
+		change(productId, null);
+	}
+
+	// The product as last written, when it changed since the current snapshot was built
+	public Optional<Product> changed(String productId) {
+		Change change = changes.get(productId);
+		return change != null ? Optional.ofNullable(change.product()) : Optional.empty();
+	}
+
+	private void change(String productId, Product product) {
+		if (!enabled || productId == null) {
+			return;
+		}
+		changes.put(productId, new Change(sequence.incrementAndGet(), product));
+		if (changes.size() > maxChanges) {
+			scheduleRebuild();
+		}
+	}
+
+	// Coalesces rebuilds requested while one is already pending
+	private void scheduleRebuild() {
+		if (rebuildPending.compareAndSet(false, true)) {
+			executor.schedule(() -> {
+				rebuildPending.set(false);
+				rebuild();
+			}, rebuildDelay.toMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	public Optional<List<Product>> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+		return streamByPriceRange(minPrice, maxPrice).map(Stream::toList);
+	}
+
+	// Served from the price column without touching the heap for rows outside the range
+	public Optional<Stream<Product>> streamByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+		// Changes are copied before the snapshot is read. A rebuild swaps the snapshot before it prunes the changes
+		// it covers, so the copy holds at least everything the snapshot is missing.
+		Map<String, Change> changed = Map.copyOf(changes);
+		CatalogSnapshot snapshot = current.get();
+		if (snapshot == null) {
+			return Optional.empty();
+		}
+
+		long minCents = minPrice.setScale(2, RoundingMode.CEILING).unscaledValue().longValueExact();
+		long maxCents = maxPrice.setScale(2, RoundingMode.FLOOR).unscaledValue().longValueExact();
+
+		ProductView view = snapshot.view();
+		// Rows that changed since the snapshot are replaced by their latest version, or dropped if deleted
+		Stream<Product> rows = IntStream.range(0, snapshot.size()).filter(row -> {
+			long cents = view.moveTo(row).getPriceInCents();
+			return inRange(cents, minCents, maxCents) && (changed.isEmpty() || !changed.containsKey(view.getId()));
+		}).mapToObj(row -> view.moveTo(row).toProduct());
+
+		// Compared in cents like the price column, so a product is in the same ranges before and after a rebuild
+		Stream<Product> latest = changed.values().stream().map(Change::product)
+				.filter(product -> product != null
+						&& inRange(CatalogSnapshotWriter.toCents(product.getPrice()), minCents, maxCents));
+		return Optional.of(Stream.concat(rows, latest));
+	}
+
+	private static boolean inRange(long cents, long minCents, long maxCents) {
+		return cents != CatalogSnapshot.NULL_LONG && cents >= minCents && cents <= maxCents;
+	}
+
+	void rebuild() {
+		long start = System.nanoTime();
+		long coveredUpTo = sequence.get();
+
+		try {
+			Path dir = Paths.get(directory);
+			Files.createDirectories(dir);
+
+			CatalogSnapshotWriter writer = new CatalogSnapshotWriter();
+			try (Stream<Product> products = productRepository.streamAll()) {
+				products.forEach(writer::add);
+			}
+
+			Path file = dir.resolve("catalog-" + System.currentTimeMillis() + ".snap");
+			writer.writeTo(file);
+
+			CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+			CatalogSnapshot previous = current.getAndSet(snapshot);
+
+			// Changes made before the scan started are part of the new snapshot, later ones stay on top of it
+			changes.entrySet().removeIf(entry -> entry.getValue().sequence() <= coveredUpTo);
+
+			LOG.info("Catalog snapshot rebuilt with {} products ({} bytes) in {} ms", snapshot.size(),
+					snapshot.sizeInBytes(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+			deleteSnapshot(previous);
+		}
+
+		catch (Exception e) {
+			LOG.error("Error rebuilding catalog snapshot: {}", e.getMessage(), e);
+		}
+	}
+
+	// Existing mappings stay readable after their file is unlinked, so in-flight readers are unaffected
+	private void deleteSnapshot(CatalogSnapshot snapshot) {
+		if (snapshot == null) {
+			return;
+		}
+
+		try {
+			Files.deleteIfExists(snapshot.getFile());
+		}
+
+		catch (IOException e) {
+			LOG.warn("Could not delete stale catalog snapshot {}: {}", snapshot.getFile(), e.getMessage());
+		}
+	}
+
+	private record Change(long sequence, Product product) {
+	}
+}
@@ -0,0 +1,194 @@
+package com.aygo.eciComm.service.catalog;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+
+import com.aygo.eciComm.model.Product;
+import com.aygo.eciComm.service.mapped.MappedFileWriter;
+
+// Accumulates products into compact primitive columns and writes them as a single snapshot file
+public class CatalogSnapshotWriter {
+
+	private int rows;
+	private int[] ids = new int[1024];
+	private int[] names = new int[1024];
+	private int[] descriptions = new int[1024];
+	private int[] imageUrls = new int[1024];
+	private long[] pricesInCents = new long[1024];
+	private int[] stock = new int[1024];
+	private byte[] categories = new byte[1024];
+	private byte[] statuses = new byte[1024];
+	private byte[] featured = new byte[1024];
+	private long[] versions = new long[1024];
+	private int[] priceTexts = new int[1024];
+	private int[] weights = new int[1024];
+	private int[] releaseDates = new int[1024];
+	private int[] types = new int[1024];
+	private byte[] itemStatuses = new byte[1024];
+	private long[] createdAt = new long[1024];
+	private long[] updatedAt = new long[1024];
+	private int[] createdBy = new int[1024];
+	private int[] updatedBy = new int[1024];
+
+	private int[] tagStarts = new int[1025];
+	private int[] tagRefs = new int[1024];
+	private int tagCount;
+
+	private int[] attributeStarts = new int[1025];
+	private int[] attributeRefs = new int[2048];
+	private int attributeCount;
+
+	private int[] variantStarts = new int[1025];
+	private int[] variantRefs = new int[512];
+	private int variantCount;
+
+	private final MappedFileWriter out = new MappedFileWriter(CatalogSnapshot.MAGIC, CatalogSnapshot.FORMAT_VERSION,
+			CatalogSnapshot.SECTION_COUNT, CatalogSnapshot.KIND);
+
+	public CatalogSnapshotWriter add(Product product) {
+		if (product.getId() == null) {
+			return this;
+		}
+		ensureRowCapacity();
+
+		ids[rows] = intern(product.getId());
+		names[rows] = intern(product.getName());
+		descriptions[rows] = intern(product.getDescription());
+		imageUrls[rows] = intern(product.getImageUrl());
+		pricesInCents[rows] = toCents(product.getPrice());
+		stock[rows] = product.getStockQuantity() != null ? product.getStockQuantity() : CatalogSnapshot.NULL_INT;
+		categories[rows] = (byte) (product.getCategory() != null ? product.getCategory().ordinal() : -1);
+		statuses[rows] = (byte) (product.getProductStatus() != null ? product.getProductStatus().ordinal() : -1);
+		featured[rows] = (byte) (product.isFeatured() ? 1 : 0);
+		versions[rows] = product.getVersion() != null ? product.getVersion() : CatalogSnapshot.NULL_LONG;
+
+		// Decimals are also kept as written, so responses show the same scale DynamoDB returns
+		priceTexts[rows] = intern(product.getPrice() != null ? product.getPrice().toString() : null);
+		weights[rows] = intern(product.getWeightInKg() != null ? product.getWeightInKg().toString() : null);
+		releaseDates[rows] = product.getReleaseDate() != null ? Math.toIntExact(product.getReleaseDate().toEpochDay())
+				: CatalogSnapshot.NULL_INT;
+		types[rows] = intern(product.getType());
+		itemStatuses[rows] = (byte) (product.getStatus() != null ? product.getStatus().ordinal() : -1);
+		createdAt[rows] = toNanos(product.getCreatedAt());
+		updatedAt[rows] = toNanos(product.getUpdatedAt());
+		createdBy[rows] = intern(product.getCreatedBy());
+		updatedBy[rows] = intern(product.getUpdatedBy());
+
+		for (String tag : product.getTags()) {
+			tagRefs = ensure(tagRefs, tagCount + 1);
+			tagRefs[tagCount++] = intern(tag);
+		}
+		tagStarts[rows + 1] = tagCount;
+
+		for (Map.Entry<String, String> attribute : product.getAttributes().entrySet()) {
+			attributeRefs = ensure(attributeRefs, (attributeCount + 1) * 2);
+			attributeRefs[attributeCount * 2] = intern(attribute.getKey());
+			attributeRefs[attributeCount * 2 + 1] = intern(attribute.getValue());
+			attributeCount++;
+		}
+		attributeStarts[rows + 1] = attributeCount;
+
+		if (product.getImageVariants() != null) {
+			for (Map.Entry<String, String> variant : product.getImageVariants().entrySet()) {
+				variantRefs = ensure(variantRefs, (variantCount + 1) * 2);
+				variantRefs[variantCount * 2] = intern(variant.getKey());
+				variantRefs[variantCount * 2 + 1] = intern(variant.getValue());
+				variantCount++;
+			}
+		}
+		variantStarts[rows + 1] = variantCount;
+
+		rows++;
+		return this;
+	}
+
+	public int size() {
+		return rows;
+	}
+
+	public void writeTo(Path file) throws IOException {
+		out.ints(CatalogSnapshot.ID, ids, rows);
+		out.ints(CatalogSnapshot.NAME, names, rows);
+		out.ints(CatalogSnapshot.DESCRIPTION, descriptions, rows);
+		out.ints(CatalogSnapshot.IMAGE_URL, imageUrls, rows);
+		out.longs(CatalogSnapshot.PRICE, pricesInCents, rows);
+		out.longs(CatalogSnapshot.VERSION, versions, rows);
+		out.longs(CatalogSnapshot.CREATED_AT, createdAt, rows);
+		out.longs(CatalogSnapshot.UPDATED_AT, updatedAt, rows);
+		out.ints(CatalogSnapshot.STOCK, stock, rows);
+		out.bytes(CatalogSnapshot.CATEGORY, categories, rows);
+		out.bytes(CatalogSnapshot.STATUS, statuses, rows);
+		out.bytes(CatalogSnapshot.FEATURED, featured, rows);
+		out.ints(CatalogSnapshot.TAG_STARTS, tagStarts, rows + 1);
+		out.ints(CatalogSnapshot.TAGS, tagRefs, tagCount);
+		out.ints(CatalogSnapshot.ATTRIBUTE_STARTS, attributeStarts, rows + 1);
+		out.ints(CatalogSnapshot.ATTRIBUTES, attributeRefs, attributeCount * 2);
+		out.ints(CatalogSnapshot.PRICE_TEXT, priceTexts, rows);
+		out.ints(CatalogSnapshot.WEIGHT, weights, rows);
+		out.ints(CatalogSnapshot.RELEASE_DATE, releaseDates, rows);
+		out.ints(CatalogSnapshot.TYPE, types, rows);
+		out.ints(CatalogSnapshot.CREATED_BY, createdBy, rows);
+		out.ints(CatalogSnapshot.UPDATED_BY, updatedBy, rows);
+		out.bytes(CatalogSnapshot.ITEM_STATUS, itemStatuses, rows);
+		out.ints(CatalogSnapshot.VARIANT_STARTS, variantStarts, rows + 1);
+		out.ints(CatalogSnapshot.VARIANTS, variantRefs, variantCount * 2);
+		out.writeTo(file, rows, CatalogSnapshot.ID);
+	}
+
+	private int intern(String value) {
+		return out.intern(value);
+	}
+
+	private void ensureRowCapacity() {
+		if (rows < ids.length) {
+			return;
+		}
+		int grown = ids.length * 2;
+		ids = Arrays.copyOf(ids, grown);
+		names = Arrays.copyOf(names, grown);
+		descriptions = Arrays.copyOf(descriptions, grown);
+		imageUrls = Arrays.copyOf(imageUrls, grown);
+		pricesInCents = Arrays.copyOf(pricesInCents, grown);
+		stock = Arrays.copyOf(stock, grown);
+		categories = Arrays.copyOf(categories, grown);
+		statuses = Arrays.copyOf(statuses, grown);
+		featured = Arrays.copyOf(featured, grown);
+		versions = Arrays.copyOf(versions, grown);
+		priceTexts = Arrays.copyOf(priceTexts, grown);
+		weights = Arrays.copyOf(weights, grown);
+		releaseDates = Arrays.copyOf(releaseDates, grown);
+		types = Arrays.copyOf(types, grown);
+		itemStatuses = Arrays.copyOf(itemStatuses, grown);
+		createdAt = Arrays.copyOf(createdAt, grown);
+		updatedAt = Arrays.copyOf(updatedAt, grown);
+		createdBy = Arrays.copyOf(createdBy, grown);
+		updatedBy = Arrays.copyOf(updatedBy, grown);
+		tagStarts = Arrays.copyOf(tagStarts, grown + 1);
+		attributeStarts = Arrays.copyOf(attributeStarts, grown + 1);
+		variantStarts = Arrays.copyOf(variantStarts, grown + 1);
+	}
+
+	private static int[] ensure(int[] array, int required) {
+		return required <= array.length ? array : Arrays.copyOf(array, Math.max(required, array.length * 2));
+	}
+
+	private static long toNanos(Instant instant) {
+		if (instant == null) {
+			return CatalogSnapshot.NULL_LONG;
+		}
+		return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+	}
+
+	// Also how CatalogSnapshotService compares changed products to the price column
+	static long toCents(BigDecimal price) {
+		if (price == null) {
+			return CatalogSnapshot.NULL_LONG;
+		}
+		return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+}
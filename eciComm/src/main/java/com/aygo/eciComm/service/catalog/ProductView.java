@@ -0,0 +1,197 @@
+package com.aygo.eciComm.service.catalog;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.aygo.eciComm.model.Product;
+import com.aygo.eciComm.model.enums.ItemStatus;
+import com.aygo.eciComm.model.enums.ProductCategory;
+import com.aygo.eciComm.model.enums.ProductStatus;
+
+// Flyweight cursor over one row of a CatalogSnapshot. Not thread-safe, create one per reader.
+public final class ProductView {
+
+	private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+	private static final ProductStatus[] STATUSES = ProductStatus.values();
+	private static final ItemStatus[] ITEM_STATUSES = ItemStatus.values();
+
+	private final CatalogSnapshot snapshot;
+	private int row = -1;
+
+	ProductView(CatalogSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	public ProductView moveTo(int row) {
+		if (row < 0 || row >= snapshot.size()) {
+			throw new IndexOutOfBoundsException("Row " + row + " outside snapshot of " + snapshot.size());
+		}
+		this.row = row;
+		return this;
+	}
+
+	public int getRow() {
+		return row;
+	}
+
+	public String getId() {
+		return snapshot.string(snapshot.intAt(CatalogSnapshot.ID, row));
+	}
+
+	public String getName() {
+		return snapshot.string(snapshot.intAt(CatalogSnapshot.NAME, row));
+	}
+
+	public String getDescription() {
+		return snapshot.string(snapshot.intAt(CatalogSnapshot.DESCRIPTION, row));
+	}
+
+	public String getImageUrl() {
+		return snapshot.string(snapshot.intAt(CatalogSnapshot.IMAGE_URL, row));
+	}
+
+	// Raw price column, CatalogSnapshot.NULL_LONG when the product has no price
+	public long getPriceInCents() {
+		return snapshot.longAt(CatalogSnapshot.PRICE, row);
+	}
+
+	public BigDecimal getPrice() {
+		long cents = getPriceInCents();
+		return cents == CatalogSnapshot.NULL_LONG ? null : BigDecimal.valueOf(cents, 2);
+	}
+
+	public Integer getStockQuantity() {
+		int stock = snapshot.intAt(CatalogSnapshot.STOCK, row);
+		return stock == CatalogSnapshot.NULL_INT ? null : stock;
+	}
+
+	public ProductCategory getCategory() {
+		byte ordinal = snapshot.byteAt(CatalogSnapshot.CATEGORY, row);
+		return ordinal < 0 ? null : CATEGORIES[ordinal];
+	}
+
+	public ProductStatus getProductStatus() {
+		byte ordinal = snapshot.byteAt(CatalogSnapshot.STATUS, row);
+		return ordinal < 0 ? null : STATUSES[ordinal];
+	}
+
+	public boolean isFeatured() {
+		return snapshot.byteAt(CatalogSnapshot.FEATURED, row) != 0;
+	}
+
+	public Long getVersion() {
+		long version = snapshot.longAt(CatalogSnapshot.VERSION, row);
+		return version == CatalogSnapshot.NULL_LONG ? null : version;
+	}
+
+	public Set<String> getTags() {
+		int start = snapshot.intAt(CatalogSnapshot.TAG_STARTS, row);
+		int end = snapshot.intAt(CatalogSnapshot.TAG_STARTS, row + 1);
+
+		Set<String> tags = new HashSet<>(end - start);
+		for (int i = start; i < end; i++) {
+			tags.add(snapshot.string(snapshot.intAt(CatalogSnapshot.TAGS, i)));
+		}
+		return tags;
+	}
+
+	public Map<String, String> getAttributes() {
+		return map(CatalogSnapshot.ATTRIBUTE_STARTS, CatalogSnapshot.ATTRIBUTES);
+	}
+
+	// Products without resized images have no variants at all, they are stored the same as an empty map
+	public Map<String, String> getImageVariants() {
+		Map<String, String> variants = map(CatalogSnapshot.VARIANT_STARTS, CatalogSnapshot.VARIANTS);
+		return variants.isEmpty() ? null : variants;
+	}
+
+	// Exact price as stored, with its original scale
+	public BigDecimal getPriceValue() {
+		String price = snapshot.string(snapshot.intAt(CatalogSnapshot.PRICE_TEXT, row));
+		return price == null ? null : new BigDecimal(price);
+	}
+
+	public BigDecimal getWeightInKg() {
+		String weight = snapshot.string(snapshot.intAt(CatalogSnapshot.WEIGHT, row));
+		return weight == null ? null : new BigDecimal(weight);
+	}
+
+	public LocalDate getReleaseDate() {
+		int epochDay = snapshot.intAt(CatalogSnapshot.RELEASE_DATE, row);
+		return epochDay == CatalogSnapshot.NULL_INT ? null : LocalDate.ofEpochDay(epochDay);
+	}
+
+	public String getType() {
+		return snapshot.string(snapshot.intAt(CatalogSnapshot.TYPE, row));
+	}
+
+	public ItemStatus getStatus() {
+		byte ordinal = snapshot.byteAt(CatalogSnapshot.ITEM_STATUS, row);
+		return ordinal < 0 ? null : ITEM_STATUSES[ordinal];
+	}
+
+	public Instant getCreatedAt() {
+		return instant(snapshot.longAt(CatalogSnapshot.CREATED_AT, row));
+	}
+
+	public Instant getUpdatedAt() {
+		return instant(snapshot.longAt(CatalogSnapshot.UPDATED_AT, row));
+	}
+
+	public String getCreatedBy() {
+		return snapshot.string(snapshot.intAt(CatalogSnapshot.CREATED_BY, row));
+	}
+
+	public String getUpdatedBy() {
+		return snapshot.string(snapshot.intAt(CatalogSnapshot.UPDATED_BY, row));
+	}
+
+	// Materializes the current row as a regular Product bean for the JSON endpoints
+	public Product toProduct() {
+		Product product = new Product();
+		product.setId(getId());
+		product.setName(getName());
+		product.setDescription(getDescription());
+		product.setImageUrl(getImageUrl());
+		product.setImageVariants(getImageVariants());
+		product.setPrice(getPriceValue());
+		product.setStockQuantity(getStockQuantity());
+		product.setCategory(getCategory());
+		product.setProductStatus(getProductStatus());
+		product.setFeatured(isFeatured());
+		product.setVersion(getVersion());
+		product.setTags(getTags());
+		product.setAttributes(getAttributes());
+		product.setWeightInKg(getWeightInKg());
+		product.setReleaseDate(getReleaseDate());
+		product.setType(getType());
+		product.setStatus(getStatus());
+		product.setCreatedAt(getCreatedAt());
+		product.setUpdatedAt(getUpdatedAt());
+		product.setCreatedBy(getCreatedBy());
+		product.setUpdatedBy(getUpdatedBy());
+		return product;
+	}
+
+	private Map<String, String> map(int startsSection, int refsSection) {
+		int start = snapshot.intAt(startsSection, row);
+		int end = snapshot.intAt(startsSection, row + 1);
+
+		Map<String, String> map = new HashMap<>(end - start);
+		for (int i = start; i < end; i++) {
+			map.put(snapshot.string(snapshot.intAt(refsSection, i * 2)),
+					snapshot.string(snapshot.intAt(refsSection, i * 2 + 1)));
+		}
+		return map;
+	}
+
+	private static Instant instant(long nanos) {
+		return nanos == CatalogSnapshot.NULL_LONG ? null
+				: Instant.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), Math.floorMod(nanos, 1_000_000_000L));
+	}
+}
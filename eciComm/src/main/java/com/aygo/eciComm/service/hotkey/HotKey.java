@@ -0,0 +1,6 @@
+package com.aygo.eciComm.service.hotkey;
+
+// One of the most accessed keys of a table over the tracking window. count may overestimate by up to
+// error, perSecond and share (of all accesses to the table) are computed from the certain count - error.
+public record HotKey(String key, long count, long error, double perSecond, double share) {
+}
@@ -0,0 +1,209 @@
+package com.aygo.eciComm.service.hotkey;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Most accessed partition keys per table and access type over a sliding window. Every slice of the window
+// counts keys in a bounded Space-Saving sketch, so recording is a map lookup under a per-table lock and
+// memory does not grow with the key space. When a slice ends the window is merged into the top keys
+// served by the hotkeys actuator endpoint and published as dynamodb.hot.keys gauges.
+@Component
+public class HotKeyTracker {
+
+	public enum Access {
+		READ, WRITE
+	}
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${hot-keys.enabled:true}")
+	private boolean enabled;
+
+	@Value("${hot-keys.capacity:64}")
+	private int capacity;
+
+	@Value("${hot-keys.top:10}")
+	private int top;
+
+	@Value("${hot-keys.window:PT1M}")
+	private Duration window;
+
+	@Value("${hot-keys.slices:6}")
+	private int slices;
+
+	private final Map<String, Tracked[]> tables = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "hot-key-tracker");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private MultiGauge hotKeyRates;
+	private MultiGauge topShares;
+
+	@PostConstruct
+	public void start() {
+		if (!enabled) {
+			return;
+		}
+
+		hotKeyRates = MultiGauge.builder("dynamodb.hot.keys").description("Accesses per second of the hottest keys")
+				.baseUnit("accesses").register(meterRegistry);
+		topShares = MultiGauge.builder("dynamodb.hot.keys.top.share")
+				.description("Share of a table's accesses going to its hottest key").register(meterRegistry);
+
+		long slice = Math.max(1, window.toMillis() / slices);
+		executor.scheduleAtFixedRate(this::rotate, slice, slice, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	public void read(String table, String key) {
+		record(table, Access.READ, key);
+	}
+
+	public void write(String table, String key) {
+		record(table, Access.WRITE, key);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public Duration getWindow() {
+		return window;
+	}
+
+	// Hottest keys by table and access type as of the last finished slice
+	public Map<String, Map<Access, List<HotKey>>> hotKeys() {
+		Map<String, Map<Access, List<HotKey>>> result = new TreeMap<>();
+		tables.forEach((table, tracked) -> result.put(table, hotKeys(tracked)));
+		return result;
+	}
+
+	public Map<Access, List<HotKey>> hotKeys(String table) {
+		Tracked[] tracked = tables.get(table);
+		return tracked == null ? Map.of() : hotKeys(tracked);
+	}
+
+	private void record(String table, Access access, String key) {
+		if (!enabled || key == null) {
+			return;
+		}
+		tables.computeIfAbsent(table, name -> newTracked())[access.ordinal()].current.add(key);
+	}
+
+	private Tracked[] newTracked() {
+		Tracked[] tracked = new Tracked[Access.values().length];
+		for (int i = 0; i < tracked.length; i++) {
+			tracked[i] = new Tracked(new SpaceSaving(capacity));
+		}
+		return tracked;
+	}
+
+	private void rotate() {
+		List<MultiGauge.Row<?>> rates = new ArrayList<>();
+		List<MultiGauge.Row<?>> shares = new ArrayList<>();
+
+		tables.forEach((table, trackedByAccess) -> {
+			for (Access access : Access.values()) {
+				Tracked tracked = trackedByAccess[access.ordinal()];
+				SpaceSaving finished = tracked.current;
+				tracked.current = new SpaceSaving(capacity);
+
+				// An add racing the swap can miss the snapshot, a negligible undercount
+				tracked.slices.addLast(finished.snapshot());
+				while (tracked.slices.size() > slices) {
+					tracked.slices.removeFirst();
+				}
+				tracked.hotKeys = merge(tracked.slices);
+
+				Tags tags = Tags.of("table", table, "access", access.name().toLowerCase());
+				for (HotKey hotKey : tracked.hotKeys) {
+					rates.add(MultiGauge.Row.of(tags.and("key", hotKey.key()), hotKey.perSecond()));
+				}
+				if (!tracked.hotKeys.isEmpty()) {
+					shares.add(MultiGauge.Row.of(tags, tracked.hotKeys.get(0).share()));
+				}
+			}
+		});
+
+		// Keys that cooled down are dropped, the gauges only ever name the current top keys
+		hotKeyRates.register(rates, true);
+		topShares.register(shares, true);
+	}
+
+	// Sums each key over the window. Where a slice did not count a key it might have been seen up to the
+	// slice's floor, which is added to the key's error rather than its count.
+	private List<HotKey> merge(Deque<SpaceSaving.Slice> window) {
+		Map<String, long[]> merged = new HashMap<>();
+		long total = 0;
+		long floors = 0;
+		for (SpaceSaving.Slice slice : window) {
+			total += slice.total();
+			floors += slice.floor();
+			slice.entries().forEach((key, counted) -> {
+				long[] sum = merged.computeIfAbsent(key, k -> new long[3]);
+				sum[0] += counted[0];
+				sum[1] += counted[1];
+				sum[2] += slice.floor();
+			});
+		}
+
+		double seconds = Math.max(1, window.size() * (this.window.toMillis() / slices)) / 1000.0;
+		long accesses = total;
+		long missedFloors = floors;
+		return merged.entrySet().stream().map(entry -> {
+			long[] sum = entry.getValue();
+			long error = sum[1] + missedFloors - sum[2];
+			long certain = Math.max(0, sum[0] - error);
+			return new HotKey(entry.getKey(), sum[0], error, certain / seconds,
+					accesses == 0 ? 0 : (double) certain / accesses);
+		}).filter(hotKey -> hotKey.count() > hotKey.error())
+				.sorted(Comparator.comparingLong(HotKey::count).reversed()).limit(top).toList();
+	}
+
+	private Map<Access, List<HotKey>> hotKeys(Tracked[] tracked) {
+		Map<Access, List<HotKey>> byAccess = new TreeMap<>();
+		for (Access access : Access.values()) {
+			byAccess.put(access, tracked[access.ordinal()].hotKeys);
+		}
+		return byAccess;
+	}
+
+	private static final class Tracked {
+
+		private volatile SpaceSaving current;
+		private volatile List<HotKey> hotKeys = List.of();
+		private final Deque<SpaceSaving.Slice> slices = new ArrayDeque<>();
+
+		Tracked(SpaceSaving current) {
+			this.current = current;
+		}
+	}
+}
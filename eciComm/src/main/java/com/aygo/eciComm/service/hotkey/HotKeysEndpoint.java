@@ -0,0 +1,42 @@
+package com.aygo.eciComm.service.hotkey;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+// GET /actuator/hotkeys for every table, /actuator/hotkeys/{table} for one
+@Component
+@Endpoint(id = "hotkeys")
+public class HotKeysEndpoint {
+
+	@Autowired
+	private HotKeyTracker hotKeyTracker;
+
+	@ReadOperation
+	public Map<String, Object> hotKeys() {
+		Map<String, Object> result = header();
+		result.put("tables", hotKeyTracker.hotKeys());
+		return result;
+	}
+
+	@ReadOperation
+	public Map<String, Object> table(@Selector String table) {
+		Map<String, Object> result = header();
+		Map<HotKeyTracker.Access, List<HotKey>> hotKeys = hotKeyTracker.hotKeys(table);
+		result.put("tables", hotKeys.isEmpty() ? Map.of() : Map.of(table, hotKeys));
+		return result;
+	}
+
+	private Map<String, Object> header() {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("enabled", hotKeyTracker.isEnabled());
+		result.put("window", hotKeyTracker.getWindow().toString());
+		return result;
+	}
+}
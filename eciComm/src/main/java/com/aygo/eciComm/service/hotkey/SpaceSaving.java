@@ -0,0 +1,111 @@
+package com.aygo.eciComm.service.hotkey;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Space-Saving top-k counter: at most capacity keys are counted, a new key takes the slot of the least
+// counted one and inherits that count as its possible overestimate. Any key seen more than
+// total / capacity times is guaranteed to hold a slot, which is what makes hot keys stand out. Slots are
+// kept in a min-heap by count, so both an increment and an eviction cost O(log capacity).
+final class SpaceSaving {
+
+	private final String[] keys;
+	private final long[] counts;
+	private final long[] errors;
+	private final Map<String, Integer> slots;
+	// heap[i] is a slot, position[slot] its index in heap
+	private final int[] heap;
+	private final int[] position;
+	private int size;
+	private long total;
+
+	SpaceSaving(int capacity) {
+		this.keys = new String[capacity];
+		this.counts = new long[capacity];
+		this.errors = new long[capacity];
+		this.slots = new HashMap<>(capacity * 2);
+		this.heap = new int[capacity];
+		this.position = new int[capacity];
+	}
+
+	synchronized void add(String key) {
+		total++;
+		Integer slot = slots.get(key);
+		if (slot != null) {
+			counts[slot]++;
+			siftDown(position[slot]);
+			return;
+		}
+
+		if (size < keys.length) {
+			// A new slot counts 1, the least any key can have, so it rises from the end of the heap
+			slot = size;
+			heap[size] = slot;
+			position[slot] = size++;
+			keys[slot] = key;
+			counts[slot] = 1;
+			errors[slot] = 0;
+			slots.put(key, slot);
+			siftUp(position[slot]);
+			return;
+		}
+
+		slot = heap[0];
+		slots.remove(keys[slot]);
+		errors[slot] = counts[slot];
+		keys[slot] = key;
+		counts[slot] = errors[slot] + 1;
+		slots.put(key, slot);
+		siftDown(position[slot]);
+	}
+
+	synchronized Slice snapshot() {
+		Map<String, long[]> entries = new HashMap<>(size * 2);
+		long floor = size < keys.length ? 0 : Long.MAX_VALUE;
+		for (int i = 0; i < size; i++) {
+			entries.put(keys[i], new long[] { counts[i], errors[i] });
+			floor = Math.min(floor, counts[i]);
+		}
+		return new Slice(entries, total, floor);
+	}
+
+	private void siftUp(int index) {
+		int slot = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (counts[heap[parent]] <= counts[slot]) {
+				break;
+			}
+			heap[index] = heap[parent];
+			position[heap[index]] = index;
+			index = parent;
+		}
+		heap[index] = slot;
+		position[slot] = index;
+	}
+
+	private void siftDown(int index) {
+		int slot = heap[index];
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+				child++;
+			}
+			if (counts[heap[child]] >= counts[slot]) {
+				break;
+			}
+			heap[index] = heap[child];
+			position[heap[index]] = index;
+			index = child;
+		}
+		heap[index] = slot;
+		position[slot] = index;
+	}
+
+	// Counters of one finished window slice. A key missing from it may still have been seen up to floor times.
+	record Slice(Map<String, long[]> entries, long total, long floor) {
+	}
+}
@@ -0,0 +1,140 @@
+package com.aygo.eciComm.service.mapped;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Read side of the memory-mapped file layout written by MappedFileWriter: numbered columns of little-endian
+// primitives, a UTF-8 string pool the columns refer to by index, and an open-addressing hash from the strings
+// of one key column to their row.
+//
+// Header: int32 magic, format version, rows, hash capacity, then the offsets of the hash slots, string offsets,
+// string bytes, the column count and one offset per column.
+public final class MappedFile {
+
+	public static final int NULL_REF = -1;
+
+	static final int HEADER_BYTES = 32;
+
+	private final Path file;
+	private final MappedByteBuffer buffer;
+	private final int rows;
+	private final int hashMask;
+	private final int hashSlots;
+	private final int stringOffsets;
+	private final int stringBytes;
+	private final int[] sections;
+
+	private MappedFile(Path file, MappedByteBuffer buffer) {
+		this.file = file;
+		this.buffer = buffer;
+		this.rows = buffer.getInt(8);
+		this.hashMask = buffer.getInt(12) - 1;
+		this.hashSlots = buffer.getInt(16);
+		this.stringOffsets = buffer.getInt(20);
+		this.stringBytes = buffer.getInt(24);
+		this.sections = new int[buffer.getInt(28)];
+		for (int i = 0; i < sections.length; i++) {
+			sections[i] = buffer.getInt(HEADER_BYTES + i * 4);
+		}
+	}
+
+	// kind names the format in the error when the file is not one of ours
+	public static MappedFile open(Path file, int magic, int formatVersion, String kind) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			// The mapping stays valid after the channel is closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != magic || buffer.getInt(4) != formatVersion) {
+				throw new IOException("Not a " + kind + ": " + file);
+			}
+			return new MappedFile(file, buffer);
+		}
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public int rows() {
+		return rows;
+	}
+
+	public long sizeInBytes() {
+		return buffer.capacity();
+	}
+
+	public int intAt(int section, int index) {
+		return buffer.getInt(sections[section] + index * 4);
+	}
+
+	public long longAt(int section, int index) {
+		return buffer.getLong(sections[section] + index * 8);
+	}
+
+	public byte byteAt(int section, int index) {
+		return buffer.get(sections[section] + index);
+	}
+
+	public String string(int ref) {
+		if (ref == NULL_REF) {
+			return null;
+		}
+
+		int start = buffer.getInt(stringOffsets + ref * 4);
+		int end = buffer.getInt(stringOffsets + ref * 4 + 4);
+		byte[] utf8 = new byte[end - start];
+		buffer.get(stringBytes + start, utf8);
+		return new String(utf8, StandardCharsets.UTF_8);
+	}
+
+	// Returns the row whose keySection string equals key, or -1
+	public int find(int keySection, String key) {
+		byte[] utf8 = key.getBytes(StandardCharsets.UTF_8);
+		int slot = hash(utf8, 0, utf8.length) & hashMask;
+
+		while (true) {
+			int entry = buffer.getInt(hashSlots + slot * 4);
+			if (entry == 0) {
+				return -1;
+			}
+
+			int row = entry - 1;
+			if (stringEquals(intAt(keySection, row), utf8)) {
+				return row;
+			}
+			slot = (slot + 1) & hashMask;
+		}
+	}
+
+	private boolean stringEquals(int ref, byte[] key) {
+		int start = buffer.getInt(stringOffsets + ref * 4);
+		int end = buffer.getInt(stringOffsets + ref * 4 + 4);
+		if (end - start != key.length) {
+			return false;
+		}
+
+		int base = stringBytes + start;
+		for (int i = 0; i < key.length; i++) {
+			if (buffer.get(base + i) != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// FNV-1a over the UTF-8 bytes, shared with the writer so slots line up
+	static int hash(byte[] utf8, int from, int to) {
+		int hash = 0x811c9dc5;
+		for (int i = from; i < to; i++) {
+			hash ^= utf8[i];
+			hash *= 0x01000193;
+		}
+		return hash ^ (hash >>> 16);
+	}
+}
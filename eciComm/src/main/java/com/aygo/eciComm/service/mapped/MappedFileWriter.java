@@ -0,0 +1,161 @@
+package com.aygo.eciComm.service.mapped;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Writes the layout MappedFile reads. Strings are interned while rows are collected, the columns are handed
+// over as primitive arrays once they are complete and written in section order.
+public final class MappedFileWriter {
+
+	private final int magic;
+	private final int formatVersion;
+	private final String kind;
+
+	// int[], long[] or byte[] per section, with the number of values to write from it
+	private final Object[] columns;
+	private final int[] lengths;
+
+	// Interned string pool, every distinct value is stored once
+	private final Map<String, Integer> stringIds = new HashMap<>();
+	private int[] stringOffsets = new int[1025];
+	private byte[] stringBytes = new byte[64 * 1024];
+	private int stringCount;
+
+	public MappedFileWriter(int magic, int formatVersion, int sectionCount, String kind) {
+		this.magic = magic;
+		this.formatVersion = formatVersion;
+		this.kind = kind;
+		this.columns = new Object[sectionCount];
+		this.lengths = new int[sectionCount];
+	}
+
+	public int intern(String value) {
+		if (value == null) {
+			return MappedFile.NULL_REF;
+		}
+
+		Integer existing = stringIds.get(value);
+		if (existing != null) {
+			return existing;
+		}
+
+		byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+		int start = stringOffsets[stringCount];
+		if (start + utf8.length > stringBytes.length) {
+			stringBytes = Arrays.copyOf(stringBytes, Math.max(stringBytes.length * 2, start + utf8.length));
+		}
+		System.arraycopy(utf8, 0, stringBytes, start, utf8.length);
+
+		stringOffsets = ensure(stringOffsets, stringCount + 2);
+		stringOffsets[stringCount + 1] = start + utf8.length;
+		stringIds.put(value, stringCount);
+		return stringCount++;
+	}
+
+	public void ints(int section, int[] values, int count) {
+		columns[section] = values;
+		lengths[section] = count;
+	}
+
+	public void longs(int section, long[] values, int count) {
+		columns[section] = values;
+		lengths[section] = count;
+	}
+
+	public void bytes(int section, byte[] values, int count) {
+		columns[section] = values;
+		lengths[section] = count;
+	}
+
+	// rows are looked up by the strings keySection refers to, every section must have been set
+	public void writeTo(Path file, int rows, int keySection) throws IOException {
+		int hashCapacity = Integer.highestOneBit(Math.max(2, rows * 2 - 1)) << 1;
+		int[] slots = buildHashSlots((int[]) columns[keySection], rows, hashCapacity);
+
+		long length = MappedFile.HEADER_BYTES + 4L * columns.length;
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i] == null) {
+				throw new IllegalStateException("Section " + i + " of the " + kind + " was never set");
+			}
+			length += (long) lengths[i] * width(columns[i]);
+		}
+		length += 4L * hashCapacity + 4L * (stringCount + 1) + stringOffsets[stringCount];
+
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("The " + kind + " exceeds the 2GB single-mapping limit: " + length + " bytes");
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect((int) length).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.position(MappedFile.HEADER_BYTES + 4 * columns.length);
+
+		// Each column is written contiguously and its start recorded in the header
+		for (int i = 0; i < columns.length; i++) {
+			buffer.putInt(MappedFile.HEADER_BYTES + i * 4, buffer.position());
+			put(buffer, columns[i], lengths[i]);
+		}
+		buffer.putInt(16, buffer.position());
+		put(buffer, slots, hashCapacity);
+		buffer.putInt(20, buffer.position());
+		put(buffer, stringOffsets, stringCount + 1);
+		buffer.putInt(24, buffer.position());
+		buffer.put(stringBytes, 0, stringOffsets[stringCount]);
+
+		buffer.putInt(0, magic);
+		buffer.putInt(4, formatVersion);
+		buffer.putInt(8, rows);
+		buffer.putInt(12, hashCapacity);
+		buffer.putInt(28, columns.length);
+
+		buffer.flip();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+	}
+
+	private int[] buildHashSlots(int[] keys, int rows, int capacity) {
+		int[] slots = new int[capacity];
+		int mask = capacity - 1;
+
+		for (int row = 0; row < rows; row++) {
+			int slot = MappedFile.hash(stringBytes, stringOffsets[keys[row]], stringOffsets[keys[row] + 1]) & mask;
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			// Slots hold row + 1 so that zero means empty
+			slots[slot] = row + 1;
+		}
+		return slots;
+	}
+
+	private static int width(Object column) {
+		return column instanceof long[] ? 8 : column instanceof int[] ? 4 : 1;
+	}
+
+	private static void put(ByteBuffer buffer, Object column, int count) {
+		if (column instanceof int[] ints) {
+			buffer.asIntBuffer().put(ints, 0, count);
+		} else if (column instanceof long[] longs) {
+			buffer.asLongBuffer().put(longs, 0, count);
+		} else {
+			buffer.put((byte[]) column, 0, count);
+			return;
+		}
+		buffer.position(buffer.position() + count * width(column));
+	}
+
+	private static int[] ensure(int[] array, int required) {
+		return required <= array.length ? array : Arrays.copyOf(array, Math.max(required, array.length * 2));
+	}
+}
@@ -0,0 +1,140 @@
+package com.aygo.eciComm.service.resilience;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+// Count-based circuit breaker. Opens when the failure rate over the last windowSize calls reaches the
+// threshold, rejects calls while open, then lets a few trial calls through to decide whether to close again.
+public class CircuitBreaker {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final String name;
+	private final int windowSize;
+	private final int minimumCalls;
+	private final double failureRateThreshold;
+	private final long openNanos;
+	private final int halfOpenCalls;
+
+	// Ring of recent outcomes, true for failure
+	private final boolean[] outcomes;
+	private int position;
+	private int recorded;
+	private int failures;
+
+	private State state = State.CLOSED;
+	private long openedAt;
+	private int trialsStarted;
+	private int trialsSucceeded;
+
+	public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+			Duration openDuration, int halfOpenCalls) {
+		this.name = name;
+		this.windowSize = windowSize;
+		this.minimumCalls = Math.min(minimumCalls, windowSize);
+		this.failureRateThreshold = failureRateThreshold;
+		this.openNanos = openDuration.toNanos();
+		this.halfOpenCalls = halfOpenCalls;
+		this.outcomes = new boolean[windowSize];
+	}
+
+	public CircuitBreaker bindTo(MeterRegistry meterRegistry) {
+		meterRegistry.gauge("resilience.circuit.state", Tags.of("name", name), this,
+				breaker -> breaker.getState().ordinal());
+		return this;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public synchronized State getState() {
+		if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+			return State.HALF_OPEN;
+		}
+		return state;
+	}
+
+	public synchronized boolean tryAcquire() {
+		if (state == State.OPEN) {
+			if (System.nanoTime() - openedAt < openNanos) {
+				return false;
+			}
+			transition(State.HALF_OPEN);
+		}
+
+		if (state == State.HALF_OPEN) {
+			if (trialsStarted >= halfOpenCalls) {
+				return false;
+			}
+			trialsStarted++;
+		}
+		return true;
+	}
+
+	public synchronized void onSuccess() {
+		if (state == State.HALF_OPEN) {
+			if (++trialsSucceeded >= halfOpenCalls) {
+				transition(State.CLOSED);
+			}
+			return;
+		}
+		record(false);
+	}
+
+	public synchronized void onFailure() {
+		if (state == State.HALF_OPEN) {
+			transition(State.OPEN);
+			return;
+		}
+
+		record(true);
+		if (state == State.CLOSED && recorded >= minimumCalls
+				&& failures * 100.0 / recorded >= failureRateThreshold) {
+			transition(State.OPEN);
+		}
+	}
+
+	private void record(boolean failure) {
+		if (recorded == windowSize) {
+			if (outcomes[position]) {
+				failures--;
+			}
+		} else {
+			recorded++;
+		}
+
+		outcomes[position] = failure;
+		if (failure) {
+			failures++;
+		}
+		position = (position + 1) % windowSize;
+	}
+
+	private void transition(State next) {
+		if (state != next) {
+			LOG.warn("Circuit breaker {} {} -> {}", name, state, next);
+		}
+
+		state = next;
+		trialsStarted = 0;
+		trialsSucceeded = 0;
+
+		if (next == State.OPEN) {
+			openedAt = System.nanoTime();
+		} else if (next == State.CLOSED) {
+			position = 0;
+			recorded = 0;
+			failures = 0;
+		}
+	}
+}
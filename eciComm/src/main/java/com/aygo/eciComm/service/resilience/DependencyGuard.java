@@ -0,0 +1,266 @@
+package com.aygo.eciComm.service.resilience;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.aygo.eciComm.exception.BulkheadFullException;
+import com.aygo.eciComm.exception.CircuitBreakerOpenException;
+import com.aygo.eciComm.exception.DependencyTimeoutException;
+import com.aygo.eciComm.exception.DependencyUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+// Isolates calls to one external dependency: a bulkhead caps concurrent calls, a circuit breaker sheds
+// load while the dependency is failing, and every call gets a timeout derived from its recent p99.
+// Idempotent reads can additionally be hedged, a duplicate is sent once the first call passes the p95.
+// Writes get a fixed timeout instead, see write().
+public class DependencyGuard {
+
+	private final String name;
+	private final CircuitBreaker circuitBreaker;
+	private final Semaphore bulkhead;
+	private final Duration maxWait;
+	private final LatencyTracker latency = new LatencyTracker(512);
+	private final Duration minTimeout;
+	private final Duration maxTimeout;
+	private final double timeoutMultiplier;
+	private final Duration writeTimeout;
+	private final boolean hedging;
+	private final Duration minHedgeDelay;
+	private final ExecutorService executor;
+
+	private final MeterRegistry meterRegistry;
+	private final Counter hedges;
+
+	public DependencyGuard(String name, CircuitBreaker circuitBreaker, int maxConcurrent, Duration maxWait,
+			Duration minTimeout, Duration maxTimeout, double timeoutMultiplier, Duration writeTimeout,
+			boolean hedging, Duration minHedgeDelay, ExecutorService executor, MeterRegistry meterRegistry) {
+		this.name = name;
+		this.circuitBreaker = circuitBreaker;
+		this.bulkhead = new Semaphore(maxConcurrent);
+		this.maxWait = maxWait;
+		this.minTimeout = minTimeout;
+		this.maxTimeout = maxTimeout;
+		this.timeoutMultiplier = timeoutMultiplier;
+		this.writeTimeout = writeTimeout;
+		this.hedging = hedging;
+		this.minHedgeDelay = minHedgeDelay;
+		this.executor = executor;
+		this.meterRegistry = meterRegistry;
+
+		circuitBreaker.bindTo(meterRegistry);
+		meterRegistry.gauge("resilience.bulkhead.available", Tags.of("name", name), bulkhead,
+				Semaphore::availablePermits);
+		this.hedges = meterRegistry.counter("resilience.hedges", "name", name);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	// Adapts to the dependency, falls back to the maximum until enough latencies have been seen
+	public Duration currentTimeout() {
+		long p99 = latency.p99();
+		if (p99 < 0) {
+			return maxTimeout;
+		}
+
+		long timeout = (long) (p99 * timeoutMultiplier);
+		return Duration.ofNanos(Math.max(minTimeout.toNanos(), Math.min(maxTimeout.toNanos(), timeout)));
+	}
+
+	public <T> T call(Supplier<T> call) {
+		return call(call, currentTimeout());
+	}
+
+	public <T> T call(Supplier<T> call, Duration timeout) {
+		return call(call, timeout, true);
+	}
+
+	// For writes that are not safe to repeat, e.g. conditional puts and deletes. A timed-out write may still
+	// be applied, so they wait a fixed, generous time and stay out of the latencies the adaptive timeout uses.
+	public <T> T write(Supplier<T> call) {
+		return call(call, writeTimeout, false);
+	}
+
+	private <T> T call(Supplier<T> call, Duration timeout, boolean tracked) {
+		return guarded(() -> {
+			Future<T> future = executor.submit(call::get);
+			try {
+				return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+			}
+
+			catch (TimeoutException e) {
+				future.cancel(true);
+				throw new DependencyTimeoutException(name, timeout);
+			}
+
+			catch (ExecutionException e) {
+				throw unwrap(e.getCause());
+			}
+
+			catch (InterruptedException e) {
+				future.cancel(true);
+				Thread.currentThread().interrupt();
+				throw new DependencyUnavailableException("Interrupted calling " + name, e);
+			}
+		}, tracked);
+	}
+
+	// Only for idempotent reads, the same call may run twice
+	public <T> T hedgedRead(Supplier<T> call) {
+		long p95 = latency.p95();
+		if (!hedging || p95 < 0) {
+			return call(call);
+		}
+
+		Duration timeout = currentTimeout();
+		long hedgeDelay = Math.max(minHedgeDelay.toNanos(), p95);
+		if (hedgeDelay >= timeout.toNanos()) {
+			return call(call, timeout);
+		}
+
+		return guarded(() -> {
+			long deadline = System.nanoTime() + timeout.toNanos();
+			CompletableFuture<T> primary = CompletableFuture.supplyAsync(call, executor);
+			CompletableFuture<T> hedge = null;
+
+			try {
+				try {
+					return primary.get(hedgeDelay, TimeUnit.NANOSECONDS);
+				}
+
+				catch (TimeoutException e) {
+					hedges.increment();
+					hedge = CompletableFuture.supplyAsync(call, executor);
+				}
+
+				// First success wins, the pair only fails when both attempts failed
+				CompletableFuture<T> first = new CompletableFuture<>();
+				AtomicInteger failures = new AtomicInteger();
+				for (CompletableFuture<T> attempt : List.of(primary, hedge)) {
+					attempt.whenComplete((result, failure) -> {
+						if (failure == null) {
+							first.complete(result);
+						} else if (failures.incrementAndGet() == 2) {
+							first.completeExceptionally(failure);
+						}
+					});
+				}
+				return first.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			}
+
+			catch (TimeoutException e) {
+				throw new DependencyTimeoutException(name, timeout);
+			}
+
+			catch (ExecutionException e) {
+				throw unwrap(e.getCause());
+			}
+
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DependencyUnavailableException("Interrupted calling " + name, e);
+			}
+
+			finally {
+				primary.cancel(true);
+				if (hedge != null) {
+					hedge.cancel(true);
+				}
+			}
+		}, true);
+	}
+
+	private <T> T guarded(Supplier<T> call, boolean tracked) {
+		if (!acquireBulkhead()) {
+			record("rejected", 0);
+			throw new BulkheadFullException(name);
+		}
+
+		try {
+			if (!circuitBreaker.tryAcquire()) {
+				record("rejected", 0);
+				throw new CircuitBreakerOpenException(name);
+			}
+
+			long start = System.nanoTime();
+			try {
+				T result = call.get();
+				long elapsed = System.nanoTime() - start;
+				if (tracked) {
+					latency.record(elapsed);
+				}
+				circuitBreaker.onSuccess();
+				record("success", elapsed);
+				return result;
+			}
+
+			catch (RuntimeException e) {
+				long elapsed = System.nanoTime() - start;
+				if (isDependencyFailure(e)) {
+					circuitBreaker.onFailure();
+					record(e instanceof DependencyTimeoutException ? "timeout" : "failure", elapsed);
+				} else {
+					// The dependency answered, e.g. a validation or not-found error
+					circuitBreaker.onSuccess();
+					record("success", elapsed);
+				}
+				throw e;
+			}
+		}
+
+		finally {
+			bulkhead.release();
+		}
+	}
+
+	private boolean acquireBulkhead() {
+		try {
+			return bulkhead.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+		}
+
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void record(String outcome, long nanos) {
+		meterRegistry.timer("resilience.calls", "name", name, "outcome", outcome).record(nanos,
+				TimeUnit.NANOSECONDS);
+	}
+
+	// Client errors mean the dependency is healthy, only server errors, throttling and I/O failures count
+	private static boolean isDependencyFailure(RuntimeException e) {
+		if (e instanceof AwsServiceException serviceException) {
+			return serviceException.statusCode() >= 500 || serviceException.isThrottlingException();
+		}
+		return true;
+	}
+
+	private static RuntimeException unwrap(Throwable cause) {
+		if (cause instanceof CompletionException && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause instanceof RuntimeException runtimeException ? runtimeException
+				: new DependencyUnavailableException(cause.getMessage(), cause);
+	}
+}
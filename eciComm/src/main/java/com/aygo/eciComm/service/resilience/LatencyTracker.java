@@ -0,0 +1,44 @@
+package com.aygo.eciComm.service.resilience;
+
+import java.util.Arrays;
+
+// Percentiles over the most recent successful call latencies, recomputed every few samples
+public class LatencyTracker {
+
+	private static final int RECOMPUTE_EVERY = 32;
+
+	private final long[] samples;
+	private int position;
+	private int count;
+	private int sinceRecompute;
+
+	private volatile long p95 = -1;
+	private volatile long p99 = -1;
+
+	public LatencyTracker(int windowSize) {
+		this.samples = new long[windowSize];
+	}
+
+	public synchronized void record(long nanos) {
+		samples[position] = nanos;
+		position = (position + 1) % samples.length;
+		count = Math.min(count + 1, samples.length);
+
+		if (++sinceRecompute >= RECOMPUTE_EVERY) {
+			sinceRecompute = 0;
+			long[] sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+			p95 = sorted[(int) Math.ceil(count * 0.95) - 1];
+			p99 = sorted[(int) Math.ceil(count * 0.99) - 1];
+		}
+	}
+
+	// -1 until enough samples were recorded
+	public long p95() {
+		return p95;
+	}
+
+	public long p99() {
+		return p99;
+	}
+}
@@ -0,0 +1,70 @@
+package com.aygo.eciComm.service.resilience;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+// One DependencyGuard per external dependency, configured from resilience.<name>.* with
+// resilience.defaults.* filling in whatever a dependency does not override
+@Component
+public class ResilienceRegistry {
+
+	@Autowired
+	private Environment environment;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private final Map<String, DependencyGuard> guards = new ConcurrentHashMap<>();
+
+	// Guarded calls block on I/O, virtual threads keep a slow dependency from pinning platform threads.
+	// The caller's observation, and with it the current span, is carried over so SDK spans keep their parent.
+	private final ExecutorService executor = ContextExecutorService.wrap(
+			Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("resilience-", 0).factory()),
+			ContextSnapshotFactory.builder().build());
+
+	public DependencyGuard guard(String name) {
+		return guards.computeIfAbsent(name, this::create);
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	private DependencyGuard create(String name) {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(name,
+				property(name, "circuit-breaker.window-size", Integer.class, 20),
+				property(name, "circuit-breaker.minimum-calls", Integer.class, 10),
+				property(name, "circuit-breaker.failure-rate-threshold", Double.class, 50.0),
+				property(name, "circuit-breaker.open-duration", Duration.class, Duration.ofSeconds(30)),
+				property(name, "circuit-breaker.half-open-calls", Integer.class, 3));
+
+		return new DependencyGuard(name, circuitBreaker,
+				property(name, "max-concurrent", Integer.class, 64),
+				property(name, "max-wait", Duration.class, Duration.ofMillis(50)),
+				property(name, "min-timeout", Duration.class, Duration.ofMillis(200)),
+				property(name, "max-timeout", Duration.class, Duration.ofSeconds(5)),
+				property(name, "timeout-multiplier", Double.class, 3.0),
+				property(name, "write-timeout", Duration.class, Duration.ofSeconds(10)),
+				property(name, "hedging", Boolean.class, false),
+				property(name, "min-hedge-delay", Duration.class, Duration.ofMillis(10)),
+				executor, meterRegistry);
+	}
+
+	private <T> T property(String name, String key, Class<T> type, T defaultValue) {
+		T value = environment.getProperty("resilience." + name + "." + key, type);
+		return value != null ? value : environment.getProperty("resilience.defaults." + key, type, defaultValue);
+	}
+}
@@ -0,0 +1,664 @@
+package com.aygo.eciComm.service.search;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.aygo.eciComm.exception.ProductValidationException;
+import com.aygo.eciComm.model.Product;
+import com.aygo.eciComm.model.enums.ProductCategory;
+import com.aygo.eciComm.model.enums.ProductStatus;
+import com.aygo.eciComm.model.response.ProductSearchResult;
+import com.aygo.eciComm.repository.ProductRepository;
+
+import io.micrometer.observation.annotation.Observed;
+
+// In-memory inverted index over the product catalog, ranked with BM25
+@Observed(name = "service.calls")
+@Service
+public class ProductSearchService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ProductSearchService.class);
+
+	// BM25 parameters
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	// Field boosts, applied as extra term frequency
+	private static final int NAME_BOOST = 3;
+	private static final int TAG_BOOST = 2;
+	private static final int TEXT_BOOST = 1;
+
+	// Expanded query terms score lower than exact matches
+	private static final double PREFIX_WEIGHT = 0.6;
+	private static final double FUZZY_WEIGHT = 0.4;
+	private static final int MAX_EXPANSIONS = 64;
+	private static final int MIN_PREFIX_LENGTH = 2;
+	private static final int MIN_FUZZY_LENGTH = 4;
+
+	public static final int MAX_PAGE_SIZE = 100;
+
+	// Deepest result asked for, (page + 1) * size, bounds the ranking heap and keeps the product in int range
+	public static final int MAX_RESULT_WINDOW = 10_000;
+
+	private static final int MIN_COMPACTION_GARBAGE = 1024;
+
+	private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+	private static final ProductStatus[] STATUSES = ProductStatus.values();
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+	private final Map<String, Integer> docNumbers = new HashMap<>();
+	private final List<IndexedProduct> documents = new ArrayList<>();
+
+	// What scoring and faceting read per document number, kept in flat arrays so walking a long posting
+	// list does not dereference a document per posting. A removed document has length 0, which no live
+	// document reached through a posting can have.
+	private int[] lengths = new int[1024];
+	private byte[] categories = new byte[1024];
+	private byte[] statuses = new byte[1024];
+	private long totalLength;
+	private int liveDocuments;
+
+	// Writes made while a rebuild scans the table, replayed over the scan since it may have read the product
+	// before them. Empty for a removal, null when no rebuild is running.
+	private Map<String, Optional<IndexedProduct>> writesDuringRebuild;
+
+	// Per-thread score accumulators, reused across queries to keep searches allocation-light
+	private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void rebuildIndex() {
+		LOG.info("Building product search index");
+
+		lock.writeLock().lock();
+		try {
+			writesDuringRebuild = new LinkedHashMap<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		try {
+			List<Product> products = productRepository.findAll();
+
+			lock.writeLock().lock();
+			try {
+				clear();
+				products.forEach(product -> addDocument(IndexedProduct.of(product)));
+				writesDuringRebuild.forEach((productId, document) -> {
+					removeDocument(productId);
+					document.ifPresent(this::addDocument);
+				});
+				compactIfNeeded();
+			} finally {
+				lock.writeLock().unlock();
+			}
+
+			LOG.info("Product search index built with {} products and {} terms", products.size(),
+					dictionary.size());
+		}
+
+		catch (Exception e) {
+			LOG.error("Error building product search index: {}", e.getMessage(), e);
+		}
+
+		// The index stays as it was when the scan failed, the writes went into it as well
+		finally {
+			lock.writeLock().lock();
+			try {
+				writesDuringRebuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	public void index(Product product) {
+		if (product == null || product.getId() == null) {
+			return;
+		}
+
+		IndexedProduct document = IndexedProduct.of(product);
+
+		lock.writeLock().lock();
+		try {
+			removeDocument(product.getId());
+			addDocument(document);
+			compactIfNeeded();
+			if (writesDuringRebuild != null) {
+				writesDuringRebuild.put(product.getId(), Optional.of(document));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(String productId) {
+		lock.writeLock().lock();
+		try {
+			removeDocument(productId);
+			compactIfNeeded();
+			if (writesDuringRebuild != null) {
+				writesDuringRebuild.put(productId, Optional.empty());
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return liveDocuments;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public ProductSearchResult search(String query, ProductCategory category, ProductStatus status, int page,
+			int size) {
+		long start = System.nanoTime();
+
+		List<String> terms = ProductTokenizer.tokenize(query);
+		if (terms.isEmpty()) {
+			throw new ProductValidationException("Search query must contain at least one term");
+		}
+		if (page < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+			throw new ProductValidationException("Page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+		}
+		if ((page + 1L) * size > MAX_RESULT_WINDOW) {
+			throw new ProductValidationException("Results beyond the first " + MAX_RESULT_WINDOW + " are not served");
+		}
+
+		lock.readLock().lock();
+		try {
+			Scratch s = scratch.get();
+			s.prepare(documents.size());
+
+			try {
+				for (int i = 0; i < terms.size(); i++) {
+					scoreTerm(terms.get(i), i == terms.size() - 1, s);
+				}
+
+				return collect(query, terms.size(), category, status, page, size, s, start);
+			} finally {
+				s.reset();
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void scoreTerm(String term, boolean lastTerm, Scratch s) {
+		List<Expansion> expanded = s.expanded;
+		expanded.clear();
+
+		Postings exact = dictionary.get(term);
+		if (exact != null) {
+			expanded.add(new Expansion(exact, 1.0));
+		}
+
+		// Search-as-you-type: the last query term may be an incomplete word
+		if (lastTerm && term.length() >= MIN_PREFIX_LENGTH) {
+			int expansions = 0;
+			for (Postings postings : dictionary.subMap(term, false, term + Character.MAX_VALUE, false).values()) {
+				if (++expansions > MAX_EXPANSIONS) {
+					break;
+				}
+				expanded.add(new Expansion(postings, PREFIX_WEIGHT));
+			}
+		}
+
+		// Typo tolerance only kicks in when the term is unknown to the dictionary
+		if (exact == null && term.length() >= MIN_FUZZY_LENGTH) {
+			expandFuzzy(term, term.length() >= 8 ? 2 : 1, expanded);
+		}
+
+		// A single posting list, the usual case, adds straight into the totals
+		if (expanded.size() == 1) {
+			accumulate(expanded.get(0), 0, s);
+			return;
+		}
+
+		int stamp = s.nextStamp();
+		s.termTouched.clear();
+		for (Expansion expansion : expanded) {
+			accumulate(expansion, stamp, s);
+		}
+
+		// Fold the best expansion score of this term into each document's total
+		for (int i = 0; i < s.termTouched.size; i++) {
+			int doc = s.termTouched.values[i];
+			if (s.matchedTerms[doc] == 0) {
+				s.touched.add(doc);
+			}
+			s.totals[doc] += s.termScores[doc];
+			s.matchedTerms[doc]++;
+		}
+	}
+
+	// Walks the terms that share the first letter of the query in order, one edit distance row per character
+	// of the candidate, reusing the rows of the prefix it shares with the previous one. Once a whole row is
+	// over budget no term with that prefix can match and the walk seeks past all of them, so only the
+	// neighbourhood of the query is visited rather than every term under its first letter.
+	private void expandFuzzy(String term, int maxEdits, List<Expansion> expanded) {
+		int[][] rows = new int[term.length() + maxEdits + 1][term.length() + 1];
+		for (int j = 0; j <= term.length(); j++) {
+			rows[0][j] = j;
+		}
+
+		String previous = "";
+		int computed = 0;
+		int expansions = 0;
+		String candidate = dictionary.ceilingKey(term.substring(0, 1));
+
+		while (candidate != null && candidate.charAt(0) == term.charAt(0)) {
+			int depth = Math.min(candidate.length(), rows.length - 1);
+			int row = commonPrefix(previous, candidate, computed);
+			String prefix = null;
+
+			while (row < depth && prefix == null) {
+				row++;
+				if (fillRow(rows, row, candidate, term) > maxEdits) {
+					prefix = candidate.substring(0, row);
+				}
+			}
+			previous = candidate;
+			computed = row;
+
+			// Longer terms with the same first characters are too long to match as well
+			if (prefix == null && candidate.length() > depth) {
+				prefix = candidate.substring(0, depth);
+			}
+
+			// Terms are letters and digits only, none continues a prefix with Character.MAX_VALUE
+			if (prefix != null) {
+				candidate = dictionary.ceilingKey(prefix + Character.MAX_VALUE);
+				continue;
+			}
+
+			if (rows[depth][term.length()] <= maxEdits) {
+				if (++expansions > MAX_EXPANSIONS) {
+					break;
+				}
+				expanded.add(new Expansion(dictionary.get(candidate), FUZZY_WEIGHT));
+			}
+			candidate = dictionary.higherKey(candidate);
+		}
+	}
+
+	// With stamp 0 the scores go straight into the document totals, otherwise each document keeps the best
+	// score among the expansions of the term until they are folded in
+	private void accumulate(Expansion expansion, int stamp, Scratch s) {
+		Postings postings = expansion.postings();
+		if (postings.live == 0) {
+			return;
+		}
+
+		double idf = Math.log(1 + (liveDocuments - postings.live + 0.5) / (postings.live + 0.5));
+		double averageLength = liveDocuments == 0 ? 1 : (double) totalLength / liveDocuments;
+		double scale = expansion.weight() * idf * (K1 + 1);
+		double lengthNorm = K1 * B / averageLength;
+
+		for (int i = 0; i < postings.size; i++) {
+			int doc = postings.docs[i];
+			int length = lengths[doc];
+			if (length == 0) {
+				continue;
+			}
+
+			int tf = postings.freqs[i];
+			float score = (float) (scale * tf / (tf + K1 * (1 - B) + lengthNorm * length));
+
+			if (stamp == 0) {
+				if (s.matchedTerms[doc]++ == 0) {
+					s.touched.add(doc);
+				}
+				s.totals[doc] += score;
+			} else if (s.termStamps[doc] != stamp) {
+				s.termStamps[doc] = stamp;
+				s.termScores[doc] = score;
+				s.termTouched.add(doc);
+			} else if (score > s.termScores[doc]) {
+				s.termScores[doc] = score;
+			}
+		}
+	}
+
+	private ProductSearchResult collect(String query, int termCount, ProductCategory category, ProductStatus status,
+			int page, int size, Scratch s, long start) {
+		long[] categoryCounts = new long[CATEGORIES.length];
+		long[] statusCounts = new long[STATUSES.length];
+
+		int limit = (page + 1) * size;
+		PriorityQueue<ScoredDoc> top = new PriorityQueue<>(Math.min(limit, 1024) + 1,
+				Comparator.comparingDouble(ScoredDoc::score));
+		long total = 0;
+
+		// Clears the accumulators on the way, reset only has work left when a query failed half way
+		for (int i = 0; i < s.touched.size; i++) {
+			int doc = s.touched.values[i];
+			float documentTotal = s.totals[doc];
+			int matchedTerms = s.matchedTerms[doc];
+			s.totals[doc] = 0;
+			s.matchedTerms[doc] = 0;
+
+			byte documentCategory = categories[doc];
+			byte documentStatus = statuses[doc];
+
+			// Facets are counted before filtering so clients can drill down
+			if (documentCategory >= 0) {
+				categoryCounts[documentCategory]++;
+			}
+			if (documentStatus >= 0) {
+				statusCounts[documentStatus]++;
+			}
+
+			if ((category != null && category.ordinal() != documentCategory)
+					|| (status != null && status.ordinal() != documentStatus)) {
+				continue;
+			}
+
+			total++;
+
+			// Reward documents that match more of the query terms
+			double score = documentTotal * ((double) matchedTerms / termCount);
+			if (top.size() < limit) {
+				top.add(new ScoredDoc(doc, score));
+			} else if (score > top.peek().score()) {
+				top.poll();
+				top.add(new ScoredDoc(doc, score));
+			}
+		}
+
+		s.touched.clear();
+
+		List<ScoredDoc> ranked = new ArrayList<>(top);
+		ranked.sort(Comparator.comparingDouble(ScoredDoc::score).reversed());
+
+		List<ProductSearchResult.Hit> hits = new ArrayList<>(size);
+		for (int i = page * size; i < ranked.size(); i++) {
+			ScoredDoc scored = ranked.get(i);
+			IndexedProduct document = documents.get(scored.doc());
+			hits.add(new ProductSearchResult.Hit(document.id, document.name, document.price, document.category,
+					document.productStatus, scored.score()));
+		}
+
+		Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+		facets.put("category", facet(CATEGORIES, categoryCounts));
+		facets.put("productStatus", facet(STATUSES, statusCounts));
+
+		long tookMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+		return new ProductSearchResult(query, total, hits, facets, tookMicros);
+	}
+
+	private Map<String, Long> facet(Enum<?>[] values, long[] counts) {
+		Map<String, Long> facet = new LinkedHashMap<>();
+		for (int i = 0; i < values.length; i++) {
+			if (counts[i] > 0) {
+				facet.put(values[i].name(), counts[i]);
+			}
+		}
+		return facet;
+	}
+
+	// Index maintenance, always called with the write lock held
+	private void clear() {
+		dictionary.clear();
+		docNumbers.clear();
+		documents.clear();
+		totalLength = 0;
+		liveDocuments = 0;
+	}
+
+	private void addDocument(IndexedProduct document) {
+		int doc = documents.size();
+		documents.add(document);
+		docNumbers.put(document.id, doc);
+
+		if (doc == lengths.length) {
+			lengths = Arrays.copyOf(lengths, doc * 2);
+			categories = Arrays.copyOf(categories, doc * 2);
+			statuses = Arrays.copyOf(statuses, doc * 2);
+		}
+		lengths[doc] = document.length;
+		categories[doc] = (byte) (document.category != null ? document.category.ordinal() : -1);
+		statuses[doc] = (byte) (document.productStatus != null ? document.productStatus.ordinal() : -1);
+
+		for (int i = 0; i < document.terms.length; i++) {
+			Postings postings = dictionary.computeIfAbsent(document.terms[i], term -> new Postings());
+			postings.add(doc, document.freqs[i]);
+		}
+
+		totalLength += document.length;
+		liveDocuments++;
+	}
+
+	private void removeDocument(String productId) {
+		Integer doc = docNumbers.remove(productId);
+		if (doc == null) {
+			return;
+		}
+
+		IndexedProduct document = documents.set(doc, null);
+		lengths[doc] = 0;
+		for (String term : document.terms) {
+			Postings postings = dictionary.get(term);
+			if (postings != null && --postings.live == 0) {
+				dictionary.remove(term);
+			}
+		}
+
+		totalLength -= document.length;
+		liveDocuments--;
+	}
+
+	// Updates leave dead slots behind, so renumber once they outweigh a quarter of the index
+	private void compactIfNeeded() {
+		int garbage = documents.size() - liveDocuments;
+		if (garbage < Math.max(MIN_COMPACTION_GARBAGE, liveDocuments / 4)) {
+			return;
+		}
+
+		List<IndexedProduct> live = new ArrayList<>(liveDocuments);
+		for (IndexedProduct document : documents) {
+			if (document != null) {
+				live.add(document);
+			}
+		}
+
+		clear();
+		live.forEach(this::addDocument);
+		LOG.debug("Compacted product search index, dropped {} dead slots", garbage);
+	}
+
+	// Optimal string alignment distance of the first i characters of the candidate to the query, an adjacent
+	// transposition counts as one edit. Returns the row minimum, which never decreases further down.
+	private static int fillRow(int[][] rows, int i, String candidate, String term) {
+		int[] row = rows[i];
+		int[] above = rows[i - 1];
+		char c = candidate.charAt(i - 1);
+		row[0] = i;
+		int rowMin = i;
+
+		for (int j = 1; j <= term.length(); j++) {
+			int cost = c == term.charAt(j - 1) ? 0 : 1;
+			int distance = Math.min(Math.min(row[j - 1] + 1, above[j] + 1), above[j - 1] + cost);
+			if (i > 1 && j > 1 && c == term.charAt(j - 2) && candidate.charAt(i - 2) == term.charAt(j - 1)) {
+				distance = Math.min(distance, rows[i - 2][j - 2] + 1);
+			}
+			row[j] = distance;
+			rowMin = Math.min(rowMin, distance);
+		}
+
+		return rowMin;
+	}
+
+	private static int commonPrefix(String a, String b, int limit) {
+		int length = Math.min(limit, Math.min(a.length(), b.length()));
+		int i = 0;
+		while (i < length && a.charAt(i) == b.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	private record ScoredDoc(int doc, double score) {
+	}
+
+	private record Expansion(Postings postings, double weight) {
+	}
+
+	private static final class Postings {
+
+		private int[] docs = new int[4];
+		private int[] freqs = new int[4];
+		private int size;
+		private int live;
+
+		void add(int doc, int freq) {
+			if (size == docs.length) {
+				docs = Arrays.copyOf(docs, size * 2);
+				freqs = Arrays.copyOf(freqs, size * 2);
+			}
+			docs[size] = doc;
+			freqs[size] = freq;
+			size++;
+			live++;
+		}
+	}
+
+	// Only the fields needed to rank, facet and render a hit are kept in memory
+	private static final class IndexedProduct {
+
+		private final String id;
+		private final String name;
+		private final BigDecimal price;
+		private final ProductCategory category;
+		private final ProductStatus productStatus;
+		private final String[] terms;
+		private final int[] freqs;
+		private final int length;
+
+		private IndexedProduct(String id, String name, BigDecimal price, ProductCategory category,
+				ProductStatus productStatus, Map<String, Integer> frequencies) {
+			this.id = id;
+			this.name = name;
+			this.price = price;
+			this.category = category;
+			this.productStatus = productStatus;
+			this.terms = new String[frequencies.size()];
+			this.freqs = new int[frequencies.size()];
+
+			int i = 0;
+			int total = 0;
+			for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+				terms[i] = entry.getKey();
+				freqs[i] = entry.getValue();
+				total += entry.getValue();
+				i++;
+			}
+			this.length = total;
+		}
+
+		static IndexedProduct of(Product product) {
+			Map<String, Integer> frequencies = new HashMap<>();
+
+			addField(frequencies, product.getName(), NAME_BOOST);
+			product.getTags().forEach(tag -> addField(frequencies, tag, TAG_BOOST));
+			addField(frequencies, product.getDescription(), TEXT_BOOST);
+			product.getAttributes().forEach((key, value) -> {
+				addField(frequencies, key, TEXT_BOOST);
+				addField(frequencies, value, TEXT_BOOST);
+			});
+
+			return new IndexedProduct(product.getId(), product.getName(), product.getPrice(), product.getCategory(),
+					product.getProductStatus(), frequencies);
+		}
+
+		private static void addField(Map<String, Integer> frequencies, String text, int boost) {
+			for (String token : ProductTokenizer.tokenize(text)) {
+				frequencies.merge(token, boost, Integer::sum);
+			}
+		}
+	}
+
+	private static final class IntList {
+
+		private int[] values = new int[256];
+		private int size;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		void clear() {
+			size = 0;
+		}
+	}
+
+	private static final class Scratch {
+
+		private float[] totals = new float[0];
+		private float[] termScores = new float[0];
+		private int[] termStamps = new int[0];
+		private int[] matchedTerms = new int[0];
+		private final IntList touched = new IntList();
+		private final IntList termTouched = new IntList();
+		private final List<Expansion> expanded = new ArrayList<>();
+		private int stamp;
+
+		void prepare(int capacity) {
+			if (totals.length < capacity) {
+				int grown = Math.max(capacity, totals.length + (totals.length >> 1));
+				totals = new float[grown];
+				termScores = new float[grown];
+				termStamps = new int[grown];
+				matchedTerms = new int[grown];
+				stamp = 0;
+			}
+		}
+
+		int nextStamp() {
+			if (stamp == Integer.MAX_VALUE) {
+				Arrays.fill(termStamps, 0);
+				stamp = 0;
+			}
+			return ++stamp;
+		}
+
+		// Only the slots touched by the last query need clearing
+		void reset() {
+			for (int i = 0; i < touched.size; i++) {
+				int doc = touched.values[i];
+				totals[doc] = 0;
+				matchedTerms[doc] = 0;
+			}
+			touched.clear();
+			termTouched.clear();
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.aygo.eciComm.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Splits free text into lower-case, accent-free terms shared by indexing and querying
+public final class ProductTokenizer {
+
+	private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "by", "de", "for",
+			"from", "in", "is", "it", "la", "of", "on", "or", "the", "to", "with", "y");
+
+	private ProductTokenizer() {
+	}
+
+	public static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null || text.isBlank()) {
+			return tokens;
+		}
+
+		String normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+		StringBuilder current = new StringBuilder();
+
+		for (int i = 0; i < normalized.length(); i++) {
+			char c = normalized.charAt(i);
+
+			if (Character.getType(c) == Character.NON_SPACING_MARK) {
+				continue;
+			}
+
+			if (Character.isLetterOrDigit(c)) {
+				current.append(Character.toLowerCase(c));
+			} else {
+				flush(current, tokens);
+			}
+		}
+		flush(current, tokens);
+
+		return tokens;
+	}
+
+	private static void flush(StringBuilder current, List<String> tokens) {
+		if (current.isEmpty()) {
+			return;
+		}
+		String token = current.toString();
+		current.setLength(0);
+
+		if (!STOP_WORDS.contains(token)) {
+			tokens.add(token);
+		}
+	}
+}
@@ -0,0 +1,412 @@
+package com.aygo.eciComm.service.storage;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.aygo.eciComm.model.Product;
+import com.aygo.eciComm.repository.ProductRepository;
+import com.aygo.eciComm.service.catalog.CatalogSnapshotService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+// Generates resized derivatives of product images in the background.
+// Originals and derivatives live under content-hash keys, so identical uploads are processed and stored once:
+// the upload is copied into the set of its hash and deleted once the product points at the set.
+// Every upload using a set leaves a reference marker next to it, the set is deleted with its last one.
+@Service
+public class ImageDerivativeService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+	private static final String IMMUTABLE_CACHE = "public, max-age=31536000, immutable";
+	private static final String WEBP = "webp";
+	private static final String ORIGINAL = "original";
+	private static final int ATTACH_ATTEMPTS = 3;
+
+	@Autowired
+	private S3Client s3Client;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CatalogSnapshotService catalogSnapshotService;
+
+	@Autowired
+	private ObjectDeletionQueue objectDeletionQueue;
+
+	@Value("${aws.s3.buckets.product}")
+	private String bucketName;
+
+	@Value("${aws.s3.derivatives.widths:160,480,1024}")
+	private List<Integer> widths;
+
+	@Value("${aws.s3.derivatives.workers:2}")
+	private int workers;
+
+	@Value("${aws.s3.derivatives.queue-capacity:100}")
+	private int queueCapacity;
+
+	// Decoded images take 4 bytes per pixel, larger ones are rejected from their header
+	@Value("${aws.s3.derivatives.max-pixels:25000000}")
+	private long maxPixels;
+
+	private ThreadPoolExecutor executor;
+	private boolean webpSupported;
+
+	@PostConstruct
+	public void start() {
+		AtomicInteger threadCount = new AtomicInteger();
+		executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "image-derivatives-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+
+		// The JDK has no WebP encoder, one is used when an ImageIO plugin is on the classpath
+		webpSupported = ImageIO.getImageWritersByFormatName(WEBP).hasNext();
+		LOG.info("Image derivative pipeline started with {} workers, widths {}, webp {}", workers, widths,
+				webpSupported ? "enabled" : "unavailable");
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	public void submit(String productId, String uploadKey) {
+		try {
+			executor.execute(() -> process(productId, uploadKey));
+		}
+
+		catch (RejectedExecutionException e) {
+			// The upload still works as the image, derivatives can be regenerated later
+			LOG.warn("Image derivative queue full, skipping product {} image {}", productId, uploadKey);
+		}
+	}
+
+	// Called once the product no longer uses imageUrl, a set key attached with the reference marker of its upload
+	public void release(String imageUrl, String imageReference) {
+		String[] set = setOf(imageUrl);
+		if (set == null || imageReference == null) {
+			return;
+		}
+
+		try {
+			executor.execute(() -> release(set[0], set[1], imageReference));
+		}
+
+		catch (RejectedExecutionException e) {
+			// Unlike generation this cannot be skipped, the set would never be deleted
+			release(set[0], set[1], imageReference);
+		}
+	}
+
+	void process(String productId, String uploadKey) {
+		String hash = null;
+		String generation = null;
+		Product attached = null;
+		try {
+			ResponseBytes<GetObjectResponse> upload = s3Client
+					.getObjectAsBytes(GetObjectRequest.builder().bucket(bucketName).key(uploadKey).build());
+			hash = sha256(upload.asByteArray());
+
+			// Referenced before the manifest is read. A release deletes the manifest before it checks the markers
+			// one last time, so either it sees this one or the manifest is already gone and a new set is made.
+			s3Client.putObject(PutObjectRequest.builder().bucket(bucketName).key(referenceKey(hash, uploadKey))
+					.build(), RequestBody.empty());
+
+			DerivativeSet set = existingSet(hash);
+			if (set == null) {
+				generation = UUID.randomUUID().toString();
+				set = generate(hash, generation, upload);
+			} else {
+				LOG.debug("Reusing image set {} for product {}", hash, productId);
+			}
+
+			attached = set == null ? null : attach(productId, uploadKey, set);
+			if (attached == null) {
+				release(hash, generation, uploadKey);
+				return;
+			}
+
+			catalogSnapshotService.updated(attached);
+			LOG.info("Attached {} image derivatives to product {}", set.variants().size(), productId);
+
+			// The product serves the shared original now
+			objectDeletionQueue.enqueue(bucketName, uploadKey);
+		}
+
+		catch (Exception e) {
+			LOG.error("Error generating derivatives for product {} image {}: {}", productId, uploadKey,
+					e.getMessage(), e);
+			// Once attached the product holds the marker, until then nothing else releases it
+			if (hash != null && attached == null) {
+				release(hash, generation, uploadKey);
+			}
+		}
+	}
+
+	// generation is the set this upload created, if any, so a partial or unattached one is deleted with the marker
+	private void release(String hash, String generation, String uploadKey) {
+		try {
+			s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(referenceKey(hash, uploadKey))
+					.build());
+			if (referenced(hash)) {
+				return;
+			}
+
+			// Unreferenced as far as we can tell. The manifest goes first so no new upload picks the set up, then
+			// uploads that read it before it was gone show up in the markers and get it back.
+			String manifest = readManifest(hash);
+			if (manifest != null) {
+				s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(manifestKey(hash)).build());
+				if (referenced(hash)) {
+					writeManifest(hash, manifest);
+					return;
+				}
+			}
+
+			Set<String> generations = new HashSet<>();
+			if (generation != null) {
+				generations.add(generation);
+			}
+			if (manifest != null) {
+				generations.add(parseManifest(hash, manifest).generation());
+			}
+			for (String unreferenced : generations) {
+				s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucketName)
+						.prefix(setKey(hash, unreferenced, "")).build()).contents()
+						.forEach(object -> objectDeletionQueue.enqueue(bucketName, object.key()));
+				LOG.info("Deleting unreferenced image set {}/{}", hash, unreferenced);
+			}
+		}
+
+		catch (Exception e) {
+			LOG.error("Error releasing image set {} of upload {}: {}", hash, uploadKey, e.getMessage(), e);
+		}
+	}
+
+	private boolean referenced(String hash) {
+		return s3Client.listObjectsV2(ListObjectsV2Request.builder().bucket(bucketName)
+				.prefix(referenceKey(hash, "")).maxKeys(1).build()).keyCount() > 0;
+	}
+
+	private DerivativeSet generate(String hash, String generation, ResponseBytes<GetObjectResponse> upload)
+			throws IOException {
+		BufferedImage image = decode(hash, upload.asByteArray());
+		if (image == null) {
+			return null;
+		}
+
+		String original = setKey(hash, generation, ORIGINAL);
+		s3Client.putObject(PutObjectRequest.builder().bucket(bucketName).key(original)
+				.contentType(upload.response().contentType()).cacheControl(IMMUTABLE_CACHE).build(),
+				RequestBody.fromBytes(upload.asByteArray()));
+
+		Map<String, String> variants = new LinkedHashMap<>();
+		boolean alpha = image.getColorModel().hasAlpha();
+		String format = alpha ? "png" : "jpg";
+
+		for (int width : widths) {
+			BufferedImage resized = resize(image, width, alpha);
+
+			variants.put("w" + width + "." + format, store(hash, generation, width, format, resized));
+			if (webpSupported) {
+				variants.put("w" + width + "." + WEBP, store(hash, generation, width, WEBP, resized));
+			}
+		}
+
+		// Written last, its presence marks the whole set as complete
+		String manifest = generation + "\n" + String.join("\n", variants.keySet());
+		writeManifest(hash, manifest);
+		return new DerivativeSet(generation, original, variants);
+	}
+
+	// The size is read from the header, so an oversized image is rejected before its pixels are allocated
+	private BufferedImage decode(String hash, byte[] original) throws IOException {
+		try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+			if (!readers.hasNext()) {
+				LOG.warn("Unsupported image format for derivative {}", hash);
+				return null;
+			}
+
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(input, true, true);
+				long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+				if (pixels > maxPixels) {
+					LOG.warn("Rejecting image {} of {} pixels, the limit is {}", hash, pixels, maxPixels);
+					return null;
+				}
+				return reader.read(0);
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	private String store(String hash, String generation, int width, String format, BufferedImage image)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		if (!ImageIO.write(image, format.equals("jpg") ? "jpeg" : format, out)) {
+			throw new IOException("No ImageIO writer for " + format);
+		}
+
+		String key = setKey(hash, generation, "w" + width + "." + format);
+		String contentType = "image/" + (format.equals("jpg") ? "jpeg" : format);
+
+		s3Client.putObject(PutObjectRequest.builder().bucket(bucketName).key(key).contentType(contentType)
+				.cacheControl(IMMUTABLE_CACHE).build(), RequestBody.fromBytes(out.toByteArray()));
+		return key;
+	}
+
+	private DerivativeSet existingSet(String hash) {
+		String manifest = readManifest(hash);
+		return manifest == null ? null : parseManifest(hash, manifest);
+	}
+
+	private String readManifest(String hash) {
+		try {
+			return s3Client
+					.getObjectAsBytes(GetObjectRequest.builder().bucket(bucketName).key(manifestKey(hash)).build())
+					.asUtf8String();
+		}
+
+		catch (NoSuchKeyException e) {
+			return null;
+		}
+	}
+
+	private void writeManifest(String hash, String manifest) {
+		s3Client.putObject(PutObjectRequest.builder().bucket(bucketName).key(manifestKey(hash))
+				.contentType("text/plain").build(), RequestBody.fromString(manifest));
+	}
+
+	// The generation on the first line, then one variant name per line
+	private static DerivativeSet parseManifest(String hash, String manifest) {
+		String[] lines = manifest.split("\n");
+		Map<String, String> variants = new LinkedHashMap<>();
+		for (int i = 1; i < lines.length; i++) {
+			if (!lines[i].isBlank()) {
+				variants.put(lines[i], setKey(hash, lines[0], lines[i]));
+			}
+		}
+		return new DerivativeSet(lines[0], setKey(hash, lines[0], ORIGINAL), variants);
+	}
+
+	private Product attach(String productId, String uploadKey, DerivativeSet set) {
+		for (int attempt = 1;; attempt++) {
+			Product product = productRepository.findById(productId).orElse(null);
+
+			// The image may have been replaced or the product deleted while we were working
+			if (product == null || !uploadKey.equals(product.getImageUrl())) {
+				LOG.debug("Discarding image set of stale upload {} for product {}", uploadKey, productId);
+				return null;
+			}
+
+			product.setImageUrl(set.original());
+			product.setImageVariants(set.variants());
+			product.setImageReference(uploadKey);
+			try {
+				return productRepository.save(product);
+			}
+
+			// The product was saved by someone else since it was read, check again whether it still uses the upload
+			catch (ConditionalCheckFailedException e) {
+				if (attempt == ATTACH_ATTEMPTS) {
+					LOG.warn("Giving up attaching image set to product {} after {} conflicts", productId, attempt);
+					return null;
+				}
+			}
+		}
+	}
+
+	private BufferedImage resize(BufferedImage source, int width, boolean alpha) {
+		// Never upscale, small originals are re-encoded at their own size
+		int targetWidth = Math.min(width, source.getWidth());
+		int targetHeight = Math.max(1,
+				(int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+
+		BufferedImage target = new BufferedImage(targetWidth, targetHeight,
+				alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = target.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+		} finally {
+			graphics.dispose();
+		}
+		return target;
+	}
+
+	private static String setKey(String hash, String generation, String name) {
+		return "images/" + hash.substring(0, 2) + "/" + hash + "/" + generation + "/" + name;
+	}
+
+	// Not "manifest", which named the flat sets written before generations
+	private static String manifestKey(String hash) {
+		return "images/" + hash.substring(0, 2) + "/" + hash + "/current";
+	}
+
+	private static String referenceKey(String hash, String uploadKey) {
+		return "images/" + hash.substring(0, 2) + "/" + hash + "/refs/" + uploadKey;
+	}
+
+	// Set keys are images/<hh>/<hash>/<generation>/<name>, returns the hash and the generation
+	private static String[] setOf(String key) {
+		String[] parts = key == null ? new String[0] : key.split("/");
+		return parts.length == 5 && parts[0].equals("images") ? new String[] { parts[2], parts[3] } : null;
+	}
+
+	private static String sha256(byte[] bytes) throws NoSuchAlgorithmException {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+	}
+
+	private record DerivativeSet(String generation, String original, Map<String, String> variants) {
+	}
+}
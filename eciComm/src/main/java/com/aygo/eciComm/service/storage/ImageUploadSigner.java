@@ -0,0 +1,151 @@
+package com.aygo.eciComm.service.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import com.aygo.eciComm.model.response.ImageUploadTicket;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+// Issues short-lived presigned PUT URLs and SigV4 POST policies so clients upload straight to S3
+@Component
+public class ImageUploadSigner {
+
+	private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+	private static final String HMAC = "HmacSHA256";
+	private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+	private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+			.withZone(ZoneOffset.UTC);
+
+	@Autowired
+	private S3Presigner s3Presigner;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${aws.region}")
+	private String awsRegion;
+
+	@Value("${aws.s3.buckets.product}")
+	private String bucketName;
+
+	@Value("${aws.s3.endpoint:}")
+	private String s3Endpoint;
+
+	@Value("${aws.s3.upload.expiry:PT10M}")
+	private Duration expiry;
+
+	private final DefaultCredentialsProvider credentialsProvider = DefaultCredentialsProvider.create();
+
+	public ImageUploadTicket sign(String key, String contentType, long contentLength, long maxContentLength) {
+		Instant now = Instant.now();
+		Instant expiresAt = now.plus(expiry);
+
+		// Presigned PUT, the signature pins the key and content type
+		PutObjectRequest putObjectRequest = PutObjectRequest.builder().bucket(bucketName).key(key)
+				.contentType(contentType).contentLength(contentLength).build();
+		PresignedPutObjectRequest presigned = s3Presigner.presignPutObject(
+				PutObjectPresignRequest.builder().signatureDuration(expiry).putObjectRequest(putObjectRequest).build());
+
+		Map<String, String> uploadHeaders = new HashMap<>();
+		for (Map.Entry<String, List<String>> header : presigned.signedHeaders().entrySet()) {
+			if (!HttpHeaders.HOST.equalsIgnoreCase(header.getKey())) {
+				uploadHeaders.put(header.getKey(), String.join(",", header.getValue()));
+			}
+		}
+
+		// Browser form POST, the policy also enforces the size limit on S3's side
+		Map<String, String> postFields = postPolicy(key, contentType, maxContentLength, now, expiresAt);
+		String postUrl = s3Endpoint.isBlank() ? "https://" + bucketName + ".s3." + awsRegion + ".amazonaws.com/"
+				: s3Endpoint.replaceAll("/+$", "") + "/" + bucketName + "/";
+
+		return new ImageUploadTicket(key, presigned.url().toString(), uploadHeaders, postUrl, postFields,
+				maxContentLength, expiresAt);
+	}
+
+	private Map<String, String> postPolicy(String key, String contentType, long maxContentLength, Instant now,
+			Instant expiresAt) {
+		AwsCredentials credentials = credentialsProvider.resolveCredentials();
+		String date = DATE.format(now);
+		String amzDate = DATE_TIME.format(now);
+		String credential = credentials.accessKeyId() + "/" + date + "/" + awsRegion + "/s3/aws4_request";
+		String sessionToken = credentials instanceof AwsSessionCredentials session ? session.sessionToken() : null;
+
+		ObjectNode policy = objectMapper.createObjectNode();
+		policy.put("expiration", DateTimeFormatter.ISO_INSTANT.format(expiresAt));
+		ArrayNode conditions = policy.putArray("conditions");
+		conditions.addObject().put("bucket", bucketName);
+		conditions.addObject().put("key", key);
+		conditions.addObject().put("Content-Type", contentType);
+		conditions.addArray().add("content-length-range").add(1).add(maxContentLength);
+		conditions.addObject().put("x-amz-algorithm", ALGORITHM);
+		conditions.addObject().put("x-amz-credential", credential);
+		conditions.addObject().put("x-amz-date", amzDate);
+		if (sessionToken != null) {
+			conditions.addObject().put("x-amz-security-token", sessionToken);
+		}
+
+		try {
+			String encodedPolicy = Base64.getEncoder()
+					.encodeToString(objectMapper.writeValueAsString(policy).getBytes(StandardCharsets.UTF_8));
+
+			byte[] signingKey = hmac(("AWS4" + credentials.secretAccessKey()).getBytes(StandardCharsets.UTF_8),
+					date);
+			signingKey = hmac(signingKey, awsRegion);
+			signingKey = hmac(signingKey, "s3");
+			signingKey = hmac(signingKey, "aws4_request");
+			String signature = HexFormat.of().formatHex(hmac(signingKey, encodedPolicy));
+
+			Map<String, String> fields = new LinkedHashMap<>();
+			fields.put("key", key);
+			fields.put("Content-Type", contentType);
+			fields.put("policy", encodedPolicy);
+			fields.put("x-amz-algorithm", ALGORITHM);
+			fields.put("x-amz-credential", credential);
+			fields.put("x-amz-date", amzDate);
+			if (sessionToken != null) {
+				fields.put("x-amz-security-token", sessionToken);
+			}
+			fields.put("x-amz-signature", signature);
+			return fields;
+		}
+
+		catch (JsonProcessingException | GeneralSecurityException e) {
+			throw new IllegalStateException("Failed to sign upload policy", e);
+		}
+	}
+
+	private static byte[] hmac(byte[] key, String data) throws GeneralSecurityException {
+		Mac mac = Mac.getInstance(HMAC);
+		mac.init(new SecretKeySpec(key, HMAC));
+		return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,236 @@
+package com.aygo.eciComm.service.storage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.aygo.eciComm.model.ObjectDeletion;
+import com.aygo.eciComm.model.enums.ItemStatus;
+import com.aygo.eciComm.repository.ObjectDeletionRepository;
+
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+
+// Deletes S3 objects off the request path. Keys are persisted before they are queued,
+// deleted in DeleteObjects batches and retried with exponential backoff.
+@Service
+public class ObjectDeletionQueue {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ObjectDeletionQueue.class);
+
+	// DeleteObjects accepts at most 1000 keys per call
+	private static final int MAX_DELETE_BATCH = 1000;
+
+	@Autowired
+	private S3Client s3Client;
+
+	@Autowired
+	private ObjectDeletionRepository objectDeletionRepository;
+
+	@Value("${aws.s3.deletion.batch-size:1000}")
+	private int batchSize;
+
+	@Value("${aws.s3.deletion.interval:PT1S}")
+	private Duration interval;
+
+	@Value("${aws.s3.deletion.max-attempts:10}")
+	private int maxAttempts;
+
+	@Value("${aws.s3.deletion.initial-backoff:PT2S}")
+	private Duration initialBackoff;
+
+	@Value("${aws.s3.deletion.max-backoff:PT10M}")
+	private Duration maxBackoff;
+
+	private final DelayQueue<Pending> queue = new DelayQueue<>();
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "s3-deletion-queue");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Picks up deletions recorded by a previous run before draining
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		executor.execute(this::recover);
+		executor.scheduleWithFixedDelay(this::drain, interval.toMillis(), interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	public void enqueue(String bucket, String key) {
+		ObjectDeletion deletion = new ObjectDeletion(bucket, key);
+
+		try {
+			objectDeletionRepository.save(deletion);
+		}
+
+		catch (Exception e) {
+			// Still delete it from memory, only a crash before the next drain would orphan it
+			LOG.error("Error recording deletion of {}/{}: {}", bucket, key, e.getMessage(), e);
+		}
+
+		queue.add(new Pending(deletion, 0));
+	}
+
+	public int size() {
+		return queue.size();
+	}
+
+	void recover() {
+		try (Stream<ObjectDeletion> pending = objectDeletionRepository.streamPending()) {
+			// Not peek().count(), which may skip the peek entirely when the stream knows its size
+			List<ObjectDeletion> recovered = pending.toList();
+			recovered.forEach(deletion -> queue.add(new Pending(deletion, 0)));
+			if (!recovered.isEmpty()) {
+				LOG.info("Recovered {} pending S3 deletions", recovered.size());
+			}
+		}
+
+		catch (Exception e) {
+			LOG.error("Error recovering pending S3 deletions: {}", e.getMessage(), e);
+		}
+	}
+
+	void drain() {
+		int limit = Math.min(batchSize, MAX_DELETE_BATCH);
+
+		try {
+			List<Pending> batch = new ArrayList<>(limit);
+			while (queue.drainTo(batch, limit) > 0) {
+				Map<String, List<Pending>> byBucket = batch.stream()
+						.collect(Collectors.groupingBy(pending -> pending.deletion.getBucket()));
+				byBucket.forEach(this::deleteBatch);
+				batch.clear();
+			}
+		}
+
+		catch (Exception e) {
+			LOG.error("Error draining S3 deletion queue: {}", e.getMessage(), e);
+		}
+	}
+
+	private void deleteBatch(String bucket, List<Pending> batch) {
+		Map<String, Pending> byKey = new HashMap<>();
+		batch.forEach(pending -> byKey.put(pending.deletion.getObjectKey(), pending));
+
+		Map<String, String> failures = new HashMap<>();
+		try {
+			List<ObjectIdentifier> objects = byKey.keySet().stream()
+					.map(key -> ObjectIdentifier.builder().key(key).build()).toList();
+
+			// Quiet mode only reports the keys that failed
+			DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder().bucket(bucket)
+					.delete(Delete.builder().objects(objects).quiet(true).build()).build());
+
+			for (S3Error error : response.errors()) {
+				failures.put(error.key(), error.code() + ": " + error.message());
+			}
+		}
+
+		catch (Exception e) {
+			LOG.warn("DeleteObjects failed for {} keys in {}: {}", byKey.size(), bucket, e.getMessage());
+			byKey.keySet().forEach(key -> failures.put(key, e.getMessage()));
+		}
+
+		List<String> completed = byKey.values().stream().filter(p -> !failures.containsKey(p.deletion.getObjectKey()))
+				.map(p -> p.deletion.getId()).toList();
+		if (!completed.isEmpty()) {
+			forget(completed);
+			LOG.debug("Deleted {} objects from {}", completed.size(), bucket);
+		}
+
+		failures.forEach((key, error) -> retry(byKey.get(key), error));
+	}
+
+	private void forget(List<String> ids) {
+		try {
+			objectDeletionRepository.deleteAll(ids);
+		}
+
+		catch (Exception e) {
+			// Deleting an object twice is harmless, the leftover records are replayed on restart
+			LOG.warn("Error clearing {} completed deletion records: {}", ids.size(), e.getMessage());
+		}
+	}
+
+	private void retry(Pending pending, String error) {
+		ObjectDeletion deletion = pending.deletion;
+		int attempts = pending.attempt + 1;
+		deletion.setAttempts(attempts);
+		deletion.setLastError(error);
+
+		if (attempts >= maxAttempts) {
+			LOG.error("Giving up deleting {}/{} after {} attempts: {}", deletion.getBucket(),
+					deletion.getObjectKey(), attempts, error);
+			deletion.setStatus(ItemStatus.INACTIVE);
+		} else {
+			queue.add(new Pending(deletion, attempts));
+		}
+
+		try {
+			objectDeletionRepository.save(deletion);
+		}
+
+		catch (Exception e) {
+			LOG.warn("Error updating deletion record {}: {}", deletion.getId(), e.getMessage());
+		}
+	}
+
+	private long backoffMillis(int attempt) {
+		if (attempt == 0) {
+			return 0;
+		}
+		long backoff = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+		return Math.min(backoff, maxBackoff.toMillis());
+	}
+
+	private final class Pending implements Delayed {
+
+		private final ObjectDeletion deletion;
+		private final int attempt;
+		private final long dueAt;
+
+		private Pending(ObjectDeletion deletion, int attempt) {
+			this.deletion = deletion;
+			this.attempt = attempt;
+			this.dueAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis(attempt));
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+	}
+}
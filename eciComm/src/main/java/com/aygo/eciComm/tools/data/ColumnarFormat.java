@@ -0,0 +1,112 @@
+package com.aygo.eciComm.tools.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// One directory per table with a file per column and a _schema.json describing them.
+// A column file is a sequence of chunks, one per partition, each a big-endian int length followed by
+// the deflated chunk ColumnarRowBuffer produced. Readers only touch the columns they need and can
+// inflate chunks independently, ColumnarTableReader reads the tables back.
+final class ColumnarFormat implements OutputFormat {
+
+	static final String SCHEMA_FILE = "_schema.json";
+	static final String COLUMN_SUFFIX = ".col";
+	static final String FORMAT_NAME = "eci-columnar";
+	static final int FORMAT_VERSION = 1;
+
+	@Override
+	public RowBuffer newBuffer(int columns) {
+		return new ColumnarRowBuffer(columns);
+	}
+
+	@Override
+	public TableSink open(Path directory, String table, String[] columns) throws IOException {
+		Path tableDirectory = Files.createDirectories(directory.resolve(table));
+		FileChannel[] channels = new FileChannel[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			channels[i] = FileChannel.open(tableDirectory.resolve(columns[i] + COLUMN_SUFFIX),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		return new TableSink() {
+
+			private final ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES);
+			private ColumnarRowBuffer.Column[] schema;
+			private long rows;
+			private long chunks;
+
+			@Override
+			public void append(RowBuffer buffer) throws IOException {
+				ColumnarRowBuffer columnar = (ColumnarRowBuffer) buffer;
+				if (columnar.rows() == 0) {
+					return;
+				}
+				if (schema == null) {
+					schema = columnar.getColumns();
+				}
+
+				ColumnarRowBuffer.Column[] chunk = columnar.getColumns();
+				for (int i = 0; i < channels.length; i++) {
+					ColumnarRowBuffer.Bytes bytes = chunk[i].getChunk();
+					frame.clear();
+					frame.putInt(bytes.length()).flip();
+					write(channels[i], frame);
+					write(channels[i], ByteBuffer.wrap(bytes.array(), 0, bytes.length()));
+				}
+				rows += columnar.rows();
+				chunks++;
+			}
+
+			@Override
+			public void close() throws IOException {
+				for (FileChannel channel : channels) {
+					channel.close();
+				}
+
+				Map<String, Object> description = new LinkedHashMap<>();
+				description.put("format", FORMAT_NAME);
+				description.put("version", FORMAT_VERSION);
+				description.put("table", table);
+				description.put("rows", rows);
+				description.put("chunks", chunks);
+
+				List<Map<String, Object>> columnDescriptions = new ArrayList<>();
+				for (int i = 0; i < columns.length; i++) {
+					Map<String, Object> column = new LinkedHashMap<>();
+					column.put("name", columns[i]);
+					if (schema != null) {
+						column.put("type", schema[i].getType().name());
+						if (schema[i].getPrefix() != null) {
+							column.put("prefix", schema[i].getPrefix());
+							column.put("width", schema[i].getWidth());
+						}
+						if (schema[i].getType() == ColumnarRowBuffer.Type.DECIMAL) {
+							column.put("scale", schema[i].getScale());
+						}
+					}
+					columnDescriptions.add(column);
+				}
+				description.put("columns", columnDescriptions);
+
+				new ObjectMapper().writerWithDefaultPrettyPrinter()
+						.writeValue(tableDirectory.resolve(SCHEMA_FILE).toFile(), description);
+			}
+		};
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
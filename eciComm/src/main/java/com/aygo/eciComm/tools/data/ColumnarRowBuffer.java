@@ -0,0 +1,309 @@
+package com.aygo.eciComm.tools.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+// Encodes a partition column by column. Every column of the partition becomes one chunk:
+//
+//   ID, LONG, DATE, TIMESTAMP  zigzag varint deltas from the previous row, ids keep only their number
+//   CHILD_ID                   parent id as a zigzag varint delta, then the sequence as a varint
+//   DECIMAL                    unscaled value as a zigzag varint
+//   BOOLEAN                    bit-packed, least significant bit first
+//   UUID                       two big-endian longs
+//   STRING                     chunk dictionary (varint count, varint length + UTF-8 per entry), varint codes
+//
+// each prefixed with the varint row count and deflated on the worker by seal().
+final class ColumnarRowBuffer implements RowBuffer {
+
+	enum Type {
+		ID, CHILD_ID, LONG, BOOLEAN, DECIMAL, DATE, TIMESTAMP, UUID, STRING
+	}
+
+	static final class Column {
+
+		private Type type;
+		private String prefix;
+		private int width;
+		private int scale;
+
+		private final Bytes values = new Bytes(1 << 14);
+		private long previous;
+		private int pendingBits;
+		private int pendingBitCount;
+		private final Map<String, Integer> dictionary = new HashMap<>();
+		private final List<String> entries = new ArrayList<>();
+
+		private final Bytes chunk = new Bytes(1 << 14);
+
+		Type getType() {
+			return type;
+		}
+
+		String getPrefix() {
+			return prefix;
+		}
+
+		int getWidth() {
+			return width;
+		}
+
+		int getScale() {
+			return scale;
+		}
+
+		// Deflated chunk, valid after seal()
+		Bytes getChunk() {
+			return chunk;
+		}
+
+		private void reset() {
+			values.clear();
+			previous = 0;
+			pendingBits = 0;
+			pendingBitCount = 0;
+			dictionary.clear();
+			entries.clear();
+		}
+
+		private void delta(long value) {
+			values.putZigZag(value - previous);
+			previous = value;
+		}
+	}
+
+	private final Column[] columns;
+	private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+	private final Bytes raw = new Bytes(1 << 16);
+	private int next;
+	private int rows;
+
+	ColumnarRowBuffer(int columns) {
+		this.columns = new Column[columns];
+		for (int i = 0; i < columns; i++) {
+			this.columns[i] = new Column();
+		}
+	}
+
+	Column[] getColumns() {
+		return columns;
+	}
+
+	@Override
+	public ColumnarRowBuffer field(CharSequence value) {
+		Column column = column(Type.STRING);
+		String text = value.toString();
+		Integer code = column.dictionary.get(text);
+		if (code == null) {
+			code = column.entries.size();
+			column.dictionary.put(text, code);
+			column.entries.add(text);
+		}
+		column.values.putVarLong(code);
+		return this;
+	}
+
+	@Override
+	public ColumnarRowBuffer field(long value) {
+		column(Type.LONG).delta(value);
+		return this;
+	}
+
+	@Override
+	public ColumnarRowBuffer field(boolean value) {
+		Column column = column(Type.BOOLEAN);
+		column.pendingBits |= (value ? 1 : 0) << column.pendingBitCount;
+		if (++column.pendingBitCount == 8) {
+			column.values.put((byte) column.pendingBits);
+			column.pendingBits = 0;
+			column.pendingBitCount = 0;
+		}
+		return this;
+	}
+
+	@Override
+	public ColumnarRowBuffer id(String prefix, long value, int width) {
+		Column column = column(Type.ID);
+		column.prefix = prefix;
+		column.width = width;
+		column.delta(value);
+		return this;
+	}
+
+	@Override
+	public ColumnarRowBuffer id(String prefix, long value, int width, long sequence) {
+		Column column = column(Type.CHILD_ID);
+		column.prefix = prefix;
+		column.width = width;
+		column.delta(value);
+		column.values.putVarLong(sequence);
+		return this;
+	}
+
+	@Override
+	public ColumnarRowBuffer decimal(long unscaled, int scale) {
+		Column column = column(Type.DECIMAL);
+		column.scale = scale;
+		column.values.putZigZag(unscaled);
+		return this;
+	}
+
+	@Override
+	public ColumnarRowBuffer date(long epochDay) {
+		column(Type.DATE).delta(epochDay);
+		return this;
+	}
+
+	@Override
+	public ColumnarRowBuffer dateTime(long epochSecond) {
+		column(Type.TIMESTAMP).delta(epochSecond);
+		return this;
+	}
+
+	@Override
+	public ColumnarRowBuffer uuid(long high, long low) {
+		Column column = column(Type.UUID);
+		column.values.putLong((high & 0xffffffffffff0fffL) | 0x0000000000004000L);
+		column.values.putLong((low & 0x3fffffffffffffffL) | 0x8000000000000000L);
+		return this;
+	}
+
+	@Override
+	public ColumnarRowBuffer endRow() {
+		if (next != columns.length) {
+			throw new IllegalStateException("Row has " + next + " fields, expected " + columns.length);
+		}
+		next = 0;
+		rows++;
+		return this;
+	}
+
+	@Override
+	public int rows() {
+		return rows;
+	}
+
+	@Override
+	public void reset() {
+		for (Column column : columns) {
+			column.reset();
+		}
+		next = 0;
+		rows = 0;
+	}
+
+	@Override
+	public void seal() {
+		for (Column column : columns) {
+			if (column.pendingBitCount > 0) {
+				column.values.put((byte) column.pendingBits);
+				column.pendingBitCount = 0;
+			}
+
+			raw.clear();
+			raw.putVarLong(rows);
+			if (column.type == Type.STRING) {
+				raw.putVarLong(column.entries.size());
+				for (String entry : column.entries) {
+					byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+					raw.putVarLong(bytes.length);
+					raw.put(bytes, 0, bytes.length);
+				}
+			}
+			raw.put(column.values.array(), 0, column.values.length());
+
+			column.chunk.clear();
+			deflater.reset();
+			deflater.setInput(raw.array(), 0, raw.length());
+			deflater.finish();
+			while (!deflater.finished()) {
+				column.chunk.ensure(1 << 14);
+				int written = deflater.deflate(column.chunk.array(), column.chunk.length(),
+						column.chunk.array().length - column.chunk.length());
+				column.chunk.skip(written);
+			}
+		}
+	}
+
+	private Column column(Type type) {
+		if (next == columns.length) {
+			throw new IllegalStateException("Row has more than " + columns.length + " fields");
+		}
+
+		Column column = columns[next++];
+		if (column.type == null) {
+			column.type = type;
+		} else if (column.type != type) {
+			throw new IllegalStateException("Column " + (next - 1) + " is " + column.type + ", not " + type);
+		}
+		return column;
+	}
+
+	// Growable byte array with the varint encodings shared by the writer and ColumnarTableReader
+	static final class Bytes {
+
+		private byte[] bytes;
+		private int length;
+
+		Bytes(int initialCapacity) {
+			this.bytes = new byte[initialCapacity];
+		}
+
+		byte[] array() {
+			return bytes;
+		}
+
+		int length() {
+			return length;
+		}
+
+		void clear() {
+			length = 0;
+		}
+
+		void skip(int count) {
+			length += count;
+		}
+
+		void put(byte value) {
+			ensure(1);
+			bytes[length++] = value;
+		}
+
+		void put(byte[] source, int offset, int count) {
+			ensure(count);
+			System.arraycopy(source, offset, bytes, length, count);
+			length += count;
+		}
+
+		void putLong(long value) {
+			ensure(8);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				bytes[length++] = (byte) (value >>> shift);
+			}
+		}
+
+		void putVarLong(long value) {
+			ensure(10);
+			while ((value & ~0x7fL) != 0) {
+				bytes[length++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			bytes[length++] = (byte) value;
+		}
+
+		void putZigZag(long value) {
+			putVarLong((value << 1) ^ (value >> 63));
+		}
+
+		void ensure(int extra) {
+			if (length + extra > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+			}
+		}
+	}
+}
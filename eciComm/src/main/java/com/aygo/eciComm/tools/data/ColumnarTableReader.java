@@ -0,0 +1,310 @@
+package com.aygo.eciComm.tools.data;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Row cursor over a table written with --format=columnar. Only the selected columns are read, one
+// chunk per column is held in memory at a time.
+//
+//   try (ColumnarTableReader reader = new ColumnarTableReader(Path.of("data/user_behavior"), "user_id", "action")) {
+//       while (reader.next()) {
+//           long user = reader.getLong(0);
+//           String action = reader.getString(1);
+//       }
+//   }
+public final class ColumnarTableReader implements Closeable {
+
+	private final String[] names;
+	private final ColumnarRowBuffer.Type[] types;
+	private final String[] prefixes;
+	private final int[] widths;
+	private final int[] scales;
+	private final DataInputStream[] inputs;
+	private final long rows;
+
+	private final Inflater inflater = new Inflater();
+	private final ColumnarRowBuffer.Bytes compressed = new ColumnarRowBuffer.Bytes(1 << 16);
+	private final ColumnarRowBuffer.Bytes raw = new ColumnarRowBuffer.Bytes(1 << 16);
+
+	// Decoded chunk of every selected column
+	private final long[][] values;
+	private final long[][] secondary;
+	private final String[][] dictionaries;
+	private int chunkRows;
+	private int row = -1;
+
+	public ColumnarTableReader(Path table, String... columns) throws IOException {
+		JsonNode schema = new ObjectMapper().readTree(table.resolve(ColumnarFormat.SCHEMA_FILE).toFile());
+		if (!ColumnarFormat.FORMAT_NAME.equals(schema.path("format").asText())
+				|| schema.path("version").asInt() != ColumnarFormat.FORMAT_VERSION) {
+			throw new IOException(table + " is not a version " + ColumnarFormat.FORMAT_VERSION + " columnar table");
+		}
+
+		List<JsonNode> selected = new ArrayList<>();
+		for (JsonNode column : schema.path("columns")) {
+			selected.add(column);
+		}
+		if (columns.length > 0) {
+			selected = new ArrayList<>();
+			for (String name : columns) {
+				selected.add(find(schema, name));
+			}
+		}
+
+		int count = selected.size();
+		this.names = new String[count];
+		this.types = new ColumnarRowBuffer.Type[count];
+		this.prefixes = new String[count];
+		this.widths = new int[count];
+		this.scales = new int[count];
+		this.inputs = new DataInputStream[count];
+		this.values = new long[count][];
+		this.secondary = new long[count][];
+		this.dictionaries = new String[count][];
+		this.rows = schema.path("rows").asLong();
+
+		try {
+			for (int i = 0; i < count; i++) {
+				JsonNode column = selected.get(i);
+				names[i] = column.path("name").asText();
+				types[i] = rows == 0 ? ColumnarRowBuffer.Type.STRING
+						: ColumnarRowBuffer.Type.valueOf(column.path("type").asText());
+				prefixes[i] = column.path("prefix").asText("");
+				widths[i] = column.path("width").asInt();
+				scales[i] = column.path("scale").asInt();
+				inputs[i] = new DataInputStream(new BufferedInputStream(
+						Files.newInputStream(table.resolve(names[i] + ColumnarFormat.COLUMN_SUFFIX)), 1 << 16));
+			}
+		}
+
+		catch (IOException | RuntimeException e) {
+			close();
+			throw e;
+		}
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public String[] getColumns() {
+		return names.clone();
+	}
+
+	public boolean next() throws IOException {
+		if (++row < chunkRows) {
+			return true;
+		}
+		if (!readChunk()) {
+			return false;
+		}
+		row = 0;
+		return chunkRows > 0 || next();
+	}
+
+	// Numeric value as stored: the id number, epoch day, epoch second, unscaled decimal or 0/1 for booleans
+	public long getLong(int column) {
+		return values[column][row];
+	}
+
+	public boolean getBoolean(int column) {
+		return values[column][row] != 0;
+	}
+
+	public BigDecimal getDecimal(int column) {
+		return BigDecimal.valueOf(values[column][row], scales[column]);
+	}
+
+	// Value as the CSV format writes it
+	public String getString(int column) {
+		long value = values[column][row];
+		return switch (types[column]) {
+		case ID -> prefixes[column] + pad(value, widths[column]);
+		case CHILD_ID -> prefixes[column] + pad(value, widths[column]) + "_" + secondary[column][row];
+		case LONG -> String.valueOf(value);
+		case BOOLEAN -> String.valueOf(value != 0);
+		case DECIMAL -> getDecimal(column).toPlainString();
+		case DATE -> LocalDate.ofEpochDay(value).toString();
+		case TIMESTAMP -> LocalDateTime.ofEpochSecond(value, 0, ZoneOffset.UTC)
+				.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+		case UUID -> new UUID(value, secondary[column][row]).toString();
+		case STRING -> dictionaries[column][(int) value];
+		};
+	}
+
+	@Override
+	public void close() throws IOException {
+		inflater.end();
+		for (DataInputStream input : inputs) {
+			if (input != null) {
+				input.close();
+			}
+		}
+	}
+
+	private boolean readChunk() throws IOException {
+		for (int i = 0; i < inputs.length; i++) {
+			int length;
+			try {
+				length = inputs[i].readInt();
+			}
+
+			catch (EOFException e) {
+				if (i > 0) {
+					throw new IOException("Column " + names[i] + " has fewer chunks than " + names[0]);
+				}
+				return false;
+			}
+
+			compressed.clear();
+			compressed.ensure(length);
+			inputs[i].readFully(compressed.array(), 0, length);
+			inflate(length);
+
+			int[] position = { 0 };
+			int count = (int) readVarLong(position);
+			if (i > 0 && count != chunkRows) {
+				throw new IOException("Column " + names[i] + " chunk has " + count + " rows, expected " + chunkRows);
+			}
+			chunkRows = count;
+			decode(i, count, position);
+		}
+		return inputs.length > 0;
+	}
+
+	private void inflate(int length) throws IOException {
+		inflater.reset();
+		inflater.setInput(compressed.array(), 0, length);
+		raw.clear();
+		try {
+			while (!inflater.finished()) {
+				raw.ensure(1 << 16);
+				int read = inflater.inflate(raw.array(), raw.length(), raw.array().length - raw.length());
+				if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new IOException("Truncated column chunk");
+				}
+				raw.skip(read);
+			}
+		}
+
+		catch (DataFormatException e) {
+			throw new IOException("Corrupt column chunk: " + e.getMessage(), e);
+		}
+	}
+
+	private void decode(int column, int count, int[] position) {
+		long[] decoded = values[column] != null && values[column].length >= count ? values[column] : new long[count];
+		values[column] = decoded;
+		ColumnarRowBuffer.Type type = types[column];
+		if (type == ColumnarRowBuffer.Type.CHILD_ID || type == ColumnarRowBuffer.Type.UUID) {
+			secondary[column] = secondary[column] != null && secondary[column].length >= count ? secondary[column]
+					: new long[count];
+		}
+
+		long previous = 0;
+		byte[] bytes = raw.array();
+		switch (type) {
+		case ID, LONG, DATE, TIMESTAMP -> {
+			for (int r = 0; r < count; r++) {
+				previous += readZigZag(position);
+				decoded[r] = previous;
+			}
+		}
+		case CHILD_ID -> {
+			for (int r = 0; r < count; r++) {
+				previous += readZigZag(position);
+				decoded[r] = previous;
+				secondary[column][r] = readVarLong(position);
+			}
+		}
+		case DECIMAL -> {
+			for (int r = 0; r < count; r++) {
+				decoded[r] = readZigZag(position);
+			}
+		}
+		case BOOLEAN -> {
+			for (int r = 0; r < count; r++) {
+				decoded[r] = (bytes[position[0] + r / 8] >>> (r % 8)) & 1;
+			}
+		}
+		case UUID -> {
+			for (int r = 0; r < count; r++) {
+				decoded[r] = readLong(position);
+				secondary[column][r] = readLong(position);
+			}
+		}
+		case STRING -> {
+			String[] dictionary = new String[(int) readVarLong(position)];
+			for (int d = 0; d < dictionary.length; d++) {
+				int length = (int) readVarLong(position);
+				dictionary[d] = new String(bytes, position[0], length, StandardCharsets.UTF_8);
+				position[0] += length;
+			}
+			dictionaries[column] = dictionary;
+			for (int r = 0; r < count; r++) {
+				decoded[r] = readVarLong(position);
+			}
+		}
+		}
+	}
+
+	private long readVarLong(int[] position) {
+		byte[] bytes = raw.array();
+		long value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = bytes[position[0]++];
+			value |= (long) (b & 0x7f) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+
+	private long readZigZag(int[] position) {
+		long value = readVarLong(position);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private long readLong(int[] position) {
+		byte[] bytes = raw.array();
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value = (value << 8) | (bytes[position[0]++] & 0xff);
+		}
+		return value;
+	}
+
+	private static String pad(long value, int width) {
+		String digits = String.valueOf(value);
+		return digits.length() >= width ? digits : "0".repeat(width - digits.length()) + digits;
+	}
+
+	private static JsonNode find(JsonNode schema, String name) throws IOException {
+		for (JsonNode column : schema.path("columns")) {
+			if (name.equals(column.path("name").asText())) {
+				return column;
+			}
+		}
+		throw new IOException("No column " + name + " in table " + schema.path("table").asText());
+	}
+}
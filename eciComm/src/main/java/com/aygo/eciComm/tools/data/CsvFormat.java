@@ -0,0 +1,42 @@
+package com.aygo.eciComm.tools.data;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// One quoted CSV file per table with a header row, the layout of the original generator
+final class CsvFormat implements OutputFormat {
+
+	private static final int INITIAL_BUFFER_BYTES = 1 << 20;
+
+	@Override
+	public RowBuffer newBuffer(int columns) {
+		return new CsvRowBuffer(INITIAL_BUFFER_BYTES);
+	}
+
+	@Override
+	public TableSink open(Path directory, String table, String[] columns) throws IOException {
+		FileChannel channel = FileChannel.open(directory.resolve(table + ".csv"), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		CsvRowBuffer header = new CsvRowBuffer(256);
+		for (String column : columns) {
+			header.field(column);
+		}
+		header.endRow().writeTo(channel);
+
+		return new TableSink() {
+
+			@Override
+			public void append(RowBuffer rows) throws IOException {
+				((CsvRowBuffer) rows).writeTo(channel);
+			}
+
+			@Override
+			public void close() throws IOException {
+				channel.close();
+			}
+		};
+	}
+}
@@ -0,0 +1,233 @@
+package com.aygo.eciComm.tools.data;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Growable ASCII buffer that formats CSV rows without String.format or intermediate Strings.
+// Every field is quoted like opencsv's default writer, decimals always use '.' whatever the locale.
+final class CsvRowBuffer implements RowBuffer {
+
+	private static final byte[] DIGITS = "0123456789abcdef".getBytes();
+
+	private byte[] bytes;
+	private int length;
+	private int rows;
+	private boolean firstField = true;
+
+	CsvRowBuffer(int initialCapacity) {
+		this.bytes = new byte[initialCapacity];
+	}
+
+	@Override
+	public void reset() {
+		length = 0;
+		rows = 0;
+		firstField = true;
+	}
+
+	@Override
+	public int rows() {
+		return rows;
+	}
+
+	void writeTo(WritableByteChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	@Override
+	public CsvRowBuffer endRow() {
+		ensure(1);
+		bytes[length++] = '\n';
+		rows++;
+		firstField = true;
+		return this;
+	}
+
+	@Override
+	public CsvRowBuffer field(CharSequence value) {
+		open();
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				put((byte) '"');
+			}
+			put((byte) (c < 0x80 ? c : '?'));
+		}
+		return close();
+	}
+
+	@Override
+	public CsvRowBuffer field(long value) {
+		open();
+		appendLong(value);
+		return close();
+	}
+
+	@Override
+	public CsvRowBuffer field(boolean value) {
+		return field(value ? "true" : "false");
+	}
+
+	@Override
+	public CsvRowBuffer id(String prefix, long value, int width) {
+		open();
+		for (int i = 0; i < prefix.length(); i++) {
+			put((byte) prefix.charAt(i));
+		}
+		appendPadded(value, width);
+		return close();
+	}
+
+	@Override
+	public CsvRowBuffer id(String prefix, long value, int width, long sequence) {
+		open();
+		for (int i = 0; i < prefix.length(); i++) {
+			put((byte) prefix.charAt(i));
+		}
+		appendPadded(value, width);
+		put((byte) '_');
+		appendPadded(sequence, 1);
+		return close();
+	}
+
+	@Override
+	public CsvRowBuffer decimal(long unscaled, int scale) {
+		open();
+		if (unscaled < 0) {
+			put((byte) '-');
+			unscaled = -unscaled;
+		}
+
+		long divisor = 1;
+		for (int i = 0; i < scale; i++) {
+			divisor *= 10;
+		}
+		appendLong(unscaled / divisor);
+		if (scale > 0) {
+			put((byte) '.');
+			appendPadded(unscaled % divisor, scale);
+		}
+		return close();
+	}
+
+	// yyyy-MM-dd
+	@Override
+	public CsvRowBuffer date(long epochDay) {
+		open();
+		appendDate(epochDay);
+		return close();
+	}
+
+	// yyyy-MM-ddTHH:mm:ss, the ISO local form LocalDateTime.toString() prints for whole seconds
+	@Override
+	public CsvRowBuffer dateTime(long epochSecond) {
+		open();
+		appendDate(Math.floorDiv(epochSecond, 86400));
+		long secondOfDay = Math.floorMod(epochSecond, 86400);
+		put((byte) 'T');
+		appendPadded(secondOfDay / 3600, 2);
+		put((byte) ':');
+		appendPadded(secondOfDay / 60 % 60, 2);
+		put((byte) ':');
+		appendPadded(secondOfDay % 60, 2);
+		return close();
+	}
+
+	@Override
+	public CsvRowBuffer uuid(long high, long low) {
+		open();
+		high = (high & 0xffffffffffff0fffL) | 0x0000000000004000L;
+		low = (low & 0x3fffffffffffffffL) | 0x8000000000000000L;
+		appendHex(high >>> 32, 8);
+		put((byte) '-');
+		appendHex(high >>> 16, 4);
+		put((byte) '-');
+		appendHex(high, 4);
+		put((byte) '-');
+		appendHex(low >>> 48, 4);
+		put((byte) '-');
+		appendHex(low, 12);
+		return close();
+	}
+
+	private void open() {
+		ensure(64);
+		if (!firstField) {
+			bytes[length++] = ',';
+		}
+		firstField = false;
+		bytes[length++] = '"';
+	}
+
+	private CsvRowBuffer close() {
+		put((byte) '"');
+		return this;
+	}
+
+	private void put(byte value) {
+		ensure(1);
+		bytes[length++] = value;
+	}
+
+	private void appendLong(long value) {
+		if (value < 0) {
+			put((byte) '-');
+			value = -value;
+		}
+		appendPadded(value, 1);
+	}
+
+	private void appendPadded(long value, int width) {
+		int digits = 1;
+		for (long rest = value / 10; rest > 0; rest /= 10) {
+			digits++;
+		}
+
+		int size = Math.max(width, digits);
+		ensure(size);
+		for (int i = length + size - 1; i >= length; i--) {
+			bytes[i] = DIGITS[(int) (value % 10)];
+			value /= 10;
+		}
+		length += size;
+	}
+
+	private void appendHex(long value, int digits) {
+		ensure(digits);
+		for (int i = length + digits - 1; i >= length; i--) {
+			bytes[i] = DIGITS[(int) (value & 0xf)];
+			value >>>= 4;
+		}
+		length += digits;
+	}
+
+	// Civil date from days since 1970-01-01, proleptic Gregorian as java.time uses
+	private void appendDate(long epochDay) {
+		long z = epochDay + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long shiftedMonth = (5 * dayOfYear + 2) / 153;
+		long day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+		long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+		appendPadded(year, 4);
+		put((byte) '-');
+		appendPadded(month, 2);
+		put((byte) '-');
+		appendPadded(day, 2);
+	}
+
+	private void ensure(int extra) {
+		if (length + extra > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+		}
+	}
+}
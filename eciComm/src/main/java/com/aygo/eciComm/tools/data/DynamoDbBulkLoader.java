@@ -0,0 +1,575 @@
+package com.aygo.eciComm.tools.data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aygo.eciComm.model.Component;
+import com.aygo.eciComm.model.Inventory;
+import com.aygo.eciComm.model.Order;
+import com.aygo.eciComm.model.OrderItem;
+import com.aygo.eciComm.model.Product;
+import com.aygo.eciComm.model.User;
+import com.aygo.eciComm.model.enums.ItemStatus;
+import com.aygo.eciComm.model.enums.OrderStatus;
+import com.aygo.eciComm.model.enums.ProductCategory;
+import com.aygo.eciComm.model.enums.ProductStatus;
+import com.aygo.eciComm.model.enums.UserRole;
+import com.aygo.eciComm.model.enums.UserStatus;
+
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+// Fills the application's own tables with generated users, products, inventory and orders:
+//
+//   EciCommDataGenerator --load=dynamodb --endpoint=http://localhost:8000 --users=1000000 --products=100000
+//       --orders=5000000 --threads=16 --wcu=5000
+//
+// Entities are built as the model beans, mapped with their table schemas and written with BatchWriteItem
+// by --threads writers, at most --utilization of --wcu write capacity units per second. Items are put
+// directly instead of through the enhanced client, whose version extension adds a condition that batch
+// writes do not accept; they start at version 1 so the application's conditional updates apply to them.
+// Progress is checkpointed per dataset, rerunning with the same options resumes where the last run stopped.
+public final class DynamoDbBulkLoader {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DynamoDbBulkLoader.class);
+
+	// DynamoDB accepts at most 25 writes per BatchWriteItem call and bills 1 WCU per started KB
+	private static final int MAX_BATCH_WRITE = 25;
+	private static final int WRITE_UNIT_BYTES = 1024;
+	private static final int MAX_BATCH_RETRIES = 10;
+	private static final String CREATED_BY = "bulk-loader";
+
+	private static final long USERS_SALT = 11;
+	private static final long ORDERS_SALT = 14;
+
+	private static final String[] FIRST_NAMES = { "Ana", "Carlos", "Laura", "Miguel", "Sofia", "Daniel", "Valentina",
+			"Andres", "Camila", "Juan", "Maria", "Felipe" };
+	private static final String[] LAST_NAMES = { "Garcia", "Rodriguez", "Martinez", "Lopez", "Gonzalez", "Perez",
+			"Sanchez", "Ramirez", "Torres", "Duran" };
+	private static final String[] LOCATIONS = { "New York", "Los Angeles", "Chicago", "Houston", "Miami" };
+	private static final String[] WAREHOUSES = { "WH-EAST-1", "WH-WEST-1", "WH-CENTRAL-1" };
+	private static final String[] PAYMENT_METHODS = { "CREDIT_CARD", "DEBIT_CARD", "PAYPAL", "BANK_TRANSFER" };
+	private static final OrderStatus[] ORDER_STATUSES = { OrderStatus.PENDING, OrderStatus.CONFIRMED,
+			OrderStatus.SHIPPED, OrderStatus.DELIVERED, OrderStatus.CANCELLED };
+	private static final ProductCategory[] CATEGORIES = { ProductCategory.ELECTRONICS, ProductCategory.CLOTHING,
+			ProductCategory.BOOKS, ProductCategory.HOME_AND_GARDEN };
+
+	private static final TableSchema<User> USER_SCHEMA = TableSchema.fromBean(User.class);
+	private static final TableSchema<Product> PRODUCT_SCHEMA = TableSchema.fromBean(Product.class);
+	private static final TableSchema<Inventory> INVENTORY_SCHEMA = TableSchema.fromBean(Inventory.class);
+	private static final TableSchema<Order> ORDER_SCHEMA = TableSchema.fromBean(Order.class);
+	private static final TableSchema<OrderItem> ORDER_ITEM_SCHEMA = TableSchema.fromBean(OrderItem.class);
+
+	// Rows of one dataset become puts, possibly into several tables
+	@FunctionalInterface
+	private interface EntityGenerator {
+		void generate(long index, SplittableRandom random, List<PendingWrite> out);
+	}
+
+	private record Dataset(String name, long rows, long salt, EntityGenerator generator) {
+	}
+
+	private record PendingWrite(String table, WriteRequest request, int units) {
+	}
+
+	private final DynamoDbClient client;
+	private final TokenBucket writeUnits;
+	private final Checkpoint checkpoint;
+	private final long seed;
+	private final int threads;
+	private final int partitionRows;
+	private final long users;
+	private final long products;
+	private final long orders;
+	private final double skew;
+	private final long asOfSecond;
+	private final int userIdWidth;
+	private final int productIdWidth;
+	private final int orderIdWidth;
+	private final long productSeed;
+	private final Duration reportInterval;
+	private final String userTable;
+	private final String productTable;
+	private final String inventoryTable;
+	private final String orderTable;
+	private final String orderItemTable;
+
+	private final LongAdder itemsWritten = new LongAdder();
+	private final LongAdder unitsWritten = new LongAdder();
+	private final LongAdder throttled = new LongAdder();
+	private final LongAdder unprocessed = new LongAdder();
+
+	DynamoDbBulkLoader(Map<String, String> options) throws IOException {
+		this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+		this.threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+		this.partitionRows = Integer.parseInt(options.getOrDefault("partition-rows", "1000"));
+		this.users = Long.parseLong(options.getOrDefault("users", "1000"));
+		this.products = Long.parseLong(options.getOrDefault("products", "500"));
+		this.orders = Long.parseLong(options.getOrDefault("orders", "5000"));
+		this.skew = Double.parseDouble(options.getOrDefault("skew", "0"));
+		this.reportInterval = Duration.parse(options.getOrDefault("report-interval", "PT10S"));
+
+		LocalDate asOf = LocalDate.parse(options.getOrDefault("as-of", LocalDate.now(ZoneOffset.UTC).toString()));
+		this.asOfSecond = asOf.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+
+		if (threads < 1 || partitionRows < 1 || users < 1 || products < 1 || skew < 0) {
+			throw new IllegalArgumentException("threads, partition-rows, users and products must be positive, "
+					+ "skew must not be negative");
+		}
+
+		// Defaults match aws.dynamodb.tables in application.yml
+		this.userTable = options.getOrDefault("table.user", "Users");
+		this.productTable = options.getOrDefault("table.product", "Products");
+		this.inventoryTable = options.getOrDefault("table.inventory", "Inventory");
+		this.orderTable = options.getOrDefault("table.order", "Orders");
+		this.orderItemTable = options.getOrDefault("table.orderItem", "OrderItems");
+
+		// Spend --utilization of the provisioned write capacity, leaving room for other writers
+		double wcu = Double.parseDouble(options.getOrDefault("wcu", "0"));
+		double utilization = Double.parseDouble(options.getOrDefault("utilization", "0.9"));
+		this.writeUnits = new TokenBucket(wcu * utilization, wcu * utilization);
+
+		this.userIdWidth = ParallelDataGenerator.idWidth(users);
+		this.productIdWidth = ParallelDataGenerator.idWidth(products);
+		this.orderIdWidth = ParallelDataGenerator.idWidth(orders);
+		this.productSeed = ParallelDataGenerator.datasetSeed(seed, ParallelDataGenerator.PRODUCTS_SALT);
+
+		// Resuming with different options would silently mix two datasets
+		String fingerprint = String.join(",", String.valueOf(seed), String.valueOf(partitionRows),
+				String.valueOf(users), String.valueOf(products), String.valueOf(orders), String.valueOf(skew),
+				asOf.toString());
+		this.checkpoint = new Checkpoint(Path.of(options.getOrDefault("checkpoint", "bulk-load.checkpoint")),
+				fingerprint);
+
+		DynamoDbClientBuilder builder = DynamoDbClient.builder()
+				.region(Region.of(options.getOrDefault("region", "us-east-1")))
+				.overrideConfiguration(ClientOverrideConfiguration.builder()
+						.retryPolicy(RetryPolicy.builder().numRetries(3).build()).build());
+		if (options.containsKey("endpoint")) {
+			builder.endpointOverride(URI.create(options.get("endpoint")));
+		}
+		this.client = builder.build();
+	}
+
+	void run() throws IOException, InterruptedException {
+		List<Dataset> datasets = List.of(new Dataset("users", users, USERS_SALT, this::user),
+				new Dataset("products", products, ParallelDataGenerator.PRODUCTS_SALT, this::product),
+				new Dataset("inventory", products, ParallelDataGenerator.PRODUCTS_SALT, this::inventory),
+				new Dataset("orders", orders, ORDERS_SALT, this::order));
+
+		ExecutorService writers = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "bulk-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "bulk-loader-report");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long started = System.nanoTime();
+		long[] lastReport = { started, 0, 0 };
+		reporter.scheduleAtFixedRate(() -> {
+			long now = System.nanoTime();
+			long items = itemsWritten.sum();
+			long units = unitsWritten.sum();
+			double seconds = (now - lastReport[0]) / 1e9;
+			LOG.info("{} items written, {} items/s, {} WCU/s, {} throttled batches, {} unprocessed retries", items,
+					Math.round((items - lastReport[1]) / seconds), Math.round((units - lastReport[2]) / seconds),
+					throttled.sum(), unprocessed.sum());
+			lastReport[0] = now;
+			lastReport[1] = items;
+			lastReport[2] = units;
+		}, reportInterval.toMillis(), reportInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+		try {
+			for (Dataset dataset : datasets) {
+				load(dataset, writers);
+			}
+
+			double seconds = (System.nanoTime() - started) / 1e9;
+			LOG.info("Bulk load finished: {} items, {} WCU in {} s ({} items/s), {} throttled batches",
+					itemsWritten.sum(), unitsWritten.sum(), Math.round(seconds),
+					Math.round(itemsWritten.sum() / Math.max(seconds, 1e-9)), throttled.sum());
+		}
+
+		finally {
+			reporter.shutdownNow();
+			writers.shutdownNow();
+			client.close();
+		}
+	}
+
+	// Partitions run on the writer pool with at most twice as many in flight as writers, so memory stays
+	// bounded. A partition is regenerated from its own seed, resuming reproduces exactly the same items.
+	private void load(Dataset dataset, ExecutorService writers) throws IOException, InterruptedException {
+		long partitions = (dataset.rows() + partitionRows - 1) / partitionRows;
+		long first = checkpoint.completed(dataset.name());
+		if (first >= partitions) {
+			LOG.info("Skipping {}, already loaded", dataset.name());
+			return;
+		}
+		if (first > 0) {
+			LOG.info("Resuming {} at partition {} of {}", dataset.name(), first, partitions);
+		}
+
+		int maxInFlight = threads * 2;
+		Semaphore inFlight = new Semaphore(maxInFlight);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		long started = System.nanoTime();
+		long itemsBefore = itemsWritten.sum();
+		long datasetSeed = ParallelDataGenerator.datasetSeed(seed, dataset.salt());
+
+		for (long partition = first; partition < partitions && failure.get() == null; partition++) {
+			inFlight.acquire();
+			long current = partition;
+			writers.execute(() -> {
+				try {
+					loadPartition(dataset, current, datasetSeed);
+					checkpoint.complete(dataset.name(), current);
+				}
+
+				catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+
+				finally {
+					inFlight.release();
+				}
+			});
+		}
+		inFlight.acquire(maxInFlight);
+		inFlight.release(maxInFlight);
+		checkpoint.save();
+
+		if (failure.get() != null) {
+			throw new IOException("Loading " + dataset.name() + " failed, rerun with the same options to resume: "
+					+ failure.get().getMessage(), failure.get());
+		}
+
+		double seconds = Math.max((System.nanoTime() - started) / 1e9, 1e-9);
+		long items = itemsWritten.sum() - itemsBefore;
+		LOG.info("Loaded {} rows of {} ({} items) in {} s, {} items/s", dataset.rows(), dataset.name(), items,
+				Math.round(seconds), Math.round(items / seconds));
+	}
+
+	private void loadPartition(Dataset dataset, long partition, long datasetSeed) throws InterruptedException {
+		SplittableRandom random = new SplittableRandom(PartitionedWriter.mix(datasetSeed + partition));
+		long start = partition * partitionRows;
+		long end = Math.min(start + partitionRows, dataset.rows());
+
+		List<PendingWrite> writes = new ArrayList<>(partitionRows * 2);
+		for (long i = start; i < end; i++) {
+			dataset.generator().generate(i, random, writes);
+		}
+		for (int from = 0; from < writes.size(); from += MAX_BATCH_WRITE) {
+			write(writes.subList(from, Math.min(from + MAX_BATCH_WRITE, writes.size())));
+		}
+	}
+
+	// Throttled batches and unprocessed items are retried with exponential backoff, each attempt pays for
+	// the capacity it consumes before it is sent
+	private void write(List<PendingWrite> batch) throws InterruptedException {
+		List<PendingWrite> pending = batch;
+
+		for (int attempt = 0; !pending.isEmpty(); attempt++) {
+			if (attempt > MAX_BATCH_RETRIES) {
+				throw new IllegalStateException(pending.size() + " writes left unprocessed after " + attempt
+						+ " attempts");
+			}
+			if (attempt > 0) {
+				Thread.sleep(Math.min(5000L, 50L << Math.min(attempt, 10)));
+			}
+
+			int units = pending.stream().mapToInt(PendingWrite::units).sum();
+			writeUnits.acquire(units);
+
+			Map<String, List<WriteRequest>> requestItems = new HashMap<>();
+			pending.forEach(write -> requestItems.computeIfAbsent(write.table(), table -> new ArrayList<>())
+					.add(write.request()));
+
+			BatchWriteItemResponse response;
+			try {
+				response = client.batchWriteItem(request -> request.requestItems(requestItems));
+			}
+
+			catch (ProvisionedThroughputExceededException | RequestLimitExceededException e) {
+				throttled.increment();
+				continue;
+			}
+
+			List<PendingWrite> remaining = new ArrayList<>();
+			response.unprocessedItems().forEach((table, requests) -> requests
+					.forEach(request -> remaining.add(new PendingWrite(table, request, units(request)))));
+
+			int remainingUnits = remaining.stream().mapToInt(PendingWrite::units).sum();
+			itemsWritten.add(pending.size() - remaining.size());
+			unitsWritten.add(units - remainingUnits);
+			unprocessed.add(remaining.size());
+			pending = remaining;
+		}
+	}
+
+	private void user(long index, SplittableRandom random, List<PendingWrite> out) {
+		User user = new User();
+		String firstName = pick(random, FIRST_NAMES);
+		String lastName = pick(random, LAST_NAMES);
+		user.setId(ParallelDataGenerator.padded("USR_", index, userIdWidth));
+		user.setEmail((firstName + "." + lastName + "." + index + "@example.com").toLowerCase());
+		user.setFirstName(firstName);
+		user.setLastName(lastName);
+		user.setPhoneNumber("+1" + (2000000000L + random.nextLong(8000000000L)));
+		user.setStatus(UserStatus.ACTIVE);
+		user.setRoles(Set.of(UserRole.CUSTOMER));
+		String location = pick(random, LOCATIONS);
+		user.setDefaultShippingAddress(location);
+		user.setDefaultBillingAddress(location);
+		user.setPreferences(Map.of("preferredCategory", pick(random, SyntheticProduct.CATEGORIES)));
+		user.setEmailVerified(random.nextDouble() < 0.8);
+		user.setPhoneVerified(random.nextDouble() < 0.5);
+		Instant memberSince = Instant.ofEpochSecond(asOfSecond - 86400L - random.nextLong(2 * 365 * 86400L));
+		user.setLastLoginAt(Instant.ofEpochSecond(
+				memberSince.getEpochSecond() + random.nextLong(asOfSecond - memberSince.getEpochSecond())));
+		stamp(user, memberSince);
+		out.add(put(userTable, USER_SCHEMA.itemToMap(user, true)));
+	}
+
+	private void product(long index, SplittableRandom random, List<PendingWrite> out) {
+		SyntheticProduct synthetic = SyntheticProduct.of(productSeed, index);
+		Product product = new Product();
+		product.setId(ParallelDataGenerator.padded("PROD_", index, productIdWidth));
+		product.setName(synthetic.name());
+		product.setDescription(synthetic.subcategoryName() + " by " + synthetic.brand() + ", model "
+				+ synthetic.model());
+		product.setPrice(BigDecimal.valueOf(synthetic.priceCents(), 2));
+		product.setCategory(CATEGORIES[synthetic.category()]);
+		product.setProductStatus(ProductStatus.ACTIVE);
+		product.setStockQuantity(synthetic.stockLevel());
+		product.setTags(Set.of(synthetic.subcategoryName().toLowerCase(), synthetic.brand().toLowerCase()));
+		product.setAttributes(Map.of("brand", synthetic.brand(), "model", synthetic.model(), "rating",
+				BigDecimal.valueOf(synthetic.ratingTenths(), 1).toPlainString(), "reviews",
+				String.valueOf(synthetic.totalReviews())));
+		product.setWeightInKg(BigDecimal.valueOf(10 + random.nextInt(5000), 2));
+		product.setReleaseDate(LocalDate.ofEpochDay(asOfSecond / 86400 - synthetic.ageDays()));
+		product.setFeatured(random.nextDouble() < 0.05);
+		stamp(product, Instant.ofEpochSecond(asOfSecond - synthetic.ageDays() * 86400L));
+		out.add(put(productTable, PRODUCT_SCHEMA.itemToMap(product, true)));
+	}
+
+	private void inventory(long index, SplittableRandom random, List<PendingWrite> out) {
+		SyntheticProduct synthetic = SyntheticProduct.of(productSeed, index);
+		Inventory inventory = new Inventory();
+		inventory.setId(ParallelDataGenerator.padded("INV_", index, productIdWidth));
+		inventory.setProductId(ParallelDataGenerator.padded("PROD_", index, productIdWidth));
+		inventory.setReorderPoint(10 + random.nextInt(40));
+		inventory.setReorderQuantity(100 + random.nextInt(400));
+		inventory.setReservedQuantity(0);
+		inventory.setQuantity(synthetic.stockLevel());
+		inventory.setWarehouseLocation(pick(random, WAREHOUSES));
+		inventory.setSku("SKU-" + synthetic.brand().toUpperCase().replace(' ', '-').replace("'", "") + "-"
+				+ synthetic.model());
+		stamp(inventory, Instant.ofEpochSecond(asOfSecond - synthetic.ageDays() * 86400L));
+		out.add(put(inventoryTable, INVENTORY_SCHEMA.itemToMap(inventory, true)));
+	}
+
+	// Each order is written with its items embedded and every item again into the order items table
+	private void order(long index, SplittableRandom random, List<PendingWrite> out) {
+		String orderId = ParallelDataGenerator.padded("ORD_", index, orderIdWidth);
+		Instant orderDate = Instant.ofEpochSecond(asOfSecond - 1 - random.nextLong(90 * 86400L));
+
+		List<OrderItem> items = new ArrayList<>();
+		BigDecimal total = BigDecimal.ZERO;
+		int itemCount = 1 + random.nextInt(4);
+		for (int j = 0; j < itemCount; j++) {
+			long productIndex = skewed(random, products);
+			SyntheticProduct synthetic = SyntheticProduct.of(productSeed, productIndex);
+			int quantity = 1 + random.nextInt(3);
+			BigDecimal unitPrice = BigDecimal.valueOf(synthetic.priceCents(), 2);
+
+			OrderItem item = new OrderItem();
+			item.setId("ORDITEM_" + orderId + "_" + j);
+			item.setOrderId(orderId);
+			item.setProductId(ParallelDataGenerator.padded("PROD_", productIndex, productIdWidth));
+			item.setProductName(synthetic.name());
+			item.setQuantity(quantity);
+			item.setUnitPrice(unitPrice);
+			item.setSubtotal(unitPrice.multiply(BigDecimal.valueOf(quantity)));
+			stamp(item, orderDate);
+			items.add(item);
+			total = total.add(item.getSubtotal());
+			out.add(put(orderItemTable, ORDER_ITEM_SCHEMA.itemToMap(item, true)));
+		}
+
+		Order order = new Order();
+		order.setId(orderId);
+		order.setUserId(ParallelDataGenerator.padded("USR_", skewed(random, users), userIdWidth));
+		order.setItems(items);
+		order.setTotalAmount(total);
+		OrderStatus status = ORDER_STATUSES[random.nextInt(ORDER_STATUSES.length)];
+		order.setStatus(status);
+		String location = pick(random, LOCATIONS);
+		order.setShippingAddress(location);
+		order.setBillingAddress(location);
+		order.setPaymentMethod(pick(random, PAYMENT_METHODS));
+		order.setOrderDate(orderDate);
+		if (status == OrderStatus.SHIPPED || status == OrderStatus.DELIVERED) {
+			order.setTrackingNumber("TRK" + (100000000L + random.nextLong(900000000L)));
+		}
+		stamp(order, orderDate);
+		out.add(put(orderTable, ORDER_SCHEMA.itemToMap(order, true)));
+	}
+
+	private static void stamp(Component component, Instant createdAt) {
+		component.setStatus(ItemStatus.ACTIVE);
+		component.setCreatedAt(createdAt);
+		component.setUpdatedAt(createdAt);
+		component.setCreatedBy(CREATED_BY);
+		component.setUpdatedBy(CREATED_BY);
+		component.setVersion(1L);
+	}
+
+	private static PendingWrite put(String table, Map<String, AttributeValue> item) {
+		WriteRequest request = WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build();
+		return new PendingWrite(table, request, units(request));
+	}
+
+	private static int units(WriteRequest request) {
+		int bytes = request.putRequest() != null ? size(request.putRequest().item()) : 0;
+		return Math.max(1, (bytes + WRITE_UNIT_BYTES - 1) / WRITE_UNIT_BYTES);
+	}
+
+	// Item size as DynamoDB counts it: attribute names plus values, numbers about one byte per two digits
+	private static int size(Map<String, AttributeValue> item) {
+		int bytes = 0;
+		for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+			bytes += attribute.getKey().getBytes(StandardCharsets.UTF_8).length + size(attribute.getValue());
+		}
+		return bytes;
+	}
+
+	private static int size(AttributeValue value) {
+		if (value.s() != null) {
+			return value.s().getBytes(StandardCharsets.UTF_8).length;
+		}
+		if (value.n() != null) {
+			return value.n().length() / 2 + 2;
+		}
+		if (value.bool() != null || Boolean.TRUE.equals(value.nul())) {
+			return 1;
+		}
+		if (value.hasM()) {
+			return 3 + size(value.m());
+		}
+		if (value.hasL()) {
+			return 3 + value.l().stream().mapToInt(element -> 1 + size(element)).sum();
+		}
+		if (value.hasSs()) {
+			return value.ss().stream().mapToInt(element -> element.getBytes(StandardCharsets.UTF_8).length).sum();
+		}
+		if (value.hasNs()) {
+			return value.ns().stream().mapToInt(element -> element.length() / 2 + 2).sum();
+		}
+		return value.b() != null ? value.b().asByteArray().length : 0;
+	}
+
+	private long skewed(SplittableRandom random, long bound) {
+		return ParallelDataGenerator.skewed(random, bound, skew);
+	}
+
+	private static <T> T pick(SplittableRandom random, T[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	// Number of leading partitions of each dataset known to be written, saved atomically at most once a second
+	private static final class Checkpoint {
+
+		private static final String FINGERPRINT = "fingerprint";
+
+		private final Path file;
+		private final Properties completed = new Properties();
+		private final Map<String, TreeSet<Long>> outOfOrder = new HashMap<>();
+		private long savedAt;
+
+		Checkpoint(Path file, String fingerprint) throws IOException {
+			this.file = file;
+			if (Files.exists(file)) {
+				try (Reader reader = Files.newBufferedReader(file)) {
+					completed.load(reader);
+				}
+				if (!fingerprint.equals(completed.getProperty(FINGERPRINT))) {
+					throw new IllegalStateException("Checkpoint " + file + " was written with different options, "
+							+ "delete it or pass another --checkpoint to start over");
+				}
+			}
+			completed.setProperty(FINGERPRINT, fingerprint);
+		}
+
+		synchronized long completed(String dataset) {
+			return Long.parseLong(completed.getProperty(dataset, "0"));
+		}
+
+		synchronized void complete(String dataset, long partition) throws IOException {
+			TreeSet<Long> done = outOfOrder.computeIfAbsent(dataset, name -> new TreeSet<>());
+			done.add(partition);
+
+			long next = completed(dataset);
+			while (done.remove(next)) {
+				next++;
+			}
+			completed.setProperty(dataset, String.valueOf(next));
+
+			if (System.nanoTime() - savedAt > TimeUnit.SECONDS.toNanos(1)) {
+				save();
+			}
+		}
+
+		synchronized void save() throws IOException {
+			Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+			try (Writer writer = Files.newBufferedWriter(temporary)) {
+				completed.store(writer, "Bulk load progress, partitions completed per dataset");
+			}
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			savedAt = System.nanoTime();
+		}
+	}
+}
@@ -32,7 +32,13 @@ public class EciCommDataGenerator {
 			"CLOTHING", Map.of("Men", new double[] { 20.0, 200.0 }, "Women", new double[] { 20.0, 200.0 }, "Kids",
 					new double[] { 10.0, 100.0 }, "Sports", new double[] { 30.0, 300.0 }));
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException, InterruptedException {
+		// Any option switches to the parallel, seeded generator for large datasets
+		if (args.length > 0) {
+			ParallelDataGenerator.main(args);
+			return;
+		}
+
 		// Generate files for training
 		generateUserProfiles("user_profiles.csv", 1000);
 		generateProducts("products.csv", 500);
@@ -0,0 +1,27 @@
+package com.aygo.eciComm.tools.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+// How generated tables are laid out on disk, selected with --format
+interface OutputFormat {
+
+	interface TableSink extends Closeable {
+
+		// Called in partition order with sealed buffers
+		void append(RowBuffer rows) throws IOException;
+	}
+
+	RowBuffer newBuffer(int columns);
+
+	TableSink open(Path directory, String table, String[] columns) throws IOException;
+
+	static OutputFormat of(String name) {
+		return switch (name) {
+		case "csv" -> new CsvFormat();
+		case "columnar" -> new ColumnarFormat();
+		default -> throw new IllegalArgumentException("Unknown format " + name + ", expected csv or columnar");
+		};
+	}
+}
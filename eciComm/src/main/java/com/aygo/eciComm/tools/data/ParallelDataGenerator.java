@@ -0,0 +1,291 @@
+package com.aygo.eciComm.tools.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Scalable mode of EciCommDataGenerator, same files and columns but sized for load tests and training runs:
+//
+//   EciCommDataGenerator --out=data --seed=42 --users=10000000 --products=1000000 --behavior=1000000000
+//
+// Rows are generated in parallel partitions and streamed to disk, so billions of rows need no more memory
+// than a few partitions. The same seed, --as-of date and --partition-rows always produce byte-identical
+// files, whatever the number of --threads.
+// --format=columnar writes typed, compressed column files instead of CSV, see ColumnarFormat.
+public final class ParallelDataGenerator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ParallelDataGenerator.class);
+
+	private static final String[] AGE_GROUPS = { "18-24", "25-34", "35-44", "45-54", "55-64", "65+" };
+	private static final String[] LOCATIONS = { "New York", "Los Angeles", "Chicago", "Houston", "Miami" };
+	private static final String[] ACTIONS = { "VIEW", "ADD_TO_CART", "PURCHASE", "WISHLIST", "REVIEW" };
+	private static final String[] ORDER_STATUSES = { "PENDING", "CONFIRMED", "SHIPPED", "DELIVERED", "CANCELLED" };
+	private static final String[] PAYMENT_METHODS = { "CREDIT_CARD", "DEBIT_CARD", "PAYPAL", "BANK_TRANSFER" };
+	private static final String[] RECOMMENDATION_TYPES = { "COLLABORATIVE", "CONTENT_BASED", "POPULARITY",
+			"TRENDING" };
+
+	private static final int RECOMMENDATIONS_PER_USER = 5;
+	private static final long DAY_SECONDS = 86400;
+
+	// Keeps the datasets, and the per-product attributes, on unrelated random streams
+	private static final long USERS_SALT = 1;
+	static final long PRODUCTS_SALT = 2;
+	private static final long BEHAVIOR_SALT = 3;
+	private static final long ORDERS_SALT = 4;
+	private static final long RECOMMENDATIONS_SALT = 5;
+
+	private final Path output;
+	private final OutputFormat format;
+	private final long seed;
+	private final int threads;
+	private final int partitionRows;
+	private final long users;
+	private final long products;
+	private final long behaviorEvents;
+	private final long orders;
+	private final long recommendationUsers;
+	private final double skew;
+	private final long asOfDay;
+	private final long asOfSecond;
+	private final int userIdWidth;
+	private final int productIdWidth;
+	private final int orderIdWidth;
+	private final long productSeed;
+
+	private ParallelDataGenerator(Map<String, String> options) {
+		this.output = Path.of(options.getOrDefault("out", "."));
+		this.format = OutputFormat.of(options.getOrDefault("format", "csv"));
+		this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+		this.threads = Integer.parseInt(
+				options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+		this.partitionRows = Integer.parseInt(options.getOrDefault("partition-rows", "16384"));
+		this.users = Long.parseLong(options.getOrDefault("users", "1000"));
+		this.products = Long.parseLong(options.getOrDefault("products", "500"));
+		this.behaviorEvents = Long.parseLong(options.getOrDefault("behavior", "10000"));
+		this.orders = Long.parseLong(options.getOrDefault("orders", "5000"));
+		this.recommendationUsers = Long.parseLong(options.getOrDefault("recommendations", "1000"));
+		this.skew = Double.parseDouble(options.getOrDefault("skew", "0"));
+
+		// Dates are relative to a fixed day so reruns with the same seed reproduce the files
+		LocalDate asOf = LocalDate.parse(options.getOrDefault("as-of", LocalDate.now(ZoneOffset.UTC).toString()));
+		this.asOfDay = asOf.toEpochDay();
+		this.asOfSecond = asOf.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+
+		if (threads < 1 || partitionRows < 1 || users < 1 || products < 1 || skew < 0) {
+			throw new IllegalArgumentException("threads, partition-rows, users and products must be positive, "
+					+ "skew must not be negative");
+		}
+
+		this.userIdWidth = idWidth(users);
+		this.productIdWidth = idWidth(products);
+		this.orderIdWidth = idWidth(orders);
+		this.productSeed = datasetSeed(seed, PRODUCTS_SALT);
+	}
+
+	// Options are --name=value, see the fields above for names and defaults.
+	// --load=dynamodb writes entities straight to the application tables instead, see DynamoDbBulkLoader.
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Map<String, String> options = parseOptions(args);
+		if ("dynamodb".equals(options.get("load"))) {
+			new DynamoDbBulkLoader(options).run();
+		} else {
+			new ParallelDataGenerator(options).run();
+		}
+	}
+
+	public static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--")) {
+				throw new IllegalArgumentException("Unexpected argument " + arg + ", options are --name=value");
+			}
+			int separator = arg.indexOf('=');
+			if (separator < 0) {
+				options.put(arg.substring(2), "true");
+			} else {
+				options.put(arg.substring(2, separator), arg.substring(separator + 1));
+			}
+		}
+		return options;
+	}
+
+	private void run() throws IOException, InterruptedException {
+		Files.createDirectories(output);
+		ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "data-generator");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try {
+			PartitionedWriter writer = new PartitionedWriter(workers, threads, format, output, partitionRows);
+			long started = System.nanoTime();
+
+			generate(writer, "user_profiles", List.of("user_profiles"), List.<String[]>of(new String[] { "user_id",
+					"age_group", "gender", "location", "preferred_categories", "avg_order_value", "total_orders",
+					"member_since", "last_purchase_date" }), users, USERS_SALT, this::userProfiles);
+
+			generate(writer, "products", List.of("products"), List.<String[]>of(new String[] { "product_id", "name",
+					"category", "subcategory", "price", "avg_rating", "total_reviews", "stock_level",
+					"created_date" }), products, PRODUCTS_SALT, this::products);
+
+			generate(writer, "user_behavior", List.of("user_behavior"), List.<String[]>of(new String[] { "user_id",
+					"product_id", "timestamp", "action", "session_id", "time_spent", "add_to_cart", "purchase",
+					"page_views" }), behaviorEvents, BEHAVIOR_SALT, this::userBehavior);
+
+			generate(writer, "orders", List.of("orders", "order_items"), List.<String[]>of(
+					new String[] { "order_id", "user_id", "order_date", "total_amount", "status", "payment_method",
+							"shipping_address" },
+					new String[] { "order_item_id", "order_id", "product_id", "quantity", "unit_price",
+							"subtotal" }), orders, ORDERS_SALT, this::orders);
+
+			generate(writer, "product_recommendations", List.of("product_recommendations"), List.<String[]>of(
+					new String[] { "user_id", "recommended_product_id", "recommendation_score",
+							"recommendation_type", "generated_date" }), recommendationUsers, RECOMMENDATIONS_SALT,
+					this::recommendations);
+
+			LOG.info("Generated all datasets in {} with {} threads in {} s", output.toAbsolutePath(), threads,
+					(System.nanoTime() - started) / 1_000_000_000.0);
+		}
+
+		finally {
+			workers.shutdownNow();
+		}
+	}
+
+	private void generate(PartitionedWriter writer, String name, List<String> tables, List<String[]> columns,
+			long rows, long salt, PartitionedWriter.PartitionGenerator generator)
+			throws IOException, InterruptedException {
+		long started = System.nanoTime();
+		writer.write(tables, columns, rows, datasetSeed(seed, salt), generator);
+
+		double seconds = Math.max(1e-9, (System.nanoTime() - started) / 1_000_000_000.0);
+		LOG.info("Generated {} rows of {} in {} s ({} rows/s)", rows, name, seconds, Math.round(rows / seconds));
+	}
+
+	private void userProfiles(long first, long count, SplittableRandom random, RowBuffer[] out) {
+		int[] categories = { 0, 1, 2, 3 };
+		StringBuilder preferred = new StringBuilder();
+
+		for (long i = first; i < first + count; i++) {
+			// Three distinct categories, a partial Fisher-Yates shuffle
+			preferred.setLength(0);
+			for (int c = 0; c < 3; c++) {
+				int swap = c + random.nextInt(categories.length - c);
+				int category = categories[swap];
+				categories[swap] = categories[c];
+				categories[c] = category;
+				preferred.append(c == 0 ? "" : "|").append(SyntheticProduct.CATEGORIES[category]);
+			}
+
+			long memberSince = asOfDay - 1 - random.nextInt(365 * 2);
+			long lastPurchase = memberSince + 1 + random.nextLong(Math.max(1, asOfDay - memberSince));
+
+			out[0].id("USR_", i, userIdWidth).field(pick(random, AGE_GROUPS)).field(random.nextBoolean() ? "M" : "F")
+					.field(pick(random, LOCATIONS)).field(preferred).decimal(5000 + random.nextLong(45000), 2)
+					.field(1 + random.nextInt(50)).date(memberSince).date(lastPurchase).endRow();
+		}
+	}
+
+	// Product attributes are a pure function of the product index, so orders reference the listed price
+	// without keeping the catalog in memory
+	private void products(long first, long count, SplittableRandom ignored, RowBuffer[] out) {
+		for (long i = first; i < first + count; i++) {
+			SyntheticProduct product = SyntheticProduct.of(productSeed, i);
+
+			out[0].id("PROD_", i, productIdWidth).field(product.name()).field(product.categoryName())
+					.field(product.subcategoryName()).decimal(product.priceCents(), 2)
+					.decimal(product.ratingTenths(), 1).field(product.totalReviews()).field(product.stockLevel())
+					.date(asOfDay - product.ageDays()).endRow();
+		}
+	}
+
+	private void userBehavior(long first, long count, SplittableRandom random, RowBuffer[] out) {
+		for (long i = first; i < first + count; i++) {
+			boolean addToCart = random.nextDouble() < 0.3;
+			boolean purchase = addToCart && random.nextDouble() < 0.4;
+
+			out[0].id("USR_", skewed(random, users), userIdWidth).id("PROD_", skewed(random, products), productIdWidth)
+					.dateTime(asOfSecond - 1 - random.nextLong(90 * DAY_SECONDS)).field(pick(random, ACTIONS))
+					.uuid(random.nextLong(), random.nextLong()).field(random.nextInt(300)).field(addToCart)
+					.field(purchase).field(random.nextInt(10)).endRow();
+		}
+	}
+
+	private void orders(long first, long count, SplittableRandom random, RowBuffer[] out) {
+		for (long i = first; i < first + count; i++) {
+			long total = 0;
+
+			// Between 1 and 4 items, each at its product's listed price
+			int itemCount = 1 + random.nextInt(4);
+			for (int j = 0; j < itemCount; j++) {
+				long product = skewed(random, products);
+				int quantity = 1 + random.nextInt(3);
+				long unitPrice = SyntheticProduct.of(productSeed, product).priceCents();
+				total += quantity * unitPrice;
+
+				out[1].id("ORDITEM_ORD_", i, orderIdWidth, j).id("ORD_", i, orderIdWidth)
+						.id("PROD_", product, productIdWidth).field(quantity).decimal(unitPrice, 2)
+						.decimal(quantity * unitPrice, 2).endRow();
+			}
+
+			out[0].id("ORD_", i, orderIdWidth).id("USR_", skewed(random, users), userIdWidth)
+					.dateTime(asOfSecond - 1 - random.nextLong(90 * DAY_SECONDS)).decimal(total, 2)
+					.field(pick(random, ORDER_STATUSES)).field(pick(random, PAYMENT_METHODS))
+					.field(pick(random, LOCATIONS)).endRow();
+		}
+	}
+
+	private void recommendations(long first, long count, SplittableRandom random, RowBuffer[] out) {
+		for (long i = first; i < first + count; i++) {
+			long user = random.nextLong(users);
+
+			for (int j = 0; j < RECOMMENDATIONS_PER_USER; j++) {
+				out[0].id("USR_", user, userIdWidth).id("PROD_", skewed(random, products), productIdWidth)
+						.decimal(500 + random.nextInt(501), 3).field(pick(random, RECOMMENDATION_TYPES))
+						.dateTime(asOfSecond - 1 - random.nextLong(DAY_SECONDS)).endRow();
+			}
+		}
+	}
+
+	static long datasetSeed(long seed, long salt) {
+		return PartitionedWriter.mix(seed ^ PartitionedWriter.mix(salt));
+	}
+
+	private long skewed(SplittableRandom random, long bound) {
+		return skewed(random, bound, skew);
+	}
+
+	// Uniform with --skew=0, larger values concentrate traffic on the lowest ids like a popularity tail
+	static long skewed(SplittableRandom random, long bound, double skew) {
+		if (skew == 0) {
+			return random.nextLong(bound);
+		}
+		return Math.min(bound - 1, (long) (bound * Math.pow(random.nextDouble(), 1 + skew)));
+	}
+
+	private static String pick(SplittableRandom random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	// Same text CsvRowBuffer.id writes
+	static String padded(String prefix, long value, int width) {
+		String digits = String.valueOf(value);
+		return digits.length() >= width ? prefix + digits : prefix + "0".repeat(width - digits.length()) + digits;
+	}
+
+	static int idWidth(long count) {
+		return Math.max(6, String.valueOf(Math.max(0, count - 1)).length());
+	}
+}
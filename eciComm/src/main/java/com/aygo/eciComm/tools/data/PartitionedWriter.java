@@ -0,0 +1,117 @@
+package com.aygo.eciComm.tools.data;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Generates a dataset in fixed-size partitions on a worker pool and appends them to the output tables in
+// partition order. Every partition draws from its own SplittableRandom seeded from (seed, dataset, partition),
+// so the output only depends on the seed and never on the number of threads. At most twice as many partitions
+// as workers are in flight and their buffers are reused, memory stays constant whatever the row count.
+final class PartitionedWriter {
+
+	// Fills the buffers, one per output table, with rows [first, first + count) of the dataset
+	@FunctionalInterface
+	interface PartitionGenerator {
+		void generate(long first, long count, SplittableRandom random, RowBuffer[] out);
+	}
+
+	private final ExecutorService workers;
+	private final OutputFormat format;
+	private final Path directory;
+	private final int maxInFlight;
+	private final int partitionRows;
+
+	PartitionedWriter(ExecutorService workers, int threads, OutputFormat format, Path directory, int partitionRows) {
+		this.workers = workers;
+		this.format = format;
+		this.directory = directory;
+		this.maxInFlight = Math.max(2, threads * 2);
+		this.partitionRows = partitionRows;
+	}
+
+	void write(List<String> tables, List<String[]> columns, long rows, long seed, PartitionGenerator generator)
+			throws IOException, InterruptedException {
+		OutputFormat.TableSink[] sinks = new OutputFormat.TableSink[tables.size()];
+		try {
+			for (int i = 0; i < sinks.length; i++) {
+				sinks[i] = format.open(directory, tables.get(i), columns.get(i));
+			}
+
+			Deque<RowBuffer[]> free = new ArrayDeque<>();
+			Deque<Future<RowBuffer[]>> inFlight = new ArrayDeque<>();
+			long partitions = (rows + partitionRows - 1) / partitionRows;
+
+			for (long partition = 0; partition < partitions; partition++) {
+				if (inFlight.size() == maxInFlight) {
+					free.push(append(inFlight.poll(), sinks));
+				}
+
+				RowBuffer[] buffers = free.isEmpty() ? newBuffers(columns) : free.pop();
+				long first = partition * partitionRows;
+				long count = Math.min(partitionRows, rows - first);
+				SplittableRandom random = new SplittableRandom(mix(seed + partition));
+				inFlight.add(workers.submit(() -> {
+					for (RowBuffer buffer : buffers) {
+						buffer.reset();
+					}
+					generator.generate(first, count, random, buffers);
+					for (RowBuffer buffer : buffers) {
+						buffer.seal();
+					}
+					return buffers;
+				}));
+			}
+
+			while (!inFlight.isEmpty()) {
+				append(inFlight.poll(), sinks);
+			}
+		}
+
+		finally {
+			for (OutputFormat.TableSink sink : sinks) {
+				if (sink != null) {
+					sink.close();
+				}
+			}
+		}
+	}
+
+	// SplitMix64 finalizer, spreads consecutive seeds over unrelated generator states
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static RowBuffer[] append(Future<RowBuffer[]> partition, OutputFormat.TableSink[] sinks)
+			throws IOException, InterruptedException {
+		RowBuffer[] buffers;
+		try {
+			buffers = partition.get();
+		}
+
+		catch (ExecutionException e) {
+			throw new IOException("Generating partition failed: " + e.getCause().getMessage(), e.getCause());
+		}
+
+		for (int i = 0; i < sinks.length; i++) {
+			sinks[i].append(buffers[i]);
+		}
+		return buffers;
+	}
+
+	private RowBuffer[] newBuffers(List<String[]> columns) {
+		RowBuffer[] buffers = new RowBuffer[columns.size()];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = format.newBuffer(columns.get(i).length);
+		}
+		return buffers;
+	}
+}
@@ -0,0 +1,38 @@
+package com.aygo.eciComm.tools.data;
+
+// Rows of one partition as the generator produces them, field by field in column order.
+// Each output format encodes the typed fields its own way, the generator code is shared.
+interface RowBuffer {
+
+	RowBuffer field(CharSequence value);
+
+	RowBuffer field(long value);
+
+	RowBuffer field(boolean value);
+
+	// prefix followed by value zero-padded to width digits, e.g. USR_000042
+	RowBuffer id(String prefix, long value, int width);
+
+	// Child id such as ORDITEM_ORD_000042_3
+	RowBuffer id(String prefix, long value, int width, long sequence);
+
+	// Fixed-point value with the given number of decimals, e.g. cents with scale 2
+	RowBuffer decimal(long unscaled, int scale);
+
+	RowBuffer date(long epochDay);
+
+	RowBuffer dateTime(long epochSecond);
+
+	// Random (version 4 layout) UUID from two longs
+	RowBuffer uuid(long high, long low);
+
+	RowBuffer endRow();
+
+	int rows();
+
+	void reset();
+
+	// Runs on the worker once the partition is complete, before it is appended in order
+	default void seal() {
+	}
+}
@@ -0,0 +1,53 @@
+package com.aygo.eciComm.tools.data;
+
+import java.util.SplittableRandom;
+
+// Attributes of the n-th generated product, a pure function of (seed, index). Files and tables built
+// from the same seed agree on every product without the catalog ever being held in memory.
+record SyntheticProduct(long index, int category, int subcategory, long priceCents, String brand, int modelYear,
+		int modelNumber, int ratingTenths, int totalReviews, int stockLevel, int ageDays) {
+
+	static final String[] CATEGORIES = { "ELECTRONICS", "CLOTHING", "BOOKS", "HOME" };
+	static final String[][] SUBCATEGORIES = { { "Laptops", "Smartphones", "Tablets", "Accessories" },
+			{ "Men", "Women", "Kids", "Sports" }, { "Fiction", "Non-Fiction", "Technical", "Children" },
+			{ "Kitchen", "Furniture", "Decor", "Garden" } };
+
+	// Price ranges in cents by category and subcategory, the rest fall back to 10-100
+	private static final long[][][] PRICE_RANGES = {
+			{ { 50000, 300000 }, { 20000, 150000 }, { 10000, 100000 }, { 1000, 20000 } },
+			{ { 2000, 20000 }, { 2000, 20000 }, { 1000, 10000 }, { 3000, 30000 } } };
+	private static final long[] DEFAULT_PRICE_RANGE = { 1000, 10000 };
+
+	private static final String[][] BRANDS = { { "Apple", "Samsung", "Dell", "HP", "Lenovo" },
+			{ "Nike", "Adidas", "Puma", "Under Armour", "Levi's" } };
+	private static final String[] DEFAULT_BRANDS = { "Generic", "Basic", "Premium", "Value" };
+
+	static SyntheticProduct of(long seed, long index) {
+		SplittableRandom random = new SplittableRandom(PartitionedWriter.mix(seed + index));
+		int category = random.nextInt(CATEGORIES.length);
+		int subcategory = random.nextInt(SUBCATEGORIES[category].length);
+		long[] range = category < PRICE_RANGES.length ? PRICE_RANGES[category][subcategory] : DEFAULT_PRICE_RANGE;
+		long price = range[0] + random.nextLong(range[1] - range[0]);
+		String[] brands = category < BRANDS.length ? BRANDS[category] : DEFAULT_BRANDS;
+
+		return new SyntheticProduct(index, category, subcategory, price, brands[random.nextInt(brands.length)],
+				2020 + random.nextInt(5), random.nextInt(100), 30 + random.nextInt(21), random.nextInt(1000),
+				random.nextInt(1000), random.nextInt(365));
+	}
+
+	String categoryName() {
+		return CATEGORIES[category];
+	}
+
+	String subcategoryName() {
+		return SUBCATEGORIES[category][subcategory];
+	}
+
+	String model() {
+		return String.valueOf(modelYear) + modelNumber;
+	}
+
+	String name() {
+		return subcategoryName() + " " + brand + " " + model();
+	}
+}
@@ -0,0 +1,40 @@
+package com.aygo.eciComm.tools.data;
+
+import java.util.concurrent.TimeUnit;
+
+// Token bucket shared by all writer threads, refilled continuously at ratePerSecond up to burst tokens.
+// A caller may take more than is available, the debt is paid by sleeping, so requests larger than the
+// burst still go through at the configured average rate. A rate of zero or less disables the limit.
+final class TokenBucket {
+
+	private final double ratePerSecond;
+	private final double burst;
+	private double tokens;
+	private long refilledAt = System.nanoTime();
+
+	TokenBucket(double ratePerSecond, double burst) {
+		this.ratePerSecond = ratePerSecond;
+		this.burst = Math.max(1, burst);
+		this.tokens = this.burst;
+	}
+
+	void acquire(double permits) throws InterruptedException {
+		long waitNanos = reserve(permits);
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	private synchronized long reserve(double permits) {
+		if (ratePerSecond <= 0) {
+			return 0;
+		}
+
+		long now = System.nanoTime();
+		tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerSecond / 1e9);
+		refilledAt = now;
+
+		tokens -= permits;
+		return tokens >= 0 ? 0 : (long) (-tokens / ratePerSecond * 1e9);
+	}
+}
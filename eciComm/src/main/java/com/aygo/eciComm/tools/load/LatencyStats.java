@@ -0,0 +1,123 @@
+package com.aygo.eciComm.tools.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Latency of every endpoint in microseconds. Response time runs from the intended start of a request, so
+// time spent queued behind a slow server counts against it; service time runs from the moment it was sent.
+// Interval reports cover everything sent, the final report only requests intended after the warmup.
+final class LatencyStats {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LatencyStats.class);
+
+	private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(1);
+	private static final int SIGNIFICANT_DIGITS = 3;
+
+	private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+	void record(LoadRequest request, long responseNanos, long serviceNanos, int status, boolean measured) {
+		Endpoint endpoint = endpoint(request.endpoint());
+		long response = micros(responseNanos);
+		endpoint.interval.recordValue(response);
+		if (!measured) {
+			return;
+		}
+
+		endpoint.response.recordValue(response);
+		endpoint.service.recordValue(micros(serviceNanos));
+		if (status < 0) {
+			endpoint.failures.increment();
+		} else if (status >= 500) {
+			endpoint.serverErrors.increment();
+		} else if (status >= 400) {
+			endpoint.clientErrors.increment();
+		}
+	}
+
+	// Arrivals that found --max-in-flight requests outstanding and were not sent
+	void dropped(LoadRequest request, boolean measured) {
+		if (measured) {
+			endpoint(request.endpoint()).dropped.increment();
+		}
+	}
+
+	synchronized void logInterval(double seconds) {
+		for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+			Endpoint endpoint = entry.getValue();
+			endpoint.intervalHistogram = endpoint.interval.getIntervalHistogram(endpoint.intervalHistogram);
+			Histogram histogram = endpoint.intervalHistogram;
+			if (histogram.getTotalCount() > 0) {
+				LOG.info("{}: {} req/s, p50 {} ms, p99 {} ms, max {} ms", entry.getKey(),
+						Math.round(histogram.getTotalCount() / seconds), millis(histogram.getValueAtPercentile(50)),
+						millis(histogram.getValueAtPercentile(99)), millis(histogram.getMaxValue()));
+			}
+		}
+	}
+
+	synchronized void logSummary(double seconds, Path histogramDir) throws IOException {
+		LOG.info(String.format("%-26s %9s %8s %8s %8s %8s %8s %9s %9s %6s %6s %6s %7s", "endpoint", "count", "req/s",
+				"p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99", "4xx", "5xx", "failed", "dropped"));
+
+		for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+			Endpoint endpoint = entry.getValue();
+			Histogram response = endpoint.response;
+			LOG.info(String.format("%-26s %9d %8d %8s %8s %8s %8s %9s %9s %6d %6d %6d %7d", entry.getKey(),
+					response.getTotalCount(), Math.round(response.getTotalCount() / seconds),
+					millis(response.getValueAtPercentile(50)), millis(response.getValueAtPercentile(90)),
+					millis(response.getValueAtPercentile(99)), millis(response.getValueAtPercentile(99.9)),
+					millis(response.getMaxValue()), millis(endpoint.service.getValueAtPercentile(99)),
+					endpoint.clientErrors.sum(), endpoint.serverErrors.sum(), endpoint.failures.sum(),
+					endpoint.dropped.sum()));
+
+			// Percentile distributions in milliseconds, the format HdrHistogram's plotter reads
+			if (histogramDir != null) {
+				Files.createDirectories(histogramDir);
+				write(histogramDir.resolve(entry.getKey() + ".response.hgrm"), response);
+				write(histogramDir.resolve(entry.getKey() + ".service.hgrm"), endpoint.service);
+			}
+		}
+	}
+
+	private Endpoint endpoint(String name) {
+		return endpoints.computeIfAbsent(name, key -> new Endpoint());
+	}
+
+	private static void write(Path file, Histogram histogram) throws IOException {
+		try (PrintStream output = new PrintStream(Files.newOutputStream(file))) {
+			histogram.outputPercentileDistribution(output, 1000.0);
+		}
+	}
+
+	private static long micros(long nanos) {
+		return Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0), MAX_MICROS);
+	}
+
+	private static String millis(long micros) {
+		return String.format("%.2f", micros / 1000.0);
+	}
+
+	private static final class Endpoint {
+
+		private final Recorder interval = new Recorder(MAX_MICROS, SIGNIFICANT_DIGITS);
+		private final Histogram response = new ConcurrentHistogram(MAX_MICROS, SIGNIFICANT_DIGITS);
+		private final Histogram service = new ConcurrentHistogram(MAX_MICROS, SIGNIFICANT_DIGITS);
+		private final LongAdder clientErrors = new LongAdder();
+		private final LongAdder serverErrors = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final LongAdder dropped = new LongAdder();
+		private Histogram intervalHistogram;
+	}
+}
@@ -0,0 +1,196 @@
+package com.aygo.eciComm.tools.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aygo.eciComm.tools.data.ParallelDataGenerator;
+
+// Replays generated behavior and orders as HTTP traffic against a running application:
+//
+//   LoadGenerator --base-url=http://localhost:8080 --data=data --rate=500 --duration=PT5M --warmup=PT30S
+//       --hot-skus=20 --hot-fraction=0.3
+//
+// Arrivals follow an open model: request start times are drawn up front, Poisson distributed by default or
+// evenly spaced with --arrival=constant, and every request runs on its own virtual thread whether or not
+// earlier ones have completed. A slow server therefore sees the queue grow instead of the load easing off,
+// and response times measured from the intended start include that queueing. Requests beyond
+// --max-in-flight outstanding are dropped and counted rather than delayed.
+public final class LoadGenerator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+
+	private final String baseUrl;
+	private final double rate;
+	private final boolean poisson;
+	private final Duration duration;
+	private final Duration warmup;
+	private final Duration timeout;
+	private final Duration reportInterval;
+	private final int maxInFlight;
+	private final long seed;
+	private final Path histogramDir;
+	private final WorkloadSource source;
+
+	private final LatencyStats stats = new LatencyStats();
+	private final HttpClient client;
+	private final Semaphore inFlight;
+
+	LoadGenerator(Map<String, String> options) throws IOException {
+		this.baseUrl = options.getOrDefault("base-url", "http://localhost:8080").replaceAll("/+$", "");
+		this.rate = Double.parseDouble(options.getOrDefault("rate", "100"));
+		this.poisson = !"constant".equals(options.getOrDefault("arrival", "poisson"));
+		this.duration = Duration.parse(options.getOrDefault("duration", "PT1M"));
+		this.warmup = Duration.parse(options.getOrDefault("warmup", "PT10S"));
+		this.timeout = Duration.parse(options.getOrDefault("timeout", "PT10S"));
+		this.reportInterval = Duration.parse(options.getOrDefault("report-interval", "PT10S"));
+		this.maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "10000"));
+		this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+		this.histogramDir = options.containsKey("histogram-dir") ? Path.of(options.get("histogram-dir")) : null;
+
+		double orderRatio = Double.parseDouble(options.getOrDefault("order-ratio", "0.05"));
+		int eventBatch = Integer.parseInt(options.getOrDefault("event-batch", "50"));
+		int hotSkus = Integer.parseInt(options.getOrDefault("hot-skus", "0"));
+		double hotFraction = Double.parseDouble(options.getOrDefault("hot-fraction", "0.5"));
+
+		if (rate <= 0 || maxInFlight < 1 || orderRatio < 0 || orderRatio > 1 || hotFraction < 0 || hotFraction > 1) {
+			throw new IllegalArgumentException("rate and max-in-flight must be positive, "
+					+ "order-ratio and hot-fraction between 0 and 1");
+		}
+
+		// Defaults are the files EciCommDataGenerator writes with --format=csv
+		Path data = Path.of(options.getOrDefault("data", "data"));
+		this.source = new WorkloadSource(data.resolve(options.getOrDefault("behavior", "user_behavior.csv")),
+				data.resolve(options.getOrDefault("orders", "orders.csv")),
+				data.resolve(options.getOrDefault("order-items", "order_items.csv")),
+				Boolean.parseBoolean(options.getOrDefault("loop", "false")), orderRatio, eventBatch, hotSkus,
+				hotFraction);
+
+		this.inFlight = new Semaphore(maxInFlight);
+		this.client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(timeout)
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.build();
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		new LoadGenerator(ParallelDataGenerator.parseOptions(args)).run();
+	}
+
+	void run() throws IOException, InterruptedException {
+		ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "load-generator-report");
+			thread.setDaemon(true);
+			return thread;
+		});
+		reporter.scheduleAtFixedRate(() -> stats.logInterval(reportInterval.toMillis() / 1000.0),
+				reportInterval.toMillis(), reportInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+		LOG.info("Replaying at {} req/s ({} arrivals) against {} for {} after a {} warmup", rate,
+				poisson ? "poisson" : "constant", baseUrl, duration, warmup);
+
+		try {
+			long started = System.nanoTime();
+			long measureFrom = started + warmup.toNanos();
+			long end = measureFrom + duration.toNanos();
+			long sent = schedule(started, measureFrom, end);
+
+			// Let outstanding requests finish, they were intended inside the measured window
+			if (!inFlight.tryAcquire(maxInFlight, timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				LOG.warn("{} requests still outstanding after {}", maxInFlight - inFlight.availablePermits(), timeout);
+			}
+
+			double seconds = Math.max(Math.min(System.nanoTime(), end) - measureFrom, 1) / 1e9;
+			LOG.info("Load finished: {} requests sent", sent);
+			stats.logSummary(seconds, histogramDir);
+		}
+
+		finally {
+			reporter.shutdownNow();
+			source.close();
+		}
+	}
+
+	private long schedule(long started, long measureFrom, long end) throws IOException {
+		SplittableRandom random = new SplittableRandom(seed);
+		double offset = 0;
+		long sent = 0;
+
+		while (true) {
+			long intended = started + (long) offset;
+			if (intended >= end) {
+				return sent;
+			}
+
+			List<LoadRequest> requests = source.next(random);
+			if (requests.isEmpty()) {
+				LOG.info("Workload exhausted, rerun with --loop=true to replay it for the whole duration");
+				return sent;
+			}
+
+			for (long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()) {
+				LockSupport.parkNanos(wait);
+			}
+
+			boolean measured = intended >= measureFrom;
+			for (LoadRequest request : requests) {
+				if (inFlight.tryAcquire()) {
+					Thread.ofVirtual().name("load-client").start(() -> send(request, intended, measured));
+					sent++;
+				} else {
+					stats.dropped(request, measured);
+				}
+			}
+
+			// Exponential inter-arrival times give a Poisson process with the requested mean rate
+			double gap = poisson ? -Math.log(1 - random.nextDouble()) : 1;
+			offset += gap / rate * 1e9;
+		}
+	}
+
+	private void send(LoadRequest request, long intended, boolean measured) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + request.path())).timeout(timeout);
+		if (request.body() != null) {
+			builder.header("Content-Type", "application/json")
+					.method(request.method(), HttpRequest.BodyPublishers.ofString(request.body()));
+		} else {
+			builder.method(request.method(), HttpRequest.BodyPublishers.noBody());
+		}
+
+		long sentAt = System.nanoTime();
+		int status = -1;
+		try {
+			status = client.send(builder.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+		}
+
+		catch (IOException e) {
+			LOG.debug("{} {} failed: {}", request.method(), request.path(), e.toString());
+		}
+
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		finally {
+			long now = System.nanoTime();
+			stats.record(request, now - intended, now - sentAt, status, measured);
+			inFlight.release();
+		}
+	}
+}
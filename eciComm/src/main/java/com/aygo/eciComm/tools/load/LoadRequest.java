@@ -0,0 +1,13 @@
+package com.aygo.eciComm.tools.load;
+
+// One HTTP call of the replayed workload, endpoint names the latency histogram it is recorded in
+record LoadRequest(String endpoint, String method, String path, String body) {
+
+	static LoadRequest get(String endpoint, String path) {
+		return new LoadRequest(endpoint, "GET", path, null);
+	}
+
+	static LoadRequest post(String endpoint, String path, String body) {
+		return new LoadRequest(endpoint, "POST", path, body);
+	}
+}
@@ -0,0 +1,219 @@
+package com.aygo.eciComm.tools.load;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+// Turns the generated user_behavior.csv and orders.csv (with order_items.csv when present) into requests.
+// Files are streamed, never loaded, and reopened from the start with --loop. Behavior rows map by action:
+//
+//   VIEW         GET  /api/v1/products/{productId}
+//   ADD_TO_CART  GET  /api/v1/inventory/product/{productId}
+//   WISHLIST     GET  /api/v1/analysis/recommendations/{userId}
+//   REVIEW       GET  /api/v1/analysis/segment/{userId}
+//   PURCHASE     GET  /api/v1/analysis/also-bought/{productId}
+//
+// and every --event-batch rows are also posted as one batch to /api/v1/analysis/events. Order rows become
+// POST /api/v1/orders. With --hot-skus=N, --hot-fraction of product references are redirected to the
+// first N products seen, so hot keys are exercised even on uniformly generated data.
+final class WorkloadSource implements Closeable {
+
+	// user_behavior.csv and orders.csv / order_items.csv columns, as EciCommDataGenerator writes them
+	private static final int BEHAVIOR_USER = 0;
+	private static final int BEHAVIOR_PRODUCT = 1;
+	private static final int BEHAVIOR_TIMESTAMP = 2;
+	private static final int BEHAVIOR_ACTION = 3;
+	private static final int BEHAVIOR_SESSION = 4;
+	private static final int ORDER_ID = 0;
+	private static final int ORDER_USER = 1;
+	private static final int ORDER_PAYMENT = 5;
+	private static final int ORDER_ADDRESS = 6;
+	private static final int ITEM_ORDER = 1;
+	private static final int ITEM_PRODUCT = 2;
+	private static final int ITEM_QUANTITY = 3;
+	private static final int ITEM_PRICE = 4;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final CsvStream behavior;
+	private final CsvStream orders;
+	private final CsvStream orderItems;
+	private final double orderRatio;
+	private final int eventBatch;
+	private final int hotSkus;
+	private final double hotFraction;
+
+	private final List<Map<String, Object>> pendingEvents = new ArrayList<>();
+	private final LinkedHashSet<String> hotSet = new LinkedHashSet<>();
+	private List<String> hotList = List.of();
+	private String[] nextItem;
+
+	WorkloadSource(Path behaviorFile, Path ordersFile, Path orderItemsFile, boolean loop, double orderRatio,
+			int eventBatch, int hotSkus, double hotFraction) throws IOException {
+		this.behavior = Files.exists(behaviorFile) ? new CsvStream(behaviorFile, loop) : null;
+		this.orders = Files.exists(ordersFile) ? new CsvStream(ordersFile, loop) : null;
+		this.orderItems = orders != null && Files.exists(orderItemsFile) ? new CsvStream(orderItemsFile, loop) : null;
+		this.orderRatio = behavior == null ? 1 : orders == null ? 0 : orderRatio;
+		this.eventBatch = eventBatch;
+		this.hotSkus = hotSkus;
+		this.hotFraction = hotFraction;
+
+		if (behavior == null && orders == null) {
+			throw new IOException("Neither " + behaviorFile + " nor " + ordersFile + " exists");
+		}
+	}
+
+	// The requests of the next arrival, usually one, empty once the files are exhausted
+	List<LoadRequest> next(SplittableRandom random) throws IOException {
+		if (random.nextDouble() < orderRatio) {
+			String[] order = orders.next();
+			return order == null ? List.of() : List.of(order(order, random));
+		}
+
+		String[] row = behavior.next();
+		if (row == null) {
+			return List.of();
+		}
+
+		String productId = product(row[BEHAVIOR_PRODUCT], random);
+		String userId = row[BEHAVIOR_USER];
+		List<LoadRequest> requests = new ArrayList<>(2);
+		requests.add(switch (row[BEHAVIOR_ACTION]) {
+		case "ADD_TO_CART" -> LoadRequest.get("inventory.byProduct", "/api/v1/inventory/product/" + productId);
+		case "WISHLIST" -> LoadRequest.get("analysis.recommendations", "/api/v1/analysis/recommendations/" + userId);
+		case "REVIEW" -> LoadRequest.get("analysis.segment", "/api/v1/analysis/segment/" + userId);
+		case "PURCHASE" -> LoadRequest.get("analysis.alsoBought", "/api/v1/analysis/also-bought/" + productId);
+		default -> LoadRequest.get("product.get", "/api/v1/products/" + productId);
+		});
+
+		if (eventBatch > 0) {
+			Map<String, Object> event = new LinkedHashMap<>();
+			event.put("userId", userId);
+			event.put("sessionId", row[BEHAVIOR_SESSION]);
+			event.put("action", row[BEHAVIOR_ACTION]);
+			event.put("productId", productId);
+			event.put("timestamp", row[BEHAVIOR_TIMESTAMP] + "Z");
+			pendingEvents.add(event);
+
+			if (pendingEvents.size() >= eventBatch) {
+				requests.add(LoadRequest.post("analysis.events", "/api/v1/analysis/events", json(pendingEvents)));
+				pendingEvents.clear();
+			}
+		}
+		return requests;
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (CsvStream stream : new CsvStream[] { behavior, orders, orderItems }) {
+			if (stream != null) {
+				stream.close();
+			}
+		}
+	}
+
+	private LoadRequest order(String[] order, SplittableRandom random) throws IOException {
+		List<Map<String, Object>> items = new ArrayList<>();
+
+		// Items follow their order in order_items.csv, both files are written in order id order
+		if (orderItems != null) {
+			if (nextItem == null) {
+				nextItem = orderItems.next();
+			}
+			while (nextItem != null && nextItem[ITEM_ORDER].compareTo(order[ORDER_ID]) < 0) {
+				nextItem = orderItems.next();
+			}
+			while (nextItem != null && nextItem[ITEM_ORDER].equals(order[ORDER_ID])) {
+				items.add(Map.of("productId", product(nextItem[ITEM_PRODUCT], random), "quantity",
+						Integer.parseInt(nextItem[ITEM_QUANTITY]), "unitPrice", new BigDecimal(nextItem[ITEM_PRICE])));
+				nextItem = orderItems.next();
+			}
+		}
+		if (items.isEmpty()) {
+			items.add(Map.of("productId", hotList.isEmpty() ? "PROD_000000" : hotList.get(0), "quantity", 1));
+		}
+
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("userId", order[ORDER_USER]);
+		body.put("items", items);
+		body.put("paymentMethod", order[ORDER_PAYMENT]);
+		body.put("shippingAddress", order[ORDER_ADDRESS]);
+		body.put("billingAddress", order[ORDER_ADDRESS]);
+		return LoadRequest.post("order.create", "/api/v1/orders", json(body));
+	}
+
+	private String product(String productId, SplittableRandom random) {
+		if (hotSkus <= 0) {
+			return productId;
+		}
+		if (hotSet.size() < hotSkus && hotSet.add(productId)) {
+			hotList = List.copyOf(hotSet);
+		}
+		return random.nextDouble() < hotFraction ? hotList.get(random.nextInt(hotList.size())) : productId;
+	}
+
+	private String json(Object body) throws JsonProcessingException {
+		return objectMapper.writeValueAsString(body);
+	}
+
+	// Rows of one CSV file after its header, optionally starting over at the end
+	private static final class CsvStream implements Closeable {
+
+		private final Path file;
+		private final boolean loop;
+		private CSVReader reader;
+
+		CsvStream(Path file, boolean loop) throws IOException {
+			this.file = file;
+			this.loop = loop;
+			open();
+		}
+
+		String[] next() throws IOException {
+			try {
+				String[] row = reader.readNext();
+				if (row == null && loop) {
+					reader.close();
+					open();
+					row = reader.readNext();
+				}
+				return row;
+			}
+
+			catch (CsvValidationException e) {
+				throw new IOException("Malformed row in " + file + ": " + e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+
+		private void open() throws IOException {
+			Reader input = Files.newBufferedReader(file);
+			reader = new CSVReader(input);
+			try {
+				reader.readNext();
+			}
+
+			catch (CsvValidationException e) {
+				reader.close();
+				throw new IOException("Malformed header in " + file + ": " + e.getMessage(), e);
+			}
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.aygo.eciComm.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+class ObjectDeletionTest {
+
+	private static final String VERSION_METADATA = "VersionedRecordExtension:VersionAttribute";
+
+	@Test
+	void deletionRecordsAreNotVersioned() {
+		TableSchema<ObjectDeletion> schema = TableSchema.fromBean(ObjectDeletion.class);
+
+		assertThat(schema.attributeNames()).doesNotContain("version")
+				.contains("deletionId", "bucket", "objectKey", "attempts", "lastError", "status");
+		assertThat(schema.tableMetadata().customMetadataObject(VERSION_METADATA, String.class)).isEmpty();
+	}
+
+	@Test
+	void otherComponentsKeepTheirVersionCheck() {
+		assertThat(TableSchema.fromBean(Product.class).tableMetadata()
+				.customMetadataObject(VERSION_METADATA, String.class)).contains("version");
+	}
+
+	@Test
+	void savingWritesNoVersionEvenWhenOneIsSet() {
+		ObjectDeletion deletion = new ObjectDeletion("bucket", "products/p1/image.png");
+		deletion.setVersion(3L);
+
+		assertThat(TableSchema.fromBean(ObjectDeletion.class).itemToMap(deletion, true))
+				.containsKeys("deletionId", "objectKey").doesNotContainKey("version");
+		assertThat(deletion.getId()).isEqualTo("bucket/products/p1/image.png");
+	}
+}
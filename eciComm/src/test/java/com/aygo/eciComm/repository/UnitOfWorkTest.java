@@ -0,0 +1,216 @@
+package com.aygo.eciComm.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.aygo.eciComm.service.resilience.DependencyGuard;
+import com.aygo.eciComm.service.resilience.ResilienceRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+class UnitOfWorkTest {
+
+	private final DynamoDbEnhancedClient enhancedClient = mock(DynamoDbEnhancedClient.class);
+	private final DependencyGuard guard = mock(DependencyGuard.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final List<String> events = new ArrayList<>();
+	private UnitOfWork unitOfWork;
+
+	@BeforeEach
+	void setUp() {
+		ResilienceRegistry resilienceRegistry = mock(ResilienceRegistry.class);
+		when(resilienceRegistry.guard("dynamodb")).thenReturn(guard);
+		when(guard.write(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+
+		unitOfWork = new UnitOfWork();
+		ReflectionTestUtils.setField(unitOfWork, "enhancedClient", enhancedClient);
+		ReflectionTestUtils.setField(unitOfWork, "resilienceRegistry", resilienceRegistry);
+		ReflectionTestUtils.setField(unitOfWork, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(unitOfWork, "enabled", true);
+	}
+
+	@AfterEach
+	void noScopeLeftOpen() {
+		assertThat(UnitOfWork.current()).isNull();
+	}
+
+	@Test
+	void singleBufferedWriteIsFlushedOnReturnThenAfterCommitActionsRun() throws Throwable {
+		Object result = unitOfWork.bufferWrites(joinPoint(() -> {
+			save("Orders", "o1");
+			unitOfWork.afterCommit(() -> events.add("after commit"));
+			events.add("returned");
+		}));
+
+		assertThat(result).isEqualTo("result");
+		assertThat(events).containsExactly("returned", "put Orders/o1", "after commit");
+		verify(enhancedClient, never()).transactWriteItems(any(TransactWriteItemsEnhancedRequest.class));
+	}
+
+	@Test
+	void severalBufferedWritesGoOutAsOneTransaction() throws Throwable {
+		unitOfWork.bufferWrites(joinPoint(() -> {
+			save("Orders", "o1");
+			save("OrderItems", "i1");
+			unitOfWork.afterCommit(() -> events.add("after commit"));
+		}));
+
+		verify(enhancedClient).transactWriteItems(any(TransactWriteItemsEnhancedRequest.class));
+		assertThat(events).containsExactly("transact Orders/o1", "transact OrderItems/i1", "after commit");
+	}
+
+	@Test
+	void failedTransactionDropsAfterCommitActionsAndReportsTheConflict() {
+		when(enhancedClient.transactWriteItems(any(TransactWriteItemsEnhancedRequest.class)))
+				.thenThrow(TransactionCanceledException.builder().message("cancelled")
+						.cancellationReasons(CancellationReason.builder().code("None").build(),
+								CancellationReason.builder().code("ConditionalCheckFailed").build())
+						.build());
+
+		assertThatThrownBy(() -> unitOfWork.bufferWrites(joinPoint(() -> {
+			save("Orders", "o1");
+			save("OrderItems", "i1");
+			unitOfWork.afterCommit(() -> events.add("after commit"));
+		}))).isInstanceOf(ConditionalCheckFailedException.class);
+
+		assertThat(events).doesNotContain("after commit");
+		assertThat(meterRegistry.counter("dynamodb.optimistic.lock.conflicts", "table", "OrderItems").count())
+				.isEqualTo(1);
+		assertThat(meterRegistry.counter("dynamodb.optimistic.lock.conflicts", "table", "Orders").count()).isZero();
+	}
+
+	@Test
+	void failedSingleWriteDropsAfterCommitActions() {
+		assertThatThrownBy(() -> unitOfWork.bufferWrites(joinPoint(() -> {
+			UnitOfWork.current().buffer("Orders", "o1", Optional.of("o1"), new UnitOfWork.Write("Orders", () -> {
+				throw ConditionalCheckFailedException.builder().message("version moved").build();
+			}, request -> {
+			}));
+			unitOfWork.afterCommit(() -> events.add("after commit"));
+		}))).isInstanceOf(ConditionalCheckFailedException.class);
+
+		assertThat(events).isEmpty();
+	}
+
+	@Test
+	void methodThatThrowsWritesNothing() {
+		assertThatThrownBy(() -> unitOfWork.bufferWrites(joinPoint(() -> {
+			save("Orders", "o1");
+			unitOfWork.afterCommit(() -> events.add("after commit"));
+			throw new IllegalStateException("validation failed");
+		}))).isInstanceOf(IllegalStateException.class);
+
+		assertThat(events).isEmpty();
+	}
+
+	@Test
+	void laterWriteToTheSameKeyReplacesTheEarlierOne() throws Throwable {
+		unitOfWork.bufferWrites(joinPoint(() -> {
+			save("Orders", "o1");
+			UnitOfWork.current().buffer("Orders", "o1", Optional.of("o1"),
+					new UnitOfWork.Write("Orders", () -> events.add("second put"), request -> {
+					}));
+		}));
+
+		assertThat(events).containsExactly("second put");
+	}
+
+	@Test
+	void nestedBufferedMethodsFlushOnceWhenTheOutermostReturns() throws Throwable {
+		unitOfWork.bufferWrites(joinPoint(() -> {
+			save("Orders", "o1");
+			try {
+				unitOfWork.bufferWrites(joinPoint(() -> {
+					save("OrderItems", "i1");
+					unitOfWork.afterCommit(() -> events.add("inner after commit"));
+				}));
+			}
+
+			catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+			events.add("inner returned");
+		}));
+
+		assertThat(events).containsExactly("inner returned", "transact Orders/o1", "transact OrderItems/i1",
+				"inner after commit");
+	}
+
+	@Test
+	void afterCommitOutsideBufferedWritesRunsRightAway() {
+		unitOfWork.afterCommit(() -> events.add("ran"));
+		assertThat(events).containsExactly("ran");
+
+		try (UnitOfWork.Scope scope = unitOfWork.open()) {
+			unitOfWork.afterCommit(() -> events.add("ran in scope"));
+			assertThat(scope).isSameAs(UnitOfWork.current());
+		}
+		assertThat(events).containsExactly("ran", "ran in scope");
+	}
+
+	@Test
+	void identityMapForgetsBufferedKeysOnceFlushed() throws Throwable {
+		try (UnitOfWork.Scope scope = unitOfWork.open()) {
+			scope.remember("Products", "p1", Optional.of("p1"));
+			assertThat(scope.<String>find("Products", "p1")).contains("p1");
+
+			unitOfWork.bufferWrites(joinPoint(() -> save("Orders", "o1")));
+
+			assertThat(scope.<String>find("Orders", "o1")).isNull();
+			assertThat(scope.<String>find("Products", "p1")).contains("p1");
+			assertThat(meterRegistry.counter("dynamodb.identity.map.hits", "table", "Products").count()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	void disabledUnitOfWorkWritesStraightThrough() throws Throwable {
+		ReflectionTestUtils.setField(unitOfWork, "enabled", false);
+
+		unitOfWork.bufferWrites(joinPoint(() -> {
+			assertThat(UnitOfWork.current()).isNull();
+			unitOfWork.afterCommit(() -> events.add("after commit"));
+		}));
+
+		assertThat(events).containsExactly("after commit");
+	}
+
+	// What AbstractDynamoDBRepository.save does while a scope is open
+	private void save(String table, String id) {
+		UnitOfWork.Scope scope = UnitOfWork.current();
+		boolean buffered = scope != null && scope.buffer(table, id, Optional.of(id), new UnitOfWork.Write(table,
+				() -> events.add("put " + table + "/" + id), request -> events.add("transact " + table + "/" + id)));
+		if (!buffered) {
+			events.add("put " + table + "/" + id);
+		}
+	}
+
+	private static ProceedingJoinPoint joinPoint(Runnable body) throws Throwable {
+		ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+		when(joinPoint.proceed()).thenAnswer(invocation -> {
+			body.run();
+			return "result";
+		});
+		return joinPoint;
+	}
+}
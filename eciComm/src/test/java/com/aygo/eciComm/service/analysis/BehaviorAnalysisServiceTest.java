@@ -0,0 +1,98 @@
+package com.aygo.eciComm.service.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.aygo.eciComm.model.analysis.Recommendations;
+import com.aygo.eciComm.model.analysis.UserBehavior;
+import com.aygo.eciComm.model.enums.RecommendationSource;
+import com.aygo.eciComm.service.resilience.DependencyGuard;
+import com.aygo.eciComm.service.resilience.ResilienceRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BehaviorAnalysisServiceTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final InferenceBatcher inferenceBatcher = mock(InferenceBatcher.class);
+	private final List<JsonNode> instances = new ArrayList<>();
+	private BehaviorAnalysisService service;
+
+	@BeforeEach
+	void setUp() {
+		DependencyGuard guard = mock(DependencyGuard.class);
+		when(guard.call(any(), any(Duration.class)))
+				.thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+		ResilienceRegistry resilienceRegistry = mock(ResilienceRegistry.class);
+		when(resilienceRegistry.guard("sagemaker")).thenReturn(guard);
+
+		RecommendationCache recommendationCache = mock(RecommendationCache.class);
+		when(recommendationCache.get(eq("u1"), any(), any()))
+				.thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+		PrecomputedRecommendationStore precomputed = mock(PrecomputedRecommendationStore.class);
+		when(precomputed.find(anyString())).thenReturn(Optional.empty());
+
+		// What the batcher puts into the instances array
+		when(inferenceBatcher.submit(any())).thenAnswer(invocation -> {
+			instances.add(objectMapper.valueToTree(invocation.getArgument(0)));
+			return CompletableFuture.completedFuture(objectMapper.valueToTree(
+					instances.get(instances.size() - 1).path("kind").asText().equals("recommendations")
+							? List.of("p1", "p2")
+							: Map.of("electronics", 0.8)));
+		});
+
+		service = new BehaviorAnalysisService();
+		ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(service, "inferenceBatcher", inferenceBatcher);
+		ReflectionTestUtils.setField(service, "recommendationCache", recommendationCache);
+		ReflectionTestUtils.setField(service, "precomputedRecommendationStore", precomputed);
+		ReflectionTestUtils.setField(service, "resilienceRegistry", resilienceRegistry);
+		ReflectionTestUtils.setField(service, "inferenceTimeout", Duration.ofSeconds(1));
+		ReflectionTestUtils.setField(service, "latencyBudget", Duration.ofSeconds(1));
+	}
+
+	@Test
+	void recommendationsWithoutBehaviorAreInferred() {
+		Recommendations recommendations = service.getProductRecommendations("u1", null);
+
+		assertThat(recommendations.getProductIds()).containsExactly("p1", "p2");
+		assertThat(recommendations.getSource()).isEqualTo(RecommendationSource.SAGEMAKER);
+		assertThat(instances).singleElement().satisfies(instance -> {
+			assertThat(instance.path("kind").asText()).isEqualTo("recommendations");
+			assertThat(instance.path("user_id").asText()).isEqualTo("u1");
+			assertThat(instance.get("behavior").isNull()).isTrue();
+		});
+	}
+
+	@Test
+	void preferencesAndRecommendationsAreToldApart() {
+		UserBehavior behavior = new UserBehavior();
+		behavior.setViewedProducts(List.of("p9"));
+
+		assertThat(service.predictUserPreferences("u1", behavior)).containsEntry("electronics", 0.8);
+		assertThat(service.predictUserPreferences("u1", null)).containsEntry("electronics", 0.8);
+		service.getProductRecommendations("u1", behavior);
+
+		assertThat(instances).extracting(instance -> instance.path("kind").asText())
+				.containsExactly("preferences", "preferences", "recommendations");
+		assertThat(instances.get(0).path("viewed_products").get(0).asText()).isEqualTo("p9");
+		assertThat(instances.get(1).has("viewed_products")).isFalse();
+		assertThat(instances.get(2).path("behavior").path("viewedProducts").get(0).asText()).isEqualTo("p9");
+	}
+}
@@ -0,0 +1,98 @@
+package com.aygo.eciComm.service.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.aygo.eciComm.model.Order;
+import com.aygo.eciComm.model.OrderItem;
+import com.aygo.eciComm.repository.OrderRepository;
+
+class CoPurchaseIndexTest {
+
+	@TempDir
+	Path directory;
+
+	private final OrderRepository orderRepository = mock(OrderRepository.class);
+	private CoPurchaseIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new CoPurchaseIndex();
+		ReflectionTestUtils.setField(index, "orderRepository", orderRepository);
+		ReflectionTestUtils.setField(index, "maxNeighbours", 100);
+		ReflectionTestUtils.setField(index, "maxItemsPerOrder", 50);
+		ReflectionTestUtils.setField(index, "halfLife", Duration.ofDays(30));
+		ReflectionTestUtils.setField(index, "decayInterval", Duration.ofHours(1));
+		ReflectionTestUtils.setField(index, "snapshotFile", directory.resolve("co-purchase.idx").toString());
+		ReflectionTestUtils.setField(index, "snapshotInterval", Duration.ofHours(1));
+	}
+
+	@AfterEach
+	void tearDown() {
+		index.stop();
+	}
+
+	@Test
+	void ordersRecordedDuringTheHistoryScanCountOnce() throws Exception {
+		Order first = order("o1", "p1", "p2");
+		Order second = order("o2", "p1", "p2");
+		// Placed while the scan runs, so both the scan and the live path see them
+		when(orderRepository.streamAll()).thenAnswer(invocation -> {
+			index.record(first);
+			index.record(second);
+			return Stream.of(first, second, order("o3", "p1", "p3"), order("o4", "p1", "p3"),
+					order("o5", "p1", "p3"));
+		});
+
+		index.start();
+		drain();
+
+		assertThat(index.alsoBought("p1", 2)).containsExactly("p3", "p2");
+		assertThat(index.popular(1)).containsExactly("p1");
+	}
+
+	@Test
+	void ordersAfterTheScanAreCounted() throws Exception {
+		when(orderRepository.streamAll()).thenAnswer(invocation -> Stream.of(order("o1", "p1", "p2")));
+
+		index.start();
+		drain();
+		index.record(order("o2", "p1", "p3"));
+		index.record(order("o3", "p1", "p3"));
+		drain();
+
+		assertThat(index.alsoBought("p1", 2)).containsExactly("p3", "p2");
+	}
+
+	// Writes run one at a time on the index thread, anything submitted now runs after them
+	private void drain() throws Exception {
+		ScheduledExecutorService executor = (ScheduledExecutorService) ReflectionTestUtils.getField(index,
+				"executor");
+		executor.submit(() -> {
+		}).get();
+	}
+
+	private static Order order(String id, String... productIds) {
+		Order order = new Order();
+		order.setId(id);
+		order.setItems(Arrays.stream(productIds).map(productId -> {
+			OrderItem item = new OrderItem();
+			item.setProductId(productId);
+			return item;
+		}).toList());
+		return order;
+	}
+}
@@ -0,0 +1,51 @@
+package com.aygo.eciComm.service.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.aygo.eciComm.model.analysis.UserBehavior;
+import com.aygo.eciComm.model.enums.InferenceKind;
+
+class InferenceBatcherTest {
+
+	@Test
+	void binaryBodyCarriesTheKindOfEachVector() {
+		FeatureEncoder featureEncoder = new FeatureEncoder();
+		ReflectionTestUtils.setField(featureEncoder, "priceBuckets", 16);
+		ReflectionTestUtils.setField(featureEncoder, "productBuckets", 65536);
+		InferenceBatcher batcher = new InferenceBatcher();
+		ReflectionTestUtils.setField(batcher, "featureEncoder", featureEncoder);
+
+		UserBehavior behavior = new UserBehavior();
+		behavior.setViewedProducts(List.of("p1", "p2"));
+		FeatureVector preferences = featureEncoder.encode(InferenceKind.PREFERENCES, behavior);
+		FeatureVector recommendations = featureEncoder.encode(InferenceKind.RECOMMENDATIONS, behavior);
+
+		ByteBuffer body = ByteBuffer.wrap(batcher.encodeBinary(List.of(preferences, recommendations)))
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+		byte[] magic = new byte[4];
+		body.get(magic);
+		assertThat(new String(magic)).isEqualTo("ECF2");
+		assertThat(body.getInt()).isEqualTo(featureEncoder.dimension());
+		assertThat(body.getInt()).isEqualTo(2);
+		for (FeatureVector expected : List.of(preferences, recommendations)) {
+			assertThat(body.getInt()).isEqualTo(expected.kind().ordinal());
+			assertThat(body.getInt()).isEqualTo(expected.nonZeros()).isPositive();
+			for (int i = 0; i < expected.nonZeros(); i++) {
+				assertThat(body.getInt()).isEqualTo(expected.index(i));
+			}
+			for (int i = 0; i < expected.nonZeros(); i++) {
+				assertThat(body.getFloat()).isEqualTo(expected.value(i));
+			}
+		}
+		assertThat(body.hasRemaining()).isFalse();
+		assertThat(preferences.kind()).isNotEqualTo(recommendations.kind());
+	}
+}
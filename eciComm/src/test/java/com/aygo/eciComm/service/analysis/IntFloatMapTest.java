@@ -0,0 +1,75 @@
+package com.aygo.eciComm.service.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class IntFloatMapTest {
+
+	@Test
+	void matchesAHashMapThroughAddsRemovesAndGrowth() {
+		IntFloatMap map = new IntFloatMap(4);
+		Map<Integer, Float> expected = new HashMap<>();
+		SplittableRandom random = new SplittableRandom(11);
+
+		// A small key range so removals keep hitting probe chains the adds built
+		for (int i = 0; i < 50_000; i++) {
+			int key = random.nextInt(300);
+			if (random.nextInt(3) == 0) {
+				map.remove(key);
+				expected.remove(key);
+			} else {
+				map.addTo(key, 1f);
+				expected.merge(key, 1f, Float::sum);
+			}
+		}
+
+		assertThat(map.size()).isEqualTo(expected.size());
+		for (int key = 0; key < 300; key++) {
+			assertThat(map.containsKey(key)).as("key %d", key).isEqualTo(expected.containsKey(key));
+			assertThat(map.get(key)).as("key %d", key).isEqualTo(expected.getOrDefault(key, 0f));
+		}
+
+		Map<Integer, Float> visited = new HashMap<>();
+		map.forEach(visited::put);
+		assertThat(visited).isEqualTo(expected);
+	}
+
+	@Test
+	void topKeysAreLargestFirst() {
+		IntFloatMap map = new IntFloatMap(16);
+		float[] values = { 3f, 9f, 1f, 7f, 5f };
+		for (int key = 0; key < values.length; key++) {
+			map.addTo(key, values[key]);
+		}
+
+		assertThat(map.topKeys(3)).containsExactly(1, 3, 4);
+		assertThat(map.topKeys(10)).containsExactly(1, 3, 4, 0, 2);
+		assertThat(map.topKeys(0)).isEmpty();
+		assertThat(map.minKey()).isEqualTo(2);
+		assertThat(new IntFloatMap(4).minKey()).isEqualTo(-1);
+	}
+
+	@Test
+	void scaleDropsEntriesBelowTheThreshold() {
+		IntFloatMap map = new IntFloatMap(4);
+		for (int key = 0; key < 100; key++) {
+			map.addTo(key, key);
+		}
+
+		map.scale(0.5f, 10f);
+
+		assertThat(map.size()).isEqualTo(80);
+		assertThat(map.containsKey(19)).isFalse();
+		assertThat(map.get(20)).isEqualTo(10f);
+		assertThat(map.get(99)).isEqualTo(49.5f);
+		// Still a working table after being rebuilt smaller
+		map.addTo(5, 1f);
+		assertThat(map.get(5)).isEqualTo(1f);
+		assertThat(map.size()).isEqualTo(81);
+	}
+}
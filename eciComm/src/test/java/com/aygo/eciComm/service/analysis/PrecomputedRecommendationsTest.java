@@ -0,0 +1,50 @@
+package com.aygo.eciComm.service.analysis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.aygo.eciComm.service.catalog.CatalogSnapshot;
+
+class PrecomputedRecommendationsTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void writesEachUsersBestProductsFirst() throws IOException {
+		PrecomputedRecommendationsWriter writer = new PrecomputedRecommendationsWriter(2);
+		writer.add("u1", "p1", 0.2).add("u1", "p2", 0.9).add("u1", "p3", 0.5).add("u1", "p1", 0.95);
+		writer.add("u2", "p3", 0.1);
+		for (int i = 0; i < 2000; i++) {
+			writer.add("user" + i, "p" + i, 1);
+		}
+		Path file = directory.resolve("recommendations.rec");
+		writer.writeTo(file);
+
+		PrecomputedRecommendations recommendations = PrecomputedRecommendations.open(file);
+
+		assertThat(recommendations.size()).isEqualTo(2002);
+		assertThat(recommendations.find("u1")).containsExactly("p1", "p2");
+		assertThat(recommendations.find("u2")).containsExactly("p3");
+		assertThat(recommendations.find("user1999")).containsExactly("p1999");
+		assertThat(recommendations.find("u3")).isNull();
+	}
+
+	@Test
+	void rejectsOtherMappedFiles() throws IOException {
+		Path file = directory.resolve("other.rec");
+		Files.write(file, new byte[64]);
+
+		assertThatThrownBy(() -> PrecomputedRecommendations.open(file)).isInstanceOf(IOException.class)
+				.hasMessageContaining("Not a recommendations file");
+		assertThatThrownBy(() -> CatalogSnapshot.open(file)).isInstanceOf(IOException.class)
+				.hasMessageContaining("Not a catalog snapshot");
+	}
+}
@@ -0,0 +1,91 @@
+package com.aygo.eciComm.service.behavior;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class EventRingBufferTest {
+
+	@Test
+	void fullBufferRejectsUntilDrained() {
+		EventRingBuffer<Integer> buffer = new EventRingBuffer<>(5);
+		assertThat(buffer.capacity()).isEqualTo(8);
+
+		for (int i = 0; i < 8; i++) {
+			assertThat(buffer.offer(i)).isTrue();
+		}
+		assertThat(buffer.offer(8)).isFalse();
+		assertThat(buffer.size()).isEqualTo(8);
+
+		List<Integer> drained = new ArrayList<>();
+		assertThat(buffer.drain(drained::add, 3)).isEqualTo(3);
+		assertThat(drained).containsExactly(0, 1, 2);
+
+		// The freed slots are reused on the next lap, still in offer order
+		for (int i = 8; i < 11; i++) {
+			assertThat(buffer.offer(i)).isTrue();
+		}
+		assertThat(buffer.offer(11)).isFalse();
+		assertThat(buffer.drain(drained::add, 100)).isEqualTo(8);
+		assertThat(drained).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+		assertThat(buffer.size()).isZero();
+		assertThat(buffer.drain(drained::add, 100)).isZero();
+	}
+
+	@Test
+	void concurrentProducersLoseNothingAndKeepTheirOwnOrder() throws InterruptedException {
+		int producers = 4;
+		int perProducer = 50_000;
+		EventRingBuffer<long[]> buffer = new EventRingBuffer<>(64);
+		ExecutorService executor = Executors.newFixedThreadPool(producers);
+		CountDownLatch start = new CountDownLatch(1);
+
+		for (int p = 0; p < producers; p++) {
+			long producer = p;
+			executor.execute(() -> {
+				try {
+					start.await();
+				}
+
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (long i = 0; i < perProducer; i++) {
+					// Retries like a caller that must not drop, the buffer itself never blocks
+					while (!buffer.offer(new long[] { producer, i })) {
+						Thread.yield();
+					}
+				}
+			});
+		}
+
+		long[] next = new long[producers];
+		int[] received = new int[1];
+		start.countDown();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (received[0] < producers * perProducer && System.nanoTime() < deadline) {
+			int drained = buffer.drain(event -> {
+				assertThat(event[1]).as("next from producer %d", event[0]).isEqualTo(next[(int) event[0]]);
+				next[(int) event[0]]++;
+				received[0]++;
+			}, 1000);
+			if (drained == 0) {
+				Thread.yield();
+			}
+		}
+		executor.shutdown();
+
+		assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(received[0]).isEqualTo(producers * perProducer);
+		assertThat(next).containsOnly(perProducer);
+		assertThat(buffer.size()).isZero();
+	}
+}
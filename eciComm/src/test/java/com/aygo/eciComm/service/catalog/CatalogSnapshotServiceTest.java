@@ -0,0 +1,117 @@
+package com.aygo.eciComm.service.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.aygo.eciComm.model.Product;
+import com.aygo.eciComm.model.enums.ProductCategory;
+import com.aygo.eciComm.repository.ProductRepository;
+
+class CatalogSnapshotServiceTest {
+
+	@TempDir
+	Path directory;
+
+	private final ProductRepository productRepository = mock(ProductRepository.class);
+	private CatalogSnapshotService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new CatalogSnapshotService();
+		ReflectionTestUtils.setField(service, "productRepository", productRepository);
+		ReflectionTestUtils.setField(service, "enabled", true);
+		ReflectionTestUtils.setField(service, "directory", directory.toString());
+		ReflectionTestUtils.setField(service, "maxChanges", 100);
+	}
+
+	@Test
+	void snapshotRowsReadBackThroughTheMappedFile() {
+		Product shoe = product("p1", "9.99");
+		shoe.setTags(Set.of("running"));
+		shoe.setAttributes(Map.of("size", "42"));
+		shoe.setImageVariants(Map.of("w160.jpg", "images/ab/abc/g/w160.jpg"));
+		rebuildWith(shoe, product("p2", "25.00"), product("p3", null));
+
+		CatalogSnapshot snapshot = service.current().orElseThrow();
+		assertThat(snapshot.size()).isEqualTo(3);
+		assertThat(snapshot.rowOf("p4")).isEqualTo(-1);
+
+		Product read = snapshot.view().moveTo(snapshot.rowOf("p1")).toProduct();
+		assertThat(read.getName()).isEqualTo("Product p1");
+		assertThat(read.getPrice()).isEqualByComparingTo("9.99");
+		assertThat(read.getCategory()).isEqualTo(ProductCategory.SPORTS);
+		assertThat(read.getTags()).containsExactly("running");
+		assertThat(read.getAttributes()).containsEntry("size", "42");
+		assertThat(read.getImageVariants()).containsEntry("w160.jpg", "images/ab/abc/g/w160.jpg");
+		assertThat(snapshot.view().moveTo(snapshot.rowOf("p3")).toProduct().getPrice()).isNull();
+	}
+
+	@Test
+	void changedProductsAreComparedInCentsLikeTheSnapshot() {
+		// 10.005 is stored as 10.01, so it is in [10.01, 20] both before and after the next rebuild
+		rebuildWith(product("p1", "10.005"));
+		assertThat(ids("10.01", "20")).containsExactly("p1");
+
+		service.updated(product("p2", "10.005"));
+		assertThat(ids("10.01", "20")).containsExactlyInAnyOrder("p1", "p2");
+
+		rebuildWith(product("p1", "10.005"), product("p2", "10.005"));
+		assertThat(ids("10.01", "20")).containsExactlyInAnyOrder("p1", "p2");
+	}
+
+	@Test
+	void changesReplaceAndHideSnapshotRows() {
+		rebuildWith(product("p1", "10"), product("p2", "10"), product("p3", "10"));
+
+		service.updated(product("p1", "50"));
+		service.deleted("p2");
+
+		assertThat(ids("0", "20")).containsExactly("p3");
+		assertThat(ids("0", "100")).containsExactlyInAnyOrder("p1", "p3");
+	}
+
+	@Test
+	void streamKeepsTheChangesItStartedWith() {
+		rebuildWith(product("p1", "10"));
+		service.updated(product("p1", "50"));
+
+		Stream<Product> stream = service.streamByPriceRange(new BigDecimal("0"), new BigDecimal("100")).orElseThrow();
+		// Lands after the stream was opened, before it is consumed
+		service.deleted("p1");
+
+		assertThat(stream.map(Product::getPrice).toList()).singleElement()
+				.satisfies(price -> assertThat(price).isEqualByComparingTo("50"));
+	}
+
+	private void rebuildWith(Product... products) {
+		when(productRepository.streamAll()).thenAnswer(invocation -> Stream.of(products));
+		service.rebuild();
+	}
+
+	private List<String> ids(String min, String max) {
+		return service.findByPriceRange(new BigDecimal(min), new BigDecimal(max)).orElseThrow().stream()
+				.map(Product::getId).toList();
+	}
+
+	private static Product product(String id, String price) {
+		Product product = new Product();
+		product.setId(id);
+		product.setName("Product " + id);
+		product.setPrice(price == null ? null : new BigDecimal(price));
+		product.setCategory(ProductCategory.SPORTS);
+		return product;
+	}
+}
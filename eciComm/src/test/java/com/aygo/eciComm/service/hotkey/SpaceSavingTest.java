@@ -0,0 +1,119 @@
+package com.aygo.eciComm.service.hotkey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class SpaceSavingTest {
+
+	@Test
+	void hottestKeySurvivesWhileTheSketchFills() {
+		SpaceSaving sketch = new SpaceSaving(3);
+		for (String key : new String[] { "A", "A", "B", "C", "D" }) {
+			sketch.add(key);
+			assertHeapOrdered(sketch);
+		}
+
+		Map<String, long[]> entries = sketch.snapshot().entries();
+		assertThat(entries).containsKeys("A", "D").doesNotContainKey("B");
+		assertThat(entries.get("A")).containsExactly(2, 0);
+		// D took the least counted slot and carries its count as the possible overestimate
+		assertThat(entries.get("D")).containsExactly(2, 1);
+	}
+
+	@Test
+	void skewedStreamKeepsEveryFrequentKeyWithBoundedCounts() {
+		int capacity = 50;
+		SpaceSaving sketch = new SpaceSaving(capacity);
+		Map<String, Long> exact = new HashMap<>();
+		SplittableRandom random = new SplittableRandom(7);
+
+		double[] cumulative = zipf(2000, 1.1);
+		int events = 200_000;
+		for (int i = 0; i < events; i++) {
+			String key = "PROD_" + sample(cumulative, random.nextDouble());
+			sketch.add(key);
+			exact.merge(key, 1L, Long::sum);
+			if (i % 997 == 0) {
+				assertHeapOrdered(sketch);
+			}
+		}
+
+		SpaceSaving.Slice slice = sketch.snapshot();
+		assertThat(slice.total()).isEqualTo(events);
+		assertThat(slice.entries()).hasSize(capacity);
+
+		exact.forEach((key, count) -> {
+			if (count > events / capacity) {
+				assertThat(slice.entries()).as("frequent key %s seen %d times", key, count).containsKey(key);
+			}
+		});
+		slice.entries().forEach((key, counted) -> {
+			long actual = exact.get(key);
+			assertThat(counted[0]).as("count of %s", key).isGreaterThanOrEqualTo(actual);
+			assertThat(counted[0] - counted[1]).as("guaranteed count of %s", key).isLessThanOrEqualTo(actual);
+		});
+		assertThat(slice.floor()).isLessThanOrEqualTo(events / capacity);
+	}
+
+	@Test
+	void repeatedKeysAreCountedExactlyWhileThereIsRoom() {
+		SpaceSaving sketch = new SpaceSaving(4);
+		for (int i = 0; i < 10; i++) {
+			sketch.add("hot");
+		}
+		sketch.add("cold");
+
+		SpaceSaving.Slice slice = sketch.snapshot();
+		assertThat(slice.entries().get("hot")).containsExactly(10, 0);
+		assertThat(slice.entries().get("cold")).containsExactly(1, 0);
+		// Not full yet, an unseen key was not seen at all
+		assertThat(slice.floor()).isZero();
+	}
+
+	private static void assertHeapOrdered(SpaceSaving sketch) {
+		int[] heap = (int[]) ReflectionTestUtils.getField(sketch, "heap");
+		int[] position = (int[]) ReflectionTestUtils.getField(sketch, "position");
+		long[] counts = (long[]) ReflectionTestUtils.getField(sketch, "counts");
+		int size = (int) ReflectionTestUtils.getField(sketch, "size");
+		for (int i = 0; i < size; i++) {
+			assertThat(position[heap[i]]).isEqualTo(i);
+			if (i > 0) {
+				assertThat(counts[heap[(i - 1) / 2]]).as("parent of heap index %d", i)
+						.isLessThanOrEqualTo(counts[heap[i]]);
+			}
+		}
+	}
+
+	private static double[] zipf(int keys, double exponent) {
+		double[] cumulative = new double[keys];
+		double sum = 0;
+		for (int i = 0; i < keys; i++) {
+			sum += 1 / Math.pow(i + 1, exponent);
+			cumulative[i] = sum;
+		}
+		for (int i = 0; i < keys; i++) {
+			cumulative[i] /= sum;
+		}
+		return cumulative;
+	}
+
+	private static int sample(double[] cumulative, double u) {
+		int low = 0;
+		int high = cumulative.length - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (cumulative[mid] < u) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,86 @@
+package com.aygo.eciComm.service.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CircuitBreakerTest {
+
+	@Test
+	void opensOnceTheMinimumCallsFailAtTheThreshold() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 10, 5, 50, Duration.ofHours(1), 2);
+		for (int i = 0; i < 4; i++) {
+			assertThat(breaker.tryAcquire()).isTrue();
+			breaker.onFailure();
+		}
+		// Every call failed, but too few to judge
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		breaker.onFailure();
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void windowForgetsOlderOutcomes() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 4, 4, 50, Duration.ofHours(1), 2);
+		breaker.onFailure();
+		for (int i = 0; i < 4; i++) {
+			breaker.onSuccess();
+		}
+
+		// The first failure has left the window, so this is one in four
+		breaker.onFailure();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		breaker.onFailure();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+	}
+
+	@Test
+	void closesAfterTheTrialCallsSucceed() {
+		CircuitBreaker breaker = tripped();
+		elapseOpenDuration(breaker);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+		assertThat(breaker.tryAcquire()).isTrue();
+		assertThat(breaker.tryAcquire()).isTrue();
+		assertThat(breaker.tryAcquire()).as("only halfOpenCalls trials").isFalse();
+		breaker.onSuccess();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		breaker.onSuccess();
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		// Starts from an empty window
+		breaker.onFailure();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void failedTrialOpensAgain() {
+		CircuitBreaker breaker = tripped();
+		elapseOpenDuration(breaker);
+
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onFailure();
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+	}
+
+	private static CircuitBreaker tripped() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 4, 2, 50, Duration.ofHours(1), 2);
+		breaker.onFailure();
+		breaker.onFailure();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		return breaker;
+	}
+
+	private static void elapseOpenDuration(CircuitBreaker breaker) {
+		ReflectionTestUtils.setField(breaker, "openedAt", System.nanoTime() - Duration.ofHours(2).toNanos());
+	}
+}
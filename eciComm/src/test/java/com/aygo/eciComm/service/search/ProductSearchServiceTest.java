@@ -0,0 +1,263 @@
+package com.aygo.eciComm.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.aygo.eciComm.exception.ProductValidationException;
+import com.aygo.eciComm.model.Product;
+import com.aygo.eciComm.model.enums.ProductCategory;
+import com.aygo.eciComm.model.enums.ProductStatus;
+import com.aygo.eciComm.model.response.ProductSearchResult;
+import com.aygo.eciComm.repository.ProductRepository;
+
+class ProductSearchServiceTest {
+
+	private final ProductSearchService search = new ProductSearchService();
+
+	@Test
+	void ranksNameMatchesAboveDescriptionMatches() {
+		search.index(product("p1", "Trail running shoes", "Light and fast", ProductCategory.SPORTS));
+		search.index(product("p2", "Rain jacket", "Packs into a pocket, good for running", ProductCategory.CLOTHING));
+		search.index(product("p3", "Desk lamp", "Warm light", ProductCategory.HOME_AND_GARDEN));
+
+		ProductSearchResult result = search.search("running", null, null, 0, 10);
+
+		assertThat(ids(result)).containsExactly("p1", "p2");
+		assertThat(result.getTotal()).isEqualTo(2);
+		assertThat(result.getFacets().get("category")).containsOnlyKeys("SPORTS", "CLOTHING");
+	}
+
+	@Test
+	void documentsMatchingMoreTermsRankFirst() {
+		search.index(product("p1", "Running shoes", "Road", ProductCategory.SPORTS));
+		search.index(product("p2", "Trail shoes", "Trail running", ProductCategory.SPORTS));
+		search.index(product("p3", "Trail map", "Paper", ProductCategory.BOOKS));
+
+		assertThat(ids(search.search("trail running shoes", null, null, 0, 10))).startsWith("p2");
+	}
+
+	@Test
+	void filtersAfterCountingFacets() {
+		search.index(product("p1", "Running shoes", "", ProductCategory.SPORTS));
+		search.index(product("p2", "Running socks", "", ProductCategory.CLOTHING));
+
+		ProductSearchResult result = search.search("running", ProductCategory.CLOTHING, null, 0, 10);
+
+		assertThat(ids(result)).containsExactly("p2");
+		assertThat(result.getTotal()).isEqualTo(1);
+		assertThat(result.getFacets().get("category")).containsEntry("SPORTS", 1L).containsEntry("CLOTHING", 1L);
+	}
+
+	@Test
+	void lastTermMatchesAsPrefix() {
+		search.index(product("p1", "Bluetooth speaker", "", ProductCategory.ELECTRONICS));
+		search.index(product("p2", "Blue mug", "", ProductCategory.HOME_AND_GARDEN));
+
+		assertThat(ids(search.search("blueto", null, null, 0, 10))).containsExactly("p1");
+		assertThat(ids(search.search("speaker blueto", null, null, 0, 10))).containsExactly("p1");
+	}
+
+	@Test
+	void misspelledTermsMatchWithinTheirEditBudget() {
+		search.index(product("p1", "Laptop stand", "", ProductCategory.ELECTRONICS));
+		search.index(product("p2", "Headphones", "", ProductCategory.ELECTRONICS));
+
+		// Substitution, deletion, insertion and a swap of neighbouring letters
+		assertThat(ids(search.search("laptip", null, null, 0, 10))).containsExactly("p1");
+		assertThat(ids(search.search("lapop", null, null, 0, 10))).containsExactly("p1");
+		assertThat(ids(search.search("lapttop", null, null, 0, 10))).containsExactly("p1");
+		assertThat(ids(search.search("lpatop", null, null, 0, 10))).containsExactly("p1");
+
+		// Two edits are only allowed from eight letters on, and the first letter has to match
+		assertThat(ids(search.search("lapdip", null, null, 0, 10))).isEmpty();
+		assertThat(ids(search.search("hedphnes", null, null, 0, 10))).containsExactly("p2");
+		assertThat(ids(search.search("aptop", null, null, 0, 10))).isEmpty();
+	}
+
+	@Test
+	void fuzzyWalkFindsExactlyTheTermsWithinReach() {
+		// A small alphabet packs many near neighbours into the dictionary
+		Random random = new Random(7);
+		Set<String> words = new TreeSet<>();
+		while (words.size() < 3000) {
+			words.add(word(random, 4 + random.nextInt(7)));
+		}
+		int id = 0;
+		for (String word : words) {
+			search.index(product("p" + id++, word, "", ProductCategory.BOOKS));
+		}
+
+		int checked = 0;
+		while (checked < 500) {
+			String query = word(random, 4 + random.nextInt(7));
+			if (words.contains(query)) {
+				continue;
+			}
+			int maxEdits = query.length() >= 8 ? 2 : 1;
+			Set<String> expected = words.stream()
+					.filter(word -> word.charAt(0) == query.charAt(0) && distance(query, word) <= maxEdits)
+					.collect(Collectors.toSet());
+			if (expected.size() > 64) {
+				continue;
+			}
+
+			// Not the last term, so the query is not expanded as a prefix as well
+			Set<String> found = new HashSet<>();
+			search.search(query + " x", null, null, 0, 100).getHits().forEach(hit -> found.add(hit.getName()));
+
+			assertThat(found).as(query).isEqualTo(expected);
+			checked++;
+		}
+	}
+
+	@Test
+	void removedAndReindexedProductsAreNotFoundUnderOldTerms() {
+		search.index(product("p1", "Wool scarf", "", ProductCategory.CLOTHING));
+		search.index(product("p2", "Wool socks", "", ProductCategory.CLOTHING));
+
+		search.index(product("p1", "Silk scarf", "", ProductCategory.CLOTHING));
+		search.remove("p2");
+
+		assertThat(ids(search.search("wool", null, null, 0, 10))).isEmpty();
+		assertThat(ids(search.search("silk", null, null, 0, 10))).containsExactly("p1");
+		assertThat(search.size()).isEqualTo(1);
+	}
+
+	@Test
+	void compactionKeepsTheIndexSearchable() {
+		for (int i = 0; i < 100; i++) {
+			search.index(product("p" + i, "Item number" + i, "", ProductCategory.BOOKS));
+		}
+		// Enough updates to leave over a thousand dead slots behind
+		for (int round = 0; round < 15; round++) {
+			for (int i = 0; i < 100; i++) {
+				search.index(product("p" + i, "Item number" + i + " round" + round, "", ProductCategory.BOOKS));
+			}
+		}
+
+		assertThat(search.size()).isEqualTo(100);
+		assertThat(ids(search.search("number42", null, null, 0, 10))).containsExactly("p42");
+		assertThat(search.search("round14", null, null, 0, 10).getTotal()).isEqualTo(100);
+	}
+
+	@Test
+	void writesDuringARebuildSurviveIt() {
+		search.index(product("p1", "Wool scarf", "", ProductCategory.CLOTHING));
+		search.index(product("p2", "Wool socks", "", ProductCategory.CLOTHING));
+
+		// The scan reads the table as it was before the writes that land while it runs
+		ProductRepository repository = mock(ProductRepository.class);
+		when(repository.findAll()).thenAnswer(invocation -> {
+			List<Product> scanned = List.of(product("p1", "Wool scarf", "", ProductCategory.CLOTHING),
+					product("p2", "Wool socks", "", ProductCategory.CLOTHING));
+			search.index(product("p1", "Silk scarf", "", ProductCategory.CLOTHING));
+			search.remove("p2");
+			search.index(product("p3", "Linen shirt", "", ProductCategory.CLOTHING));
+			return scanned;
+		});
+		ReflectionTestUtils.setField(search, "productRepository", repository);
+
+		search.rebuildIndex();
+
+		assertThat(ids(search.search("wool", null, null, 0, 10))).isEmpty();
+		assertThat(ids(search.search("silk", null, null, 0, 10))).containsExactly("p1");
+		assertThat(ids(search.search("linen", null, null, 0, 10))).containsExactly("p3");
+		assertThat(search.size()).isEqualTo(2);
+
+		// Once the rebuild is over writes are no longer held for a replay
+		assertThat(ReflectionTestUtils.getField(search, "writesDuringRebuild")).isNull();
+	}
+
+	@Test
+	void failedRebuildKeepsTheIndex() {
+		search.index(product("p1", "Wool scarf", "", ProductCategory.CLOTHING));
+		ProductRepository repository = mock(ProductRepository.class);
+		when(repository.findAll()).thenThrow(new IllegalStateException("table unavailable"));
+		ReflectionTestUtils.setField(search, "productRepository", repository);
+
+		search.rebuildIndex();
+
+		assertThat(ids(search.search("wool", null, null, 0, 10))).containsExactly("p1");
+	}
+
+	@Test
+	void pagesThroughTheRanking() {
+		for (int i = 0; i < 25; i++) {
+			search.index(product("p" + i, "Notebook" + " notebook".repeat(i), "", ProductCategory.BOOKS));
+		}
+
+		List<String> all = ids(search.search("notebook", null, null, 0, 25));
+		assertThat(ids(search.search("notebook", null, null, 1, 10))).isEqualTo(all.subList(10, 20));
+		assertThat(ids(search.search("notebook", null, null, 2, 10))).isEqualTo(all.subList(20, 25));
+	}
+
+	@Test
+	void rejectsQueriesWithoutTermsAndOversizedPages() {
+		assertThatThrownBy(() -> search.search("the of", null, null, 0, 10))
+				.isInstanceOf(ProductValidationException.class);
+		assertThatThrownBy(() -> search.search("shoes", null, null, 0, ProductSearchService.MAX_PAGE_SIZE + 1))
+				.isInstanceOf(ProductValidationException.class);
+		assertThatThrownBy(() -> search.search("shoes", null, null, 200, 100))
+				.isInstanceOf(ProductValidationException.class);
+	}
+
+	private static List<String> ids(ProductSearchResult result) {
+		return result.getHits().stream().map(ProductSearchResult.Hit::getId).toList();
+	}
+
+	private static Product product(String id, String name, String description, ProductCategory category) {
+		Product product = new Product();
+		product.setId(id);
+		product.setName(name);
+		product.setDescription(description);
+		product.setPrice(BigDecimal.TEN);
+		product.setCategory(category);
+		product.setProductStatus(ProductStatus.ACTIVE);
+		product.setTags(Set.of());
+		product.setAttributes(Map.of());
+		return product;
+	}
+
+	private static String word(Random random, int length) {
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			word.append("abcdef".charAt(random.nextInt(6)));
+		}
+		return word.toString();
+	}
+
+	// Reference optimal string alignment distance
+	private static int distance(String a, String b) {
+		int[][] d = new int[a.length() + 1][b.length() + 1];
+		for (int i = 0; i <= a.length(); i++) {
+			d[i][0] = i;
+		}
+		for (int j = 0; j <= b.length(); j++) {
+			d[0][j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+					d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+				}
+			}
+		}
+		return d[a.length()][b.length()];
+	}
+}
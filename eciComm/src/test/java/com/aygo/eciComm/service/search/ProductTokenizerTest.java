@@ -0,0 +1,36 @@
+package com.aygo.eciComm.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class ProductTokenizerTest {
+
+	@Test
+	void foldsCaseAndAccents() {
+		assertThat(ProductTokenizer.tokenize("Café CRÈME Niño")).containsExactly("cafe", "creme", "nino");
+		// Already decomposed input folds the same way
+		assertThat(ProductTokenizer.tokenize("e\u0301te\u0301")).containsExactly("ete");
+	}
+
+	@Test
+	void splitsOnAnythingButLettersAndDigits() {
+		assertThat(ProductTokenizer.tokenize("USB-C cable, 2.0m (black)/white"))
+				.containsExactly("usb", "c", "cable", "2", "0m", "black", "white");
+		assertThat(ProductTokenizer.tokenize("日本 茶")).containsExactly("日本", "茶");
+	}
+
+	@Test
+	void dropsStopWordsButKeepsRepeats() {
+		assertThat(ProductTokenizer.tokenize("The shoes and the socks for running with the shoes"))
+				.containsExactly("shoes", "socks", "running", "shoes");
+		assertThat(ProductTokenizer.tokenize("Café de la Paz y Mar")).containsExactly("cafe", "paz", "mar");
+	}
+
+	@Test
+	void emptyInputHasNoTokens() {
+		assertThat(ProductTokenizer.tokenize(null)).isEmpty();
+		assertThat(ProductTokenizer.tokenize("  \t")).isEmpty();
+		assertThat(ProductTokenizer.tokenize("-- / the ,")).isEmpty();
+	}
+}
@@ -0,0 +1,253 @@
+package com.aygo.eciComm.service.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.aygo.eciComm.model.Product;
+import com.aygo.eciComm.repository.ProductRepository;
+import com.aygo.eciComm.service.catalog.CatalogSnapshotService;
+
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+class ImageDerivativeServiceTest {
+
+	private final InMemoryS3 s3 = new InMemoryS3();
+	private final ProductRepository productRepository = mock(ProductRepository.class);
+	private final Map<String, Product> products = new HashMap<>();
+	private ImageDerivativeService service;
+
+	@BeforeEach
+	void setUp() {
+		// A fresh copy on every read, like the table
+		when(productRepository.findById(anyString())).thenAnswer(invocation -> Optional
+				.ofNullable(products.get(invocation.<String>getArgument(0))).map(ImageDerivativeServiceTest::copy));
+		when(productRepository.save(any(Product.class))).thenAnswer(invocation -> {
+			Product product = invocation.getArgument(0);
+			products.put(product.getId(), product);
+			return product;
+		});
+
+		// Deletes right away instead of on the next drain
+		ObjectDeletionQueue objectDeletionQueue = mock(ObjectDeletionQueue.class);
+		doAnswer(invocation -> s3.objects.remove(invocation.<String>getArgument(1))).when(objectDeletionQueue)
+				.enqueue(anyString(), anyString());
+
+		service = new ImageDerivativeService();
+		ReflectionTestUtils.setField(service, "s3Client", s3);
+		ReflectionTestUtils.setField(service, "productRepository", productRepository);
+		ReflectionTestUtils.setField(service, "catalogSnapshotService", mock(CatalogSnapshotService.class));
+		ReflectionTestUtils.setField(service, "objectDeletionQueue", objectDeletionQueue);
+		ReflectionTestUtils.setField(service, "bucketName", "bucket");
+		ReflectionTestUtils.setField(service, "widths", List.of(16, 32));
+		ReflectionTestUtils.setField(service, "workers", 1);
+		ReflectionTestUtils.setField(service, "queueCapacity", 10);
+		ReflectionTestUtils.setField(service, "maxPixels", 1_000_000L);
+		service.start();
+	}
+
+	@Test
+	void identicalUploadsShareOneSet() throws IOException {
+		upload("p1", "products/p1/a-shoe.png", image(Color.RED));
+		upload("p2", "products/p2/b-shoe.png", image(Color.RED));
+
+		assertThat(products.get("p1").getImageUrl()).startsWith("images/").endsWith("/original")
+				.isEqualTo(products.get("p2").getImageUrl());
+		assertThat(products.get("p1").getImageVariants()).containsOnlyKeys("w16.png", "w32.png")
+				.isEqualTo(products.get("p2").getImageVariants());
+		assertThat(products.get("p2").getImageReference()).isEqualTo("products/p2/b-shoe.png");
+
+		// One original, two variants, the manifest and a marker per upload. The uploads themselves are gone.
+		assertThat(s3.objects.keySet()).allMatch(key -> key.startsWith("images/")).hasSize(6);
+		assertThat(s3.objects.get(products.get("p1").getImageUrl())).isEqualTo(image(Color.RED));
+	}
+
+	@Test
+	void setIsDeletedWithItsLastReference() throws Exception {
+		upload("p1", "products/p1/a-shoe.png", image(Color.RED));
+		upload("p2", "products/p2/b-shoe.png", image(Color.RED));
+
+		release("p1");
+		assertThat(s3.objects).containsKey(products.get("p2").getImageUrl()).hasSize(5);
+
+		release("p2");
+		assertThat(s3.objects).isEmpty();
+	}
+
+	@Test
+	void uploadReadingTheManifestDuringARelease() throws Exception {
+		upload("p1", "products/p1/a-shoe.png", image(Color.RED));
+
+		// Another upload of the same image references the set between the release's two checks
+		String original = products.get("p1").getImageUrl();
+		String marker = original.replaceAll("[^/]+/original$", "refs/products/p2/b-shoe.png");
+		s3.onDelete = key -> {
+			if (key.endsWith("/current")) {
+				s3.objects.put(marker, new byte[0]);
+			}
+		};
+		release("p1");
+
+		assertThat(s3.objects).containsKey(original).containsKey(marker)
+				.hasEntrySatisfying(original.replaceAll("[^/]+/original$", "current"),
+						manifest -> assertThat(new String(manifest)).contains("w16.png"));
+	}
+
+	@Test
+	void markerIsReleasedWhenTheProductKeepsChanging() throws IOException {
+		products.put("p1", product("p1", "products/p1/a-shoe.png"));
+		s3.objects.put("products/p1/a-shoe.png", image(Color.RED));
+		when(productRepository.save(any(Product.class)))
+				.thenThrow(ConditionalCheckFailedException.builder().message("version").build());
+
+		service.process("p1", "products/p1/a-shoe.png");
+
+		assertThat(products.get("p1").getImageUrl()).isEqualTo("products/p1/a-shoe.png");
+		assertThat(s3.objects).containsOnlyKeys("products/p1/a-shoe.png");
+	}
+
+	@Test
+	void staleUploadLeavesNothingBehind() throws IOException {
+		upload("p1", "products/p1/a-shoe.png", image(Color.RED));
+
+		// Replaced before its derivatives were attached
+		products.put("p2", product("p2", "products/p2/new.png"));
+		s3.objects.put("products/p2/old.png", image(Color.BLUE));
+		service.process("p2", "products/p2/old.png");
+
+		assertThat(s3.objects.keySet()).noneMatch(key -> key.contains("/refs/products/p2/"))
+				.filteredOn(key -> key.startsWith("images/")).hasSize(5);
+	}
+
+	private void upload(String productId, String key, byte[] image) {
+		products.put(productId, product(productId, key));
+		s3.objects.put(key, image);
+		service.process(productId, key);
+	}
+
+	// Through the worker pool, like ProductService does
+	private void release(String productId) throws InterruptedException {
+		Product product = products.get(productId);
+		service.release(product.getImageUrl(), product.getImageReference());
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "executor");
+		executor.shutdown();
+		assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+		service.start();
+	}
+
+	private static Product product(String id, String imageUrl) {
+		Product product = new Product();
+		product.setId(id);
+		product.setImageUrl(imageUrl);
+		return product;
+	}
+
+	private static Product copy(Product product) {
+		Product copy = product(product.getId(), product.getImageUrl());
+		copy.setImageVariants(product.getImageVariants());
+		copy.setImageReference(product.getImageReference());
+		return copy;
+	}
+
+	private static byte[] image(Color color) throws IOException {
+		BufferedImage image = new BufferedImage(40, 20, BufferedImage.TYPE_INT_ARGB);
+		for (int x = 0; x < 40; x++) {
+			for (int y = 0; y < 20; y++) {
+				image.setRGB(x, y, color.getRGB());
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+
+	// Just the calls the pipeline makes, against a map
+	private static final class InMemoryS3 implements S3Client {
+
+		private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+		private volatile Consumer<String> onDelete = key -> {
+		};
+
+		@Override
+		public ResponseBytes<GetObjectResponse> getObjectAsBytes(GetObjectRequest request) {
+			byte[] bytes = objects.get(request.key());
+			if (bytes == null) {
+				throw NoSuchKeyException.builder().message(request.key()).build();
+			}
+			return ResponseBytes.fromByteArray(GetObjectResponse.builder().contentType("image/png").build(), bytes);
+		}
+
+		@Override
+		public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+			try {
+				objects.put(request.key(), body.contentStreamProvider().newStream().readAllBytes());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return PutObjectResponse.builder().build();
+		}
+
+		@Override
+		public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+			objects.remove(request.key());
+			onDelete.accept(request.key());
+			return DeleteObjectResponse.builder().build();
+		}
+
+		@Override
+		public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+			int maxKeys = request.maxKeys() == null ? 1000 : request.maxKeys();
+			List<S3Object> contents = new TreeMap<>(objects).keySet().stream()
+					.filter(key -> key.startsWith(request.prefix())).limit(maxKeys)
+					.map(key -> S3Object.builder().key(key).build()).toList();
+			return ListObjectsV2Response.builder().contents(contents).keyCount(contents.size()).isTruncated(false)
+					.build();
+		}
+
+		@Override
+		public String serviceName() {
+			return SERVICE_NAME;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package com.aygo.eciComm.service.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.aygo.eciComm.model.ObjectDeletion;
+import com.aygo.eciComm.model.enums.ItemStatus;
+import com.aygo.eciComm.repository.ObjectDeletionRepository;
+
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.S3Error;
+
+class ObjectDeletionQueueTest {
+
+	private final S3Client s3Client = mock(S3Client.class);
+	private final ObjectDeletionRepository repository = mock(ObjectDeletionRepository.class);
+	private final List<String> saved = new ArrayList<>();
+	private ObjectDeletionQueue queue;
+
+	@BeforeEach
+	void setUp() {
+		queue = new ObjectDeletionQueue();
+		ReflectionTestUtils.setField(queue, "s3Client", s3Client);
+		ReflectionTestUtils.setField(queue, "objectDeletionRepository", repository);
+		ReflectionTestUtils.setField(queue, "batchSize", 1000);
+		ReflectionTestUtils.setField(queue, "maxAttempts", 3);
+		ReflectionTestUtils.setField(queue, "initialBackoff", Duration.ZERO);
+		ReflectionTestUtils.setField(queue, "maxBackoff", Duration.ZERO);
+
+		// The same bean is saved again on every retry, record what each save wrote
+		doAnswer(invocation -> {
+			ObjectDeletion deletion = invocation.getArgument(0);
+			saved.add(deletion.getObjectKey() + " attempts=" + deletion.getAttempts() + " status="
+					+ deletion.getStatus());
+			return deletion;
+		}).when(repository).save(any(ObjectDeletion.class));
+	}
+
+	@Test
+	void deletedKeysAreForgotten() {
+		when(s3Client.deleteObjects(any(DeleteObjectsRequest.class)))
+				.thenReturn(DeleteObjectsResponse.builder().build());
+
+		queue.enqueue("bucket", "a");
+		queue.enqueue("bucket", "b");
+		queue.drain();
+
+		assertThat(queue.size()).isZero();
+		verify(repository)
+				.deleteAll(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of("bucket/a", "bucket/b"))));
+	}
+
+	@Test
+	void failedKeysAreRetriedAndPersistedUntilGivenUp() {
+		when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder()
+				.errors(S3Error.builder().key("a").code("AccessDenied").message("denied").build()).build());
+
+		queue.enqueue("bucket", "a");
+		queue.drain();
+
+		assertThat(saved).containsExactly("a attempts=0 status=null", "a attempts=1 status=null",
+				"a attempts=2 status=null", "a attempts=3 status=INACTIVE");
+		assertThat(queue.size()).isZero();
+	}
+
+	@Test
+	void failedCallRetriesEveryKeyOfTheBatch() {
+		when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenThrow(new IllegalStateException("down"))
+				.thenReturn(DeleteObjectsResponse.builder().build());
+
+		queue.enqueue("bucket", "a");
+		queue.enqueue("bucket", "b");
+		queue.drain();
+
+		assertThat(saved).contains("a attempts=1 status=null", "b attempts=1 status=null");
+		assertThat(queue.size()).isZero();
+	}
+
+	@Test
+	void recoveredDeletionsAreQueuedAgain() {
+		ObjectDeletion pending = new ObjectDeletion("bucket", "c");
+		pending.setStatus(ItemStatus.ACTIVE);
+		when(repository.streamPending()).thenReturn(Stream.of(pending));
+
+		queue.recover();
+
+		assertThat(queue.size()).isEqualTo(1);
+	}
+}
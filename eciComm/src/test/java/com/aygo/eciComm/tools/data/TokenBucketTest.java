@@ -0,0 +1,58 @@
+package com.aygo.eciComm.tools.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TokenBucketTest {
+
+	@Test
+	void burstIsFreeThenDebtIsPaidAtTheRate() {
+		TokenBucket bucket = new TokenBucket(100, 10);
+
+		assertThat(reserve(bucket, 10)).isZero();
+		// 5 permits at 100/s, less whatever refilled since the last call
+		assertThat(reserve(bucket, 5)).isBetween(millis(40), millis(50));
+		// The debt carries over to the next caller
+		assertThat(reserve(bucket, 5)).isBetween(millis(90), millis(100));
+	}
+
+	@Test
+	void idleTimeRefillsUpToTheBurstOnly() {
+		TokenBucket bucket = new TokenBucket(100, 10);
+		reserve(bucket, 10);
+		ReflectionTestUtils.setField(bucket, "refilledAt", System.nanoTime() - Duration.ofHours(1).toNanos());
+
+		assertThat(reserve(bucket, 10)).isZero();
+		assertThat(reserve(bucket, 1)).isBetween(millis(5), millis(10));
+	}
+
+	@Test
+	void requestsLargerThanTheBurstWaitForTheWholeDebt() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(1000, 1);
+		bucket.acquire(1);
+
+		long start = System.nanoTime();
+		bucket.acquire(20);
+
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(millis(15));
+	}
+
+	@Test
+	void nonPositiveRateDisablesTheLimit() {
+		assertThat(reserve(new TokenBucket(0, 10), 1_000_000)).isZero();
+		assertThat(reserve(new TokenBucket(-1, 10), 1_000_000)).isZero();
+	}
+
+	private static long reserve(TokenBucket bucket, double permits) {
+		return ReflectionTestUtils.<Long>invokeMethod(bucket, "reserve", permits);
+	}
+
+	private static long millis(long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+}
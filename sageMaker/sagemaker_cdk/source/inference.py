@@ -2,43 +2,130 @@
 import os
 import json
 import pickle
+import struct
 import pandas as pd
 import numpy as np
+from scipy.sparse import csr_matrix
 from train import prepare_features  # Reuse preprocessing from train.py
 
+# Request kinds the service sends in one batch, each answered by its own model.
+# In InferenceKind order, the binary encoding sends the position.
+KINDS = ('preferences', 'recommendations')
+
+# Packed FeatureVectors, aws.sagemaker.features.content-type on the service side
+SPARSE_CONTENT_TYPE = 'application/x-eci-sparse-features'
+SPARSE_MAGIC = b'ECF2'
+
 def model_fn(model_dir):
-    """Load model from the model_dir."""
+    """Load model from the model_dir.
+
+    <kind>_model.pkl, when deployed next to model.pkl, answers the service requests of that kind.
+    """
     try:
         model = pickle.load(open(os.path.join(model_dir, 'model.pkl'), 'rb'))
         encoders = pickle.load(open(os.path.join(model_dir, 'encoders.pkl'), 'rb'))
-        return {'model': model, 'encoders': encoders}
+        kind_models = {}
+        for kind in KINDS:
+            path = os.path.join(model_dir, f'{kind}_model.pkl')
+            if os.path.exists(path):
+                kind_models[kind] = pickle.load(open(path, 'rb'))
+        return {'model': model, 'encoders': encoders, 'kind_models': kind_models}
     except Exception as e:
         raise Exception(f"Error loading model: {str(e)}")
 
+def decode_sparse_features(body):
+    """Decode the packed FeatureVectors InferenceBatcher sends.
+
+    ASCII "ECF2", int32 dimension, int32 count, then per instance int32 kind, int32 nnz,
+    int32[nnz] indices and float32[nnz] values, all little-endian.
+    Returns the instance kinds, the dimension and the rows as CSR indptr, indices and values.
+    """
+    if bytes(body[:4]) != SPARSE_MAGIC:
+        raise ValueError("Body is not an ECF2 sparse feature batch")
+    dimension, count = struct.unpack_from('<ii', body, 4)
+
+    offset = 12
+    kinds, indptr, indices, values = [], [0], [], []
+    for _ in range(count):
+        kind, nnz = struct.unpack_from('<ii', body, offset)
+        offset += 8
+        indices.extend(struct.unpack_from(f'<{nnz}i', body, offset))
+        offset += 4 * nnz
+        values.extend(struct.unpack_from(f'<{nnz}f', body, offset))
+        offset += 4 * nnz
+        kinds.append(KINDS[kind])
+        indptr.append(len(indices))
+
+    if offset != len(body):
+        raise ValueError(f"{len(body) - offset} bytes left over after {count} instances")
+    return kinds, dimension, indptr, indices, values
+
 def input_fn(request_body, request_content_type):
-    """Parse input data."""
+    """Parse input data.
+
+    The service batches requests as {"instances": [...]}, one record per instance, or as packed
+    sparse feature vectors, one matrix row per instance. Any other JSON body is read as a single
+    frame, as before batching.
+    """
+    if request_content_type == SPARSE_CONTENT_TYPE:
+        kinds, dimension, indptr, indices, values = decode_sparse_features(request_body)
+        matrix = csr_matrix((np.asarray(values, dtype=np.float32), np.asarray(indices, dtype=np.int32),
+                             np.asarray(indptr, dtype=np.int32)), shape=(len(kinds), dimension))
+        return {'kinds': kinds, 'matrix': matrix, 'batched': True}
     if request_content_type == 'application/json':
         data = json.loads(request_body)
-        return pd.DataFrame.from_dict(data)
+        if isinstance(data, dict) and 'instances' in data:
+            return {'frame': pd.DataFrame.from_records(data['instances']), 'batched': True}
+        return {'frame': pd.DataFrame.from_dict(data), 'batched': False}
     raise ValueError(f"Unsupported content type: {request_content_type}")
 
+def predict_by_kind(kinds, select, model_dict):
+    """Predict each instance with the model for its kind, in instance order.
+
+    select(rows) returns the model input for the given instance positions.
+    """
+    predictions = [None] * len(kinds)
+    for kind in dict.fromkeys(kinds):
+        model = model_dict['kind_models'].get(kind)
+        if model is None:
+            raise ValueError(f"No model deployed for {kind} requests")
+        rows = [i for i, instance_kind in enumerate(kinds) if instance_kind == kind]
+        for row, prediction in zip(rows, model.predict(select(rows))):
+            predictions[row] = prediction.tolist() if hasattr(prediction, 'tolist') else prediction
+    return {'predictions': predictions}
+
 def predict_fn(input_data, model_dict):
     """Make prediction using model."""
     try:
+        if 'matrix' in input_data:
+            matrix = input_data['matrix']
+            return predict_by_kind(input_data['kinds'], lambda rows: matrix[rows], model_dict)
+
+        frame = input_data['frame']
+
+        # Service requests carry their kind, a mixed batch is split between the models
+        if input_data['batched'] and 'kind' in frame.columns:
+            features = frame.drop(columns='kind')
+            return predict_by_kind(frame['kind'].tolist(), lambda rows: features.iloc[rows], model_dict)
+
         model = model_dict['model']
         encoders = model_dict['encoders']
 
         categorical_columns = ['age_group', 'gender', 'location', 'preferred_categories']
         numerical_columns = ['avg_order_value', 'total_orders']
 
-        X_processed, _ = prepare_features(input_data, categorical_columns, numerical_columns)
+        X_processed, _ = prepare_features(frame, categorical_columns, numerical_columns)
         prediction = model.predict(X_processed)
 
-        # Convert days prediction back to dates
-        reference_date = encoders['reference_date']
-        predicted_dates = pd.Timestamp(reference_date) + pd.Timedelta(days=float(prediction))
+        # Convert days prediction back to dates, one per row
+        reference_date = pd.Timestamp(encoders['reference_date'])
+        predicted_dates = [(reference_date + pd.Timedelta(days=float(days))).strftime('%Y-%m-%d')
+                           for days in prediction]
 
-        return predicted_dates.strftime('%Y-%m-%d').tolist()
+        # Batched callers match predictions to instances by position
+        if input_data['batched']:
+            return {'predictions': predicted_dates}
+        return predicted_dates
     except Exception as e:
         raise Exception(f"Error during prediction: {str(e)}")
 